@@ -0,0 +1,54 @@
+package com.cop.archive;
+
+import java.util.List;
+
+/**
+ * What the archiver moves out of a hot table, and the tables that have to move with it.
+ * <p>
+ * Dependents are rows that only exist for the archived one (join rows, element collections,
+ * decisions, plus any other table with a foreign key to it, found at startup); they are folded
+ * into its payload and deleted with it. Blockers keep a row hot while something still live points
+ * at it: a report stays until the events it fed are archived, since archiving an event releases
+ * its links and decisions.
+ */
+public enum ArchiveKind {
+    EVENT("events", "COALESCE(t.end_time, t.start_time, t.created_at)", "t.classification_level", "t.type", "event_id",
+        List.of(new Link("event_reports", "event_id", null), new Link("decisions", "event_id", null)),
+        List.of()),
+    REPORT("intelligence_reports", "t.event_time", "t.clearance_level", "t.title", "report_id",
+        List.of(new Link("report_metadata", "report_id", null), new Link("report_signatures", "report_id", null),
+            new Link("decisions", "report_id", null)),
+        List.of(new Link("event_reports", "report_id", null), new Link("decisions", "report_id", "x.event_id IS NOT NULL")));
+
+    /** Rows of {@code table} whose {@code column} holds the archived row's id, optionally narrowed by {@code condition} on {@code x}. */
+    record Link(String table, String column, String condition) {
+    }
+
+    final String table;
+    final String timeExpression;
+    final String classificationExpression;
+    final String titleExpression;
+    final String fileColumn;
+    final List<Link> dependents;
+    final List<Link> blockers;
+
+    ArchiveKind(String table, String timeExpression, String classificationExpression, String titleExpression,
+                String fileColumn, List<Link> dependents, List<Link> blockers) {
+        this.table = table;
+        this.timeExpression = timeExpression;
+        this.classificationExpression = classificationExpression;
+        this.titleExpression = titleExpression;
+        this.fileColumn = fileColumn;
+        this.dependents = dependents;
+        this.blockers = blockers;
+    }
+
+    public static ArchiveKind of(String value) {
+        for (ArchiveKind kind : values()) {
+            if (kind.name().equalsIgnoreCase(value)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown archive kind: " + value);
+    }
+}
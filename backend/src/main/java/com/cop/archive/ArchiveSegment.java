@@ -0,0 +1,177 @@
+package com.cop.archive;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The on-storage format of archived rows: a ZSTD-compressed Parquet file per archival batch,
+ * sorted by entity id. The summary columns are stored as their own columns so the files can be
+ * queried in place by analytics tools; {@code payload} holds the full row and its dependents as
+ * JSON, which is what a read-through rebuilds the entity from.
+ * <p>
+ * Row groups are kept small so a lookup by id, filtered on the row-group statistics, only reads
+ * the footer and one group.
+ */
+final class ArchiveSegment {
+    static final String CONTENT_TYPE = "application/vnd.apache.parquet";
+
+    private static final MessageType SCHEMA = Types.buildMessage()
+        .required(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("entity_id")
+        .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("status")
+        .optional(PrimitiveTypeName.INT64)
+            .as(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MICROS)).named("time")
+        .optional(PrimitiveTypeName.DOUBLE).named("lon")
+        .optional(PrimitiveTypeName.DOUBLE).named("lat")
+        .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("classification")
+        .optional(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.stringType()).named("title")
+        .required(PrimitiveTypeName.BINARY).as(LogicalTypeAnnotation.jsonType()).named("payload")
+        .named("archive_row");
+
+    // A lookup only needs these two; the other column chunks of the row group are not fetched
+    private static final MessageType LOOKUP_PROJECTION = new MessageType("archive_row",
+        SCHEMA.getType("entity_id"), SCHEMA.getType("payload"));
+
+    /** One archived row: the summary also kept in {@code archive_index}, plus the full payload. */
+    record Row(String entityId, String status, Instant time, Double lon, Double lat, String classification, String title, String payload) {
+    }
+
+    private ArchiveSegment() {
+    }
+
+    /**
+     * Encodes rows, which must already be sorted by entity id, into one segment.
+     */
+    static byte[] write(List<Row> rows, int rowGroupBytes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        SimpleGroupFactory groups = new SimpleGroupFactory(SCHEMA);
+        try (ParquetWriter<Group> writer = ExampleParquetWriter.builder(new BufferOutputFile(bytes))
+                .withConf(new Configuration(false))
+                .withType(SCHEMA)
+                .withCompressionCodec(CompressionCodecName.ZSTD)
+                .withRowGroupSize((long) rowGroupBytes)
+                .withPageSize(Math.min(rowGroupBytes, ParquetWriter.DEFAULT_PAGE_SIZE))
+                .withDictionaryEncoding(true)
+                .build()) {
+            for (Row row : rows) {
+                Group group = groups.newGroup().append("entity_id", row.entityId());
+                if (row.status() != null) {
+                    group.append("status", row.status());
+                }
+                if (row.time() != null) {
+                    group.append("time", ChronoUnit.MICROS.between(Instant.EPOCH, row.time()));
+                }
+                if (row.lon() != null && row.lat() != null) {
+                    group.append("lon", row.lon()).append("lat", row.lat());
+                }
+                if (row.classification() != null) {
+                    group.append("classification", row.classification());
+                }
+                if (row.title() != null) {
+                    group.append("title", row.title());
+                }
+                writer.write(group.append("payload", row.payload()));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * The payload of {@code entityId}, skipping every row group whose id range cannot hold it.
+     */
+    static Optional<String> findPayload(InputFile file, String entityId) throws IOException {
+        FilterCompat.Filter filter = FilterCompat.get(
+            FilterApi.eq(FilterApi.binaryColumn("entity_id"), Binary.fromString(entityId)));
+        Configuration conf = new Configuration(false);
+        conf.set(ReadSupport.PARQUET_READ_SCHEMA, LOOKUP_PROJECTION.toString());
+        try (ParquetReader<Group> reader = new GroupReader(file)
+                .withConf(conf)
+                .withFilter(filter)
+                .build()) {
+            for (Group group = reader.read(); group != null; group = reader.read()) {
+                if (entityId.equals(group.getString("entity_id", 0))) {
+                    return Optional.of(group.getString("payload", 0));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static final class GroupReader extends ParquetReader.Builder<Group> {
+        GroupReader(InputFile file) {
+            super(file);
+        }
+
+        @Override
+        protected ReadSupport<Group> getReadSupport() {
+            return new GroupReadSupport();
+        }
+    }
+
+    /** Collects the file in memory; a segment is bounded by the archival batch size. */
+    private static final class BufferOutputFile implements OutputFile {
+        private final ByteArrayOutputStream bytes;
+
+        BufferOutputFile(ByteArrayOutputStream bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public PositionOutputStream create(long blockSizeHint) {
+            return new PositionOutputStream() {
+                @Override
+                public long getPos() {
+                    return bytes.size();
+                }
+
+                @Override
+                public void write(int b) {
+                    bytes.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    bytes.write(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+            return create(blockSizeHint);
+        }
+
+        @Override
+        public boolean supportsBlockSize() {
+            return false;
+        }
+
+        @Override
+        public long defaultBlockSize() {
+            return 0;
+        }
+    }
+}
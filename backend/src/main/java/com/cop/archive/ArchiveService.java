@@ -0,0 +1,587 @@
+package com.cop.archive;
+
+import com.cop.enums.ClassificationLevel;
+import com.cop.outbox.OutboxPublisher;
+import io.minio.BucketExistsArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.Result;
+import io.minio.SetObjectTagsArgs;
+import io.minio.messages.Item;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves closed events and old reports out of the hot tables into Parquet segments in the archive
+ * bucket, leaving one {@code archive_index} row per archived record so it can still be found and
+ * read back by id.
+ * <p>
+ * A batch is read and uploaded as a segment outside any transaction, so no lock is held while the
+ * object store is slow. A short transaction then locks the rows ({@code SKIP LOCKED}), keeps those
+ * whose payload is still the one written, records the segment, indexes and deletes them with their
+ * dependents. Rows that changed or were taken by another instance in between stay hot for the next
+ * batch. A segment the transaction recorded nothing from is removed again. One whose transaction
+ * failed is left in place, since a failure reported at commit may still have committed; it and any
+ * left behind by an instance that stopped after uploading are found by the orphan sweep at the end
+ * of each run. A row is never lost and never readable from both places.
+ * <p>
+ * Attachments of archived records stay in {@code cop-files} under the same name, so downloads are
+ * unaffected; they are tagged so a MinIO lifecycle rule can transition them to a cold tier, which
+ * MinIO reads back from transparently.
+ */
+@Service
+public class ArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveService.class);
+
+    static final String DEPENDENTS = "_dependents";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private MinioClient minioClient;
+
+    @Value("${archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${archive.bucket:cop-archive}")
+    private String bucket;
+
+    @Value("${minio.bucket-name:cop-files}")
+    private String filesBucket;
+
+    @Value("${archive.events.statuses:ARCHIVED,REJECTED}")
+    private String[] eventStatuses;
+
+    @Value("${archive.events.age:P90D}")
+    private Duration eventAge;
+
+    @Value("${archive.reports.statuses:APPROVED,REJECTED}")
+    private String[] reportStatuses;
+
+    @Value("${archive.reports.age:P365D}")
+    private Duration reportAge;
+
+    @Value("${archive.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${archive.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    // Small groups keep a lookup by id to one short ranged read; ZSTD does well on them regardless
+    @Value("${archive.row-group-bytes:1048576}")
+    private int rowGroupBytes;
+
+    @Value("${archive.read-window-bytes:262144}")
+    private int readWindowBytes;
+
+    @Value("${archive.cache-size:2000}")
+    private int cacheSize;
+
+    @Value("${archive.attachment-tag:cop-tier=archive}")
+    private String attachmentTag;
+
+    // Longer than any batch takes between its upload and its commit
+    @Value("${archive.orphan-grace:PT1H}")
+    private Duration orphanGrace;
+
+    private TransactionTemplate transactionTemplate;
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final Map<ArchiveKind, Plan> plans = new EnumMap<>(ArchiveKind.class);
+    private Map<String, String> payloadCache;
+    private volatile boolean bucketReady;
+    private volatile Map<String, Object> lastRun;
+
+    /** The SQL for one kind, built once the tables present in this database are known. */
+    private record Plan(String candidates, String lock, List<String> deletes, boolean files) {
+    }
+
+    /** How many eligible rows a batch read, and how many of them it archived. */
+    private record Batch(int candidates, int archived) {
+    }
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // Archived rows never change, so a read-through can be served from memory once fetched
+        payloadCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Scheduled(cron = "${archive.cron:0 20 2 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    /**
+     * Archives everything currently eligible, up to {@code max-batches-per-run} batches per kind.
+     * Events go first because archiving them is what releases their reports.
+     */
+    public Map<String, Object> run() {
+        if (!runLock.tryLock()) {
+            return Map.of("status", "ALREADY_RUNNING");
+        }
+        try {
+            long started = System.nanoTime();
+            ensureBucket();
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (ArchiveKind kind : ArchiveKind.values()) {
+                long rows = 0;
+                for (int i = 0; i < maxBatchesPerRun; i++) {
+                    Batch batch = archiveBatch(kind);
+                    rows += batch.archived();
+                    // Nothing archived means the rows read are busy elsewhere; reading them again would not help
+                    if (batch.candidates() < batchSize || batch.archived() == 0) {
+                        break;
+                    }
+                }
+                result.put(kind.name(), rows);
+            }
+            result.put("attachmentsTagged", tagAttachments());
+            result.put("orphanedSegmentsRemoved", removeOrphanedSegments());
+            result.put("finishedAt", Instant.now());
+            log.info("Archived {} in {} ms", result, (System.nanoTime() - started) / 1_000_000);
+            lastRun = result;
+            return result;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * The archived payload of a record: the row as JSON plus its dependents under
+     * {@value #DEPENDENTS}, or empty if it was never archived or is classified above
+     * {@code clearance}.
+     */
+    public Optional<String> findPayload(ArchiveKind kind, Object id, ClassificationLevel clearance) {
+        String[] visible = Arrays.stream(ClassificationLevel.values())
+            .filter(level -> level.canAccess(clearance))
+            .map(Enum::name)
+            .toArray(String[]::new);
+        return findPayload(kind, id, visible);
+    }
+
+    /**
+     * The payload regardless of its classification, for rebuilding entities behind lookups that
+     * check access the same way for live and archived rows.
+     */
+    Optional<String> findPayload(ArchiveKind kind, Object id) {
+        return findPayload(kind, id, (String[]) null);
+    }
+
+    private Optional<String> findPayload(ArchiveKind kind, Object id, String[] classifications) {
+        String entityId = String.valueOf(id);
+        // The index is read every time so the classification is checked; only the segment read is cached
+        List<Map<String, Object>> located = classifications == null
+            ? jdbcTemplate.queryForList(
+                "SELECT s.bucket, s.object_key, s.byte_size FROM archive_index i JOIN archive_segments s ON s.id = i.segment_id " +
+                "WHERE i.entity_type = ? AND i.entity_id = ?", kind.name(), entityId)
+            : jdbcTemplate.queryForList(
+                "SELECT s.bucket, s.object_key, s.byte_size FROM archive_index i JOIN archive_segments s ON s.id = i.segment_id " +
+                "WHERE i.entity_type = ? AND i.entity_id = ? AND COALESCE(i.classification, 'UNCLASSIFIED') = ANY(?)",
+                kind.name(), entityId, classifications);
+        if (located.isEmpty()) {
+            return Optional.empty();
+        }
+        String cacheKey = kind.name() + ':' + entityId;
+        String cached = payloadCache.get(cacheKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Map<String, Object> segment = located.get(0);
+        ObjectRangeInputFile file = new ObjectRangeInputFile(minioClient, (String) segment.get("bucket"),
+            (String) segment.get("object_key"), ((Number) segment.get("byte_size")).longValue(), readWindowBytes);
+        Optional<String> payload;
+        try {
+            payload = ArchiveSegment.findPayload(file, entityId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archived " + kind + " " + entityId + ": " + e.getMessage(), e);
+        }
+        payload.ifPresent(p -> payloadCache.put(cacheKey, p));
+        return payload;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("bucket", bucket);
+        status.put("archived", jdbcTemplate.queryForList(
+            "SELECT entity_type, count(*) AS records, min(archived_time) AS oldest, max(archived_time) AS newest " +
+            "FROM archive_index GROUP BY entity_type ORDER BY entity_type"));
+        status.put("segments", jdbcTemplate.queryForMap(
+            "SELECT count(*) AS count, COALESCE(sum(byte_size), 0) AS bytes, COALESCE(sum(row_count), 0) AS rows FROM archive_segments"));
+        status.put("lastRun", lastRun);
+        return status;
+    }
+
+    private Batch archiveBatch(ArchiveKind kind) {
+        Plan plan = plan(kind);
+        String[] statuses = kind == ArchiveKind.EVENT ? eventStatuses : reportStatuses;
+        Duration age = kind == ArchiveKind.EVENT ? eventAge : reportAge;
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(age));
+        List<Object> ids = new ArrayList<>();
+        List<ArchiveSegment.Row> rows = new ArrayList<>();
+        Map<String, String> digests = new HashMap<>();
+        jdbcTemplate.query(plan.candidates(), rs -> {
+            ids.add(rs.getObject("id"));
+            Timestamp time = rs.getTimestamp("archived_time");
+            double lon = rs.getDouble("lon");
+            boolean located = !rs.wasNull();
+            ArchiveSegment.Row row = new ArchiveSegment.Row(rs.getString("entity_id"), rs.getString("status"),
+                time != null ? time.toInstant() : null, located ? lon : null, located ? rs.getDouble("lat") : null,
+                rs.getString("classification"), rs.getString("title"), rs.getString("payload"));
+            rows.add(row);
+            digests.put(row.entityId(), digest(row.payload()));
+        }, statuses, cutoff, batchSize);
+        if (rows.isEmpty()) {
+            return new Batch(0, 0);
+        }
+        rows.sort(Comparator.comparing(ArchiveSegment.Row::entityId));
+        byte[] segment;
+        try {
+            segment = ArchiveSegment.write(rows, rowGroupBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String object = objectKey(kind);
+        upload(object, segment);
+
+        // On failure the segment stays for the orphan sweep, which removes it only if no row refers to it
+        Integer archived = transactionTemplate.execute(status ->
+            record(kind, plan, object, segment.length, rows, typedArray(ids), digests, statuses, cutoff));
+        if (archived == null || archived == 0) {
+            removeQuietly(object);
+            return new Batch(rows.size(), 0);
+        }
+        return new Batch(rows.size(), archived);
+    }
+
+    /**
+     * Locks what is left of the batch, and indexes and deletes the rows whose payload is still the
+     * one in the uploaded segment. Rows in the segment but not indexed are never read from it, so
+     * the segment's count and time range cover only the indexed ones.
+     */
+    private int record(ArchiveKind kind, Plan plan, String object, long byteSize, List<ArchiveSegment.Row> rows,
+                       Object candidateIds, Map<String, String> digests, String[] statuses, Timestamp cutoff) {
+        List<Object> ids = new ArrayList<>();
+        Set<String> unchanged = new HashSet<>();
+        jdbcTemplate.query(plan.lock(), rs -> {
+            String entityId = rs.getString("entity_id");
+            if (rs.getString("digest").equals(digests.get(entityId))) {
+                ids.add(rs.getObject("id"));
+                unchanged.add(entityId);
+            }
+        }, candidateIds, statuses, cutoff);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<ArchiveSegment.Row> archived = rows.stream().filter(row -> unchanged.contains(row.entityId())).toList();
+
+        Long segmentId = jdbcTemplate.queryForObject(
+            "INSERT INTO archive_segments (entity_type, bucket, object_key, row_count, byte_size, min_time, max_time) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id", Long.class,
+            kind.name(), bucket, object, archived.size(), byteSize,
+            archived.stream().map(ArchiveSegment.Row::time).filter(t -> t != null).min(Comparator.naturalOrder()).map(Timestamp::from).orElse(null),
+            archived.stream().map(ArchiveSegment.Row::time).filter(t -> t != null).max(Comparator.naturalOrder()).map(Timestamp::from).orElse(null));
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO archive_index (entity_type, entity_id, segment_id, status, archived_time, location, classification, title) " +
+            "VALUES (?, ?, ?, ?, ?, ST_SetSRID(ST_MakePoint(?, ?), 4326), ?, ?) " +
+            "ON CONFLICT (entity_type, entity_id) DO UPDATE SET segment_id = EXCLUDED.segment_id, status = EXCLUDED.status, " +
+            "archived_time = EXCLUDED.archived_time, location = EXCLUDED.location, classification = EXCLUDED.classification, " +
+            "title = EXCLUDED.title, archived_at = NOW()",
+            archived, 1000, (ps, row) -> {
+                ps.setString(1, kind.name());
+                ps.setString(2, row.entityId());
+                ps.setLong(3, segmentId);
+                ps.setString(4, row.status());
+                ps.setTimestamp(5, row.time() != null ? Timestamp.from(row.time()) : null);
+                ps.setObject(6, row.lon());
+                ps.setObject(7, row.lat());
+                ps.setString(8, row.classification());
+                ps.setString(9, row.title());
+            });
+
+        Object idArray = typedArray(ids);
+        if (plan.files()) {
+            jdbcTemplate.update("UPDATE files SET archived_at = NOW() WHERE archived_at IS NULL AND " + kind.fileColumn + "::text = ANY(?)",
+                (Object) unchanged.toArray(String[]::new));
+        }
+        for (String delete : plan.deletes()) {
+            jdbcTemplate.update(delete, idArray);
+        }
+        if (kind == ArchiveKind.REPORT) {
+            // Subscribers drop archived reports from the live picture, as they would deleted ones
+            Map<String, Map<String, Object>> published = new LinkedHashMap<>();
+            archived.forEach(row -> published.put(row.entityId(), Map.of()));
+            outboxPublisher.publishBatch(OutboxPublisher.REPORT, "ARCHIVED", published);
+        }
+        return archived.size();
+    }
+
+    private synchronized Plan plan(ArchiveKind kind) {
+        Plan plan = plans.get(kind);
+        if (plan != null) {
+            return plan;
+        }
+        List<ArchiveKind.Link> dependents = new ArrayList<>();
+        for (ArchiveKind.Link link : kind.dependents) {
+            if (exists(link.table())) {
+                dependents.add(link);
+            }
+        }
+        // Anything else with a foreign key to the table would block the delete; take it along. Keys
+        // into a partitioned table are kept by triggers and listed in cop_partition_references instead
+        String references = "SELECT c.conrelid::regclass::text AS table_name, a.attname AS column_name FROM pg_constraint c " +
+            "JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1] " +
+            "WHERE c.contype = 'f' AND c.confrelid = to_regclass(?) AND c.conrelid <> c.confrelid " +
+            "AND array_length(c.conkey, 1) = 1 AND c.conrelid IS DISTINCT FROM to_regclass('files')";
+        List<Object> args = new ArrayList<>(List.of(kind.table));
+        if (exists("cop_partition_references")) {
+            references += " UNION SELECT child_table, child_column FROM cop_partition_references " +
+                "WHERE to_regclass(parent_table) = to_regclass(?) AND to_regclass(child_table) IS DISTINCT FROM to_regclass('files')";
+            args.add(kind.table);
+        }
+        jdbcTemplate.query(references,
+            rs -> {
+                ArchiveKind.Link link = new ArchiveKind.Link(rs.getString("table_name"), rs.getString("column_name"), null);
+                boolean known = dependents.stream().anyMatch(d -> d.table().equals(link.table()) && d.column().equals(link.column()))
+                    || kind.blockers.stream().anyMatch(b -> b.table().equals(link.table()) && b.column().equals(link.column()));
+                if (!known) {
+                    dependents.add(link);
+                }
+            }, args.toArray());
+
+        StringBuilder payload = new StringBuilder("jsonb_build_object(");
+        for (int i = 0; i < dependents.size(); i++) {
+            ArchiveKind.Link link = dependents.get(i);
+            payload.append(i == 0 ? "" : ", ").append('\'').append(link.table()).append("', ")
+                // Ordered so the payload reads the same each time the row is unchanged
+                .append("(SELECT COALESCE(jsonb_agg(to_jsonb(x) ORDER BY to_jsonb(x)::text), '[]'::jsonb) FROM ").append(link.table())
+                .append(" x WHERE x.").append(link.column()).append(" = t.id)");
+        }
+        payload.append(')');
+        // Location as hex EWKB, which the geometry type reads back exactly
+        String payloadExpression = "(to_jsonb(t) || jsonb_build_object('location', t.location::text, '" + DEPENDENTS + "', "
+            + payload + "))::text";
+        StringBuilder eligible = new StringBuilder()
+            .append("t.status = ANY(?) AND ").append(kind.timeExpression).append(" < ?");
+        for (ArchiveKind.Link blocker : kind.blockers) {
+            if (exists(blocker.table())) {
+                eligible.append(" AND NOT EXISTS (SELECT 1 FROM ").append(blocker.table()).append(" x WHERE x.")
+                    .append(blocker.column()).append(" = t.id")
+                    .append(blocker.condition() != null ? " AND " + blocker.condition() : "").append(')');
+            }
+        }
+        String candidates = "SELECT t.id, t.id::text AS entity_id, t.status::text AS status, " + kind.timeExpression + " AS archived_time, " +
+            "ST_X(t.location) AS lon, ST_Y(t.location) AS lat, " +
+            kind.classificationExpression + "::text AS classification, " +
+            kind.titleExpression + "::text AS title, " +
+            payloadExpression + " AS payload " +
+            "FROM " + kind.table + " t WHERE " + eligible + " ORDER BY t.id LIMIT ?";
+        String lock = "SELECT t.id, t.id::text AS entity_id, md5(convert_to(" + payloadExpression + ", 'UTF8')) AS digest " +
+            "FROM " + kind.table + " t WHERE t.id = ANY(?) AND " + eligible + " FOR UPDATE OF t SKIP LOCKED";
+
+        List<String> deletes = new ArrayList<>();
+        for (ArchiveKind.Link link : dependents) {
+            deletes.add("DELETE FROM " + link.table() + " WHERE " + link.column() + " = ANY(?)");
+        }
+        deletes.add("DELETE FROM " + kind.table + " WHERE id = ANY(?)");
+        plan = new Plan(candidates, lock, deletes, exists("files"));
+        plans.put(kind, plan);
+        log.info("Archiving {} from {} with dependents {}", kind, kind.table, dependents.stream().map(ArchiveKind.Link::table).toList());
+        return plan;
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    /**
+     * Tags the objects of files whose record was archived, a bounded number per run; the rest are
+     * picked up by the next one.
+     */
+    private int tagAttachments() {
+        if (!exists("files")) {
+            return 0;
+        }
+        int separator = attachmentTag.indexOf('=');
+        Map<String, String> tags = Map.of(attachmentTag.substring(0, separator), attachmentTag.substring(separator + 1));
+        String prefix = "/" + filesBucket + "/";
+        int tagged = 0;
+        List<Map<String, Object>> files = jdbcTemplate.queryForList(
+            "SELECT id, s3_url FROM files WHERE archived_at IS NOT NULL AND NOT archive_tagged ORDER BY archived_at LIMIT ?", batchSize);
+        for (Map<String, Object> file : files) {
+            String url = (String) file.get("s3_url");
+            int at = url.indexOf(prefix);
+            if (at >= 0) {
+                try {
+                    minioClient.setObjectTags(SetObjectTagsArgs.builder()
+                        .bucket(filesBucket).object(url.substring(at + prefix.length())).tags(tags).build());
+                } catch (Exception e) {
+                    log.warn("Cannot tag archived attachment {}: {}", file.get("id"), e.getMessage());
+                    continue;
+                }
+            }
+            jdbcTemplate.update("UPDATE files SET archive_tagged = TRUE WHERE id = ?", file.get("id"));
+            tagged++;
+        }
+        return tagged;
+    }
+
+    private String objectKey(ArchiveKind kind) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        return kind.name().toLowerCase() + "/" + today.getYear() + "/" + today + "-" + UUID.randomUUID() + ".parquet";
+    }
+
+    private void ensureBucket() {
+        if (bucketReady) {
+            return;
+        }
+        try {
+            if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build())) {
+                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Archive bucket " + bucket + " unavailable: " + e.getMessage(), e);
+        }
+        bucketReady = true;
+    }
+
+    private void upload(String object, byte[] segment) {
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                .bucket(bucket)
+                .object(object)
+                .stream(new ByteArrayInputStream(segment), segment.length, -1)
+                .contentType(ArchiveSegment.CONTENT_TYPE)
+                .build());
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot upload archive segment " + object + ": " + e.getMessage(), e);
+        }
+    }
+
+    private boolean removeQuietly(String object) {
+        try {
+            minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucket).object(object).build());
+            return true;
+        } catch (Exception e) {
+            log.warn("Archive segment {} left behind for the orphan sweep: {}", object, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Removes segments no {@code archive_segments} row refers to, left by an instance that stopped
+     * between uploading a segment and recording it. Younger ones may belong to a batch in flight.
+     */
+    private int removeOrphanedSegments() {
+        Instant uploadedBefore = Instant.now().minus(orphanGrace);
+        List<String> objects = new ArrayList<>();
+        int removed = 0;
+        for (Result<Item> result : minioClient.listObjects(ListObjectsArgs.builder().bucket(bucket).recursive(true).build())) {
+            Item item;
+            try {
+                item = result.get();
+            } catch (Exception e) {
+                log.warn("Cannot list archive bucket {} for orphaned segments: {}", bucket, e.getMessage());
+                break;
+            }
+            if (item.isDir() || item.lastModified().toInstant().isAfter(uploadedBefore)) {
+                continue;
+            }
+            objects.add(item.objectName());
+            if (objects.size() == 1000) {
+                removed += removeUnreferenced(objects);
+                objects.clear();
+            }
+        }
+        return removed + removeUnreferenced(objects);
+    }
+
+    private int removeUnreferenced(List<String> objects) {
+        if (objects.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT object_key FROM archive_segments WHERE bucket = ? AND object_key = ANY(?)", String.class,
+            bucket, objects.toArray(String[]::new)));
+        int removed = 0;
+        for (String object : objects) {
+            if (!referenced.contains(object) && removeQuietly(object)) {
+                log.info("Removed orphaned archive segment {}", object);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /** The hex MD5 of the payload's UTF-8 bytes, as the lock query computes it. */
+    private static String digest(String payload) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** The ids as an array of their own type (bigint or uuid), so {@code = ANY(?)} can use the keys. */
+    private static Object typedArray(List<Object> ids) {
+        Object array = Array.newInstance(ids.get(0).getClass(), ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Array.set(array, i, ids.get(i));
+        }
+        return array;
+    }
+}
@@ -0,0 +1,96 @@
+package com.cop.archive;
+
+import com.cop.entity.Decision;
+import com.cop.entity.Event;
+import com.cop.entity.IntelligenceReport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Turns archived payloads back into entities. Postgres rebuilds a row of the original table from
+ * the JSON ({@code jsonb_populate_record}), so Hibernate maps it exactly as it would a live row;
+ * the entity is then detached, since there is no row left to write it back to, and its
+ * collections are filled from the archived dependents.
+ */
+@Component
+public class ArchivedEntities {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public Optional<IntelligenceReport> report(Long id) {
+        return archiveService.findPayload(ArchiveKind.REPORT, id).map(payload -> {
+            IntelligenceReport report = rehydrate(ArchiveKind.REPORT.table, IntelligenceReport.class, payload);
+            Map<String, String> metadata = new HashMap<>();
+            for (JsonNode entry : dependents(payload).path("report_metadata")) {
+                metadata.put(entry.path("metadata_key").asText(), entry.path("metadata_value").asText(null));
+            }
+            report.setMetadata(metadata);
+            report.setArchived(true);
+            return report;
+        });
+    }
+
+    public Optional<Event> event(Long id) {
+        return archiveService.findPayload(ArchiveKind.EVENT, id).map(payload -> {
+            Event event = rehydrate(ArchiveKind.EVENT.table, Event.class, payload);
+            JsonNode dependents = dependents(payload);
+            Set<IntelligenceReport> reports = new HashSet<>();
+            for (JsonNode link : dependents.path("event_reports")) {
+                long reportId = link.path("report_id").asLong();
+                IntelligenceReport report = entityManager.find(IntelligenceReport.class, reportId);
+                if (report != null) {
+                    reports.add(report);
+                } else {
+                    report(reportId).ifPresent(reports::add);
+                }
+            }
+            event.setSourceReports(reports);
+            List<Decision> decisions = new ArrayList<>();
+            for (JsonNode row : dependents.path("decisions")) {
+                Decision decision = rehydrate("decisions", Decision.class, row.toString());
+                decision.setEvent(event);
+                decisions.add(decision);
+            }
+            event.setDecisions(decisions);
+            event.setArchived(true);
+            return event;
+        });
+    }
+
+    private <T> T rehydrate(String table, Class<T> type, String row) {
+        Object entity = entityManager.createNativeQuery(
+                "SELECT * FROM jsonb_populate_record(NULL::" + table + ", CAST(?1 AS jsonb))", type)
+            .setParameter(1, row)
+            .getSingleResult();
+        entityManager.detach(entity);
+        return type.cast(entity);
+    }
+
+    private JsonNode dependents(String payload) {
+        try {
+            return objectMapper.readTree(payload).path(ArchiveService.DEPENDENTS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable archive payload: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.cop.archive;
+
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A Parquet input over an object in MinIO that fetches only the byte ranges the reader asks for,
+ * through a read-ahead window so the footer and each column chunk cost one request rather than
+ * one per small read.
+ */
+final class ObjectRangeInputFile implements InputFile {
+    private final MinioClient minioClient;
+    private final String bucket;
+    private final String object;
+    private final long length;
+    private final int window;
+
+    ObjectRangeInputFile(MinioClient minioClient, String bucket, String object, long length, int window) {
+        this.minioClient = minioClient;
+        this.bucket = bucket;
+        this.object = object;
+        this.length = length;
+        this.window = window;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public SeekableInputStream newStream() {
+        return new RangeStream();
+    }
+
+    private final class RangeStream extends SeekableInputStream {
+        private long position;
+        private byte[] buffer = new byte[0];
+        private long bufferStart;
+
+        @Override
+        public long getPos() {
+            return position;
+        }
+
+        @Override
+        public void seek(long newPosition) throws IOException {
+            if (newPosition < 0 || newPosition > length) {
+                throw new EOFException("Seek to " + newPosition + " outside " + object + " (" + length + " bytes)");
+            }
+            position = newPosition;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position >= length) {
+                return -1;
+            }
+            fill(1);
+            return buffer[(int) (position++ - bufferStart)] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            int count = (int) Math.min(len, length - position);
+            fill(count);
+            System.arraycopy(buffer, (int) (position - bufferStart), b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void readFully(byte[] bytes) throws IOException {
+            readFully(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void readFully(byte[] bytes, int start, int len) throws IOException {
+            if (len > length - position) {
+                throw new EOFException("Read of " + len + " bytes at " + position + " runs past " + object);
+            }
+            if (read(bytes, start, len) != len && len > 0) {
+                throw new EOFException("Short read from " + object);
+            }
+        }
+
+        @Override
+        public int read(ByteBuffer target) throws IOException {
+            if (!target.hasRemaining()) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            int count = (int) Math.min(target.remaining(), length - position);
+            fill(count);
+            target.put(buffer, (int) (position - bufferStart), count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void readFully(ByteBuffer target) throws IOException {
+            if (target.remaining() > length - position) {
+                throw new EOFException("Read of " + target.remaining() + " bytes at " + position + " runs past " + object);
+            }
+            read(target);
+        }
+
+        /** Makes sure {@code [position, position + count)} is buffered, fetching at least a window. */
+        private void fill(int count) throws IOException {
+            if (position >= bufferStart && position + count <= bufferStart + buffer.length) {
+                return;
+            }
+            long wanted = Math.max(count, window);
+            // Near the end, take the whole tail: the footer length is read first, then the footer before it
+            long start = Math.max(0, Math.min(position, length - wanted));
+            long size = Math.min(wanted, length - start);
+            try (GetObjectResponse response = minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucket).object(object).offset(start).length(size).build())) {
+                buffer = response.readNBytes((int) size);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Cannot read " + object + " at " + start + ": " + e.getMessage(), e);
+            }
+            if (buffer.length != size) {
+                throw new EOFException("Short read from " + object + " at " + start);
+            }
+            bufferStart = start;
+        }
+    }
+}
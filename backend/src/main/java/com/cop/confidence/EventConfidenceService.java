@@ -0,0 +1,239 @@
+package com.cop.confidence;
+
+import com.cop.common.cache.CacheInvalidationBus;
+import com.cop.common.confidence.ConfidenceFactors;
+import com.cop.common.confidence.StoredConfidenceFactors;
+import com.cop.common.config.SystemConfig;
+import com.cop.entity.Event;
+import com.cop.entity.IntelligenceReport;
+import com.cop.enums.IntelligenceType;
+import com.cop.service.ReportDeduplicationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps {@code events.confidence_score} current as source reports are added, reviewed, edited or
+ * deleted. The per-source factors live under {@code confidence} in {@code fusion_metadata} (see
+ * {@link ConfidenceFactors}) with a running log-odds sum per group, so each change applies only
+ * the changed report's delta to its group instead of rescoring every source of the event. Events
+ * are locked {@code FOR UPDATE} in id order while their factors are rewritten.
+ * <p>
+ * The prior is read from {@code confidence_event_prior} whenever an event is rescored, so a new
+ * value reaches an existing event with the next change to any of its sources.
+ */
+@Service
+public class EventConfidenceService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SystemConfig systemConfig;
+
+    @Autowired
+    private ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+
+    @Value("${confidence.event-prior:0.2}")
+    private double defaultPrior;
+
+    // Overridable at runtime through confidence_event_prior and confidence_reliability_<type> in system_config
+    private SystemConfig.DoubleSetting prior;
+    private final Map<String, SystemConfig.DoubleSetting> reliability = new HashMap<>();
+
+    private record SourceReport(long id, String type, String status, Double confidence, Long submittedBy, String duplicateOf) {
+
+        static SourceReport of(IntelligenceReport report) {
+            return new SourceReport(report.getId(),
+                    report.getType() != null ? report.getType().name() : null,
+                    report.getStatus() != null ? report.getStatus().name() : null,
+                    report.getConfidenceScore(),
+                    report.getSubmittedBy() != null ? report.getSubmittedBy().getId() : null,
+                    report.getMetadata() != null ? report.getMetadata().get(ReportDeduplicationService.DUPLICATE_OF_KEY) : null);
+        }
+
+        static SourceReport of(ResultSet rs) throws SQLException {
+            Long submittedBy = rs.getObject("submitted_by", Long.class);
+            return new SourceReport(rs.getLong("id"), rs.getString("type"), rs.getString("status"),
+                    rs.getObject("confidence_score", Double.class), submittedBy, rs.getString("duplicate_of"));
+        }
+    }
+
+    @PostConstruct
+    void registerSettings() {
+        prior = systemConfig.doubleSetting("confidence_event_prior", defaultPrior);
+        for (IntelligenceType type : IntelligenceType.values()) {
+            reliability.put(type.name(), systemConfig.doubleSetting(
+                    "confidence_reliability_" + type.name().toLowerCase(), ConfidenceFactors.typeReliability(type.name())));
+        }
+    }
+
+    /**
+     * Links the report to the event as a source and counts it. Returns the new score, or null if
+     * either does not exist.
+     */
+    @Transactional
+    public Double addSource(long eventId, long reportId) {
+        Map<Long, SourceReport> reports = loadReports(List.of(reportId));
+        if (reports.isEmpty() || lock(List.of(eventId)).isEmpty()) {
+            return null;
+        }
+        jdbcTemplate.update("INSERT INTO event_reports (event_id, report_id) SELECT ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM event_reports WHERE event_id = ? AND report_id = ?)",
+                eventId, reportId, eventId, reportId);
+        return rescore(Map.of(eventId, List.of(reportId)), reports).get(eventId);
+    }
+
+    /**
+     * Unlinks the report from the event. Returns the new score, or null if the event does not exist.
+     */
+    @Transactional
+    public Double removeSource(long eventId, long reportId) {
+        if (lock(List.of(eventId)).isEmpty()) {
+            return null;
+        }
+        jdbcTemplate.update("DELETE FROM event_reports WHERE event_id = ? AND report_id = ?", eventId, reportId);
+        return rescore(Map.of(eventId, List.of(reportId)), Map.of()).get(eventId);
+    }
+
+    /**
+     * Re-weights a report that was just reviewed or edited in every event it supports. Takes the
+     * entity because its changes may not have been flushed yet.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reportChanged(IntelligenceReport report) {
+        rescore(eventsOf(List.of(report.getId())), Map.of(report.getId(), SourceReport.of(report)));
+    }
+
+    /**
+     * {@link #reportChanged} for reports already written by SQL, such as a bulk review.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reportsChanged(Collection<Long> reportIds) {
+        Map<Long, List<Long>> events = eventsOf(reportIds);
+        if (!events.isEmpty()) {
+            rescore(events, loadReports(reportIds));
+        }
+    }
+
+    /**
+     * Drops a report from every event it supports, including the link rows. Call before deleting it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reportDeleted(long reportId) {
+        Map<Long, List<Long>> events = eventsOf(List.of(reportId));
+        if (!events.isEmpty()) {
+            rescore(events, Map.of());
+            jdbcTemplate.update("DELETE FROM event_reports WHERE report_id = ?", reportId);
+        }
+    }
+
+    /**
+     * Applies the listed reports to each event's factors: present ones are (re)weighted, missing
+     * ones removed. Returns the new score per event.
+     */
+    private Map<Long, Double> rescore(Map<Long, List<Long>> reportsByEvent, Map<Long, SourceReport> reports) {
+        Map<Long, String> metadata = lock(reportsByEvent.keySet());
+        Map<Long, Double> scores = new HashMap<>();
+        List<Object[]> updates = new ArrayList<>(metadata.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, String> entry : metadata.entrySet()) {
+            ObjectNode root = parse(entry.getValue());
+            StoredConfidenceFactors factors = StoredConfidenceFactors.in(root);
+            for (Long reportId : reportsByEvent.get(entry.getKey())) {
+                apply(factors, reportId, reports.get(reportId));
+            }
+            double score = factors.score(prior.get());
+            scores.put(entry.getKey(), score);
+            updates.add(new Object[] {score, root.toString(), now, entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE events SET confidence_score = ?, fusion_metadata = ?::jsonb, updated_at = ? WHERE id = ?", updates);
+        // Scores are written in one batch rather than through Event saves, so the cached events
+        // would keep their old confidence_score until these evictions reach every instance
+        CacheInvalidationBus bus = cacheInvalidationBus.getIfAvailable();
+        if (bus != null) {
+            scores.keySet().forEach(id -> bus.invalidate(Event.class.getSimpleName(), id));
+        }
+        return scores;
+    }
+
+    private void apply(StoredConfidenceFactors factors, long reportId, SourceReport report) {
+        String key = String.valueOf(reportId);
+        double weight = report != null ? ConfidenceFactors.statusWeight(report.status()) : 0;
+        if (weight == 0) {
+            factors.remove(key);
+            return;
+        }
+        SystemConfig.DoubleSetting typeReliability = report.type() != null ? reliability.get(report.type()) : null;
+        double evidence = ConfidenceFactors.evidence(
+                typeReliability != null ? typeReliability.get() : ConfidenceFactors.DEFAULT_RELIABILITY,
+                report.confidence() != null ? report.confidence() : 0.5,
+                weight);
+        // A near-duplicate of a source already counted shares its group; otherwise one group per analyst
+        String group = report.duplicateOf() != null ? factors.groupOf(report.duplicateOf()) : null;
+        if (group == null) {
+            group = "analyst:" + report.submittedBy();
+        }
+        factors.put(key, group, evidence);
+    }
+
+    private Map<Long, String> lock(Collection<Long> eventIds) {
+        Map<Long, String> metadata = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, fusion_metadata::text AS fusion_metadata FROM events WHERE id = ANY(?) ORDER BY id FOR UPDATE",
+                rs -> { metadata.put(rs.getLong("id"), rs.getString("fusion_metadata")); },
+                (Object) eventIds.toArray(Long[]::new));
+        return metadata;
+    }
+
+    private Map<Long, List<Long>> eventsOf(Collection<Long> reportIds) {
+        Map<Long, List<Long>> reportsByEvent = new HashMap<>();
+        jdbcTemplate.query("SELECT event_id, report_id FROM event_reports WHERE report_id = ANY(?)",
+                rs -> { reportsByEvent.computeIfAbsent(rs.getLong("event_id"), k -> new ArrayList<>()).add(rs.getLong("report_id")); },
+                (Object) reportIds.toArray(Long[]::new));
+        return reportsByEvent;
+    }
+
+    private Map<Long, SourceReport> loadReports(Collection<Long> reportIds) {
+        Map<Long, SourceReport> reports = new HashMap<>();
+        jdbcTemplate.query("SELECT r.id, r.type, r.status, r.confidence_score, r.submitted_by, m.metadata_value AS duplicate_of " +
+                "FROM intelligence_reports r LEFT JOIN report_metadata m ON m.report_id = r.id AND m.metadata_key = ? " +
+                "WHERE r.id = ANY(?)",
+                rs -> { reports.put(rs.getLong("id"), SourceReport.of(rs)); },
+                ReportDeduplicationService.DUPLICATE_OF_KEY, reportIds.toArray(Long[]::new));
+        return reports;
+    }
+
+    private ObjectNode parse(String json) {
+        if (json == null) {
+            return objectMapper.createObjectNode();
+        }
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            return node.isObject() ? (ObjectNode) node : objectMapper.createObjectNode();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable fusion_metadata: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.cop.config;
+
+import com.cop.observability.MinioMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.MinioClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The one object store client of the application, on the instrumented HTTP client so every
+ * component shares its connection pool and metrics.
+ */
+@Configuration
+public class MinioConfig {
+
+    @Bean
+    public MinioClient minioClient(MeterRegistry meterRegistry,
+                                   @Value("${minio.endpoint:http://localhost:9000}") String endpoint,
+                                   @Value("${minio.access-key:}") String accessKey,
+                                   @Value("${minio.secret-key:}") String secretKey) {
+        return MinioClient.builder()
+            .endpoint(endpoint)
+            .httpClient(MinioMetrics.httpClient(meterRegistry))
+            .credentials(accessKey, secretKey)
+            .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.cop.controller;
+
+import com.cop.archive.ArchiveKind;
+import com.cop.archive.ArchiveService;
+import com.cop.entity.User;
+import com.cop.enums.ClassificationLevel;
+import com.cop.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/hq/archive")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ArchiveController {
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private UserService userService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(archiveService.status());
+    }
+
+    /**
+     * Runs the archiver now instead of waiting for its schedule; returns what it moved.
+     */
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> run() {
+        return ResponseEntity.ok(archiveService.run());
+    }
+
+    /**
+     * The archived row as stored, with its dependents, for records no longer in the hot tables.
+     * Records classified above the caller's clearance are not found.
+     */
+    @GetMapping("/{kind}/{id}")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> archived(@PathVariable String kind, @PathVariable String id, Authentication authentication) {
+        ArchiveKind archiveKind;
+        try {
+            archiveKind = ArchiveKind.of(kind);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        User user = userService.findByUsername(authentication.getName());
+        ClassificationLevel clearance = ClassificationLevel.fromString(user.getClearanceLevel().name());
+        return archiveService.findPayload(archiveKind, id, clearance)
+            .<ResponseEntity<?>>map(payload -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(payload))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
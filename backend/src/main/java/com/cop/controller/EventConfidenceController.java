@@ -0,0 +1,80 @@
+package com.cop.controller;
+
+import com.cop.confidence.EventConfidenceService;
+import com.cop.entity.Event;
+import com.cop.repository.EventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/hq/events")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class EventConfidenceController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private EventConfidenceService eventConfidenceService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    /**
+     * Events at or above a confidence threshold, most confident first.
+     */
+    @GetMapping("/confident")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> confident(@RequestParam(value = "min", defaultValue = "0.8") double min,
+                                       @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (min < 0 || min > 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "min must be between 0 and 1"));
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limit must be between 1 and " + MAX_LIMIT));
+        }
+        List<Map<String, Object>> events = new ArrayList<>();
+        for (Event event : eventRepository.findByMinimumConfidence(min, PageRequest.of(0, limit))) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", event.getId());
+            item.put("type", event.getType());
+            item.put("status", event.getStatus());
+            item.put("classificationLevel", event.getClassificationLevel());
+            item.put("startTime", event.getStartTime());
+            item.put("confidenceScore", event.getConfidenceScore());
+            if (event.getLocation() != null) {
+                item.put("lat", event.getLocation().getY());
+                item.put("lon", event.getLocation().getX());
+            }
+            events.add(item);
+        }
+        return ResponseEntity.ok(events);
+    }
+
+    @PostMapping("/{id}/sources/{reportId}")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> addSource(@PathVariable Long id, @PathVariable Long reportId) {
+        Double score = eventConfidenceService.addSource(id, reportId);
+        if (score == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Event " + id + " or report " + reportId + " not found"));
+        }
+        return ResponseEntity.ok(Map.of("eventId", id, "confidenceScore", score));
+    }
+
+    @DeleteMapping("/{id}/sources/{reportId}")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> removeSource(@PathVariable Long id, @PathVariable Long reportId) {
+        Double score = eventConfidenceService.removeSource(id, reportId);
+        if (score == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Event " + id + " not found"));
+        }
+        return ResponseEntity.ok(Map.of("eventId", id, "confidenceScore", score));
+    }
+}
@@ -0,0 +1,31 @@
+package com.cop.controller;
+
+import com.cop.partition.PartitionMaintenance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/hq/partitions")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class PartitionController {
+
+    @Autowired
+    private PartitionMaintenance partitionMaintenance;
+
+    @GetMapping
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(partitionMaintenance.status());
+    }
+
+    /**
+     * Creates upcoming partitions and applies retention now rather than at the nightly run.
+     */
+    @PostMapping("/maintain")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> maintain() {
+        return ResponseEntity.ok(partitionMaintenance.maintain());
+    }
+}
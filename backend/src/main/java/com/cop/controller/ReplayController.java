@@ -0,0 +1,100 @@
+package com.cop.controller;
+
+import com.cop.entity.User;
+import com.cop.enums.ClassificationLevel;
+import com.cop.replay.ReplayService;
+import com.cop.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/hq/replay")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ReplayController {
+
+    private static final Duration MAX_CHANGES_WINDOW = Duration.ofDays(1);
+
+    @Autowired
+    private ReplayService replayService;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * The events, reports and decisions as they stood at {@code at}, optionally within a bbox.
+     * Only what the caller's clearance can read is returned.
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> stateAt(@RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime at,
+                                     @RequestParam(value = "minLat", required = false) Double minLat,
+                                     @RequestParam(value = "minLon", required = false) Double minLon,
+                                     @RequestParam(value = "maxLat", required = false) Double maxLat,
+                                     @RequestParam(value = "maxLon", required = false) Double maxLon,
+                                     Authentication authentication) {
+        double[] bbox;
+        try {
+            bbox = bbox(minLat, minLon, maxLat, maxLon);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(replayService.stateAt(at.toInstant(), bbox, clearance(authentication)));
+    }
+
+    /**
+     * Changes between two instants, for scrubbing forward from a state fetched with {@link #stateAt}.
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> changes(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                     @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                                     @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+                                     @RequestParam(value = "minLat", required = false) Double minLat,
+                                     @RequestParam(value = "minLon", required = false) Double minLon,
+                                     @RequestParam(value = "maxLat", required = false) Double maxLat,
+                                     @RequestParam(value = "maxLon", required = false) Double maxLon,
+                                     Authentication authentication) {
+        Instant start = from.toInstant();
+        Instant end = to.toInstant();
+        if (!end.isAfter(start)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "to must be after from"));
+        }
+        if (Duration.between(start, end).compareTo(MAX_CHANGES_WINDOW) > 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Change window is limited to " + MAX_CHANGES_WINDOW.toHours() + " hours; fetch a new state instead"));
+        }
+        double[] bbox;
+        try {
+            bbox = bbox(minLat, minLon, maxLat, maxLon);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.ok(replayService.changes(start, end, bbox, afterId, clearance(authentication)));
+    }
+
+    private ClassificationLevel clearance(Authentication authentication) {
+        User user = userService.findByUsername(authentication.getName());
+        return ClassificationLevel.fromString(user.getClearanceLevel().name());
+    }
+
+    private static double[] bbox(Double minLat, Double minLon, Double maxLat, Double maxLon) {
+        if (minLat == null && minLon == null && maxLat == null && maxLon == null) {
+            return null;
+        }
+        if (minLat == null || minLon == null || maxLat == null || maxLon == null) {
+            throw new IllegalArgumentException("Bounding box needs minLat, minLon, maxLat and maxLon");
+        }
+        if (minLat > maxLat || minLon > maxLon) {
+            throw new IllegalArgumentException("Bounding box minimum exceeds maximum");
+        }
+        return new double[] {minLon, minLat, maxLon, maxLat};
+    }
+}
@@ -0,0 +1,67 @@
+package com.cop.controller;
+
+import com.cop.common.spool.IngestSpool;
+import com.cop.dto.CreateReportRequest;
+import com.cop.entity.IntelligenceReport;
+import com.cop.ingest.ReportIngestService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/reports/ingest")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ReportIngestController {
+
+    @Autowired
+    private ReportIngestService ingestService;
+
+    @Autowired
+    private ObjectProvider<IngestSpool> ingestSpool;
+
+    /**
+     * Submits a report. 201 with its id when it was written directly; 202 with a spool key when
+     * the database was unavailable and it will be created once the spool replays.
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('HQ','ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT')")
+    public ResponseEntity<?> ingest(@Valid @RequestBody CreateReportRequest request, Authentication authentication) {
+        ReportIngestService.Result result;
+        try {
+            result = ingestService.ingest(request, authentication.getName());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        Map<String, Object> resp = new HashMap<>();
+        if (result.spooled()) {
+            resp.put("status", "SPOOLED");
+            resp.put("spoolKey", result.spoolKey());
+            return ResponseEntity.accepted().body(resp);
+        }
+        IntelligenceReport report = result.report();
+        resp.put("id", report.getId());
+        resp.put("title", report.getTitle());
+        resp.put("status", report.getStatus());
+        return ResponseEntity.status(HttpStatus.CREATED).body(resp);
+    }
+
+    @GetMapping("/spool")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> spoolStatus() {
+        IngestSpool spool = ingestSpool.getIfAvailable();
+        if (spool == null) {
+            return ResponseEntity.ok(Map.of("enabled", false));
+        }
+        Map<String, Object> resp = new HashMap<>(spool.status());
+        resp.put("enabled", true);
+        return ResponseEntity.ok(resp);
+    }
+}
@@ -0,0 +1,48 @@
+package com.cop.controller;
+
+import com.cop.dto.BulkReviewRequest;
+import com.cop.dto.BulkReviewResult;
+import com.cop.service.IntelligenceReportService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/hq/reports")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class ReportReviewController {
+
+    @Autowired
+    private IntelligenceReportService reportService;
+
+    /**
+     * Approves or rejects a batch of reports. Always 200 when the batch itself is valid; check
+     * each item's outcome for version and status conflicts and unknown ids.
+     */
+    @PostMapping("/review")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> bulkReview(@Valid @RequestBody BulkReviewRequest request, Authentication authentication) {
+        List<BulkReviewResult> results;
+        try {
+            results = reportService.bulkReview(request, authentication.getName());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        Map<BulkReviewResult.Outcome, Long> counts = new HashMap<>();
+        for (BulkReviewResult result : results) {
+            counts.merge(result.getOutcome(), 1L, Long::sum);
+        }
+        Map<String, Object> resp = new HashMap<>();
+        resp.put("decision", request.getDecision());
+        resp.put("counts", counts);
+        resp.put("results", results);
+        return ResponseEntity.ok(resp);
+    }
+}
@@ -0,0 +1,124 @@
+package com.cop.controller;
+
+import com.cop.entity.User;
+import com.cop.enums.ClassificationLevel;
+import com.cop.service.UserService;
+import com.cop.track.TrackService;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygonal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/tracks")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class TrackController {
+
+    private static final int MAX_OBSERVATIONS = 10_000;
+    private static final Duration MAX_CROSSING_WINDOW = Duration.ofDays(31);
+    private static final int MAX_CROSSINGS = 10_000;
+
+    @Autowired
+    private TrackService trackService;
+
+    @Autowired
+    private UserService userService;
+
+    /** A polygon or multipolygon as GeoJSON and the time window to search. */
+    public record CrossingQuery(Geometry area, OffsetDateTime from, OffsetDateTime to) {
+    }
+
+    /**
+     * Takes a batch of position observations. 202 once they are buffered; they become visible to
+     * queries with the next flush. Observations without a classification take the poster's
+     * clearance, and none may be classified above it.
+     */
+    @PostMapping("/observations")
+    @PreAuthorize("hasAnyRole('HQ','ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT')")
+    public ResponseEntity<?> observe(@RequestBody List<TrackService.Observation> observations, Authentication authentication) {
+        if (observations.size() > MAX_OBSERVATIONS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_OBSERVATIONS + " observations per request"));
+        }
+        ClassificationLevel clearance = clearance(authentication);
+        List<TrackService.Observation> classified = new ArrayList<>(observations.size());
+        for (TrackService.Observation o : observations) {
+            if (o.classification() == null) {
+                o = new TrackService.Observation(o.entityId(), o.time(), o.lon(), o.lat(), clearance);
+            } else if (!o.classification().canAccess(clearance)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Observation of " + o.entityId() + " is classified above your clearance"));
+            }
+            classified.add(o);
+        }
+        try {
+            trackService.observe(classified);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+        return ResponseEntity.accepted().body(Map.of("accepted", observations.size()));
+    }
+
+    /**
+     * Where the entity was between {@code from} and {@code to}, as far as the caller's clearance
+     * shows it.
+     */
+    @GetMapping("/{entityId}")
+    @PreAuthorize("hasAnyRole('HQ','ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT','OBSERVER')")
+    public ResponseEntity<?> positions(@PathVariable String entityId,
+                                       @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+                                       @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+                                       Authentication authentication) {
+        if (!to.isAfter(from)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "to must be after from"));
+        }
+        List<TrackService.Position> positions = trackService.positions(entityId, from.toInstant(), to.toInstant(),
+            clearance(authentication));
+        return ResponseEntity.ok(Map.of("entityId", entityId, "count", positions.size(), "positions", positions));
+    }
+
+    /**
+     * The entities whose tracks passed through an area within a time window, in the track
+     * segments the caller is cleared for.
+     */
+    @PostMapping("/crossings")
+    @PreAuthorize("hasAnyRole('HQ','ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT','OBSERVER')")
+    public ResponseEntity<?> crossings(@RequestBody CrossingQuery query, Authentication authentication) {
+        if (!(query.area() instanceof Polygonal) || query.area().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "area must be a Polygon or MultiPolygon"));
+        }
+        if (query.from() == null || query.to() == null || !query.to().isAfter(query.from())) {
+            return ResponseEntity.badRequest().body(Map.of("error", "from and to are required, with to after from"));
+        }
+        Instant from = query.from().toInstant();
+        Instant to = query.to().toInstant();
+        if (Duration.between(from, to).compareTo(MAX_CROSSING_WINDOW) > 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Crossing window is limited to " + MAX_CROSSING_WINDOW.toDays() + " days"));
+        }
+        List<TrackService.Crossing> crossings = trackService.crossings(query.area(), from, to, MAX_CROSSINGS, clearance(authentication));
+        return ResponseEntity.ok(Map.of("count", crossings.size(), "crossings", crossings));
+    }
+
+    @GetMapping("/status")
+    @PreAuthorize("hasRole('HQ')")
+    public ResponseEntity<?> status() {
+        return ResponseEntity.ok(trackService.status());
+    }
+
+    private ClassificationLevel clearance(Authentication authentication) {
+        User user = userService.findByUsername(authentication.getName());
+        return ClassificationLevel.fromString(user.getClearanceLevel().name());
+    }
+}
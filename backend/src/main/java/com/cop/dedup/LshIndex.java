@@ -0,0 +1,101 @@
+package com.cop.dedup;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Locality-sensitive hash index over MinHash signatures. Each signature is cut into
+ * {@code bands} bands of {@code rows} values; two reports become candidates when any band
+ * hashes identically, which for 16 x 8 happens mostly above ~0.7 Jaccard similarity.
+ */
+public class LshIndex {
+
+    private final int bands;
+    private final int rows;
+    private final Map<Long, long[]> buckets = new ConcurrentHashMap<>();
+    private final Map<Long, int[]> signatures = new ConcurrentHashMap<>();
+
+    public LshIndex(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+    }
+
+    public int signatureLength() {
+        return bands * rows;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    public void add(long reportId, int[] signature) {
+        if (signatures.putIfAbsent(reportId, signature) != null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.merge(bandKey(signature, band), new long[]{reportId}, LshIndex::append);
+        }
+    }
+
+    public void remove(long reportId) {
+        int[] signature = signatures.remove(reportId);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfPresent(bandKey(signature, band), (key, ids) -> {
+                long[] kept = Arrays.stream(ids).filter(id -> id != reportId).toArray();
+                return kept.length == 0 ? null : kept;
+            });
+        }
+    }
+
+    /**
+     * Returns the indexed report most similar to {@code signature} at or above {@code threshold},
+     * or {@code null} when there is none.
+     */
+    public Match bestMatch(int[] signature, double threshold) {
+        Match best = null;
+        Set<Long> seen = new HashSet<>();
+        for (int band = 0; band < bands; band++) {
+            long[] candidates = buckets.get(bandKey(signature, band));
+            if (candidates == null) {
+                continue;
+            }
+            for (long candidate : candidates) {
+                if (!seen.add(candidate)) {
+                    continue;
+                }
+                int[] other = signatures.get(candidate);
+                if (other == null) {
+                    continue;
+                }
+                double similarity = MinHasher.similarity(signature, other);
+                if (similarity >= threshold && (best == null || similarity > best.similarity())) {
+                    best = new Match(candidate, similarity);
+                }
+            }
+        }
+        return best;
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long hash = band;
+        for (int i = band * rows, end = i + rows; i < end; i++) {
+            hash = hash * 0x100000001b3L + signature[i];
+        }
+        return hash;
+    }
+
+    private static long[] append(long[] existing, long[] added) {
+        long[] merged = Arrays.copyOf(existing, existing.length + added.length);
+        System.arraycopy(added, 0, merged, existing.length, added.length);
+        return merged;
+    }
+
+    public record Match(long reportId, double similarity) {
+    }
+}
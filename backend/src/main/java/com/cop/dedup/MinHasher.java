@@ -0,0 +1,89 @@
+package com.cop.dedup;
+
+import java.util.Arrays;
+
+/**
+ * Computes MinHash signatures over 5-character shingles of normalised text. Shingles are hashed
+ * straight from the character array, so no substrings are allocated.
+ */
+public class MinHasher {
+
+    public static final int SHINGLE_LENGTH = 5;
+
+    private final long[] seeds;
+
+    public MinHasher(int numHashes, long seed) {
+        this.seeds = new long[numHashes];
+        long state = seed;
+        for (int i = 0; i < numHashes; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            seeds[i] = mix(state);
+        }
+    }
+
+    public int size() {
+        return seeds.length;
+    }
+
+    public int[] signature(String text) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        char[] chars = normalise(text);
+        if (chars.length == 0) {
+            return signature;
+        }
+        int shingles = Math.max(1, chars.length - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = 0xcbf29ce484222325L;
+            for (int i = start, end = Math.min(chars.length, start + SHINGLE_LENGTH); i < end; i++) {
+                shingle = (shingle ^ chars[i]) * 0x100000001b3L;
+            }
+            for (int h = 0; h < seeds.length; h++) {
+                int value = (int) (mix(shingle ^ seeds[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    private static char[] normalise(String text) {
+        if (text == null) {
+            return new char[0];
+        }
+        char[] out = new char[text.length()];
+        int length = 0;
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                out[length++] = Character.toLowerCase(c);
+                space = false;
+            } else if (!space) {
+                out[length++] = ' ';
+                space = true;
+            }
+        }
+        if (length > 0 && out[length - 1] == ' ') {
+            length--;
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
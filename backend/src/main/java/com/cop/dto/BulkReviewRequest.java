@@ -0,0 +1,53 @@
+package com.cop.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkReviewRequest {
+
+    public enum Decision { APPROVE, REJECT }
+
+    @NotNull
+    private Decision decision;
+
+    private String reviewComments;
+
+    @NotEmpty
+    @Valid
+    private List<Item> items = new ArrayList<>();
+
+    /** A report to review; {@code version} is the one the reviewer saw. */
+    public static class Item {
+        @NotNull
+        private Long id;
+
+        @NotNull
+        private Long version;
+
+        public Item() {}
+
+        public Item(Long id, Long version) {
+            this.id = id;
+            this.version = version;
+        }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+
+        public Long getVersion() { return version; }
+        public void setVersion(Long version) { this.version = version; }
+    }
+
+    public Decision getDecision() { return decision; }
+    public void setDecision(Decision decision) { this.decision = decision; }
+
+    public String getReviewComments() { return reviewComments; }
+    public void setReviewComments(String reviewComments) { this.reviewComments = reviewComments; }
+
+    public List<Item> getItems() { return items; }
+    public void setItems(List<Item> items) { this.items = items; }
+}
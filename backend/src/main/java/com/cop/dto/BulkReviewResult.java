@@ -0,0 +1,32 @@
+package com.cop.dto;
+
+public class BulkReviewResult {
+
+    /**
+     * {@code VERSION_CONFLICT}: changed since the reviewer saw it. {@code STATUS_CONFLICT}: already
+     * reviewed, or on its way to the archive.
+     */
+    public enum Outcome { APPLIED, VERSION_CONFLICT, STATUS_CONFLICT, NOT_FOUND }
+
+    private Long id;
+    private Outcome outcome;
+    private Long version;
+
+    public BulkReviewResult() {}
+
+    /** {@code version} is the report's version after the review, or its current one on a conflict. */
+    public BulkReviewResult(Long id, Outcome outcome, Long version) {
+        this.id = id;
+        this.outcome = outcome;
+        this.version = version;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Outcome getOutcome() { return outcome; }
+    public void setOutcome(Outcome outcome) { this.outcome = outcome; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
@@ -1,5 +1,6 @@
 package com.cop.entity;
 
+import com.cop.common.cache.CacheInvalidationEntityListener;
 import jakarta.persistence.*;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -7,7 +8,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @MappedSuperclass
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CacheInvalidationEntityListener.class})
 public abstract class BaseEntity {
     
     @CreatedDate
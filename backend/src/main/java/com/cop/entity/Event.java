@@ -17,7 +17,7 @@ public class Event extends BaseEntity {
     @Column(nullable = false)
     private String type;
     
-    @Column(name = "start_time")
+    @Column(name = "start_time", nullable = false)
     private LocalDateTime startTime;
     
     @Column(name = "end_time")
@@ -53,6 +53,10 @@ public class Event extends BaseEntity {
     @Column(name = "fusion_metadata", columnDefinition = "jsonb")
     private String fusionMetadata;
     
+    // Set when the event was read back from the cold archive; it no longer has a row to update
+    @Transient
+    private boolean archived;
+    
     // Constructors, getters, setters
     public Event() {}
     
@@ -64,6 +68,14 @@ public class Event extends BaseEntity {
         this.status = EventStatus.PENDING;
     }
     
+    // start_time is the partition key; an event without one is placed at its creation time
+    @PrePersist
+    void defaultStartTime() {
+        if (startTime == null) {
+            startTime = getCreatedAt() != null ? getCreatedAt() : LocalDateTime.now();
+        }
+    }
+    
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -100,4 +112,7 @@ public class Event extends BaseEntity {
     
     public String getFusionMetadata() { return fusionMetadata; }
     public void setFusionMetadata(String fusionMetadata) { this.fusionMetadata = fusionMetadata; }
+    
+    public boolean isArchived() { return archived; }
+    public void setArchived(boolean archived) { this.archived = archived; }
 }
@@ -1,5 +1,6 @@
 package com.cop.entity;
 
+import com.cop.common.cache.CacheInvalidationEntityListener;
 import com.cop.enums.ClearanceLevel;
 import com.cop.enums.IntelligenceType;
 import com.cop.enums.ReportStatus;
@@ -20,7 +21,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "intelligence_reports")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CacheInvalidationEntityListener.class})
 public class IntelligenceReport {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -87,6 +88,13 @@ public class IntelligenceReport {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    @Version
+    private Long version;
+
+    // Set when the report was read back from the cold archive; it no longer has a row to update
+    @Transient
+    private boolean archived;
+
     // Constructors
     public IntelligenceReport() {}
 
@@ -141,4 +149,10 @@ public class IntelligenceReport {
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public boolean isArchived() { return archived; }
+    public void setArchived(boolean archived) { this.archived = archived; }
 }
@@ -0,0 +1,48 @@
+package com.cop.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "report_signatures")
+public class ReportSignature {
+
+    @Id
+    @Column(name = "report_id")
+    private Long reportId;
+
+    @Column(nullable = false)
+    private byte[] signature;
+
+    @Column(name = "duplicate_of")
+    private Long duplicateOf;
+
+    @Column
+    private Double similarity;
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public ReportSignature() {}
+
+    public ReportSignature(Long reportId, byte[] signature) {
+        this.reportId = reportId;
+        this.signature = signature;
+    }
+
+    // Getters and setters
+    public Long getReportId() { return reportId; }
+    public void setReportId(Long reportId) { this.reportId = reportId; }
+
+    public byte[] getSignature() { return signature; }
+    public void setSignature(byte[] signature) { this.signature = signature; }
+
+    public Long getDuplicateOf() { return duplicateOf; }
+    public void setDuplicateOf(Long duplicateOf) { this.duplicateOf = duplicateOf; }
+
+    public Double getSimilarity() { return similarity; }
+    public void setSimilarity(Double similarity) { this.similarity = similarity; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
@@ -1,5 +1,6 @@
 package com.cop.entity;
 
+import com.cop.common.cache.CacheInvalidationEntityListener;
 import com.cop.enums.ClearanceLevel;
 import com.cop.enums.UserRole;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -17,7 +18,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "users")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CacheInvalidationEntityListener.class})
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
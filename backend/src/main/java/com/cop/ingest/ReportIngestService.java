@@ -0,0 +1,107 @@
+package com.cop.ingest;
+
+import com.cop.common.spool.IngestSpool;
+import com.cop.dto.CreateReportRequest;
+import com.cop.entity.IntelligenceReport;
+import com.cop.service.IntelligenceReportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * Report submission that keeps accepting reports while Postgres is slow or failing over. Reports
+ * go straight to {@link IntelligenceReportService#createReport} while the database answers; when
+ * it does not, or while earlier reports are still spooled, they are appended to the
+ * {@link IngestSpool} and created by its replay once the database is back. Without a spool
+ * ({@code cop.spool.enabled=false}) this is just {@code createReport}.
+ * <p>
+ * Each report gets its spool key before the first attempt, and a direct create claims that key in
+ * its own transaction. A report whose create committed although the database seemed to fail is
+ * therefore spooled under a key replay has already seen, and is not created twice.
+ */
+@Service
+public class ReportIngestService {
+
+    public static final String KIND = "report";
+
+    private static final Logger log = LoggerFactory.getLogger(ReportIngestService.class);
+
+    @Autowired
+    private IntelligenceReportService reportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<IngestSpool> ingestSpool;
+
+    /**
+     * Either the created report or, if it was spooled, the key it will be created under.
+     */
+    public record Result(IntelligenceReport report, String spoolKey) {
+
+        public boolean spooled() {
+            return report == null;
+        }
+    }
+
+    private record SpooledReport(String username, CreateReportRequest request) {
+    }
+
+    @PostConstruct
+    void registerHandler() {
+        IngestSpool spool = ingestSpool.getIfAvailable();
+        if (spool == null) {
+            return;
+        }
+        // Runs inside the replay transaction, which createReport joins
+        spool.register(KIND, entries -> {
+            for (IngestSpool.Entry entry : entries) {
+                SpooledReport spooled = decode(entry.body());
+                reportService.createReport(spooled.request(), spooled.username());
+            }
+        });
+    }
+
+    public Result ingest(CreateReportRequest request, String username) {
+        IngestSpool spool = ingestSpool.getIfAvailable();
+        if (spool == null) {
+            return new Result(reportService.createReport(request, username), null);
+        }
+        String key = UUID.randomUUID().toString();
+        if (!spool.active()) {
+            try {
+                return new Result(spool.write(KIND, key, () -> reportService.createReport(request, username)), null);
+            } catch (RuntimeException e) {
+                if (!IngestSpool.isUnavailable(e)) {
+                    throw e;
+                }
+                log.warn("Database unavailable, spooling report from {}: {}", username, e.getMessage());
+            }
+        }
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new SpooledReport(username, request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Report cannot be serialized: " + e.getOriginalMessage(), e);
+        }
+        return new Result(null, spool.append(KIND, key, body));
+    }
+
+    private SpooledReport decode(byte[] body) {
+        try {
+            return objectMapper.readValue(body, SpooledReport.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable spooled report: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.cop.outbox;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Holds one connection in {@code LISTEN outbox_events} and wakes the relay as soon as a
+ * transaction that wrote to the outbox commits, so the scheduled poll can stay infrequent.
+ */
+@Component
+public class OutboxListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxListener.class);
+    private static final int WAIT_MS = 10_000;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::listen, "outbox-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN outbox_events");
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(WAIT_MS);
+                    if (notifications != null && notifications.length > 0) {
+                        outboxRelay.drain();
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Outbox listener connection lost, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(WAIT_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.cop.outbox;
+
+import com.cop.entity.IntelligenceReport;
+import com.cop.entity.OutboxEvent;
+import com.cop.repository.OutboxEventRepository;
+import com.cop.service.ReportDeduplicationService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records change events in {@code outbox_events}. Always joins the caller's transaction, so an
+ * event exists exactly when the entity change it describes was committed.
+ */
+@Service
+public class OutboxPublisher {
+
+    public static final String REPORT = "REPORT";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String aggregateType, Object aggregateId, String eventType, Map<String, Object> payload) {
+        outboxEventRepository.save(toEvent(aggregateType, aggregateId, eventType, payload));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishReports(Collection<IntelligenceReport> reports, String eventType) {
+        List<OutboxEvent> events = new ArrayList<>(reports.size());
+        for (IntelligenceReport report : reports) {
+            events.add(toEvent(REPORT, report.getId(), eventType, reportPayload(report)));
+        }
+        outboxEventRepository.saveAll(events);
+    }
+
+    /**
+     * Inserts one event per entry with a single multi-row statement, bypassing JPA, whose identity
+     * ids would otherwise force one INSERT per event. For set-based writers that never load the
+     * entities; payloads should have the same shape as {@link #reportPayload}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishBatch(String aggregateType, String eventType, Map<?, Map<String, Object>> payloadsById) {
+        if (payloadsById.isEmpty()) {
+            return;
+        }
+        String[] ids = new String[payloadsById.size()];
+        String[] payloads = new String[payloadsById.size()];
+        int i = 0;
+        for (Map.Entry<?, Map<String, Object>> entry : payloadsById.entrySet()) {
+            ids[i] = String.valueOf(entry.getKey());
+            payloads[i] = toJson(aggregateType, entry.getKey(), entry.getValue());
+            i++;
+        }
+        jdbcTemplate.update("INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload) " +
+                "SELECT ?, e.id, ?, e.payload::jsonb FROM unnest(?::text[], ?::text[]) AS e(id, payload)",
+                aggregateType, eventType, ids, payloads);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishReport(IntelligenceReport report, String eventType) {
+        publish(REPORT, report.getId(), eventType, reportPayload(report));
+    }
+
+    public static Map<String, Object> reportPayload(IntelligenceReport report) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", report.getType());
+        payload.put("status", report.getStatus());
+        payload.put("classification", report.getClearanceLevel());
+        payload.put("eventTime", report.getEventTime() != null ? report.getEventTime().toString() : null);
+        payload.put("confidenceScore", report.getConfidenceScore());
+        if (report.getSubmittedBy() != null) {
+            payload.put("submittedBy", report.getSubmittedBy().getId());
+        }
+        if (report.getLocation() != null) {
+            payload.put("lat", report.getLocation().getY());
+            payload.put("lon", report.getLocation().getX());
+        }
+        if (report.getMetadata() != null && report.getMetadata().containsKey(ReportDeduplicationService.DUPLICATE_OF_KEY)) {
+            payload.put("duplicateOf", report.getMetadata().get(ReportDeduplicationService.DUPLICATE_OF_KEY));
+        }
+        return payload;
+    }
+
+    /**
+     * {@link #reportPayload(IntelligenceReport)} from an {@code intelligence_reports} row with
+     * {@code lat}/{@code lon} selected as coordinates. The caller adds {@code duplicateOf}.
+     */
+    public static Map<String, Object> reportPayload(ResultSet rs) throws SQLException {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", rs.getString("type"));
+        payload.put("status", rs.getString("status"));
+        payload.put("classification", rs.getString("clearance_level"));
+        LocalDateTime eventTime = rs.getObject("event_time", LocalDateTime.class);
+        payload.put("eventTime", eventTime != null ? eventTime.toString() : null);
+        payload.put("confidenceScore", rs.getObject("confidence_score", Double.class));
+        long submittedBy = rs.getLong("submitted_by");
+        if (!rs.wasNull()) {
+            payload.put("submittedBy", submittedBy);
+        }
+        double lat = rs.getDouble("lat");
+        if (!rs.wasNull()) {
+            payload.put("lat", lat);
+            payload.put("lon", rs.getDouble("lon"));
+        }
+        return payload;
+    }
+
+    private OutboxEvent toEvent(String aggregateType, Object aggregateId, String eventType, Map<String, Object> payload) {
+        return new OutboxEvent(aggregateType, String.valueOf(aggregateId), eventType, toJson(aggregateType, aggregateId, payload));
+    }
+
+    private String toJson(String aggregateType, Object aggregateId, Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialise outbox payload for " + aggregateType + " " + aggregateId, e);
+        }
+    }
+}
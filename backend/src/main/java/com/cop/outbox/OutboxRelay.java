@@ -0,0 +1,192 @@
+package com.cop.outbox;
+
+import com.cop.common.internal.InternalToken;
+import com.cop.entity.OutboxEvent;
+import com.cop.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.ClientHttpRequestFactories;
+import org.springframework.boot.web.client.ClientHttpRequestFactorySettings;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drains {@code outbox_events} in batches and POSTs each batch to every subscriber. Rows are
+ * claimed with {@code FOR UPDATE SKIP LOCKED} so several backend instances can relay in parallel,
+ * and a row is only marked delivered once every subscriber accepted it: delivery is at-least-once
+ * and subscribers must tolerate duplicates. Each row records the subscribers that accepted it, so
+ * a retry goes only to the subscribers still missing it and one failing subscriber does not hold
+ * back or duplicate deliveries to the others.
+ * <p>
+ * The claim is its own short transaction that leases the rows for {@code outbox.lease} by pushing
+ * their next attempt out, so no row lock is held while the subscribers are called. If the
+ * instance dies mid-delivery, the rows become claimable again once the lease runs out.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.subscribers:}")
+    private List<String> subscribers;
+
+    @Value("${outbox.token:}")
+    private String token;
+
+    @Value("${outbox.retention-hours:24}")
+    private int retentionHours;
+
+    // Longer than a delivery to every subscriber can take, or a slow batch is relayed twice
+    @Value("${outbox.lease:PT2M}")
+    private Duration lease;
+
+    @Value("${outbox.delivery-timeout:PT30S}")
+    private Duration deliveryTimeout;
+
+    // Boot's builder carries the observation registry, so relayed batches continue the trace
+    @Autowired
+    private RestClient.Builder restClientBuilder;
+
+    private RestClient restClient;
+    private final ReentrantLock drainLock = new ReentrantLock();
+    // Set by every drain request, so one arriving while another thread drains is not lost
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        restClient = restClientBuilder
+            .requestFactory(ClientHttpRequestFactories.get(ClientHttpRequestFactorySettings.DEFAULTS
+                .withConnectTimeout(deliveryTimeout)
+                .withReadTimeout(deliveryTimeout)))
+            .build();
+        if (!subscribers.isEmpty() && (token == null || token.isBlank())) {
+            log.warn("outbox.token is not set; subscribers will refuse every delivery");
+        }
+    }
+
+    /**
+     * Fallback poll for notifications missed while the listener connection was down; the
+     * LISTEN/NOTIFY wake-up in {@link OutboxListener} handles the normal path.
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:5000}")
+    public void drain() {
+        drainRequested.set(true);
+        // A request made after the running drain last checked the flag is picked up here
+        while (drainRequested.get() && drainLock.tryLock()) {
+            try {
+                while (drainRequested.getAndSet(false)) {
+                    int delivered;
+                    do {
+                        delivered = relayBatch();
+                    } while (delivered == batchSize);
+                }
+            } finally {
+                drainLock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(cron = "${outbox.cleanup-cron:0 15 * * * *}")
+    public void purgeDelivered() {
+        Integer purged = transactionTemplate.execute(status ->
+            outboxEventRepository.deleteDeliveredBefore(LocalDateTime.now().minusHours(retentionHours)));
+        log.debug("Purged {} delivered outbox events", purged);
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            List<OutboxEvent> claimed = outboxEventRepository.claimBatch(batchSize);
+            if (!claimed.isEmpty()) {
+                outboxEventRepository.lease(claimed.stream().map(OutboxEvent::getId).toList(), LocalDateTime.now().plus(lease));
+            }
+            return claimed;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        Set<Long> failed = new LinkedHashSet<>();
+        List<String> errors = new ArrayList<>();
+        for (String subscriber : subscribers) {
+            List<OutboxEvent> pending = batch.stream().filter(event -> !event.isDeliveredTo(subscriber)).toList();
+            if (pending.isEmpty()) {
+                continue;
+            }
+            List<Long> pendingIds = pending.stream().map(OutboxEvent::getId).toList();
+            try {
+                restClient.post()
+                    .uri(subscriber)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(InternalToken.HEADER, token)
+                    .body(toJson(pending))
+                    .retrieve()
+                    .toBodilessEntity();
+            } catch (Exception e) {
+                failed.addAll(pendingIds);
+                errors.add(subscriber + ": " + e.getMessage());
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markDeliveredTo(pendingIds, subscriber));
+        }
+        List<Long> delivered = batch.stream().map(OutboxEvent::getId).filter(id -> !failed.contains(id)).toList();
+        if (!delivered.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markDelivered(delivered, LocalDateTime.now()));
+        }
+        if (failed.isEmpty()) {
+            return batch.size();
+        }
+        int attempts = batch.get(0).getAttempts();
+        LocalDateTime retryAt = LocalDateTime.now().plusSeconds(1L << Math.min(attempts, 8));
+        String error = String.join("; ", errors);
+        log.warn("Outbox delivery of {} events failed (attempt {}), retrying at {}: {}", failed.size(), attempts + 1, retryAt, error);
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markFailed(List.copyOf(failed), retryAt, error));
+        return 0;
+    }
+
+    private byte[] toJson(List<OutboxEvent> batch) throws IOException {
+        ArrayNode events = objectMapper.createArrayNode();
+        for (OutboxEvent event : batch) {
+            ObjectNode node = events.addObject();
+            node.put("id", event.getId());
+            node.put("aggregateType", event.getAggregateType());
+            node.put("aggregateId", event.getAggregateId());
+            node.put("eventType", event.getEventType());
+            node.put("createdAt", event.getCreatedAt() != null ? event.getCreatedAt().toString() : null);
+            node.set("payload", objectMapper.readTree(event.getPayload()));
+        }
+        return objectMapper.writeValueAsBytes(events);
+    }
+}
@@ -0,0 +1,135 @@
+package com.cop.partition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the monthly partitions of {@code events}, {@code intelligence_reports},
+ * {@code decisions} and {@code track_segments} ahead of the clock, and retires old ones when a
+ * retention is configured. The work itself is done by the SQL functions from the partitioning
+ * changelog; this only calls them on startup and once a day.
+ * <p>
+ * Rows dated past the last partition still land in the default partition; creating their month
+ * later moves them out of it. Retention is off by default: the archiver empties old partitions
+ * of closed records, and whatever is left in them is still live.
+ */
+@Service
+public class PartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenance.class);
+
+    // Any constant shared by all instances; only one of them maintains partitions at a time
+    private static final long LOCK_KEY = 0x636f70_7061727431L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${partitions.retention.events:}")
+    private Duration eventRetention;
+
+    @Value("${partitions.retention.reports:}")
+    private Duration reportRetention;
+
+    @Value("${partitions.retention.decisions:}")
+    private Duration decisionRetention;
+
+    @Value("${partitions.retention.tracks:}")
+    private Duration trackRetention;
+
+    // Detached partitions stay behind as plain tables unless this is set
+    @Value("${partitions.drop-detached:false}")
+    private boolean dropDetached;
+
+    private TransactionTemplate transactionTemplate;
+    private volatile Map<String, Object> lastRun;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${partitions.cron:0 10 0 * * *}")
+    public void scheduledRun() {
+        maintain();
+    }
+
+    /**
+     * Creates missing partitions up to {@code months-ahead} months out and retires those past
+     * their table's retention. Returns what was done per table, or {@code SKIPPED} if another
+     * instance is at it.
+     */
+    public Map<String, Object> maintain() {
+        Map<String, Object> result = transactionTemplate.execute(status -> {
+            if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY))) {
+                return Map.of("status", "SKIPPED");
+            }
+            Map<String, Object> tables = new LinkedHashMap<>();
+            maintain("events", eventRetention, tables);
+            maintain("intelligence_reports", reportRetention, tables);
+            maintain("decisions", decisionRetention, tables);
+            maintain("track_segments", trackRetention, tables);
+            return tables;
+        });
+        log.info("Partition maintenance: {}", result);
+        lastRun = result;
+        return result;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("partitions", jdbcTemplate.queryForList(
+            "SELECT p.relname AS table_name, c.relname AS partition, pg_get_expr(c.relpartbound, c.oid) AS bounds, " +
+            "c.reltuples::bigint AS estimated_rows, pg_total_relation_size(c.oid) AS bytes " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname IN ('events', 'intelligence_reports', 'decisions', 'track_segments') AND p.relkind = 'p' " +
+            "ORDER BY p.relname, c.relname"));
+        status.put("lastRun", lastRun);
+        return status;
+    }
+
+    private void maintain(String table, Duration retention, Map<String, Object> result) {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))", Boolean.class, table);
+        if (!Boolean.TRUE.equals(partitioned)) {
+            return;
+        }
+        Map<String, Object> done = new LinkedHashMap<>();
+        done.put("created", jdbcTemplate.queryForObject("SELECT cop_create_partitions(?::regclass, ?, ?)", Integer.class,
+            table, LocalDate.now().withDayOfMonth(1), monthsAhead));
+        if (retention != null && !retention.isZero()) {
+            List<String> retired = jdbcTemplate.queryForList("SELECT cop_retire_partitions(?::regclass, ?, ?)", String.class,
+                table, Timestamp.valueOf(LocalDateTime.now().minus(retention)), dropDetached);
+            done.put(dropDetached ? "dropped" : "detached", retired);
+        }
+        result.put(table, done);
+    }
+}
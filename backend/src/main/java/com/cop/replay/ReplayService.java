@@ -0,0 +1,355 @@
+package com.cop.replay;
+
+import com.cop.enums.ClassificationLevel;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds the events, reports and decisions HQ could see at a past instant from the trigger-fed
+ * {@code cop_history} table. A replay reads the newest snapshot at or before the instant and
+ * overlays only the history recorded since, so its cost is bounded by the snapshot interval
+ * rather than by how far back the instant is.
+ *
+ * <p>Snapshots are taken every {@code replay.snapshot-interval-minutes}, but only every
+ * {@code replay.full-snapshot-interval-hours} is one a full copy of the state. The ones between
+ * hold the rows changed since that full snapshot, so taking one costs the churn since rather than
+ * the size of the state; a replay from a delta reads it over its full snapshot.
+ *
+ * <p>Replays only return what the caller's clearance can read: events and reports by the
+ * classification they had at the time, and decisions only if the event or report they are about
+ * is readable.
+ */
+@Service
+public class ReplayService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayService.class);
+
+    public static final String EVENT = "EVENT";
+    public static final String REPORT = "REPORT";
+    public static final String DECISION = "DECISION";
+
+    private static final String ENVELOPE = "ST_MakeEnvelope(?, ?, ?, ?, 4326)";
+    // The classification column as the triggers record it: events.classification_level, intelligence_reports.clearance_level
+    private static final String LABEL = "COALESCE(%1$s->>'classification_level', %1$s->>'clearance_level', 'UNCLASSIFIED')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${replay.snapshot-interval-minutes:15}")
+    private int snapshotIntervalMinutes;
+
+    // Longer than any write transaction, so a snapshot never misses a row committed after it was built
+    @Value("${replay.snapshot-lag-seconds:120}")
+    private int snapshotLagSeconds;
+
+    @Value("${replay.full-snapshot-interval-hours:6}")
+    private int fullSnapshotIntervalHours;
+
+    @Value("${replay.keep-all-snapshots-days:7}")
+    private int keepAllSnapshotsDays;
+
+    @Value("${replay.max-rows:50000}")
+    private int maxRows;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * State at {@code at} as {@code clearance} may see it, limited to {@code bbox} ({minLon, minLat,
+     * maxLon, maxLat}) when given. With a bbox, decisions are kept only if their event or report is
+     * in the result.
+     */
+    public Map<String, Object> stateAt(Instant at, double[] bbox, ClassificationLevel clearance) {
+        Timestamp ts = Timestamp.from(at);
+        List<Object> args = new ArrayList<>(List.of(ts, ts));
+        StringBuilder sql = new StringBuilder(state("<=", bbox, args));
+        // Events and reports the caller cannot read, and with them the decisions about them
+        sql.append(", hidden AS (SELECT entity_type, entity_id FROM state WHERE entity_type <> 'DECISION' AND NOT ")
+           .append(LABEL.formatted("payload")).append(" = ANY(?)) ");
+        args.add(readableLabels(clearance));
+        sql.append("SELECT s.entity_type, s.entity_id, ST_X(s.location) AS lon, ST_Y(s.location) AS lat, s.payload::text AS payload FROM state s " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM hidden h WHERE (h.entity_type = s.entity_type AND h.entity_id = s.entity_id) " +
+                   "OR (s.entity_type = 'DECISION' AND ((h.entity_type = 'EVENT' AND h.entity_id = s.payload->>'event_id') " +
+                   "OR (h.entity_type = 'REPORT' AND h.entity_id = s.payload->>'report_id'))))");
+        if (bbox != null) {
+            sql.append(" AND (s.entity_type <> 'DECISION'" +
+                       " OR s.payload->>'event_id' IN (SELECT entity_id FROM state WHERE entity_type = 'EVENT')" +
+                       " OR s.payload->>'report_id' IN (SELECT entity_id FROM state WHERE entity_type = 'REPORT'))");
+        }
+        // One row past the limit tells a full page from a truncated one
+        sql.append(" LIMIT ?");
+        args.add(maxRows + 1);
+
+        List<ObjectNode> events = new ArrayList<>();
+        List<ObjectNode> reports = new ArrayList<>();
+        List<ObjectNode> decisions = new ArrayList<>();
+        int[] read = new int[1];
+        jdbcTemplate.query(sql.toString(), rs -> {
+            if (++read[0] > maxRows) {
+                return;
+            }
+            ObjectNode row = toNode(rs);
+            switch (rs.getString("entity_type")) {
+                case EVENT -> events.add(row);
+                case REPORT -> reports.add(row);
+                default -> decisions.add(row);
+            }
+        }, args.toArray());
+        boolean truncated = read[0] > maxRows;
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("at", at);
+        Timestamp snapshotAt = latestSnapshotAtOrBefore(ts);
+        resp.put("snapshotAt", snapshotAt != null ? snapshotAt.toInstant() : null);
+        resp.put("truncated", truncated);
+        resp.put("events", events);
+        resp.put("reports", reports);
+        resp.put("decisions", decisions);
+        return resp;
+    }
+
+    /**
+     * A {@code WITH} clause ending in a {@code state} CTE of (entity_type, entity_id, location,
+     * payload): the newest snapshot whose taken_at is {@code bound} the first argument, read over
+     * its full snapshot if it is a delta, overlaid with the latest history row per entity up to
+     * the second argument. Bbox arguments are appended to {@code args}.
+     */
+    private static String state(String bound, double[] bbox, List<Object> args) {
+        String snapshotBox = "";
+        String historyBox = "";
+        if (bbox != null) {
+            historyBox = " AND (entity_type = 'DECISION' OR location && " + ENVELOPE + ")";
+            snapshotBox = " AND s.location && " + ENVELOPE;
+        }
+        String notInDelta = " AND NOT EXISTS (SELECT 1 FROM delta d WHERE d.entity_type = s.entity_type AND d.entity_id = s.entity_id)";
+        String notInSnapshot = " AND NOT EXISTS (SELECT 1 FROM cop_snapshot_rows c WHERE c.snapshot_id = snap.id AND snap.id <> snap.full_id " +
+            "AND c.entity_type = s.entity_type AND c.entity_id = s.entity_id)";
+        StringBuilder sql = new StringBuilder(
+            "WITH snap AS (SELECT id, taken_at, COALESCE(base_id, id) AS full_id FROM cop_snapshots WHERE taken_at " + bound + " ? " +
+            "ORDER BY taken_at DESC LIMIT 1), " +
+            "delta AS (SELECT DISTINCT ON (h.entity_type, h.entity_id) h.entity_type, h.entity_id, h.operation, h.location, h.payload " +
+            "FROM cop_history h WHERE h.recorded_at > COALESCE((SELECT taken_at FROM snap), '-infinity') AND h.recorded_at <= ? " +
+            "ORDER BY h.entity_type, h.entity_id, h.recorded_at DESC, h.id DESC), " +
+            "state AS (SELECT entity_type, entity_id, location, payload FROM delta WHERE operation <> 'D'").append(historyBox);
+        if (bbox != null) {
+            addEnvelope(args, bbox);
+        }
+        // What a delta snapshot changed since its full one
+        sql.append(" UNION ALL SELECT s.entity_type, s.entity_id, s.location, s.payload FROM snap JOIN cop_snapshot_rows s ON s.snapshot_id = snap.id " +
+                   "WHERE snap.id <> snap.full_id AND NOT s.deleted").append(notInDelta)
+           .append(historyBox.replace("entity_type", "s.entity_type").replace("location", "s.location"));
+        if (bbox != null) {
+            addEnvelope(args, bbox);
+        }
+        // Two arms over the full snapshot so each can use the (snapshot_id, location) index or the primary key
+        sql.append(" UNION ALL SELECT s.entity_type, s.entity_id, s.location, s.payload FROM snap JOIN cop_snapshot_rows s ON s.snapshot_id = snap.full_id " +
+                   "WHERE s.entity_type <> 'DECISION'").append(notInDelta).append(notInSnapshot).append(snapshotBox);
+        if (bbox != null) {
+            addEnvelope(args, bbox);
+        }
+        sql.append(" UNION ALL SELECT s.entity_type, s.entity_id, s.location, s.payload FROM snap JOIN cop_snapshot_rows s ON s.snapshot_id = snap.full_id " +
+                   "WHERE s.entity_type = 'DECISION'").append(notInDelta).append(notInSnapshot).append(") ");
+        return sql.toString();
+    }
+
+    /**
+     * Changes recorded in ({@code from}, {@code to}], in write order, for stepping a replayed state
+     * forward without refetching it. An event or report change is included if {@code clearance}
+     * can read the entity as it was after the change; a decision change if it can read the event
+     * and report the decision was about as they stood then. With a bbox, a change is included if
+     * the entity is inside the box after it or was inside before it, so moves out of the box are
+     * seen; decisions are always included. Page with {@code afterId} when {@code truncated} is set.
+     */
+    public Map<String, Object> changes(Instant from, Instant to, double[] bbox, long afterId, ClassificationLevel clearance) {
+        String[] readable = readableLabels(clearance);
+        List<Object> args = new ArrayList<>(List.of(Timestamp.from(from), Timestamp.from(to), afterId, readable, readable, readable));
+        StringBuilder sql = new StringBuilder(
+            "SELECT h.id, h.entity_type, h.entity_id, h.operation, h.recorded_at, ST_X(h.location) AS lon, ST_Y(h.location) AS lat, " +
+            "h.payload::text AS payload FROM cop_history h WHERE h.recorded_at > ? AND h.recorded_at <= ? AND h.id > ?" +
+            " AND (h.entity_type = 'DECISION' OR " + LABEL.formatted("h.payload") + " = ANY(?))" +
+            " AND (h.entity_type <> 'DECISION' OR (" + subjectReadable("EVENT", "event_id") + " AND " + subjectReadable("REPORT", "report_id") + "))");
+        if (bbox != null) {
+            sql.append(" AND (h.entity_type = 'DECISION' OR h.location && ").append(ENVELOPE)
+               .append(" OR (SELECT p.location FROM cop_history p WHERE p.entity_type = h.entity_type AND p.entity_id = h.entity_id " +
+                       "AND (p.recorded_at, p.id) < (h.recorded_at, h.id) ORDER BY p.recorded_at DESC, p.id DESC LIMIT 1) && ")
+               .append(ENVELOPE).append(')');
+            addEnvelope(args, bbox);
+            addEnvelope(args, bbox);
+        }
+        sql.append(" ORDER BY h.id LIMIT ?");
+        args.add(maxRows + 1);
+
+        List<Map<String, Object>> changes = new ArrayList<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Map<String, Object> change = new LinkedHashMap<>();
+            change.put("id", rs.getLong("id"));
+            change.put("entityType", rs.getString("entity_type"));
+            change.put("entityId", rs.getString("entity_id"));
+            change.put("operation", switch (rs.getString("operation")) {
+                case "I" -> "INSERT";
+                case "D" -> "DELETE";
+                default -> "UPDATE";
+            });
+            change.put("recordedAt", rs.getTimestamp("recorded_at").toInstant());
+            change.put("state", toNode(rs));
+            changes.add(change);
+        }, args.toArray());
+        boolean truncated = changes.size() > maxRows;
+        if (truncated) {
+            changes.remove(changes.size() - 1);
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("from", from);
+        resp.put("to", to);
+        resp.put("truncated", truncated);
+        resp.put("changes", changes);
+        return resp;
+    }
+
+    /**
+     * Takes the snapshot for the latest interval boundary that is at least the lag in the past, if
+     * it does not exist yet. The boundary is the unique key, so concurrent instances build it once.
+     */
+    @Scheduled(fixedDelayString = "${replay.snapshot-poll-ms:60000}", initialDelayString = "${replay.snapshot-poll-ms:60000}")
+    public void takeSnapshot() {
+        long interval = Duration.ofMinutes(snapshotIntervalMinutes).getSeconds();
+        long due = Math.floorDiv(Instant.now().minusSeconds(snapshotLagSeconds).getEpochSecond(), interval) * interval;
+        Timestamp takenAt = Timestamp.from(Instant.ofEpochSecond(due));
+        Timestamp latest = latestSnapshotAtOrBefore(null);
+        if (latest != null && !latest.before(takenAt)) {
+            return;
+        }
+        boolean full = due % Duration.ofHours(fullSnapshotIntervalHours).getSeconds() == 0;
+        Integer rows = transactionTemplate.execute(status -> buildSnapshot(takenAt, full));
+        if (rows != null) {
+            log.info("Replay snapshot at {} holds {} rows", takenAt.toInstant(), rows);
+        }
+    }
+
+    /** Builds the snapshot at {@code takenAt} unless one exists; returns its row count, or null if it did. */
+    Integer buildSnapshot(Timestamp takenAt, boolean fullDue) {
+        List<Map<String, Object>> bases = jdbcTemplate.queryForList(
+            "SELECT id, taken_at FROM cop_snapshots WHERE base_id IS NULL AND taken_at < ? ORDER BY taken_at DESC LIMIT 1", takenAt);
+        boolean full = fullDue || bases.isEmpty();
+        Long baseId = full ? null : ((Number) bases.get(0).get("id")).longValue();
+        List<Long> ids = jdbcTemplate.queryForList(
+            "INSERT INTO cop_snapshots (taken_at, base_id) VALUES (?, ?) ON CONFLICT (taken_at) DO NOTHING RETURNING id", Long.class, takenAt, baseId);
+        if (ids.isEmpty()) {
+            return null;
+        }
+        long id = ids.get(0);
+        int rows;
+        if (full) {
+            // The state as a replay would build it; the new row itself is excluded by taken_at < ?
+            List<Object> args = new ArrayList<>(List.of(takenAt, takenAt));
+            args.add(id);
+            rows = jdbcTemplate.update(
+                "INSERT INTO cop_snapshot_rows (snapshot_id, entity_type, entity_id, location, payload) " +
+                state("<", null, args) + "SELECT ?, entity_type, entity_id, location, payload FROM state", args.toArray());
+        } else {
+            // Latest history per entity since the base, deletions included so they hide its rows
+            rows = jdbcTemplate.update(
+                "INSERT INTO cop_snapshot_rows (snapshot_id, entity_type, entity_id, location, payload, deleted) " +
+                "SELECT DISTINCT ON (h.entity_type, h.entity_id) ?, h.entity_type, h.entity_id, h.location, h.payload, h.operation = 'D' " +
+                "FROM cop_history h WHERE h.recorded_at > ? AND h.recorded_at <= ? " +
+                "ORDER BY h.entity_type, h.entity_id, h.recorded_at DESC, h.id DESC",
+                id, bases.get(0).get("taken_at"), takenAt);
+        }
+        jdbcTemplate.update("UPDATE cop_snapshots SET row_count = ? WHERE id = ?", rows, id);
+        return rows;
+    }
+
+    /**
+     * Thins out old snapshots to the full one at the start of each UTC day, whatever the session
+     * time zone; replays that far back read up to a day of history. A full snapshot stays while
+     * newer deltas are still read over it.
+     */
+    @Scheduled(cron = "${replay.prune-cron:0 40 3 * * *}")
+    public void pruneSnapshots() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(Duration.ofDays(keepAllSnapshotsDays)));
+        int pruned = jdbcTemplate.update(
+            "DELETE FROM cop_snapshots s WHERE s.taken_at < ? " +
+            "AND NOT (s.base_id IS NULL AND s.taken_at = date_trunc('day', s.taken_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC') " +
+            "AND NOT EXISTS (SELECT 1 FROM cop_snapshots d WHERE d.base_id = s.id AND d.taken_at >= ?)",
+            cutoff, cutoff);
+        log.debug("Pruned {} replay snapshots", pruned);
+    }
+
+    private Timestamp latestSnapshotAtOrBefore(Timestamp at) {
+        List<Timestamp> taken = at == null
+            ? jdbcTemplate.queryForList("SELECT max(taken_at) FROM cop_snapshots", Timestamp.class)
+            : jdbcTemplate.queryForList("SELECT max(taken_at) FROM cop_snapshots WHERE taken_at <= ?", Timestamp.class, at);
+        return taken.isEmpty() ? null : taken.get(0);
+    }
+
+    private ObjectNode toNode(ResultSet rs) throws SQLException {
+        ObjectNode node;
+        try {
+            node = (ObjectNode) objectMapper.readTree(rs.getString("payload"));
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Unreadable history payload for " + rs.getString("entity_id"), e);
+        }
+        double lon = rs.getDouble("lon");
+        if (!rs.wasNull()) {
+            node.put("lon", lon);
+            node.put("lat", rs.getDouble("lat"));
+        }
+        return node;
+    }
+
+    /**
+     * Whether the {@code type} entity a decision history row {@code h} refers to by {@code key} was
+     * readable when the decision changed; true when it refers to none, or to one with no history.
+     */
+    private static String subjectReadable(String type, String key) {
+        return "NOT EXISTS (SELECT 1 FROM (SELECT p.payload FROM cop_history p WHERE p.entity_type = '" + type + "' " +
+            "AND p.entity_id = h.payload->>'" + key + "' AND (p.recorded_at, p.id) <= (h.recorded_at, h.id) " +
+            "ORDER BY p.recorded_at DESC, p.id DESC LIMIT 1) subject WHERE NOT " + LABEL.formatted("subject.payload") + " = ANY(?))";
+    }
+
+    private static String[] readableLabels(ClassificationLevel clearance) {
+        return Arrays.stream(ClassificationLevel.values())
+            .filter(level -> level.canAccess(clearance))
+            .map(Enum::name)
+            .toArray(String[]::new);
+    }
+
+    private static void addEnvelope(List<Object> args, double[] bbox) {
+        for (double v : bbox) {
+            args.add(v);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.cop.repository;
+
+import com.cop.entity.Event;
+
+import java.util.Optional;
+
+/**
+ * Lets {@link EventRepository#findById} see events the archiver has moved out of {@code events}.
+ * Archived events come back detached and marked archived, with their decisions and source reports.
+ */
+public interface ArchivedEventLookup {
+
+    Optional<Event> findById(Long id);
+}
@@ -0,0 +1,26 @@
+package com.cop.repository;
+
+import com.cop.archive.ArchivedEntities;
+import com.cop.entity.Event;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public class ArchivedEventLookupImpl implements ArchivedEventLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ArchivedEntities archivedEntities;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Event> findById(Long id) {
+        Event event = entityManager.find(Event.class, id);
+        return event != null ? Optional.of(event) : archivedEntities.event(id);
+    }
+}
@@ -0,0 +1,14 @@
+package com.cop.repository;
+
+import com.cop.entity.IntelligenceReport;
+
+import java.util.Optional;
+
+/**
+ * Lets {@link IntelligenceReportRepository#findById} see reports the archiver has moved out of
+ * {@code intelligence_reports}. Archived reports come back detached and marked archived.
+ */
+public interface ArchivedReportLookup {
+
+    Optional<IntelligenceReport> findById(Long id);
+}
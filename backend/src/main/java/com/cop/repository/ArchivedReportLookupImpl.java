@@ -0,0 +1,26 @@
+package com.cop.repository;
+
+import com.cop.archive.ArchivedEntities;
+import com.cop.entity.IntelligenceReport;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public class ArchivedReportLookupImpl implements ArchivedReportLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ArchivedEntities archivedEntities;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<IntelligenceReport> findById(Long id) {
+        IntelligenceReport report = entityManager.find(IntelligenceReport.class, id);
+        return report != null ? Optional.of(report) : archivedEntities.report(id);
+    }
+}
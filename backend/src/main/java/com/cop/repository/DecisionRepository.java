@@ -23,6 +23,7 @@ public interface DecisionRepository extends JpaRepository<Decision, Long> {
     
     List<Decision> findByReport_Id(Long reportId);
     
+    // Only reads the decisions partitions for the months in range
     @Query("SELECT d FROM Decision d WHERE d.decisionDate BETWEEN :startDate AND :endDate")
     List<Decision> findByDateRange(@Param("startDate") LocalDateTime startDate, 
                                   @Param("endDate") LocalDateTime endDate);
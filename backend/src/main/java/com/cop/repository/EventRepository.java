@@ -2,6 +2,7 @@ package com.cop.repository;
 
 import com.cop.entity.Event;
 import com.cop.enums.EventStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,12 +11,13 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, ArchivedEventLookup {
     
     List<Event> findByStatus(EventStatus status);
     
     List<Event> findByType(String type);
     
+    // Bounded on start_time, so Postgres skips every monthly partition outside the window
     @Query("SELECT e FROM Event e WHERE e.startTime BETWEEN :startDate AND :endDate")
     List<Event> findByTimeRange(@Param("startDate") LocalDateTime startDate, 
                                @Param("endDate") LocalDateTime endDate);
@@ -23,8 +25,9 @@ public interface EventRepository extends JpaRepository<Event, Long> {
     @Query("SELECT e FROM Event e WHERE ST_DWithin(e.location, ST_GeomFromText(:point, 4326), :radiusMeters)")
     List<Event> findWithinRadius(@Param("point") String point, @Param("radiusMeters") double radiusMeters);
     
-    @Query("SELECT e FROM Event e WHERE e.confidenceScore >= :minConfidence ORDER BY e.confidenceScore DESC")
-    List<Event> findByMinimumConfidence(@Param("minConfidence") double minConfidence);
+    // Walks idx_events_confidence from the top, so only the requested page is read
+    @Query("SELECT e FROM Event e WHERE e.confidenceScore >= :minConfidence ORDER BY e.confidenceScore DESC, e.id")
+    List<Event> findByMinimumConfidence(@Param("minConfidence") double minConfidence, Pageable pageable);
     
     @Query("SELECT e FROM Event e JOIN e.sourceReports r WHERE r.id = :reportId")
     List<Event> findBySourceReportId(@Param("reportId") Long reportId);
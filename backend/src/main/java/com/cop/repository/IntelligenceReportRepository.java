@@ -9,9 +9,15 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface IntelligenceReportRepository extends JpaRepository<IntelligenceReport, Long> {
+public interface IntelligenceReportRepository extends JpaRepository<IntelligenceReport, Long>, ArchivedReportLookup {
+    
+    // Declared by both supertypes; redeclared so calls resolve to the archive-aware implementation.
+    // The primary key is (id, event_time), so a lookup by id alone probes every partition's index
+    @Override
+    Optional<IntelligenceReport> findById(Long id);
     
     List<IntelligenceReport> findBySubmittedBy_Id(Long userId);
     
@@ -19,9 +25,12 @@ public interface IntelligenceReportRepository extends JpaRepository<Intelligence
     
     List<IntelligenceReport> findByStatus(ReportStatus status);
     
-    @Query("SELECT r FROM IntelligenceReport r WHERE r.submittedAt BETWEEN :startDate AND :endDate")
-    List<IntelligenceReport> findByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                           @Param("endDate") LocalDateTime endDate);
+    // Reports whose observed activity falls in the window, not reports submitted in it: the entity
+    // maps no submission time. event_time is the partition key, so only the months the window
+    // overlaps are scanned
+    @Query("SELECT r FROM IntelligenceReport r WHERE r.eventTime BETWEEN :startDate AND :endDate")
+    List<IntelligenceReport> findByEventTimeRange(@Param("startDate") LocalDateTime startDate, 
+                                                @Param("endDate") LocalDateTime endDate);
     
     @Query("SELECT r FROM IntelligenceReport r WHERE r.intelligenceType = :type AND r.status = :status")
     List<IntelligenceReport> findByTypeAndStatus(@Param("type") IntelligenceType type, 
@@ -0,0 +1,39 @@
+package com.cop.repository;
+
+import com.cop.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    @Query(value = "SELECT * FROM outbox_events WHERE delivered_at IS NULL AND next_attempt_at <= NOW() " +
+                   "ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("batchSize") int batchSize);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.nextAttemptAt = :leasedUntil WHERE o.id IN :ids")
+    int lease(@Param("ids") List<Long> ids, @Param("leasedUntil") LocalDateTime leasedUntil);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.deliveredAt = :deliveredAt WHERE o.id IN :ids")
+    int markDelivered(@Param("ids") List<Long> ids, @Param("deliveredAt") LocalDateTime deliveredAt);
+    
+    @Modifying
+    @Query(value = "UPDATE outbox_events SET delivered_to = array_append(delivered_to, :subscriber) " +
+                   "WHERE id IN (:ids) AND NOT (:subscriber = ANY(delivered_to))", nativeQuery = true)
+    int markDeliveredTo(@Param("ids") List<Long> ids, @Param("subscriber") String subscriber);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent o SET o.attempts = o.attempts + 1, o.nextAttemptAt = :nextAttemptAt, o.lastError = :error WHERE o.id IN :ids")
+    int markFailed(@Param("ids") List<Long> ids, @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent o WHERE o.deliveredAt < :before")
+    int deleteDeliveredBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,22 @@
+package com.cop.repository;
+
+import com.cop.entity.ReportSignature;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface ReportSignatureRepository extends JpaRepository<ReportSignature, Long> {
+    
+    List<ReportSignature> findByDuplicateOf(Long reportId);
+    
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT s FROM ReportSignature s")
+    Stream<ReportSignature> streamAll();
+}
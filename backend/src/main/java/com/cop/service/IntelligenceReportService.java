@@ -1,35 +1,72 @@
 package com.cop.service;
 
+import com.cop.common.cache.CacheInvalidationBus;
+import com.cop.confidence.EventConfidenceService;
+import com.cop.dto.BulkReviewRequest;
+import com.cop.dto.BulkReviewResult;
 import com.cop.dto.CreateReportRequest;
 import com.cop.dto.UpdateReportRequest;
 import com.cop.entity.IntelligenceReport;
 import com.cop.entity.User;
 import com.cop.enums.ClearanceLevel;
 import com.cop.enums.ReportStatus;
+import com.cop.outbox.OutboxPublisher;
 import com.cop.repository.IntelligenceReportRepository;
+import com.cop.track.TrackService;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class IntelligenceReportService {
 
+    private static final int MAX_BULK_REVIEW = 1000;
+    // Awaiting review, and not already copied to the archive by a batch that has yet to delete it
+    private static final String REVIEWABLE = "(r.status IN ('PENDING', 'UNDER_REVIEW') " +
+            "AND NOT EXISTS (SELECT 1 FROM archive_index a WHERE a.entity_type = 'REPORT' AND a.entity_id = r.id::text))";
+
     @Autowired
     private IntelligenceReportRepository reportRepository;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ReportDeduplicationService deduplicationService;
+
+    @Autowired
+    private OutboxPublisher outboxPublisher;
+
+    @Autowired
+    private EventConfidenceService eventConfidenceService;
+
+    @Autowired
+    private TrackService trackService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+
     private final GeometryFactory geometryFactory = new GeometryFactory();
 
     public IntelligenceReport createReport(CreateReportRequest request, String username) {
@@ -56,11 +93,16 @@ public class IntelligenceReportService {
             report.setMetadata(request.getMetadata());
         }
         
-        return reportRepository.save(report);
+        IntelligenceReport saved = reportRepository.save(report);
+        // Near-duplicates are linked via metadata so fusion does not count the same intel twice
+        deduplicationService.register(saved);
+        trackService.observe(saved);
+        outboxPublisher.publishReport(saved, "CREATED");
+        return saved;
     }
 
     public IntelligenceReport updateReport(Long id, UpdateReportRequest request, String username) {
-        IntelligenceReport report = findById(id);
+        IntelligenceReport report = findLiveById(id);
         User user = userService.findByUsername(username);
         
         // Check if user can update this report
@@ -89,11 +131,13 @@ public class IntelligenceReportService {
             report.getMetadata().putAll(request.getMetadata());
         }
         
-        return reportRepository.save(report);
+        IntelligenceReport saved = reportRepository.save(report);
+        outboxPublisher.publishReport(saved, "UPDATED");
+        return saved;
     }
 
     public IntelligenceReport approveReport(Long id, String reviewComments, String username) {
-        IntelligenceReport report = findById(id);
+        IntelligenceReport report = findLiveById(id);
         User reviewer = userService.findByUsername(username);
         
         report.setStatus(ReportStatus.APPROVED);
@@ -101,11 +145,14 @@ public class IntelligenceReportService {
         report.setReviewedAt(LocalDateTime.now());
         report.setReviewComments(reviewComments);
         
-        return reportRepository.save(report);
+        IntelligenceReport saved = reportRepository.save(report);
+        eventConfidenceService.reportChanged(saved);
+        outboxPublisher.publishReport(saved, "APPROVED");
+        return saved;
     }
 
     public IntelligenceReport rejectReport(Long id, String reviewComments, String username) {
-        IntelligenceReport report = findById(id);
+        IntelligenceReport report = findLiveById(id);
         User reviewer = userService.findByUsername(username);
         
         report.setStatus(ReportStatus.REJECTED);
@@ -113,7 +160,93 @@ public class IntelligenceReportService {
         report.setReviewedAt(LocalDateTime.now());
         report.setReviewComments(reviewComments);
         
-        return reportRepository.save(report);
+        IntelligenceReport saved = reportRepository.save(report);
+        eventConfidenceService.reportChanged(saved);
+        outboxPublisher.publishReport(saved, "REJECTED");
+        return saved;
+    }
+
+    /**
+     * Approves or rejects many reports in one transaction with a fixed number of statements: one
+     * UPDATE over all items that applies each row's {@code @Version} check itself, one read to
+     * classify the rows it skipped, and one multi-row outbox insert. Only reports still awaiting
+     * review and not being archived are changed; the rest are left untouched and reported as
+     * conflicts rather than failing the batch. Results follow the request order; repeated ids are
+     * reviewed once.
+     */
+    public List<BulkReviewResult> bulkReview(BulkReviewRequest request, String username) {
+        if (request.getItems().size() > MAX_BULK_REVIEW) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_REVIEW + " reports can be reviewed at once");
+        }
+        User reviewer = userService.findByUsername(username);
+        ReportStatus status = request.getDecision() == BulkReviewRequest.Decision.APPROVE
+                ? ReportStatus.APPROVED : ReportStatus.REJECTED;
+
+        Map<Long, Long> expected = new LinkedHashMap<>();
+        for (BulkReviewRequest.Item item : request.getItems()) {
+            if (item.getVersion() == null) {
+                throw new IllegalArgumentException("Report " + item.getId() + " has no version");
+            }
+            expected.putIfAbsent(item.getId(), item.getVersion());
+        }
+        Long[] ids = expected.keySet().toArray(Long[]::new);
+        Long[] versions = expected.values().toArray(Long[]::new);
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Long, Long> applied = new HashMap<>();
+        Map<Long, Map<String, Object>> payloads = new LinkedHashMap<>();
+        jdbcTemplate.query("UPDATE intelligence_reports r SET status = ?, reviewed_by = ?, reviewed_at = ?, review_comments = ?, " +
+                        "updated_at = ?, version = r.version + 1 " +
+                        "FROM unnest(?::bigint[], ?::bigint[]) AS item(id, version) " +
+                        "WHERE r.id = item.id AND r.version = item.version AND " + REVIEWABLE + " " +
+                        "RETURNING r.id, r.version, r.type, r.status, r.clearance_level, r.event_time, r.confidence_score, " +
+                        "r.submitted_by, ST_Y(r.location) AS lat, ST_X(r.location) AS lon",
+                rs -> {
+                    applied.put(rs.getLong("id"), rs.getLong("version"));
+                    payloads.put(rs.getLong("id"), OutboxPublisher.reportPayload(rs));
+                },
+                status.name(), reviewer.getId(), now, request.getReviewComments(), now, ids, versions);
+
+        Map<Long, Long> current = new HashMap<>();
+        Set<Long> reviewable = new HashSet<>();
+        if (applied.size() < ids.length) {
+            Long[] skipped = expected.keySet().stream().filter(id -> !applied.containsKey(id)).toArray(Long[]::new);
+            jdbcTemplate.query("SELECT r.id, r.version, " + REVIEWABLE + " AS reviewable FROM intelligence_reports r WHERE r.id = ANY(?)",
+                    rs -> {
+                        current.put(rs.getLong("id"), rs.getLong("version"));
+                        if (rs.getBoolean("reviewable")) {
+                            reviewable.add(rs.getLong("id"));
+                        }
+                    }, (Object) skipped);
+        }
+
+        if (!applied.isEmpty()) {
+            jdbcTemplate.query("SELECT report_id, metadata_value FROM report_metadata WHERE metadata_key = ? AND report_id = ANY(?)",
+                    rs -> { payloads.get(rs.getLong("report_id")).put("duplicateOf", rs.getString("metadata_value")); },
+                    ReportDeduplicationService.DUPLICATE_OF_KEY, applied.keySet().toArray(Long[]::new));
+            outboxPublisher.publishBatch(OutboxPublisher.REPORT, status.name(), payloads);
+            eventConfidenceService.reportsChanged(applied.keySet());
+            // Reviewed through SQL, not save(), so CacheInvalidationEntityListener never saw these
+            // reports; evict them here or other instances keep serving them as pending
+            CacheInvalidationBus bus = cacheInvalidationBus.getIfAvailable();
+            if (bus != null) {
+                applied.keySet().forEach(id -> bus.invalidate(IntelligenceReport.class.getSimpleName(), id));
+            }
+        }
+
+        List<BulkReviewResult> results = new ArrayList<>(ids.length);
+        for (Long id : ids) {
+            if (applied.containsKey(id)) {
+                results.add(new BulkReviewResult(id, BulkReviewResult.Outcome.APPLIED, applied.get(id)));
+            } else if (current.containsKey(id) && (reviewable.contains(id) || !current.get(id).equals(expected.get(id)))) {
+                results.add(new BulkReviewResult(id, BulkReviewResult.Outcome.VERSION_CONFLICT, current.get(id)));
+            } else if (current.containsKey(id)) {
+                results.add(new BulkReviewResult(id, BulkReviewResult.Outcome.STATUS_CONFLICT, current.get(id)));
+            } else {
+                results.add(new BulkReviewResult(id, BulkReviewResult.Outcome.NOT_FOUND, null));
+            }
+        }
+        return results;
     }
 
     @Transactional(readOnly = true)
@@ -122,6 +255,15 @@ public class IntelligenceReportService {
                 .orElseThrow(() -> new RuntimeException("Report not found with id: " + id));
     }
 
+    // Archived reports are read back for viewing only; there is no row left to change
+    private IntelligenceReport findLiveById(Long id) {
+        IntelligenceReport report = findById(id);
+        if (report.isArchived()) {
+            throw new IllegalStateException("Report " + id + " is archived and read-only");
+        }
+        return report;
+    }
+
     @Transactional(readOnly = true)
     public Page<IntelligenceReport> findAll(Pageable pageable) {
         return reportRepository.findAll(pageable);
@@ -150,7 +292,7 @@ public class IntelligenceReportService {
     }
 
     public void deleteReport(Long id, String username) {
-        IntelligenceReport report = findById(id);
+        IntelligenceReport report = findLiveById(id);
         User user = userService.findByUsername(username);
         
         // Only allow deletion by the submitter or HQ
@@ -159,6 +301,9 @@ public class IntelligenceReportService {
             throw new RuntimeException("Unauthorized to delete this report");
         }
         
+        eventConfidenceService.reportDeleted(id);
         reportRepository.delete(report);
+        deduplicationService.unregister(id);
+        outboxPublisher.publish(OutboxPublisher.REPORT, id, "DELETED", Map.of());
     }
 }
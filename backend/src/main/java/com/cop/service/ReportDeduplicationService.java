@@ -0,0 +1,125 @@
+package com.cop.service;
+
+import com.cop.common.config.SystemConfig;
+import com.cop.dedup.LshIndex;
+import com.cop.dedup.MinHasher;
+import com.cop.entity.IntelligenceReport;
+import com.cop.entity.ReportSignature;
+import com.cop.repository.ReportSignatureRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.util.stream.Stream;
+
+/**
+ * Flags near-duplicate report content at ingest. Signatures are persisted in
+ * {@code report_signatures} and the LSH band index is rebuilt from them on startup.
+ */
+@Service
+public class ReportDeduplicationService {
+
+    public static final String DUPLICATE_OF_KEY = "duplicate_of";
+    public static final String DUPLICATE_SIMILARITY_KEY = "duplicate_similarity";
+
+    private static final Logger log = LoggerFactory.getLogger(ReportDeduplicationService.class);
+    private static final int BANDS = 16;
+    private static final int ROWS = 8;
+
+    @Autowired
+    private ReportSignatureRepository signatureRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SystemConfig systemConfig;
+
+    @Value("${dedup.similarity-threshold:0.85}")
+    private double defaultSimilarityThreshold;
+
+    // Overridable at runtime through the dedup_similarity_threshold row in system_config
+    private SystemConfig.DoubleSetting similarityThreshold;
+
+    private final MinHasher minHasher = new MinHasher(BANDS * ROWS, 0x5EEDL);
+    private final LshIndex index = new LshIndex(BANDS, ROWS);
+
+    @PostConstruct
+    void registerSettings() {
+        similarityThreshold = systemConfig.doubleSetting("dedup_similarity_threshold", defaultSimilarityThreshold);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadIndex() {
+        long start = System.currentTimeMillis();
+        try (Stream<ReportSignature> signatures = signatureRepository.streamAll()) {
+            signatures.forEach(s -> {
+                index.add(s.getReportId(), decode(s.getSignature()));
+                entityManager.detach(s);
+            });
+        }
+        log.info("Loaded {} report signatures in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Signs a freshly saved report and records the closest earlier report, if any, in its
+     * metadata. The in-memory index only learns about the report once the transaction commits.
+     */
+    @Transactional
+    public LshIndex.Match register(IntelligenceReport report) {
+        int[] signature = minHasher.signature(report.getTitle() + "\n" + report.getContent());
+        LshIndex.Match match = index.bestMatch(signature, similarityThreshold.get());
+
+        ReportSignature stored = new ReportSignature(report.getId(), encode(signature));
+        if (match != null) {
+            stored.setDuplicateOf(match.reportId());
+            stored.setSimilarity(match.similarity());
+            report.getMetadata().put(DUPLICATE_OF_KEY, String.valueOf(match.reportId()));
+            report.getMetadata().put(DUPLICATE_SIMILARITY_KEY, String.format("%.3f", match.similarity()));
+        }
+        signatureRepository.save(stored);
+
+        long reportId = report.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index.add(reportId, signature);
+            }
+        });
+        return match;
+    }
+
+    @Transactional
+    public void unregister(Long reportId) {
+        signatureRepository.deleteById(reportId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index.remove(reportId);
+            }
+        });
+    }
+
+    private static byte[] encode(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    private static int[] decode(byte[] bytes) {
+        int[] signature = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+}
@@ -0,0 +1,91 @@
+package com.cop.track;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The stored form of a segment's points. Coordinates are rounded to 1e-6 degrees (about 11 cm)
+ * and every value after the first point is a zigzag varint delta from the previous one, so a
+ * point of a moving track usually takes 5 to 7 bytes instead of 24.
+ * <p>
+ * Layout: a format byte, the point count, then per point the time delta in milliseconds
+ * (unsigned, points are in time order), the longitude delta and the latitude delta.
+ */
+final class TrackCodec {
+    private static final int FORMAT = 1;
+    private static final double SCALE = 1e6;
+
+    private TrackCodec() {
+    }
+
+    static byte[] encode(List<TrackPoint> points) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + points.size() * 7);
+        out.write(FORMAT);
+        writeVarLong(out, points.size());
+        long time = 0;
+        long lon = 0;
+        long lat = 0;
+        for (TrackPoint point : points) {
+            long nextLon = Math.round(point.lon() * SCALE);
+            long nextLat = Math.round(point.lat() * SCALE);
+            writeVarLong(out, point.time() - time);
+            writeVarLong(out, zigzag(nextLon - lon));
+            writeVarLong(out, zigzag(nextLat - lat));
+            time = point.time();
+            lon = nextLon;
+            lat = nextLat;
+        }
+        return out.toByteArray();
+    }
+
+    static List<TrackPoint> decode(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != FORMAT) {
+            throw new IllegalArgumentException("Unknown track segment format " + (bytes.length == 0 ? "(empty)" : bytes[0]));
+        }
+        int[] pos = {1};
+        int count = (int) readVarLong(bytes, pos);
+        List<TrackPoint> points = new ArrayList<>(count);
+        long time = 0;
+        long lon = 0;
+        long lat = 0;
+        for (int i = 0; i < count; i++) {
+            time += readVarLong(bytes, pos);
+            lon += unzigzag(readVarLong(bytes, pos));
+            lat += unzigzag(readVarLong(bytes, pos));
+            points.add(new TrackPoint(time, lon / SCALE, lat / SCALE));
+        }
+        return points;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated track segment");
+            }
+            byte b = bytes[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in track segment");
+    }
+}
@@ -0,0 +1,17 @@
+package com.cop.track;
+
+/**
+ * One position of a tracked entity, as stored in a track segment: epoch milliseconds and WGS84
+ * degrees.
+ */
+record TrackPoint(long time, double lon, double lat) {
+
+    /** The position on the straight line from {@code a} to {@code b} at {@code time}. */
+    static TrackPoint between(TrackPoint a, TrackPoint b, long time) {
+        if (b.time == a.time) {
+            return new TrackPoint(time, a.lon, a.lat);
+        }
+        double f = (double) (time - a.time) / (b.time - a.time);
+        return new TrackPoint(time, a.lon + (b.lon - a.lon) * f, a.lat + (b.lat - a.lat) * f);
+    }
+}
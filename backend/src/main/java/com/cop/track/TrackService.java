@@ -0,0 +1,496 @@
+package com.cop.track;
+
+import com.cop.entity.IntelligenceReport;
+import com.cop.enums.ClassificationLevel;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.io.WKBWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Movement history of tracked entities. Position observations, from reports that name the
+ * entities they saw or posted directly in batches, are buffered in memory and flushed every few
+ * seconds into {@code track_segments}: one row per entity and time bucket (an hour by default)
+ * holding the bucket's simplified points, delta-encoded, plus their path as a line for the
+ * spatial index. A busy entity reporting every second thus costs one row an hour of a few
+ * hundred bytes rather than 3600 rows.
+ * <p>
+ * While a segment is being written to, this instance keeps its raw points, so each flush
+ * simplifies the whole bucket again from the originals. Segments are versioned; if another
+ * instance wrote the same segment in between, the write is refused and the points are retried
+ * on the next flush, merged into what is stored. Late observations for a closed bucket are merged the same way.
+ * <p>
+ * Each segment records the highest classification of the observations in it, and queries only
+ * read segments within the caller's clearance: a single SECRET report hides that hour of the
+ * track from a caller cleared lower.
+ * <p>
+ * Observations still in the buffer, at most one flush interval's worth, are not yet visible to
+ * queries and are lost if the instance dies; report-derived ones can be replayed from the reports.
+ */
+@Service
+public class TrackService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackService.class);
+
+    /** Report metadata naming the entities a report's position is an observation of, comma-separated. */
+    public static final String ENTITY_IDS_KEY = "entity_ids";
+
+    static final int MAX_ENTITY_ID_LENGTH = 64;
+
+    private static final String UPSERT =
+        "INSERT INTO track_segments (entity_id, bucket_start, start_time, end_time, point_count, observation_count, path, points, " +
+        "classification_level, version, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ST_SetSRID(ST_GeomFromWKB(?), 4326), ?, ?, ?, NOW()) " +
+        "ON CONFLICT (entity_id, bucket_start) DO UPDATE SET start_time = EXCLUDED.start_time, end_time = EXCLUDED.end_time, " +
+        "point_count = EXCLUDED.point_count, observation_count = EXCLUDED.observation_count, path = EXCLUDED.path, " +
+        "points = EXCLUDED.points, classification_level = EXCLUDED.classification_level, version = EXCLUDED.version, updated_at = NOW() " +
+        "WHERE track_segments.version = EXCLUDED.version - 1";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${tracks.bucket:PT1H}")
+    private Duration bucket;
+
+    // Largest distance between a dropped observation and the track read back at its time
+    @Value("${tracks.tolerance-meters:15}")
+    private double toleranceMeters;
+
+    @Value("${tracks.max-pending:2000000}")
+    private long maxPending;
+
+    @Value("${tracks.flush-batch:1000}")
+    private int flushBatch;
+
+    // Past this many raw points an open bucket is kept simplified instead, bounding memory per entity
+    @Value("${tracks.max-open-points:20000}")
+    private int maxOpenPoints;
+
+    @Value("${tracks.max-query-points:100000}")
+    private int maxQueryPoints;
+
+    private final Map<String, List<Observed>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final Map<SegmentKey, OpenSegment> open = new HashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong observations = new AtomicLong();
+    private final AtomicLong segmentsWritten = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    /** A position of an entity, classified as the source it came from. */
+    public record Observation(String entityId, Instant time, double lon, double lat, ClassificationLevel classification) {
+    }
+
+    public record Position(Instant time, double lon, double lat, boolean interpolated) {
+    }
+
+    /** An entity whose track passed through the queried area, with the first and last time it did. */
+    public record Crossing(String entityId, Instant firstInside, Instant lastInside) {
+    }
+
+    private record SegmentKey(String entityId, long bucketStart) {
+    }
+
+    /** A buffered point and the {@link ClassificationLevel#getLevel() level} of its source. */
+    private record Observed(TrackPoint point, int classification) {
+    }
+
+    private record Stored(long version, int observationCount, int classification, byte[] points) {
+    }
+
+    private record OpenSegment(List<TrackPoint> points, long version, long writtenAt) {
+    }
+
+    private record Write(SegmentKey key, List<TrackPoint> incoming, List<TrackPoint> kept, List<TrackPoint> all,
+                         int observationCount, int classification, long version) {
+    }
+
+    /**
+     * Buffers observations for the next flush. Throws {@link IllegalArgumentException} if one is
+     * invalid, in which case none are taken, and {@link IllegalStateException} if the buffer is full.
+     */
+    public void observe(List<Observation> batch) {
+        for (Observation observation : batch) {
+            validate(observation);
+        }
+        if (pendingCount.get() + batch.size() > maxPending) {
+            throw new IllegalStateException("Track buffer is full (" + maxPending + " observations); retry shortly");
+        }
+        for (Observation observation : batch) {
+            Observed observed = new Observed(new TrackPoint(observation.time().toEpochMilli(), observation.lon(), observation.lat()),
+                observation.classification().getLevel());
+            pending.compute(observation.entityId(), (id, points) -> {
+                List<Observed> list = points != null ? points : new ArrayList<>();
+                list.add(observed);
+                return list;
+            });
+        }
+        pendingCount.addAndGet(batch.size());
+        observations.addAndGet(batch.size());
+    }
+
+    /**
+     * Records the report's position as an observation of each entity in its
+     * {@value #ENTITY_IDS_KEY} metadata, once the transaction saving it commits.
+     */
+    public void observe(IntelligenceReport report) {
+        String ids = report.getMetadata() != null ? report.getMetadata().get(ENTITY_IDS_KEY) : null;
+        if (ids == null || ids.isBlank() || report.getLocation() == null || report.getEventTime() == null) {
+            return;
+        }
+        Instant time = Timestamp.valueOf(report.getEventTime()).toInstant();
+        // A report without a level is held back from everyone below the top rather than shown to all
+        ClassificationLevel classification = report.getClearanceLevel() != null
+            ? ClassificationLevel.fromString(report.getClearanceLevel().name())
+            : ClassificationLevel.TOP_SECRET;
+        List<Observation> batch = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            if (!id.isBlank()) {
+                batch.add(new Observation(id.trim(), time, report.getLocation().getX(), report.getLocation().getY(), classification));
+            }
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            observe(batch);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    observe(batch);
+                } catch (RuntimeException e) {
+                    log.warn("Dropped track observations from report {}: {}", report.getId(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${tracks.flush-interval-ms:10000}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            Map<SegmentKey, List<TrackPoint>> incoming = new TreeMap<>(
+                Comparator.comparing(SegmentKey::entityId).thenComparingLong(SegmentKey::bucketStart));
+            Map<SegmentKey, Integer> classifications = new HashMap<>();
+            for (String entityId : List.copyOf(pending.keySet())) {
+                List<Observed> points = pending.remove(entityId);
+                if (points == null) {
+                    continue;
+                }
+                pendingCount.addAndGet(-points.size());
+                for (Observed observed : points) {
+                    SegmentKey key = new SegmentKey(entityId, bucketStart(observed.point().time()));
+                    incoming.computeIfAbsent(key, k -> new ArrayList<>()).add(observed.point());
+                    classifications.merge(key, observed.classification(), Math::max);
+                }
+            }
+            List<SegmentKey> keys = new ArrayList<>(incoming.keySet());
+            for (int from = 0; from < keys.size(); from += flushBatch) {
+                List<SegmentKey> chunk = keys.subList(from, Math.min(keys.size(), from + flushBatch));
+                try {
+                    write(chunk, incoming, classifications);
+                } catch (DataAccessException e) {
+                    log.warn("Track flush of {} segments failed, retrying next flush: {}", chunk.size(), e.getMessage());
+                    for (SegmentKey key : chunk) {
+                        open.remove(key);
+                        requeue(key, incoming.get(key), classifications.get(key));
+                    }
+                }
+            }
+            // Raw copies are kept while a segment is still being written to, which for a backfill
+            // can be long after its bucket ended; a bucket's worth of silence releases them
+            long idleSince = System.currentTimeMillis() - bucket.toMillis();
+            open.values().removeIf(segment -> segment.writtenAt() < idleSince);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Where {@code entityId} was between {@code from} and {@code to}: the stored points in that
+     * window, plus positions interpolated at both ends where the track runs past them. Segments
+     * classified above {@code clearance} are left out.
+     */
+    public List<Position> positions(String entityId, Instant from, Instant to, ClassificationLevel clearance) {
+        List<TrackPoint> points = load(entityId, from, to, clearance);
+        long start = from.toEpochMilli();
+        long end = to.toEpochMilli();
+        List<Position> positions = new ArrayList<>();
+        TrackPoint previous = null;
+        for (TrackPoint point : points) {
+            if (point.time() >= start && point.time() <= end) {
+                if (positions.isEmpty() && previous != null && point.time() > start) {
+                    positions.add(position(TrackPoint.between(previous, point, start), true));
+                }
+                positions.add(position(point, false));
+            } else if (point.time() > end) {
+                if (previous != null && previous.time() < end) {
+                    if (positions.isEmpty()) {
+                        // No stored point inside the window, but the track passes through it
+                        positions.add(position(TrackPoint.between(previous, point, start), true));
+                    }
+                    positions.add(position(TrackPoint.between(previous, point, end), true));
+                }
+                break;
+            }
+            previous = point;
+        }
+        return positions;
+    }
+
+    /**
+     * Entities whose track passed through {@code area} between {@code from} and {@code to}, in
+     * segments {@code clearance} covers. The spatial index narrows it down to segments whose path
+     * meets the area; each is then checked leg by leg within the time window.
+     */
+    public List<Crossing> crossings(Geometry area, Instant from, Instant to, int limit, ClassificationLevel clearance) {
+        long start = from.toEpochMilli();
+        long end = to.toEpochMilli();
+        PreparedGeometry prepared = PreparedGeometryFactory.prepare(area);
+        Map<String, long[]> inside = new LinkedHashMap<>();
+        jdbcTemplate.query(
+            "SELECT entity_id, points FROM track_segments " +
+            "WHERE path && ST_GeomFromText(?, 4326) AND ST_Intersects(path, ST_GeomFromText(?, 4326)) " +
+            "AND bucket_start > ? AND bucket_start <= ? AND start_time <= ? AND end_time >= ? AND classification_level <= ? " +
+            "ORDER BY entity_id, bucket_start",
+            rs -> {
+                String entityId = rs.getString("entity_id");
+                long[] span = crossing(prepared, TrackCodec.decode(rs.getBytes("points")), start, end);
+                if (span != null) {
+                    inside.merge(entityId, span, (a, b) -> new long[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])});
+                }
+            },
+            area.toText(), area.toText(), Timestamp.from(from.minus(bucket)), Timestamp.from(to),
+            Timestamp.from(to), Timestamp.from(from), clearance.getLevel());
+        return inside.entrySet().stream()
+            .map(e -> new Crossing(e.getKey(), Instant.ofEpochMilli(e.getValue()[0]), Instant.ofEpochMilli(e.getValue()[1])))
+            .sorted(Comparator.comparing(Crossing::firstInside))
+            .limit(limit)
+            .toList();
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pending", pendingCount.get());
+        status.put("observations", observations.get());
+        status.put("segmentsWritten", segmentsWritten.get());
+        status.put("conflicts", conflicts.get());
+        status.put("stored", jdbcTemplate.queryForMap(
+            "SELECT count(*) AS segments, count(DISTINCT entity_id) AS entities, COALESCE(sum(observation_count), 0) AS observations, " +
+            "COALESCE(sum(point_count), 0) AS points, COALESCE(sum(octet_length(points)), 0) AS bytes FROM track_segments"));
+        return status;
+    }
+
+    private void write(List<SegmentKey> chunk, Map<SegmentKey, List<TrackPoint>> incoming, Map<SegmentKey, Integer> classifications) {
+        Map<SegmentKey, Stored> stored = loadStored(chunk);
+        List<Write> writes = new ArrayList<>(chunk.size());
+        for (SegmentKey key : chunk) {
+            Stored current = stored.get(key);
+            long version = current != null ? current.version() : 0;
+            OpenSegment cached = open.get(key);
+            List<TrackPoint> base;
+            if (cached != null && cached.version() == version) {
+                base = cached.points();
+            } else {
+                base = current != null ? TrackCodec.decode(current.points()) : List.of();
+            }
+            List<TrackPoint> added = incoming.get(key);
+            List<TrackPoint> all = merge(base, added);
+            int observationCount = (current != null ? current.observationCount() : 0) + added.size();
+            int classification = Math.max(current != null ? current.classification() : 0, classifications.get(key));
+            writes.add(new Write(key, added, TrajectorySimplifier.simplify(all, toleranceMeters), all, observationCount,
+                classification, version + 1));
+        }
+        WKBWriter wkb = new WKBWriter();
+        int[] counts = jdbcTemplate.batchUpdate(UPSERT, writes, writes.size(), (ps, w) -> {
+            List<TrackPoint> kept = w.kept();
+            ps.setString(1, w.key().entityId());
+            ps.setTimestamp(2, new Timestamp(w.key().bucketStart()));
+            ps.setTimestamp(3, new Timestamp(kept.get(0).time()));
+            ps.setTimestamp(4, new Timestamp(kept.get(kept.size() - 1).time()));
+            ps.setInt(5, kept.size());
+            ps.setInt(6, w.observationCount());
+            ps.setBytes(7, wkb.write(path(kept)));
+            ps.setBytes(8, TrackCodec.encode(kept));
+            ps.setInt(9, w.classification());
+            ps.setLong(10, w.version());
+        })[0];
+        for (int i = 0; i < writes.size(); i++) {
+            Write w = writes.get(i);
+            if (counts[i] == 0) {
+                conflicts.incrementAndGet();
+                open.remove(w.key());
+                requeue(w.key(), w.incoming(), classifications.get(w.key()));
+            } else {
+                segmentsWritten.incrementAndGet();
+                open.put(w.key(), new OpenSegment(w.all().size() > maxOpenPoints ? w.kept() : w.all(), w.version(),
+                    System.currentTimeMillis()));
+            }
+        }
+    }
+
+    private Map<SegmentKey, Stored> loadStored(List<SegmentKey> keys) {
+        String[] entityIds = new String[keys.size()];
+        long[] buckets = new long[keys.size()];
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < keys.size(); i++) {
+            entityIds[i] = keys.get(i).entityId();
+            buckets[i] = keys.get(i).bucketStart();
+            min = Math.min(min, buckets[i]);
+            max = Math.max(max, buckets[i]);
+        }
+        Map<SegmentKey, Stored> stored = new HashMap<>();
+        // The bucket bounds let Postgres skip the monthly partitions none of the keys fall in
+        jdbcTemplate.query(
+            "SELECT s.entity_id, s.bucket_start, s.version, s.observation_count, s.classification_level, s.points FROM track_segments s " +
+            "JOIN unnest(?::varchar[], ?::bigint[]) AS k(entity_id, bucket_ms) " +
+            "ON s.entity_id = k.entity_id AND s.bucket_start = to_timestamp(k.bucket_ms / 1000.0) " +
+            "WHERE s.bucket_start >= ? AND s.bucket_start <= ?",
+            rs -> {
+                stored.put(new SegmentKey(rs.getString("entity_id"), rs.getTimestamp("bucket_start").getTime()),
+                    new Stored(rs.getLong("version"), rs.getInt("observation_count"), rs.getInt("classification_level"), rs.getBytes("points")));
+            },
+            entityIds, buckets, new Timestamp(min), new Timestamp(max));
+        return stored;
+    }
+
+    /**
+     * The stored points of {@code entityId} from the last one before {@code from} to the first one
+     * after {@code to}, from the segments {@code clearance} covers.
+     */
+    private List<TrackPoint> load(String entityId, Instant from, Instant to, ClassificationLevel clearance) {
+        List<TrackPoint> points = new ArrayList<>();
+        jdbcTemplate.query(
+            "SELECT points FROM track_segments WHERE entity_id = ? AND bucket_start > ? AND bucket_start <= ? " +
+            "AND classification_level <= ? ORDER BY bucket_start",
+            rs -> {
+                // Past the cap the answer is cut short rather than holding an unbounded window in memory
+                if (points.size() < maxQueryPoints) {
+                    points.addAll(TrackCodec.decode(rs.getBytes("points")));
+                }
+            },
+            entityId, Timestamp.from(from.minus(bucket.multipliedBy(2))), Timestamp.from(to.plus(bucket)), clearance.getLevel());
+        return points;
+    }
+
+    /** The times of the first and last leg within [start, end] that touches the area, or null. */
+    private static long[] crossing(PreparedGeometry area, List<TrackPoint> points, long start, long end) {
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        GeometryFactory factory = area.getGeometry().getFactory();
+        for (int i = 0; i < points.size(); i++) {
+            TrackPoint a = points.get(i);
+            TrackPoint b = i + 1 < points.size() ? points.get(i + 1) : a;
+            if (b.time() < start || a.time() > end) {
+                continue;
+            }
+            TrackPoint from = a.time() < start ? TrackPoint.between(a, b, start) : a;
+            TrackPoint to = b.time() > end ? TrackPoint.between(a, b, end) : b;
+            Geometry leg = from.equals(to)
+                ? factory.createPoint(new Coordinate(from.lon(), from.lat()))
+                : factory.createLineString(new Coordinate[]{new Coordinate(from.lon(), from.lat()), new Coordinate(to.lon(), to.lat())});
+            if (area.intersects(leg)) {
+                first = Math.min(first, from.time());
+                last = Math.max(last, to.time());
+            }
+        }
+        return first <= last ? new long[]{first, last} : null;
+    }
+
+    private Geometry path(List<TrackPoint> points) {
+        if (points.size() == 1) {
+            return geometryFactory.createPoint(new Coordinate(points.get(0).lon(), points.get(0).lat()));
+        }
+        Coordinate[] coordinates = new Coordinate[points.size()];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = new Coordinate(points.get(i).lon(), points.get(i).lat());
+        }
+        return geometryFactory.createLineString(coordinates);
+    }
+
+    /** Both lists in time order, one point per millisecond; an incoming point replaces a stored one at the same time. */
+    private static List<TrackPoint> merge(List<TrackPoint> base, List<TrackPoint> incoming) {
+        TreeMap<Long, TrackPoint> byTime = new TreeMap<>();
+        for (TrackPoint point : base) {
+            byTime.put(point.time(), point);
+        }
+        for (TrackPoint point : incoming) {
+            byTime.put(point.time(), point);
+        }
+        return new ArrayList<>(byTime.values());
+    }
+
+    /** Puts points back for the next flush, all at the highest classification they were written with. */
+    private void requeue(SegmentKey key, List<TrackPoint> points, int classification) {
+        pending.compute(key.entityId(), (id, list) -> {
+            List<Observed> merged = list != null ? list : new ArrayList<>();
+            for (TrackPoint point : points) {
+                merged.add(new Observed(point, classification));
+            }
+            return merged;
+        });
+        pendingCount.addAndGet(points.size());
+    }
+
+    private long bucketStart(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucket.toMillis()) * bucket.toMillis();
+    }
+
+    private static Position position(TrackPoint point, boolean interpolated) {
+        return new Position(Instant.ofEpochMilli(point.time()), point.lon(), point.lat(), interpolated);
+    }
+
+    private static void validate(Observation observation) {
+        if (observation.entityId() == null || observation.entityId().isBlank()) {
+            throw new IllegalArgumentException("Observation is missing entityId");
+        }
+        if (observation.entityId().length() > MAX_ENTITY_ID_LENGTH) {
+            throw new IllegalArgumentException("entityId is longer than " + MAX_ENTITY_ID_LENGTH + " characters");
+        }
+        if (observation.time() == null) {
+            throw new IllegalArgumentException("Observation of " + observation.entityId() + " is missing time");
+        }
+        if (observation.classification() == null) {
+            throw new IllegalArgumentException("Observation of " + observation.entityId() + " is missing classification");
+        }
+        if (!(observation.lon() >= -180 && observation.lon() <= 180 && observation.lat() >= -90 && observation.lat() <= 90)) {
+            throw new IllegalArgumentException("Observation of " + observation.entityId() + " is outside lon [-180, 180], lat [-90, 90]");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.cop.track;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Douglas-Peucker over time as well as space: a point is dropped only if the position
+ * interpolated at its own time from the kept points around it is within the tolerance
+ * (synchronized Euclidean distance). Plain Douglas-Peucker would also drop a halt in the middle of
+ * a straight road, which would then read back as steady movement through it.
+ * <p>
+ * Distances use an equirectangular projection around each span, which is well under a
+ * centimetre off at the span lengths a track segment covers.
+ */
+final class TrajectorySimplifier {
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private TrajectorySimplifier() {
+    }
+
+    /**
+     * The points to keep, in order; the first and last are always kept.
+     */
+    static List<TrackPoint> simplify(List<TrackPoint> points, double toleranceMeters) {
+        int n = points.size();
+        if (n <= 2) {
+            return new ArrayList<>(points);
+        }
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        double tolerance2 = toleranceMeters * toleranceMeters;
+        Deque<int[]> spans = new ArrayDeque<>();
+        spans.push(new int[]{0, n - 1});
+        while (!spans.isEmpty()) {
+            int[] span = spans.pop();
+            TrackPoint a = points.get(span[0]);
+            TrackPoint b = points.get(span[1]);
+            double lonScale = METERS_PER_DEGREE * Math.cos(Math.toRadians((a.lat() + b.lat()) / 2));
+            double worst = tolerance2;
+            int worstIndex = -1;
+            for (int i = span[0] + 1; i < span[1]; i++) {
+                TrackPoint p = points.get(i);
+                TrackPoint expected = TrackPoint.between(a, b, p.time());
+                double dx = (p.lon() - expected.lon()) * lonScale;
+                double dy = (p.lat() - expected.lat()) * METERS_PER_DEGREE;
+                double d2 = dx * dx + dy * dy;
+                if (d2 > worst) {
+                    worst = d2;
+                    worstIndex = i;
+                }
+            }
+            if (worstIndex >= 0) {
+                keep[worstIndex] = true;
+                spans.push(new int[]{span[0], worstIndex});
+                spans.push(new int[]{worstIndex, span[1]});
+            }
+        }
+        List<TrackPoint> kept = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                kept.add(points.get(i));
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,10 @@
+-- MinHash signatures for near-duplicate report detection
+CREATE TABLE IF NOT EXISTS report_signatures (
+    report_id BIGINT PRIMARY KEY,
+    signature BYTEA NOT NULL,
+    duplicate_of BIGINT,
+    similarity DECIMAL(4,3),
+    created_at TIMESTAMPTZ DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_report_signatures_duplicate_of ON report_signatures(duplicate_of);
@@ -0,0 +1,18 @@
+-- Tell every service to reload its system_config snapshot when a row changes, however it was written.
+-- The payload uses the cache invalidation bus format on its default channel.
+CREATE OR REPLACE FUNCTION notify_system_config()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('cache_invalidation', 'v1|db|system_config|' || OLD.key);
+    ELSE
+        PERFORM pg_notify('cache_invalidation', 'v1|db|system_config|' || NEW.key);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trigger_system_config_notify
+    AFTER INSERT OR UPDATE OR DELETE ON system_config
+    FOR EACH ROW
+    EXECUTE FUNCTION notify_system_config();
\ No newline at end of file
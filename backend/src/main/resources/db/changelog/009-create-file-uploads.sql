@@ -0,0 +1,33 @@
+-- Resumable chunked uploads. Each row tracks one MinIO multipart upload; parts are recorded as
+-- they land so an interrupted client, or a restarted file-service, can pick up where it left off.
+CREATE TABLE IF NOT EXISTS file_uploads (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    object_name TEXT NOT NULL,
+    multipart_upload_id TEXT NOT NULL,
+    original_name VARCHAR(255) NOT NULL,
+    mime_type VARCHAR(100) NOT NULL,
+    size BIGINT NOT NULL CHECK (size > 0),
+    chunk_size INTEGER NOT NULL CHECK (chunk_size > 0),
+    chunk_count INTEGER NOT NULL CHECK (chunk_count > 0 AND chunk_count <= 10000),
+    classification VARCHAR(20) NOT NULL DEFAULT 'UNCLASSIFIED',
+    report_id UUID REFERENCES reports(id),
+    event_id UUID REFERENCES events(id),
+    expected_checksum VARCHAR(64),
+    created_by VARCHAR(255),
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE' CHECK (status IN ('ACTIVE', 'COMPLETING', 'COMPLETED', 'ABORTED')),
+    file_id UUID REFERENCES files(id),
+    created_at TIMESTAMPTZ DEFAULT NOW(),
+    updated_at TIMESTAMPTZ DEFAULT NOW()
+);
+
+CREATE TABLE IF NOT EXISTS file_upload_parts (
+    upload_id UUID NOT NULL REFERENCES file_uploads(id) ON DELETE CASCADE,
+    part_number INTEGER NOT NULL,
+    size INTEGER NOT NULL,
+    checksum VARCHAR(64) NOT NULL,
+    etag TEXT NOT NULL,
+    uploaded_at TIMESTAMPTZ DEFAULT NOW(),
+    PRIMARY KEY (upload_id, part_number)
+);
+
+CREATE INDEX IF NOT EXISTS idx_file_uploads_status_updated ON file_uploads(status, updated_at);
@@ -0,0 +1,16 @@
+-- Thumbnails, previews and tile pyramids generated by file-service for image attachments.
+-- Objects live under cop-files/<file id>/; this row records progress and the pyramid layout.
+CREATE TABLE IF NOT EXISTS file_derivatives (
+    file_id UUID PRIMARY KEY REFERENCES files(id) ON DELETE CASCADE,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'PROCESSING', 'READY', 'SKIPPED', 'FAILED')),
+    width INTEGER,
+    height INTEGER,
+    tile_size INTEGER,
+    levels INTEGER,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    error TEXT,
+    created_at TIMESTAMPTZ DEFAULT NOW(),
+    updated_at TIMESTAMPTZ DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_file_derivatives_status_updated ON file_derivatives(status, updated_at);
@@ -0,0 +1,18 @@
+-- Text extracted from document attachments, keyed by content checksum so identical files are
+-- extracted once. Join to files on checksum for report_id/event_id and classification.
+CREATE TABLE IF NOT EXISTS file_texts (
+    checksum VARCHAR(64) PRIMARY KEY,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'PROCESSING', 'READY', 'FAILED')),
+    content TEXT,
+    chars INTEGER,
+    truncated BOOLEAN NOT NULL DEFAULT FALSE,
+    search_vector TSVECTOR GENERATED ALWAYS AS (to_tsvector('simple', COALESCE(content, ''))) STORED,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    error TEXT,
+    created_at TIMESTAMPTZ DEFAULT NOW(),
+    updated_at TIMESTAMPTZ DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_file_texts_search ON file_texts USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_file_texts_status_updated ON file_texts(status, updated_at);
+CREATE INDEX IF NOT EXISTS idx_files_checksum ON files(checksum);
@@ -0,0 +1,2 @@
+-- Optimistic lock column for IntelligenceReport (@Version), also checked per row by bulk review
+ALTER TABLE IF EXISTS intelligence_reports ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
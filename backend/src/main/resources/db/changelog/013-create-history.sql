@@ -0,0 +1,95 @@
+-- Append-only change history for time-travel replay. Every insert, update and delete on events,
+-- intelligence_reports and decisions is recorded by trigger, however it was written.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+CREATE TABLE IF NOT EXISTS cop_history (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(20) NOT NULL CHECK (entity_type IN ('EVENT', 'REPORT', 'DECISION')),
+    entity_id VARCHAR(64) NOT NULL,
+    operation CHAR(1) NOT NULL CHECK (operation IN ('I', 'U', 'D')),
+    recorded_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp(),
+    location GEOMETRY(POINT, 4326),
+    payload JSONB NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_cop_history_recorded_at ON cop_history(recorded_at, id);
+CREATE INDEX IF NOT EXISTS idx_cop_history_entity ON cop_history(entity_type, entity_id, recorded_at DESC);
+
+-- State as of taken_at, so a replay only reads one snapshot and a bounded slice of history. A full
+-- snapshot (base_id NULL) holds every row; a delta holds only the rows changed since its base full
+-- snapshot, deletions as tombstones, so taking one costs the churn rather than the whole state
+CREATE TABLE IF NOT EXISTS cop_snapshots (
+    id BIGSERIAL PRIMARY KEY,
+    taken_at TIMESTAMPTZ NOT NULL UNIQUE,
+    base_id BIGINT REFERENCES cop_snapshots(id) ON DELETE CASCADE,
+    row_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMPTZ DEFAULT NOW()
+);
+
+CREATE INDEX IF NOT EXISTS idx_cop_snapshots_base ON cop_snapshots(base_id);
+
+CREATE TABLE IF NOT EXISTS cop_snapshot_rows (
+    snapshot_id BIGINT NOT NULL REFERENCES cop_snapshots(id) ON DELETE CASCADE,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id VARCHAR(64) NOT NULL,
+    location GEOMETRY(POINT, 4326),
+    payload JSONB NOT NULL,
+    deleted BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (snapshot_id, entity_type, entity_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_cop_snapshot_rows_location ON cop_snapshot_rows USING GIST(snapshot_id, location);
+
+-- TG_ARGV[0] is the entity type, TG_ARGV[1] the name of the location column if the table has one
+CREATE OR REPLACE FUNCTION record_cop_history()
+RETURNS TRIGGER AS $$
+DECLARE
+    row_json JSONB;
+    row_location GEOMETRY;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        row_json := to_jsonb(OLD);
+        IF TG_NARGS > 1 THEN
+            EXECUTE format('SELECT ($1).%I', TG_ARGV[1]) INTO row_location USING OLD;
+        END IF;
+    ELSE
+        row_json := to_jsonb(NEW);
+        IF TG_NARGS > 1 THEN
+            EXECUTE format('SELECT ($1).%I', TG_ARGV[1]) INTO row_location USING NEW;
+        END IF;
+    END IF;
+    INSERT INTO cop_history (entity_type, entity_id, operation, location, payload)
+    VALUES (TG_ARGV[0], row_json->>'id', left(TG_OP, 1), row_location, row_json - 'location');
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Attach to whichever of the tables exist and seed the history with their current rows
+DO $$
+BEGIN
+    IF to_regclass('events') IS NOT NULL THEN
+        DROP TRIGGER IF EXISTS trigger_events_history ON events;
+        CREATE TRIGGER trigger_events_history
+            AFTER INSERT OR UPDATE OR DELETE ON events
+            FOR EACH ROW EXECUTE FUNCTION record_cop_history('EVENT', 'location');
+        INSERT INTO cop_history (entity_type, entity_id, operation, location, payload)
+        SELECT 'EVENT', e.id::text, 'I', e.location, to_jsonb(e) - 'location' FROM events e;
+    END IF;
+    IF to_regclass('intelligence_reports') IS NOT NULL THEN
+        DROP TRIGGER IF EXISTS trigger_intelligence_reports_history ON intelligence_reports;
+        CREATE TRIGGER trigger_intelligence_reports_history
+            AFTER INSERT OR UPDATE OR DELETE ON intelligence_reports
+            FOR EACH ROW EXECUTE FUNCTION record_cop_history('REPORT', 'location');
+        INSERT INTO cop_history (entity_type, entity_id, operation, location, payload)
+        SELECT 'REPORT', r.id::text, 'I', r.location, to_jsonb(r) - 'location' FROM intelligence_reports r;
+    END IF;
+    IF to_regclass('decisions') IS NOT NULL THEN
+        DROP TRIGGER IF EXISTS trigger_decisions_history ON decisions;
+        CREATE TRIGGER trigger_decisions_history
+            AFTER INSERT OR UPDATE OR DELETE ON decisions
+            FOR EACH ROW EXECUTE FUNCTION record_cop_history('DECISION');
+        INSERT INTO cop_history (entity_type, entity_id, operation, location, payload)
+        SELECT 'DECISION', d.id::text, 'I', NULL, to_jsonb(d) FROM decisions d;
+    END IF;
+END;
+$$;
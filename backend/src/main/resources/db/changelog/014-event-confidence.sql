@@ -0,0 +1,15 @@
+-- Incremental event confidence: factors live in fusion_metadata, the score in confidence_score.
+-- Scores are kept unrounded, and threshold queries walk the index from the top instead of sorting.
+ALTER TABLE events ADD COLUMN IF NOT EXISTS fusion_metadata JSONB;
+ALTER TABLE events ALTER COLUMN confidence_score TYPE DOUBLE PRECISION;
+
+CREATE INDEX IF NOT EXISTS idx_events_confidence ON events(confidence_score DESC, id);
+
+-- Events of a source report, used whenever a report is reviewed, edited or deleted
+DO $$
+BEGIN
+    IF to_regclass('event_reports') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_event_reports_report_id ON event_reports(report_id);
+    END IF;
+END;
+$$;
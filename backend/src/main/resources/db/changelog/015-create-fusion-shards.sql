@@ -0,0 +1,17 @@
+-- Live fusion-service nodes for the spatial sharding ring; rows older than the node TTL are ignored
+CREATE TABLE IF NOT EXISTS fusion_nodes (
+    node_id VARCHAR(128) PRIMARY KEY,
+    address VARCHAR(255) NOT NULL,
+    heartbeat_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Reports found close in space and time by the fusion shards; report_a is always the smaller id
+CREATE TABLE IF NOT EXISTS fusion_links (
+    report_a UUID NOT NULL,
+    report_b UUID NOT NULL,
+    distance_m DOUBLE PRECISION NOT NULL,
+    created_at TIMESTAMPTZ DEFAULT NOW(),
+    PRIMARY KEY (report_a, report_b)
+);
+
+CREATE INDEX IF NOT EXISTS idx_fusion_links_report_b ON fusion_links(report_b);
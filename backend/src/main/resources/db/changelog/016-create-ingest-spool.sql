@@ -0,0 +1,14 @@
+-- Keys of ingest spool records already replayed into the database. Replay claims a record's key in
+-- the same transaction that applies it, so records committed just before a crash are skipped when
+-- the spool replays from its last checkpoint. A direct write claims its key the same way, so a write
+-- that committed and was spooled anyway is skipped too. Records the database rejected, or of a kind
+-- with no handler, keep their error and body.
+CREATE TABLE IF NOT EXISTS ingest_spool_applied (
+    spool_key VARCHAR(64) PRIMARY KEY,
+    kind VARCHAR(64) NOT NULL,
+    applied_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    error TEXT,
+    body BYTEA
+);
+
+CREATE INDEX IF NOT EXISTS idx_ingest_spool_applied_at ON ingest_spool_applied(applied_at) WHERE error IS NULL;
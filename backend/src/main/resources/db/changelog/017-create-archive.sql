@@ -0,0 +1,38 @@
+-- Cold archive of closed events and old reports. The rows themselves live in Parquet segments in
+-- the archive bucket; Postgres keeps one small summary row per archived record for lookups.
+CREATE TABLE IF NOT EXISTS archive_segments (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(20) NOT NULL,
+    bucket VARCHAR(100) NOT NULL,
+    object_key TEXT NOT NULL UNIQUE,
+    row_count INTEGER NOT NULL,
+    byte_size BIGINT NOT NULL,
+    min_time TIMESTAMPTZ,
+    max_time TIMESTAMPTZ,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE IF NOT EXISTS archive_index (
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id VARCHAR(64) NOT NULL,
+    segment_id BIGINT NOT NULL REFERENCES archive_segments(id),
+    status VARCHAR(30),
+    archived_time TIMESTAMPTZ,
+    location GEOMETRY(POINT, 4326),
+    classification VARCHAR(30),
+    title TEXT,
+    archived_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (entity_type, entity_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_archive_index_time ON archive_index(entity_type, archived_time);
+CREATE INDEX IF NOT EXISTS idx_archive_index_segment ON archive_index(segment_id);
+
+-- Attachments outlive the records they belong to once those are archived; their objects are
+-- tagged for the storage tier by the archiver, tracked here
+ALTER TABLE files ADD COLUMN IF NOT EXISTS archived_at TIMESTAMPTZ;
+ALTER TABLE files ADD COLUMN IF NOT EXISTS archive_tagged BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE files DROP CONSTRAINT IF EXISTS files_report_id_fkey;
+ALTER TABLE files DROP CONSTRAINT IF EXISTS files_event_id_fkey;
+
+CREATE INDEX IF NOT EXISTS idx_files_archive_untagged ON files(archived_at) WHERE archived_at IS NOT NULL AND NOT archive_tagged;
@@ -0,0 +1,419 @@
+-- Monthly range partitions for the tables read by time window: events by start_time,
+-- intelligence_reports by event_time and decisions by decision_date. A window query only
+-- touches the partitions it overlaps, so its cost follows the window, not the table's age.
+-- Partitions are named <table>_pYYYY_MM; rows outside every partition go to <table>_default.
+--
+-- The primary keys become (id, <partition key>), so a lookup by id alone cannot be pruned: it
+-- probes the key index of every partition, including findById and the statements that lock or
+-- update rows by id. That cost grows with the number of months kept, not with their rows.
+-- Queries that know the time should bound it as well to read one partition.
+--
+-- Postgres cannot point a foreign key at a partitioned table's id alone, since its unique keys
+-- must include the partition key. Each foreign key into these tables is recorded in
+-- cop_partition_references and kept by triggers instead: one on the referencing table checks
+-- that the row it points at exists, one on the partitioned table applies the key's ON DELETE
+-- action (CASCADE, SET NULL, or refusing the delete) when that row goes.
+
+CREATE TABLE IF NOT EXISTS cop_partition_references (
+    child_table TEXT NOT NULL,
+    constraint_name TEXT NOT NULL,
+    child_column TEXT NOT NULL,
+    parent_table TEXT NOT NULL,
+    parent_column TEXT NOT NULL,
+    on_delete TEXT NOT NULL CHECK (on_delete IN ('CASCADE', 'SET NULL', 'NO ACTION')),
+    PRIMARY KEY (child_table, constraint_name)
+);
+
+-- BEFORE INSERT OR UPDATE trigger on a referencing table. Arguments: the partitioned table, its
+-- column and the referencing column. The row referred to is locked FOR KEY SHARE, as a foreign
+-- key check does, so it cannot be deleted until this transaction ends.
+CREATE OR REPLACE FUNCTION cop_reference_check()
+RETURNS TRIGGER AS $$
+DECLARE
+    parent_table TEXT := TG_ARGV[0];
+    parent_column TEXT := TG_ARGV[1];
+    child_column TEXT := TG_ARGV[2];
+    skip BOOLEAN;
+    present BOOLEAN;
+BEGIN
+    IF TG_OP = 'UPDATE' THEN
+        EXECUTE format('SELECT ($1).%I IS NULL OR ($1).%I IS NOT DISTINCT FROM ($2).%I', child_column, child_column, child_column)
+            INTO skip USING NEW, OLD;
+    ELSE
+        EXECUTE format('SELECT ($1).%I IS NULL', child_column) INTO skip USING NEW;
+    END IF;
+    IF skip THEN
+        RETURN NEW;
+    END IF;
+    EXECUTE format('SELECT TRUE FROM %I WHERE %I = ($1).%I LIMIT 1 FOR KEY SHARE', parent_table, parent_column, child_column)
+        INTO present USING NEW;
+    IF present IS NULL THEN
+        RAISE EXCEPTION 'insert or update on table "%" violates reference to "%"', TG_TABLE_NAME, parent_table
+            USING ERRCODE = 'foreign_key_violation',
+                  DETAIL = format('Key (%s) is not present in table "%s".', child_column, parent_table);
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- AFTER DELETE OR UPDATE trigger on a partitioned table. Arguments: the partitioned table, its
+-- column, the referencing table and column, and the ON DELETE action. Changing a referenced id
+-- is refused, as NO ACTION would.
+CREATE OR REPLACE FUNCTION cop_reference_action()
+RETURNS TRIGGER AS $$
+DECLARE
+    parent_table TEXT := TG_ARGV[0];
+    parent_column TEXT := TG_ARGV[1];
+    child_table TEXT := TG_ARGV[2];
+    child_column TEXT := TG_ARGV[3];
+    on_delete TEXT := TG_ARGV[4];
+    unchanged BOOLEAN;
+    referenced BOOLEAN;
+BEGIN
+    -- Rows moved out of a default partition by cop_create_partition are not deleted
+    IF current_setting('cop.moving_partition_rows', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP = 'UPDATE' THEN
+        EXECUTE format('SELECT ($1).%I IS NOT DISTINCT FROM ($2).%I', parent_column, parent_column) INTO unchanged USING NEW, OLD;
+        IF unchanged THEN
+            RETURN NULL;
+        END IF;
+        on_delete := 'NO ACTION';
+    ELSE
+        -- An update of the partition key moves the row by deleting and reinserting it; it is still there
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE %I = ($1).%I)', parent_table, parent_column, parent_column)
+            INTO unchanged USING OLD;
+        IF unchanged THEN
+            RETURN NULL;
+        END IF;
+    END IF;
+    IF on_delete = 'CASCADE' THEN
+        EXECUTE format('DELETE FROM %I WHERE %I = ($1).%I', child_table, child_column, parent_column) USING OLD;
+    ELSIF on_delete = 'SET NULL' THEN
+        EXECUTE format('UPDATE %I SET %I = NULL WHERE %I = ($1).%I', child_table, child_column, child_column, parent_column) USING OLD;
+    ELSE
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE %I = ($1).%I)', child_table, child_column, parent_column)
+            INTO referenced USING OLD;
+        IF referenced THEN
+            RAISE EXCEPTION 'update or delete on table "%" violates reference from "%"', parent_table, child_table
+                USING ERRCODE = 'foreign_key_violation',
+                      DETAIL = format('Key is still referenced from table "%s" (%s).', child_table, child_column);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Applies the ON DELETE actions of the references into parent for every row of source, a
+-- partition about to be retired. Returns false, changing nothing, if a reference without an
+-- action still points into it.
+CREATE OR REPLACE FUNCTION cop_release_references(parent REGCLASS, source TEXT)
+RETURNS BOOLEAN AS $$
+DECLARE
+    ref RECORD;
+    referenced BOOLEAN;
+BEGIN
+    FOR ref IN SELECT * FROM cop_partition_references WHERE to_regclass(parent_table) = parent AND on_delete = 'NO ACTION' LOOP
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I c JOIN %I p ON c.%I = p.%I)',
+            ref.child_table, source, ref.child_column, ref.parent_column) INTO referenced;
+        IF referenced THEN
+            RAISE WARNING 'Not retiring %: % still refers to it through %', source, ref.child_table, ref.constraint_name;
+            RETURN FALSE;
+        END IF;
+    END LOOP;
+    FOR ref IN SELECT * FROM cop_partition_references WHERE to_regclass(parent_table) = parent AND on_delete <> 'NO ACTION' LOOP
+        IF ref.on_delete = 'CASCADE' THEN
+            EXECUTE format('DELETE FROM %I c USING %I p WHERE c.%I = p.%I',
+                ref.child_table, source, ref.child_column, ref.parent_column);
+        ELSE
+            EXECUTE format('UPDATE %I c SET %I = NULL FROM %I p WHERE c.%I = p.%I',
+                ref.child_table, ref.child_column, source, ref.child_column, ref.parent_column);
+        END IF;
+    END LOOP;
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Creates the partition for the month containing month_start, moving any rows the default
+-- partition already holds for that month into it. Returns false if it already exists.
+CREATE OR REPLACE FUNCTION cop_create_partition(parent REGCLASS, month_start DATE)
+RETURNS BOOLEAN AS $$
+DECLARE
+    parent_name TEXT := (SELECT relname FROM pg_class WHERE oid = parent);
+    key_column TEXT;
+    partition_name TEXT;
+    default_partition REGCLASS;
+    lower_bound TEXT := to_char(date_trunc('month', month_start), 'YYYY-MM-DD');
+    upper_bound TEXT := to_char(date_trunc('month', month_start) + INTERVAL '1 month', 'YYYY-MM-DD');
+    has_rows BOOLEAN := FALSE;
+BEGIN
+    partition_name := parent_name || '_p' || to_char(month_start, 'YYYY_MM');
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    SELECT a.attname INTO key_column
+    FROM pg_partitioned_table p JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0]
+    WHERE p.partrelid = parent;
+    SELECT c.oid::regclass INTO default_partition
+    FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = parent AND pg_get_expr(c.relpartbound, c.oid) = 'DEFAULT';
+    IF default_partition IS NOT NULL THEN
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %s WHERE %I >= %L AND %I < %L)',
+            default_partition, key_column, lower_bound, key_column, upper_bound) INTO has_rows;
+    END IF;
+    IF NOT has_rows THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF %s FOR VALUES FROM (%L) TO (%L)',
+            partition_name, parent, lower_bound, upper_bound);
+        RETURN TRUE;
+    END IF;
+    -- The default partition cannot keep rows the new bound covers. Moving them is not a change
+    -- to the data, so the row triggers (history, outbox) are kept out of it.
+    EXECUTE format('CREATE TABLE %I (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name, parent);
+    EXECUTE format('ALTER TABLE %s DISABLE TRIGGER USER', default_partition);
+    PERFORM set_config('cop.moving_partition_rows', 'on', true);
+    EXECUTE format('WITH moved AS (DELETE FROM %s WHERE %I >= %L AND %I < %L RETURNING *) INSERT INTO %I SELECT * FROM moved',
+        default_partition, key_column, lower_bound, key_column, upper_bound, partition_name);
+    PERFORM set_config('cop.moving_partition_rows', '', true);
+    EXECUTE format('ALTER TABLE %s ENABLE TRIGGER USER', default_partition);
+    EXECUTE format('ALTER TABLE %s ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+        parent, partition_name, lower_bound, upper_bound);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Makes sure every month from from_month up to months_ahead months past the current one has a
+-- partition. Returns the number created.
+CREATE OR REPLACE FUNCTION cop_create_partitions(parent REGCLASS, from_month DATE, months_ahead INTEGER)
+RETURNS INTEGER AS $$
+DECLARE
+    month_start DATE := date_trunc('month', from_month);
+    created INTEGER := 0;
+BEGIN
+    WHILE month_start <= date_trunc('month', now()) + make_interval(months => months_ahead) LOOP
+        IF cop_create_partition(parent, month_start) THEN
+            created := created + 1;
+        END IF;
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detaches every monthly partition that ends on or before older_than, dropping it as well if
+-- drop_detached is set; a detached partition stays behind as a plain table to dump or reattach.
+-- The references into its rows are released first, as deleting them would; a partition that a
+-- reference without an ON DELETE action still points into is kept. Returns the partitions it
+-- retired.
+CREATE OR REPLACE FUNCTION cop_retire_partitions(parent REGCLASS, older_than TIMESTAMP, drop_detached BOOLEAN)
+RETURNS SETOF TEXT AS $$
+DECLARE
+    part RECORD;
+BEGIN
+    FOR part IN
+        SELECT c.relname,
+               to_date(substring(c.relname FROM '_p(\d{4}_\d{2})$'), 'YYYY_MM') + INTERVAL '1 month' AS upper_bound
+        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent AND c.relname ~ '_p\d{4}_\d{2}$'
+        ORDER BY c.relname
+    LOOP
+        IF part.upper_bound <= older_than AND cop_release_references(parent, part.relname) THEN
+            EXECUTE format('ALTER TABLE %s DETACH PARTITION %I', parent, part.relname);
+            IF drop_detached THEN
+                EXECUTE format('DROP TABLE %I', part.relname);
+            END IF;
+            RETURN NEXT part.relname;
+        END IF;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Rebuilds an existing plain table as a partitioned one with the same columns, defaults, checks,
+-- indexes, triggers, outgoing foreign keys and id sequence, then copies its rows over. Does
+-- nothing if the table is missing or already partitioned.
+--
+-- The primary key gains the partition key, since Postgres only enforces uniqueness within a
+-- partition; the key column must therefore be NOT NULL. Unique indexes are kept only if they
+-- include the partition key; any other unique index stops the migration, as the uniqueness it
+-- promises could no longer be enforced. Foreign keys from other tables to this one become
+-- triggers, recorded in cop_partition_references.
+CREATE OR REPLACE FUNCTION cop_partition_by_month(table_name TEXT, key_column TEXT)
+RETURNS VOID AS $$
+DECLARE
+    rel REGCLASS := to_regclass(table_name);
+    legacy TEXT := table_name || '_unpartitioned';
+    key_attnum SMALLINT;
+    key_not_null BOOLEAN;
+    pk_name TEXT;
+    pk_columns TEXT[];
+    index_defs TEXT[];
+    trigger_defs TEXT[];
+    foreign_keys TEXT[];
+    identity_columns TEXT[] := '{}';
+    first_month DATE;
+    item TEXT;
+    col RECORD;
+BEGIN
+    IF rel IS NULL OR (SELECT relkind FROM pg_class WHERE oid = rel) = 'p' THEN
+        RETURN;
+    END IF;
+
+    SELECT attnum, attnotnull INTO key_attnum, key_not_null FROM pg_attribute WHERE attrelid = rel AND attname = key_column;
+    SELECT c.conname, array_agg(a.attname ORDER BY k.ord) INTO pk_name, pk_columns
+    FROM pg_constraint c
+    CROSS JOIN LATERAL unnest(c.conkey) WITH ORDINALITY AS k(attnum, ord)
+    JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = k.attnum
+    WHERE c.conrelid = rel AND c.contype = 'p'
+    GROUP BY c.conname;
+    IF pk_name IS NOT NULL AND NOT key_not_null THEN
+        RAISE EXCEPTION 'Cannot partition % by %: the column is nullable, so the primary key could not include it', table_name, key_column;
+    END IF;
+    SELECT string_agg(pg_get_indexdef(indexrelid), '; ') INTO item
+    FROM pg_index WHERE indrelid = rel AND indisunique AND NOT indisprimary AND NOT key_attnum = ANY (indkey::SMALLINT[]);
+    IF item IS NOT NULL THEN
+        RAISE EXCEPTION 'Cannot partition % by %: unique index without the partition key would no longer be enforced: %', table_name, key_column, item
+            USING HINT = 'Drop the index or add the partition key to it first.';
+    END IF;
+
+    FOR col IN SELECT c.conname, c.conrelid::regclass::text AS child, c.confdeltype, c.conkey, c.confkey
+               FROM pg_constraint c
+               WHERE c.contype = 'f' AND c.confrelid = rel AND c.conrelid <> rel LOOP
+        IF array_length(col.conkey, 1) <> 1 THEN
+            RAISE EXCEPTION 'Cannot partition %: foreign key % on % has more than one column', table_name, col.conname, col.child;
+        END IF;
+        IF col.confdeltype = 'd' THEN
+            RAISE EXCEPTION 'Cannot partition %: foreign key % on % uses ON DELETE SET DEFAULT', table_name, col.conname, col.child;
+        END IF;
+        INSERT INTO cop_partition_references (child_table, constraint_name, child_column, parent_table, parent_column, on_delete)
+        VALUES (col.child, col.conname,
+                (SELECT attname FROM pg_attribute WHERE attrelid = col.child::regclass AND attnum = col.conkey[1]),
+                table_name,
+                (SELECT attname FROM pg_attribute WHERE attrelid = rel AND attnum = col.confkey[1]),
+                CASE col.confdeltype WHEN 'c' THEN 'CASCADE' WHEN 'n' THEN 'SET NULL' ELSE 'NO ACTION' END)
+        ON CONFLICT (child_table, constraint_name) DO NOTHING;
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', col.child, col.conname);
+    END LOOP;
+    FOR col IN SELECT * FROM cop_partition_references WHERE parent_table = table_name LOOP
+        EXECUTE format('CREATE TRIGGER %I BEFORE INSERT OR UPDATE OF %I ON %I FOR EACH ROW EXECUTE FUNCTION cop_reference_check(%L, %L, %L)',
+            left(col.constraint_name, 57) || '_check', col.child_column, col.child_table,
+            col.parent_table, col.parent_column, col.child_column);
+    END LOOP;
+
+    SELECT array_agg(pg_get_indexdef(indexrelid)) INTO index_defs
+    FROM pg_index WHERE indrelid = rel AND NOT indisprimary;
+    SELECT array_agg(pg_get_triggerdef(oid)) INTO trigger_defs
+    FROM pg_trigger WHERE tgrelid = rel AND NOT tgisinternal;
+    SELECT array_agg(format('ALTER TABLE %I ADD CONSTRAINT %I %s', table_name, conname, pg_get_constraintdef(oid))) INTO foreign_keys
+    FROM pg_constraint WHERE contype = 'f' AND conrelid = rel AND confrelid <> rel;
+
+    -- Free the index names for the new table; the old one is only read from here on
+    FOR col IN SELECT i.indexrelid::regclass::text AS index_name, c.conname
+               FROM pg_index i LEFT JOIN pg_constraint c ON c.conindid = i.indexrelid AND c.conrelid = rel
+               WHERE i.indrelid = rel AND NOT i.indisprimary LOOP
+        IF col.conname IS NOT NULL THEN
+            EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', rel, col.conname);
+        ELSE
+            EXECUTE format('DROP INDEX %s', col.index_name);
+        END IF;
+    END LOOP;
+    EXECUTE format('ALTER TABLE %s RENAME TO %I', rel, legacy);
+    IF pk_name IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE %I RENAME CONSTRAINT %I TO %I', legacy, pk_name, legacy || '_pkey');
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING STORAGE INCLUDING COMMENTS) '
+        || 'PARTITION BY RANGE (%I)', table_name, legacy, key_column);
+
+    -- Identity columns move to a plain owned sequence, which partitioned tables take on every
+    -- supported version; serial sequences just change owner
+    FOR col IN SELECT a.attname, a.attidentity, pg_get_serial_sequence(legacy, a.attname) AS seq
+               FROM pg_attribute a
+               WHERE a.attrelid = legacy::regclass AND a.attnum > 0 AND NOT a.attisdropped
+                 AND pg_get_serial_sequence(legacy, a.attname) IS NOT NULL LOOP
+        IF col.attidentity <> '' THEN
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN %I DROP IDENTITY', legacy, col.attname);
+            EXECUTE format('CREATE SEQUENCE %s OWNED BY %I.%I', col.seq, table_name, col.attname);
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN %I SET DEFAULT nextval(%L)', table_name, col.attname, col.seq);
+            identity_columns := identity_columns || ARRAY[col.attname, col.seq];
+        ELSE
+            EXECUTE format('ALTER SEQUENCE %s OWNED BY %I.%I', col.seq, table_name, col.attname);
+        END IF;
+    END LOOP;
+
+    EXECUTE format('SELECT date_trunc(''month'', min(%I))::date FROM %I', key_column, legacy) INTO first_month;
+    PERFORM cop_create_partitions(table_name::regclass, COALESCE(first_month, now()::date), 3);
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', table_name || '_default', table_name);
+
+    EXECUTE format('INSERT INTO %I SELECT * FROM %I', table_name, legacy);
+
+    FOR i IN 1 .. coalesce(array_length(identity_columns, 1), 0) / 2 LOOP
+        EXECUTE format('SELECT setval(%L, max(%I)) FROM %I HAVING max(%I) IS NOT NULL',
+            identity_columns[2 * i], identity_columns[2 * i - 1], table_name, identity_columns[2 * i - 1]);
+    END LOOP;
+
+    IF pk_columns IS NOT NULL THEN
+        IF NOT key_column = ANY (pk_columns) THEN
+            pk_columns := pk_columns || key_column;
+        END IF;
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I PRIMARY KEY (%s)', table_name, pk_name,
+            (SELECT string_agg(quote_ident(c), ', ') FROM unnest(pk_columns) AS c));
+    END IF;
+    FOREACH item IN ARRAY coalesce(index_defs, '{}') LOOP
+        EXECUTE item;
+    END LOOP;
+    FOREACH item IN ARRAY coalesce(foreign_keys, '{}') LOOP
+        EXECUTE item;
+    END LOOP;
+    FOREACH item IN ARRAY coalesce(trigger_defs, '{}') LOOP
+        EXECUTE item;
+    END LOOP;
+    FOR col IN SELECT * FROM cop_partition_references WHERE parent_table = table_name LOOP
+        EXECUTE format('CREATE TRIGGER %I AFTER DELETE OR UPDATE OF %I ON %I FOR EACH ROW EXECUTE FUNCTION cop_reference_action(%L, %L, %L, %L, %L)',
+            left(col.constraint_name, 56) || '_action', col.parent_column, table_name,
+            table_name, col.parent_column, col.child_table, col.child_column, col.on_delete);
+    END LOOP;
+
+    EXECUTE format('DROP TABLE %I', legacy);
+    EXECUTE format('ANALYZE %I', table_name);
+END;
+$$ LANGUAGE plpgsql;
+
+-- events.start_time is optional in the base schema, but the primary key needs the partition key;
+-- events without one take their creation time. The row triggers stay out of it, as nothing
+-- about the event changes.
+DO $$
+BEGIN
+    IF to_regclass('events') IS NOT NULL AND (SELECT relkind FROM pg_class WHERE oid = to_regclass('events')) <> 'p' THEN
+        ALTER TABLE events DISABLE TRIGGER USER;
+        UPDATE events SET start_time = COALESCE(created_at, now()) WHERE start_time IS NULL;
+        ALTER TABLE events ENABLE TRIGGER USER;
+        ALTER TABLE events ALTER COLUMN start_time SET NOT NULL;
+    END IF;
+END;
+$$;
+
+DO $$
+BEGIN
+    PERFORM cop_partition_by_month('events', 'start_time');
+    PERFORM cop_partition_by_month('intelligence_reports', 'event_time');
+    PERFORM cop_partition_by_month('decisions', 'decision_date');
+END;
+$$;
+
+-- Indexes on a partitioned table are created on every partition, including ones added later.
+-- The key index serves the window scan inside a partition; the GIST indexes serve map queries.
+DO $$
+BEGIN
+    IF to_regclass('events') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_events_start_time ON events(start_time);
+        CREATE INDEX IF NOT EXISTS idx_events_location ON events USING GIST(location);
+    END IF;
+    IF to_regclass('intelligence_reports') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_intelligence_reports_event_time ON intelligence_reports(event_time);
+        CREATE INDEX IF NOT EXISTS idx_intelligence_reports_location ON intelligence_reports USING GIST(location);
+    END IF;
+    IF to_regclass('decisions') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_decisions_decision_date ON decisions(decision_date);
+    END IF;
+END;
+$$;
@@ -0,0 +1,24 @@
+-- Movement tracks of entities: one row per entity and time bucket with the bucket's simplified,
+-- delta-encoded points, and their path as a line so spatial queries can use the index. Monthly
+-- partitions by bucket, maintained like the other time-partitioned tables. classification_level
+-- is the highest ClassificationLevel level of the segment's observations.
+CREATE TABLE IF NOT EXISTS track_segments (
+    entity_id VARCHAR(64) NOT NULL,
+    bucket_start TIMESTAMPTZ NOT NULL,
+    start_time TIMESTAMPTZ NOT NULL,
+    end_time TIMESTAMPTZ NOT NULL,
+    point_count INTEGER NOT NULL,
+    observation_count INTEGER NOT NULL,
+    path GEOMETRY(GEOMETRY, 4326) NOT NULL,
+    points BYTEA NOT NULL,
+    classification_level SMALLINT NOT NULL,
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (entity_id, bucket_start)
+) PARTITION BY RANGE (bucket_start);
+
+CREATE TABLE IF NOT EXISTS track_segments_default PARTITION OF track_segments DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_track_segments_path ON track_segments USING GIST(path);
+
+SELECT cop_create_partitions('track_segments', now()::date, 3);
@@ -0,0 +1,2 @@
+-- Subscribers that have accepted each outbox event, so a failing subscriber only holds back its own deliveries
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS delivered_to TEXT[] NOT NULL DEFAULT '{}';
@@ -0,0 +1,244 @@
+package com.cop.archive;
+
+import com.cop.outbox.OutboxPublisher;
+import io.minio.BucketExistsArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.Result;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Archive batches against a stubbed {@link JdbcTemplate} and {@link MinioClient}: the candidate
+ * and lock queries return what Postgres would for the events set up in the test, with no
+ * dependent tables, so these cover what is recorded and what is left in the bucket rather than
+ * the SQL itself.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ArchiveServiceTest {
+
+    private static final Instant OLD = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private OutboxPublisher outboxPublisher;
+
+    @Mock
+    private MinioClient minioClient;
+
+    @InjectMocks
+    private ArchiveService archive;
+
+    // What the statements see: the eligible events, and those still unchanged when locked
+    private final Map<Long, String> payloads = new LinkedHashMap<>();
+    private final Map<Long, Instant> times = new LinkedHashMap<>();
+    private final Set<Long> unchanged = new HashSet<>();
+    private final List<Object[]> segments = new ArrayList<>();
+    private final List<Item> bucket = new ArrayList<>();
+
+    @BeforeEach
+    void stubStatements() throws Exception {
+        ReflectionTestUtils.setField(archive, "bucket", "cop-archive");
+        ReflectionTestUtils.setField(archive, "filesBucket", "cop-files");
+        ReflectionTestUtils.setField(archive, "eventStatuses", new String[] {"ARCHIVED"});
+        ReflectionTestUtils.setField(archive, "eventAge", Duration.ofDays(90));
+        ReflectionTestUtils.setField(archive, "reportStatuses", new String[] {"APPROVED"});
+        ReflectionTestUtils.setField(archive, "reportAge", Duration.ofDays(365));
+        ReflectionTestUtils.setField(archive, "batchSize", 100);
+        ReflectionTestUtils.setField(archive, "maxBatchesPerRun", 1);
+        ReflectionTestUtils.setField(archive, "rowGroupBytes", 1024 * 1024);
+        ReflectionTestUtils.setField(archive, "cacheSize", 10);
+        ReflectionTestUtils.setField(archive, "attachmentTag", "cop-tier=archive");
+        ReflectionTestUtils.setField(archive, "orphanGrace", Duration.ofHours(1));
+        archive.init();
+
+        when(jdbcTemplate.queryForObject(eq("SELECT to_regclass(?) IS NOT NULL"), eq(Boolean.class), any(Object[].class))).thenReturn(false);
+        when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(true);
+        when(minioClient.listObjects(any(ListObjectsArgs.class))).thenAnswer(invocation -> bucket.stream().map(Result::new).toList());
+
+        // Only events are eligible; reports read nothing
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            if (!invocation.<String>getArgument(0).contains("FROM events t ")) {
+                return null;
+            }
+            for (Long id : payloads.keySet()) {
+                handler.processRow(row(Map.of("id", id, "entity_id", id.toString(), "status", "ARCHIVED",
+                        "archived_time", Timestamp.from(times.get(id)), "classification", "UNCLASSIFIED", "title", "CONVOY",
+                        "payload", payloads.get(id))));
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT t.id, t.id::text AS entity_id, t.status"), any(RowCallbackHandler.class), any(Object[].class));
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            if (!invocation.<String>getArgument(0).contains("FROM events t ")) {
+                return null;
+            }
+            for (Long id : unchanged) {
+                handler.processRow(row(Map.of("id", id, "entity_id", id.toString(), "digest", md5(payloads.get(id)))));
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("FOR UPDATE OF t SKIP LOCKED"), any(RowCallbackHandler.class), any(Object[].class));
+
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO archive_segments"), eq(Long.class), any(Object[].class))).thenAnswer(invocation -> {
+            // Mockito spreads the varargs: kind, bucket, object, row count, byte size, min time, max time
+            segments.add(new Object[] {invocation.getArgument(5), invocation.getArgument(7), invocation.getArgument(8)});
+            return 1L;
+        });
+    }
+
+    @Test
+    void theSegmentRowCountsAndSpansOnlyTheRowsItIndexes() throws Exception {
+        event(1L, OLD);
+        event(2L, OLD.plus(Duration.ofDays(1)));
+        event(3L, OLD.plus(Duration.ofDays(2)));
+        // 1 changed and 3 was taken by another instance after the batch was read
+        unchanged.add(2L);
+
+        Map<String, Object> result = archive.run();
+
+        assertThat(result).containsEntry("EVENT", 1L);
+        assertThat(segments).singleElement().satisfies(segment -> assertThat(segment).containsExactly(
+                1, Timestamp.from(OLD.plus(Duration.ofDays(1))), Timestamp.from(OLD.plus(Duration.ofDays(1)))));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<ArchiveSegment.Row>> indexed = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO archive_index"), indexed.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(indexed.getValue()).extracting(ArchiveSegment.Row::entityId).containsExactly("2");
+        ArgumentCaptor<Object> deleted = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(startsWith("DELETE FROM events"), deleted.capture());
+        assertThat(deleted.getValue()).isEqualTo(new Long[] {2L});
+        verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    @Test
+    void aSegmentNothingWasRecordedFromIsRemoved() throws Exception {
+        event(1L, OLD);
+
+        assertThat(archive.run()).containsEntry("EVENT", 0L);
+
+        assertThat(segments).isEmpty();
+        ArgumentCaptor<PutObjectArgs> uploaded = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minioClient).putObject(uploaded.capture());
+        ArgumentCaptor<RemoveObjectArgs> removed = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minioClient).removeObject(removed.capture());
+        assertThat(removed.getValue().object()).isEqualTo(uploaded.getValue().object());
+    }
+
+    @Test
+    void aFailedTransactionLeavesItsSegmentToTheOrphanSweep() throws Exception {
+        event(1L, OLD);
+        unchanged.add(1L);
+        doThrow(new DataAccessResourceFailureException("connection reset during commit"))
+                .when(jdbcTemplate).update(startsWith("DELETE FROM events"), any(Object[].class));
+
+        assertThatThrownBy(archive::run).isInstanceOf(DataAccessResourceFailureException.class);
+
+        verify(minioClient).putObject(any(PutObjectArgs.class));
+        verify(minioClient, never()).removeObject(any(RemoveObjectArgs.class));
+    }
+
+    @Test
+    void theOrphanSweepRemovesOnlyOldSegmentsNoRowRefersTo() throws Exception {
+        bucket.add(object("event/2025/recorded.parquet", Instant.now().minus(Duration.ofHours(2))));
+        bucket.add(object("event/2025/orphaned.parquet", Instant.now().minus(Duration.ofHours(2))));
+        bucket.add(object("event/2025/in-flight.parquet", Instant.now()));
+        when(jdbcTemplate.queryForList(startsWith("SELECT object_key FROM archive_segments"), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("event/2025/recorded.parquet"));
+
+        assertThat(archive.run()).containsEntry("orphanedSegmentsRemoved", 1);
+
+        ArgumentCaptor<RemoveObjectArgs> removed = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minioClient).removeObject(removed.capture());
+        assertThat(removed.getValue().object()).isEqualTo("event/2025/orphaned.parquet");
+    }
+
+    private void event(Long id, Instant time) {
+        payloads.put(id, "{\"id\": " + id + ", \"type\": \"CONVOY\"}");
+        times.put(id, time);
+    }
+
+    private static Item object(String name, Instant lastModified) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(name);
+        when(item.isDir()).thenReturn(false);
+        when(item.lastModified()).thenReturn(lastModified.atZone(ZoneOffset.UTC));
+        return item;
+    }
+
+    private static String md5(String payload) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** A one-row {@link ResultSet} over {@code columns}; absent columns read as SQL NULL. */
+    private static ResultSet row(Map<String, Object> columns) {
+        boolean[] wasNull = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            if (method.getName().equals("wasNull")) {
+                return wasNull[0];
+            }
+            Object value = columns.get((String) args[0]);
+            wasNull[0] = value == null;
+            return switch (method.getName()) {
+                case "getDouble" -> value != null ? ((Number) value).doubleValue() : 0.0;
+                case "getString" -> value != null ? value.toString() : null;
+                case "getTimestamp", "getObject" -> value;
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        });
+    }
+}
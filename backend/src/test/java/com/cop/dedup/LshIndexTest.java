@@ -0,0 +1,99 @@
+package com.cop.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LshIndexTest {
+
+    // As ReportDeduplicationService configures the index
+    private static final int BANDS = 16;
+    private static final int ROWS = 8;
+
+    private final MinHasher minHasher = new MinHasher(BANDS * ROWS, 0x5EEDL);
+    private final LshIndex index = new LshIndex(BANDS, ROWS);
+
+    @Test
+    void nearDuplicateTextIsMatched() {
+        index.add(1, minHasher.signature("Convoy of six trucks observed moving north on the M-03 at dawn, escorted by two armoured vehicles"));
+        index.add(2, minHasher.signature("Radio intercept reports a change of frequency plan for the artillery net"));
+
+        LshIndex.Match match = index.bestMatch(
+            minHasher.signature("Convoy of six trucks observed moving north on the M-03 at dawn, escorted by two armored vehicles"), 0.5);
+
+        assertThat(match).isNotNull();
+        assertThat(match.reportId()).isEqualTo(1);
+    }
+
+    @Test
+    void oneEqualBandMakesACandidate() {
+        int[] indexed = signature(0);
+        int[] probe = signature(1_000_000);
+        System.arraycopy(indexed, 3 * ROWS, probe, 3 * ROWS, ROWS);
+        index.add(1, indexed);
+
+        LshIndex.Match match = index.bestMatch(probe, 0.0);
+
+        assertThat(match).isNotNull();
+        assertThat(match.similarity()).isEqualTo(1.0 / BANDS);
+    }
+
+    @Test
+    void oneDifferenceInEveryBandHidesEvenAVerySimilarSignature() {
+        int[] indexed = signature(0);
+        int[] probe = indexed.clone();
+        for (int band = 0; band < BANDS; band++) {
+            probe[band * ROWS]++;
+        }
+        index.add(1, indexed);
+
+        // 7/8 of the values agree, but no band hashes the same
+        assertThat(MinHasher.similarity(indexed, probe)).isEqualTo(1.0 - 1.0 / ROWS);
+        assertThat(index.bestMatch(probe, 0.0)).isNull();
+    }
+
+    @Test
+    void candidatesBelowTheThresholdAreNotMatches() {
+        int[] indexed = signature(0);
+        int[] probe = signature(1_000_000);
+        System.arraycopy(indexed, 0, probe, 0, ROWS);
+        index.add(1, indexed);
+
+        assertThat(index.bestMatch(probe, 0.5)).isNull();
+    }
+
+    @Test
+    void bestMatchPrefersTheMostSimilar() {
+        int[] probe = signature(0);
+        int[] half = signature(1_000_000);
+        System.arraycopy(probe, 0, half, 0, BANDS * ROWS / 2);
+        int[] most = probe.clone();
+        most[BANDS * ROWS - 1]++;
+        index.add(1, half);
+        index.add(2, most);
+
+        assertThat(index.bestMatch(probe, 0.4)).isEqualTo(new LshIndex.Match(2, 1.0 - 1.0 / (BANDS * ROWS)));
+    }
+
+    @Test
+    void removedReportsAreNoLongerMatched() {
+        int[] indexed = signature(0);
+        index.add(1, indexed);
+        index.add(2, indexed.clone());
+
+        index.remove(1);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.bestMatch(indexed, 0.9).reportId()).isEqualTo(2);
+        index.remove(2);
+        assertThat(index.bestMatch(indexed, 0.0)).isNull();
+    }
+
+    private static int[] signature(int offset) {
+        int[] signature = new int[BANDS * ROWS];
+        Arrays.setAll(signature, i -> offset + i);
+        return signature;
+    }
+}
@@ -0,0 +1,73 @@
+package com.cop.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MinHasherTest {
+
+    private final MinHasher minHasher = new MinHasher(128, 0x5EEDL);
+
+    @Test
+    void identicalTextHasIdenticalSignatures() {
+        String text = "Convoy of six trucks observed moving north on the M-03 at dawn";
+
+        assertThat(minHasher.signature(text)).isEqualTo(minHasher.signature(text));
+        assertThat(MinHasher.similarity(minHasher.signature(text), minHasher.signature(text))).isEqualTo(1.0);
+    }
+
+    @Test
+    void caseAndPunctuationAreNormalisedAway() {
+        assertThat(minHasher.signature("Convoy, six TRUCKS -- moving north!"))
+            .isEqualTo(minHasher.signature("convoy six trucks moving north"));
+    }
+
+    @Test
+    void similarityEstimatesShingleJaccard() {
+        String a = "Convoy of six trucks observed moving north on the M-03 at dawn, escorted by two armoured vehicles";
+        String b = "Convoy of six trucks observed moving north on the M-03 at dusk, escorted by two armoured vehicles";
+
+        double estimate = MinHasher.similarity(minHasher.signature(a), minHasher.signature(b));
+
+        // 128 hashes give a standard error of about 0.04 around the exact value
+        assertThat(estimate).isCloseTo(jaccard(a, b), within(0.12));
+    }
+
+    @Test
+    void unrelatedTextIsDissimilar() {
+        double similarity = MinHasher.similarity(
+            minHasher.signature("Convoy of six trucks observed moving north on the M-03 at dawn"),
+            minHasher.signature("Radio intercept reports a change of frequency plan for the artillery net"));
+
+        assertThat(similarity).isLessThan(0.1);
+    }
+
+    @Test
+    void shortAndEmptyTextStillSign() {
+        assertThat(minHasher.signature("")).hasSize(128).containsOnly(Integer.MAX_VALUE);
+        assertThat(minHasher.signature(null)).containsOnly(Integer.MAX_VALUE);
+        assertThat(minHasher.signature("abc")).hasSize(128).doesNotContain(Integer.MAX_VALUE);
+    }
+
+    private static double jaccard(String a, String b) {
+        Set<String> left = shingles(a);
+        Set<String> right = shingles(b);
+        Set<String> union = new HashSet<>(left);
+        union.addAll(right);
+        left.retainAll(right);
+        return (double) left.size() / union.size();
+    }
+
+    private static Set<String> shingles(String text) {
+        String normalised = text.toLowerCase().replaceAll("[^\\p{L}\\p{Nd}]+", " ").trim();
+        Set<String> shingles = new HashSet<>();
+        for (int i = 0; i + MinHasher.SHINGLE_LENGTH <= normalised.length(); i++) {
+            shingles.add(normalised.substring(i, i + MinHasher.SHINGLE_LENGTH));
+        }
+        return shingles;
+    }
+}
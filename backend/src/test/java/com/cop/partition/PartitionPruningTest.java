@@ -0,0 +1,145 @@
+package com.cop.partition;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the PostGIS database at {@code COP_TEST_DATABASE_URL}, in a schema of its own:
+ * minimal events, intelligence_reports and decisions tables holding a year of rows are converted
+ * by the partitioning changelog, and the plans of the queries the repositories run are checked
+ * for the partitions they read.
+ */
+@EnabledIfEnvironmentVariable(named = "COP_TEST_DATABASE_URL", matches = ".+")
+class PartitionPruningTest {
+
+    private static final String SCHEMA = "partition_pruning_test";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createSchema() throws SQLException, IOException {
+        DriverManagerDataSource database = new DriverManagerDataSource(System.getenv("COP_TEST_DATABASE_URL"),
+                System.getenv().getOrDefault("COP_TEST_DATABASE_USER", "postgres"), System.getenv().getOrDefault("COP_TEST_DATABASE_PASSWORD", ""));
+        dataSource = new SingleConnectionDataSource(database.getConnection(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS postgis");
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        jdbcTemplate.execute("SET search_path TO " + SCHEMA + ", public");
+        jdbcTemplate.execute("CREATE TABLE events (id BIGSERIAL PRIMARY KEY, title TEXT, start_time TIMESTAMP, " +
+                "created_at TIMESTAMP DEFAULT NOW(), location GEOMETRY(POINT, 4326))");
+        jdbcTemplate.execute("CREATE TABLE intelligence_reports (id BIGSERIAL PRIMARY KEY, title TEXT, event_time TIMESTAMP NOT NULL, " +
+                "location GEOMETRY(POINT, 4326))");
+        jdbcTemplate.execute("CREATE TABLE decisions (id BIGSERIAL PRIMARY KEY, decision_date TIMESTAMP NOT NULL, " +
+                "report_id BIGINT REFERENCES intelligence_reports(id) ON DELETE CASCADE)");
+        jdbcTemplate.update("INSERT INTO events (title, start_time) SELECT 'event', d FROM generate_series(TIMESTAMP '2025-01-01', '2025-12-31', '1 day') d");
+        jdbcTemplate.update("INSERT INTO intelligence_reports (title, event_time) " +
+                "SELECT 'report', d FROM generate_series(TIMESTAMP '2025-01-01', '2025-12-31', '1 day') d");
+        jdbcTemplate.update("INSERT INTO decisions (decision_date, report_id) SELECT event_time + INTERVAL '1 hour', id FROM intelligence_reports");
+        try (InputStream changelog = getClass().getResourceAsStream("/db/changelog/018-partition-time-tables.sql")) {
+            jdbcTemplate.execute(new String(changelog.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        dataSource.destroy();
+    }
+
+    @Test
+    void aWindowQueryReadsOnlyThePartitionsItOverlaps() throws IOException {
+        // IntelligenceReportRepository.findByEventTimeRange, EventRepository.findByTimeRange, DecisionRepository.findByDateRange
+        assertThat(scanned("SELECT * FROM intelligence_reports WHERE event_time BETWEEN ? AND ?", march(1), march(8)))
+                .containsExactly("intelligence_reports_p2025_03");
+        assertThat(scanned("SELECT * FROM events WHERE start_time BETWEEN ? AND ?", march(25), april(5)))
+                .containsExactlyInAnyOrder("events_p2025_03", "events_p2025_04");
+        assertThat(scanned("SELECT * FROM decisions WHERE decision_date BETWEEN ? AND ?", march(1), march(8)))
+                .containsExactly("decisions_p2025_03");
+    }
+
+    @Test
+    void aGenericPlanPrunesWhenItStartsExecuting() throws IOException {
+        // What a statement prepared on the server settles on after its first executions
+        jdbcTemplate.execute("SET plan_cache_mode = force_generic_plan");
+        jdbcTemplate.execute("PREPARE window_query(TIMESTAMP, TIMESTAMP) AS SELECT * FROM intelligence_reports WHERE event_time BETWEEN $1 AND $2");
+        try {
+            JsonNode plan = plan("EXPLAIN (FORMAT JSON) EXECUTE window_query('2025-03-01', '2025-03-08')");
+
+            assertThat(relations(plan)).containsExactly("intelligence_reports_p2025_03");
+            assertThat(plan.findValue("Subplans Removed").asInt()).isEqualTo(partitions("intelligence_reports") - 1);
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE window_query");
+            jdbcTemplate.execute("RESET plan_cache_mode");
+        }
+    }
+
+    @Test
+    void aLookupByIdAloneProbesEveryPartition() throws IOException {
+        long id = jdbcTemplate.queryForObject("SELECT id FROM intelligence_reports WHERE event_time = '2025-03-04'", Long.class);
+
+        // The primary key is (id, event_time): findById and the lock-by-id statements read one index per partition
+        assertThat(scanned("SELECT * FROM intelligence_reports WHERE id = ?", id)).hasSize(partitions("intelligence_reports"));
+        assertThat(scanned("SELECT * FROM intelligence_reports WHERE id = ? AND event_time = ?", id, march(4)))
+                .containsExactly("intelligence_reports_p2025_03");
+    }
+
+    @Test
+    void rowsAndReferencesSurviveTheConversion() {
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM intelligence_reports", Integer.class)).isEqualTo(365);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM ONLY intelligence_reports_default", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT on_delete FROM cop_partition_references WHERE child_table = 'decisions'", String.class))
+                .isEqualTo("CASCADE");
+
+        jdbcTemplate.update("DELETE FROM intelligence_reports WHERE event_time < '2025-02-01'");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM decisions", Integer.class)).isEqualTo(365 - 31);
+    }
+
+    /** The tables a statement's plan reads, with the parameters bound as the repositories bind them. */
+    private List<String> scanned(String sql, Object... args) throws IOException {
+        return relations(objectMapper.readTree(jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, args)));
+    }
+
+    private JsonNode plan(String explain) throws IOException {
+        return objectMapper.readTree(jdbcTemplate.queryForObject(explain, String.class));
+    }
+
+    private int partitions(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM pg_inherits WHERE inhparent = to_regclass(?)", Integer.class, table);
+    }
+
+    private static List<String> relations(JsonNode plan) {
+        List<String> relations = new ArrayList<>();
+        plan.findValues("Relation Name").forEach(name -> relations.add(name.asText()));
+        return relations;
+    }
+
+    private static Timestamp march(int day) {
+        return Timestamp.valueOf(LocalDateTime.of(2025, 3, day, 0, 0));
+    }
+
+    private static Timestamp april(int day) {
+        return Timestamp.valueOf(LocalDateTime.of(2025, 4, day, 0, 0));
+    }
+}
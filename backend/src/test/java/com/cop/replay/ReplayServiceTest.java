@@ -0,0 +1,214 @@
+package com.cop.replay;
+
+import com.cop.enums.ClassificationLevel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the PostGIS database at {@code COP_TEST_DATABASE_URL}, in a schema of its own with
+ * minimal events, intelligence_reports and decisions tables and the history changelog applied.
+ */
+@EnabledIfEnvironmentVariable(named = "COP_TEST_DATABASE_URL", matches = ".+")
+class ReplayServiceTest {
+
+    private static final String SCHEMA = "replay_test";
+    // A UTC midnight, so the full snapshot taken at it is the one pruning keeps for its day
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ReplayService replay;
+
+    @BeforeEach
+    void createSchema() throws SQLException, IOException {
+        DriverManagerDataSource database = new DriverManagerDataSource(System.getenv("COP_TEST_DATABASE_URL"),
+                System.getenv().getOrDefault("COP_TEST_DATABASE_USER", "postgres"), System.getenv().getOrDefault("COP_TEST_DATABASE_PASSWORD", ""));
+        dataSource = new SingleConnectionDataSource(database.getConnection(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS postgis");
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        jdbcTemplate.execute("SET search_path TO " + SCHEMA + ", public");
+        jdbcTemplate.execute("CREATE TABLE events (id BIGSERIAL PRIMARY KEY, title TEXT, classification_level VARCHAR(20), " +
+                "location GEOMETRY(POINT, 4326))");
+        jdbcTemplate.execute("CREATE TABLE intelligence_reports (id BIGSERIAL PRIMARY KEY, title TEXT, clearance_level VARCHAR(20), " +
+                "location GEOMETRY(POINT, 4326))");
+        jdbcTemplate.execute("CREATE TABLE decisions (id BIGSERIAL PRIMARY KEY, event_id BIGINT, report_id BIGINT, notes TEXT)");
+        jdbcTemplate.update("INSERT INTO events (title, classification_level) VALUES ('before the changelog', 'UNCLASSIFIED')");
+        try (InputStream changelog = getClass().getResourceAsStream("/db/changelog/013-create-history.sql")) {
+            jdbcTemplate.execute(new String(changelog.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        replay = new ReplayService();
+        ReflectionTestUtils.setField(replay, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(replay, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(replay, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(replay, "snapshotIntervalMinutes", 15);
+        ReflectionTestUtils.setField(replay, "snapshotLagSeconds", 120);
+        ReflectionTestUtils.setField(replay, "fullSnapshotIntervalHours", 6);
+        ReflectionTestUtils.setField(replay, "keepAllSnapshotsDays", 7);
+        ReflectionTestUtils.setField(replay, "maxRows", 1000);
+        replay.init();
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        dataSource.destroy();
+    }
+
+    @Test
+    void triggersRecordEveryWriteAndTheChangelogSeedsExistingRows() {
+        long id = jdbcTemplate.queryForObject("INSERT INTO events (title, classification_level, location) " +
+                "VALUES ('convoy', 'SECRET', ST_SetSRID(ST_MakePoint(30.5, 50.4), 4326)) RETURNING id", Long.class);
+        jdbcTemplate.update("UPDATE events SET location = ST_SetSRID(ST_MakePoint(30.6, 50.5), 4326) WHERE id = ?", id);
+        jdbcTemplate.update("DELETE FROM events WHERE id = ?", id);
+
+        List<Map<String, Object>> history = jdbcTemplate.queryForList("SELECT entity_type, entity_id, operation, ST_X(location) AS lon, " +
+                "payload->>'title' AS title, payload->'location' IS NOT NULL AS has_location FROM cop_history ORDER BY id");
+        assertThat(history).extracting(row -> row.get("operation")).containsExactly("I", "I", "U", "D");
+        assertThat(history.get(0).get("title")).isEqualTo("before the changelog");
+        assertThat(history.subList(1, 4)).allSatisfy(row -> {
+            assertThat(row.get("entity_type")).isEqualTo(ReplayService.EVENT);
+            assertThat(row.get("entity_id")).isEqualTo(String.valueOf(id));
+            assertThat(row.get("title")).isEqualTo("convoy");
+            // The geometry is kept in its own column, not in the payload
+            assertThat(row.get("has_location")).isEqualTo(false);
+        });
+        assertThat(history).extracting(row -> row.get("lon")).containsExactly(null, 30.5, 30.6, 30.6);
+    }
+
+    @Test
+    void replaysReadTheNewestSnapshotAndTheHistorySince() {
+        jdbcTemplate.update("DELETE FROM cop_history");
+        history(T0.minus(Duration.ofHours(1)), "EVENT", "1", "I", 30.0, "{\"id\": 1, \"title\": \"convoy\", \"classification_level\": \"UNCLASSIFIED\"}");
+        history(T0.minus(Duration.ofHours(1)), "REPORT", "2", "I", 30.1, "{\"id\": 2, \"clearance_level\": \"SECRET\"}");
+        history(T0.minus(Duration.ofHours(1)), "DECISION", "3", "I", null, "{\"id\": 3, \"report_id\": 2}");
+        assertThat(replay.buildSnapshot(Timestamp.from(T0), true)).isEqualTo(3);
+        history(T0.plus(Duration.ofHours(1)), "EVENT", "1", "U", 31.0, "{\"id\": 1, \"title\": \"convoy\", \"classification_level\": \"UNCLASSIFIED\"}");
+        history(T0.plus(Duration.ofHours(1)), "EVENT", "4", "I", 32.0, "{\"id\": 4, \"title\": \"checkpoint\"}");
+        // A delta over the full snapshot: only the two events changed since
+        assertThat(replay.buildSnapshot(Timestamp.from(T0.plus(Duration.ofHours(2))), false)).isEqualTo(2);
+        history(T0.plus(Duration.ofHours(3)), "EVENT", "4", "D", 32.0, "{\"id\": 4, \"title\": \"checkpoint\"}");
+        // Replays from here on can only be answered from the snapshots
+        jdbcTemplate.update("DELETE FROM cop_history WHERE recorded_at <= ?", Timestamp.from(T0.plus(Duration.ofHours(2))));
+
+        Map<String, Object> early = replay.stateAt(T0.plus(Duration.ofMinutes(30)), null, ClassificationLevel.TOP_SECRET);
+        assertThat(early.get("snapshotAt")).isEqualTo(T0);
+        assertThat(ids(early, "events")).containsExactly("1");
+        assertThat(lon(early, "events", "1")).isEqualTo(30.0);
+
+        Map<String, Object> afterDelta = replay.stateAt(T0.plus(Duration.ofMinutes(150)), null, ClassificationLevel.TOP_SECRET);
+        assertThat(afterDelta.get("snapshotAt")).isEqualTo(T0.plus(Duration.ofHours(2)));
+        assertThat(ids(afterDelta, "events")).containsExactlyInAnyOrder("1", "4");
+        assertThat(lon(afterDelta, "events", "1")).isEqualTo(31.0);
+        assertThat(ids(afterDelta, "reports")).containsExactly("2");
+        assertThat(ids(afterDelta, "decisions")).containsExactly("3");
+
+        Map<String, Object> late = replay.stateAt(T0.plus(Duration.ofHours(4)), null, ClassificationLevel.TOP_SECRET);
+        assertThat(ids(late, "events")).containsExactly("1");
+
+        // Within a bbox, only what is inside it and the decisions about it
+        Map<String, Object> boxed = replay.stateAt(T0.plus(Duration.ofMinutes(150)), new double[] {30.9, 49, 31.1, 51}, ClassificationLevel.TOP_SECRET);
+        assertThat(ids(boxed, "events")).containsExactly("1");
+        assertThat(ids(boxed, "reports")).isEmpty();
+        assertThat(ids(boxed, "decisions")).isEmpty();
+    }
+
+    @Test
+    void replaysLeaveOutWhatTheClearanceCannotRead() {
+        jdbcTemplate.update("DELETE FROM cop_history");
+        history(T0, "EVENT", "1", "I", 30.0, "{\"id\": 1, \"classification_level\": \"CONFIDENTIAL\"}");
+        history(T0, "REPORT", "2", "I", 30.1, "{\"id\": 2, \"clearance_level\": \"SECRET\"}");
+        history(T0, "REPORT", "5", "I", 30.2, "{\"id\": 5}");
+        history(T0, "DECISION", "3", "I", null, "{\"id\": 3, \"report_id\": 2}");
+        history(T0, "DECISION", "6", "I", null, "{\"id\": 6, \"report_id\": 5, \"event_id\": 1}");
+        history(T0.plus(Duration.ofMinutes(10)), "REPORT", "2", "U", 30.1, "{\"id\": 2, \"clearance_level\": \"UNCLASSIFIED\"}");
+        Instant at = T0.plus(Duration.ofMinutes(5));
+
+        Map<String, Object> confidential = replay.stateAt(at, null, ClassificationLevel.CONFIDENTIAL);
+        assertThat(ids(confidential, "events")).containsExactly("1");
+        assertThat(ids(confidential, "reports")).containsExactly("5");
+        assertThat(ids(confidential, "decisions")).containsExactly("6");
+
+        Map<String, Object> unclassified = replay.stateAt(at, null, ClassificationLevel.UNCLASSIFIED);
+        assertThat(ids(unclassified, "events")).isEmpty();
+        assertThat(ids(unclassified, "reports")).containsExactly("5");
+        assertThat(ids(unclassified, "decisions")).isEmpty();
+
+        // Downgraded after the instant: the replay goes by the classification it had then
+        assertThat(ids(replay.stateAt(T0.plus(Duration.ofMinutes(15)), null, ClassificationLevel.UNCLASSIFIED), "reports"))
+                .containsExactlyInAnyOrder("2", "5");
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> changes = (List<Map<String, Object>>) replay.changes(T0.minusSeconds(1), T0.plus(Duration.ofMinutes(15)),
+                null, 0, ClassificationLevel.UNCLASSIFIED).get("changes");
+        assertThat(changes).extracting(change -> change.get("entityType") + ":" + change.get("entityId") + ":" + change.get("operation"))
+                .containsExactly("REPORT:5:INSERT", "REPORT:2:UPDATE");
+    }
+
+    @Test
+    void pruningKeepsTheFullSnapshotAtEachUtcMidnightWhateverTheSessionTimeZone() {
+        jdbcTemplate.execute("SET TIME ZONE 'America/New_York'");
+        Instant day = Instant.now().truncatedTo(ChronoUnit.DAYS).minus(Duration.ofDays(10));
+        long midnight = snapshot(day, null);
+        long sixAm = snapshot(day.plus(Duration.ofHours(6)), null);
+        long delta = snapshot(day.plus(Duration.ofMinutes(15)), midnight);
+        long noon = snapshot(day.plus(Duration.ofHours(12)), null);
+        // Still read over by a delta inside the window
+        long recentDelta = snapshot(Instant.now().minus(Duration.ofDays(2)), noon);
+        long recent = snapshot(Instant.now().minus(Duration.ofDays(1)), null);
+
+        replay.pruneSnapshots();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM cop_snapshots", Long.class))
+                .containsExactlyInAnyOrder(midnight, noon, recentDelta, recent)
+                .doesNotContain(sixAm, delta);
+    }
+
+    private void history(Instant recordedAt, String type, String id, String operation, Double lon, String payload) {
+        jdbcTemplate.update("INSERT INTO cop_history (entity_type, entity_id, operation, recorded_at, location, payload) " +
+                "VALUES (?, ?, ?, ?, CASE WHEN ?::float8 IS NULL THEN NULL ELSE ST_SetSRID(ST_MakePoint(?::float8, 50), 4326) END, ?::jsonb)",
+                type, id, operation, Timestamp.from(recordedAt), lon, lon, payload);
+    }
+
+    private long snapshot(Instant takenAt, Long baseId) {
+        return jdbcTemplate.queryForObject("INSERT INTO cop_snapshots (taken_at, base_id) VALUES (?, ?) RETURNING id",
+                Long.class, Timestamp.from(takenAt), baseId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> ids(Map<String, Object> state, String kind) {
+        return ((List<ObjectNode>) state.get(kind)).stream().map(node -> node.get("id").asText()).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double lon(Map<String, Object> state, String kind, String id) {
+        return ((List<ObjectNode>) state.get(kind)).stream()
+                .filter(node -> node.get("id").asText().equals(id))
+                .findFirst().orElseThrow()
+                .get("lon").asDouble();
+    }
+}
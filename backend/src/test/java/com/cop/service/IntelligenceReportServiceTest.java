@@ -0,0 +1,245 @@
+package com.cop.service;
+
+import com.cop.common.cache.CacheInvalidationBus;
+import com.cop.confidence.EventConfidenceService;
+import com.cop.dto.BulkReviewRequest;
+import com.cop.dto.BulkReviewResult;
+import com.cop.entity.User;
+import com.cop.outbox.OutboxPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bulk review against a stubbed {@link JdbcTemplate}: each statement's rows are what Postgres
+ * would return for the reports set up in the test, so these cover how outcomes are told apart
+ * rather than the SQL itself.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IntelligenceReportServiceTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private OutboxPublisher outboxPublisher;
+
+    @Mock
+    private EventConfidenceService eventConfidenceService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+
+    @Mock
+    private CacheInvalidationBus bus;
+
+    @InjectMocks
+    private IntelligenceReportService service;
+
+    // What the statements see: id -> version, and which ids are still reviewable
+    private final Map<Long, Long> versions = new HashMap<>();
+    private final Map<Long, Boolean> reviewable = new HashMap<>();
+    private final Map<Long, String> duplicateOf = new HashMap<>();
+    private final List<Object[]> skippedLookups = new ArrayList<>();
+
+    @BeforeEach
+    void stubStatements() {
+        User reviewer = new User();
+        reviewer.setId(7L);
+        when(userService.findByUsername("hq")).thenReturn(reviewer);
+        when(cacheInvalidationBus.getIfAvailable()).thenReturn(bus);
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            // Mockito spreads the varargs: status, reviewer, time, comments, time, ids, versions
+            String status = invocation.getArgument(2);
+            Long[] ids = invocation.getArgument(7);
+            Long[] expected = invocation.getArgument(8);
+            for (int i = 0; i < ids.length; i++) {
+                Long id = ids[i];
+                if (versions.containsKey(id) && versions.get(id).equals(expected[i]) && reviewable.get(id)) {
+                    versions.put(id, versions.get(id) + 1);
+                    reviewable.put(id, false);
+                    handler.processRow(row(Map.of("id", id, "version", versions.get(id), "type", "HUMINT", "status", status,
+                            "clearance_level", "SECRET")));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("UPDATE intelligence_reports"), any(RowCallbackHandler.class), any(Object[].class));
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            Object[] ids = invocation.getArgument(2);
+            skippedLookups.add(ids);
+            for (Object id : ids) {
+                if (versions.containsKey(id)) {
+                    handler.processRow(row(Map.of("id", id, "version", versions.get(id), "reviewable", reviewable.get(id))));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT r.id, r.version"), any(RowCallbackHandler.class), any(Object[].class));
+
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object id : (Object[]) invocation.getArgument(3)) {
+                if (duplicateOf.containsKey(id)) {
+                    handler.processRow(row(Map.of("report_id", id, "metadata_value", duplicateOf.get(id))));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT report_id, metadata_value"), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void eachReportGetsItsOwnOutcomeInRequestOrder() {
+        report(1L, 3L, true);
+        report(2L, 6L, true);
+        report(3L, 2L, false);
+        report(5L, 9L, false);
+        duplicateOf.put(1L, "40");
+
+        List<BulkReviewResult> results = service.bulkReview(request(
+                item(1L, 3L), item(2L, 5L), item(3L, 2L), item(4L, 1L), item(5L, 8L)), "hq");
+
+        assertThat(results).extracting(BulkReviewResult::getId).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(results).extracting(BulkReviewResult::getOutcome).containsExactly(
+                BulkReviewResult.Outcome.APPLIED,
+                // Still pending, but changed since the reviewer saw it
+                BulkReviewResult.Outcome.VERSION_CONFLICT,
+                // The version the reviewer saw, but already reviewed
+                BulkReviewResult.Outcome.STATUS_CONFLICT,
+                BulkReviewResult.Outcome.NOT_FOUND,
+                // Reviewed since the reviewer saw it: the version is what they need to know about
+                BulkReviewResult.Outcome.VERSION_CONFLICT);
+        assertThat(results).extracting(BulkReviewResult::getVersion).containsExactly(4L, 6L, 2L, null, 9L);
+        // Only the skipped ids are looked up again
+        assertThat(skippedLookups).singleElement().satisfies(ids -> assertThat(ids).containsExactly(2L, 3L, 4L, 5L));
+    }
+
+    @Test
+    void onlyAppliedReportsArePublishedAndInvalidated() {
+        report(1L, 3L, true);
+        report(2L, 6L, true);
+        duplicateOf.put(1L, "40");
+
+        service.bulkReview(request(item(1L, 3L), item(2L, 5L)), "hq");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, Map<String, Object>>> payloads = ArgumentCaptor.forClass(Map.class);
+        verify(outboxPublisher).publishBatch(eq(OutboxPublisher.REPORT), eq("APPROVED"), payloads.capture());
+        assertThat(payloads.getValue()).containsOnlyKeys(1L);
+        assertThat(payloads.getValue().get(1L)).containsEntry("status", "APPROVED").containsEntry("duplicateOf", "40");
+        verify(eventConfidenceService).reportsChanged(Set.of(1L));
+        verify(bus).invalidate("IntelligenceReport", 1L);
+        verify(bus, never()).invalidate("IntelligenceReport", 2L);
+    }
+
+    @Test
+    void aBatchWithNothingAppliedPublishesNothing() {
+        report(3L, 2L, false);
+
+        List<BulkReviewResult> results = service.bulkReview(request(item(3L, 2L), item(4L, 1L)), "hq");
+
+        assertThat(results).extracting(BulkReviewResult::getOutcome)
+                .containsExactly(BulkReviewResult.Outcome.STATUS_CONFLICT, BulkReviewResult.Outcome.NOT_FOUND);
+        verify(outboxPublisher, never()).publishBatch(anyString(), anyString(), anyMap());
+        verifyNoInteractions(eventConfidenceService, bus);
+    }
+
+    @Test
+    void repeatedIdsAreReviewedOnceWithTheFirstVersion() {
+        report(1L, 3L, true);
+
+        List<BulkReviewResult> results = service.bulkReview(request(item(1L, 3L), item(1L, 2L)), "hq");
+
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.getOutcome()).isEqualTo(BulkReviewResult.Outcome.APPLIED);
+            assertThat(result.getVersion()).isEqualTo(4L);
+        });
+    }
+
+    @Test
+    void everyItemNeedsAVersion() {
+        assertThatThrownBy(() -> service.bulkReview(request(item(1L, 3L), item(2L, null)), "hq"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Report 2");
+        verify(jdbcTemplate, never()).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void batchesAreCapped() {
+        BulkReviewRequest.Item[] items = LongStream.rangeClosed(1, 1001).mapToObj(id -> item(id, 1L)).toArray(BulkReviewRequest.Item[]::new);
+
+        assertThatThrownBy(() -> service.bulkReview(request(items), "hq")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void report(Long id, Long version, boolean pending) {
+        versions.put(id, version);
+        reviewable.put(id, pending);
+    }
+
+    private static BulkReviewRequest request(BulkReviewRequest.Item... items) {
+        BulkReviewRequest request = new BulkReviewRequest();
+        request.setDecision(BulkReviewRequest.Decision.APPROVE);
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    private static BulkReviewRequest.Item item(Long id, Long version) {
+        return new BulkReviewRequest.Item(id, version);
+    }
+
+    /** A one-row {@link ResultSet} over {@code columns}; absent columns read as SQL NULL. */
+    private static ResultSet row(Map<String, Object> columns) {
+        boolean[] wasNull = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            if (method.getName().equals("wasNull")) {
+                return wasNull[0];
+            }
+            Object value = columns.get((String) args[0]);
+            wasNull[0] = value == null;
+            return switch (method.getName()) {
+                case "getLong" -> value != null ? ((Number) value).longValue() : 0L;
+                case "getDouble" -> value != null ? ((Number) value).doubleValue() : 0.0;
+                case "getBoolean" -> value != null && (Boolean) value;
+                case "getString" -> value != null ? value.toString() : null;
+                case "getObject" -> value;
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        });
+    }
+}
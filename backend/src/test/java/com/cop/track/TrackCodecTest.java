@@ -0,0 +1,103 @@
+package com.cop.track;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrackCodecTest {
+
+    @Test
+    void pointsRoundTrip() {
+        List<TrackPoint> points = List.of(
+            new TrackPoint(1_767_225_600_000L, 30.523456, 50.450001),
+            new TrackPoint(1_767_225_605_000L, 30.523501, 50.450112),
+            new TrackPoint(1_767_225_611_250L, 30.524, 50.4503));
+
+        assertThat(TrackCodec.decode(TrackCodec.encode(points))).isEqualTo(points);
+    }
+
+    @Test
+    void coordinatesAreRoundedToAMicrodegree() {
+        List<TrackPoint> decoded = TrackCodec.decode(TrackCodec.encode(List.of(new TrackPoint(0, 12.3456784, -45.6789016))));
+
+        assertThat(decoded).containsExactly(new TrackPoint(0, 12.345678, -45.678902));
+    }
+
+    @Test
+    void movementInEveryDirectionRoundTrips() {
+        // Deltas of both signs, across the antimeridian and the equator
+        List<TrackPoint> points = List.of(
+            new TrackPoint(1_000, 179.999999, 0.000001),
+            new TrackPoint(2_000, -179.999999, -0.000001),
+            new TrackPoint(3_000, -180.0, -90.0),
+            new TrackPoint(4_000, 180.0, 90.0),
+            new TrackPoint(4_000, 0.0, 0.0));
+
+        assertThat(TrackCodec.decode(TrackCodec.encode(points))).isEqualTo(points);
+    }
+
+    @Test
+    void largeTimeGapsRoundTrip() {
+        List<TrackPoint> points = List.of(
+            new TrackPoint(-86_400_000L, 1.0, 2.0),
+            new TrackPoint(1_767_225_600_000L, 1.0, 2.0),
+            new TrackPoint(4_102_444_800_000L, 1.0, 2.0));
+
+        assertThat(TrackCodec.decode(TrackCodec.encode(points))).isEqualTo(points);
+    }
+
+    @Test
+    void emptySegmentRoundTrips() {
+        byte[] encoded = TrackCodec.encode(List.of());
+
+        assertThat(encoded).containsExactly(1, 0);
+        assertThat(TrackCodec.decode(encoded)).isEmpty();
+    }
+
+    @Test
+    void movingPointTakesAFewBytes() {
+        List<TrackPoint> points = List.of(
+            new TrackPoint(1_767_225_600_000L, 30.5, 50.45),
+            new TrackPoint(1_767_225_610_000L, 30.5012, 50.4507));
+        byte[] first = TrackCodec.encode(points.subList(0, 1));
+
+        assertThat(TrackCodec.encode(points).length - first.length).isBetween(5, 7);
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertThatThrownBy(() -> TrackCodec.decode(new byte[0]))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("empty");
+        assertThatThrownBy(() -> TrackCodec.decode(new byte[] {2, 0}))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("format 2");
+    }
+
+    @Test
+    void truncatedSegmentIsRejected() {
+        byte[] encoded = TrackCodec.encode(List.of(new TrackPoint(1_000, 1.5, 2.5), new TrackPoint(2_000, 1.6, 2.6)));
+
+        for (int length = 1; length < encoded.length; length++) {
+            byte[] cut = Arrays.copyOf(encoded, length);
+            assertThatThrownBy(() -> TrackCodec.decode(cut)).as("%d bytes", length)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Truncated");
+        }
+    }
+
+    @Test
+    void overlongVarintIsRejected() {
+        byte[] encoded = new byte[12];
+        encoded[0] = 1;
+        Arrays.fill(encoded, 1, encoded.length, (byte) 0x80);
+
+        assertThatThrownBy(() -> TrackCodec.decode(encoded))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Malformed");
+    }
+}
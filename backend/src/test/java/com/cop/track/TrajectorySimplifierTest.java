@@ -0,0 +1,96 @@
+package com.cop.track;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrajectorySimplifierTest {
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    @Test
+    void twoPointsOrFewerAreKept() {
+        TrackPoint a = new TrackPoint(0, 30.0, 50.0);
+        TrackPoint b = new TrackPoint(1_000, 30.0, 50.0);
+
+        assertThat(TrajectorySimplifier.simplify(List.of(), 10)).isEmpty();
+        assertThat(TrajectorySimplifier.simplify(List.of(a), 10)).containsExactly(a);
+        assertThat(TrajectorySimplifier.simplify(List.of(a, b), 10)).containsExactly(a, b);
+    }
+
+    @Test
+    void steadyStraightMovementKeepsOnlyTheEnds() {
+        List<TrackPoint> points = new ArrayList<>();
+        for (int i = 0; i <= 60; i++) {
+            points.add(new TrackPoint(i * 1_000L, 30.0 + i * 0.0001, 50.0 + i * 0.00005));
+        }
+
+        assertThat(TrajectorySimplifier.simplify(points, 1)).containsExactly(points.get(0), points.get(60));
+    }
+
+    @Test
+    void haltOnAStraightRoadIsKept() {
+        // Along one line, but standing still from 20 s to 40 s: a purely spatial simplifier
+        // would drop everything between the ends
+        List<TrackPoint> points = new ArrayList<>();
+        for (int i = 0; i <= 60; i++) {
+            int moved = i < 20 ? i : i < 40 ? 20 : i - 20;
+            points.add(new TrackPoint(i * 1_000L, 30.0 + moved * 0.0001, 50.0));
+        }
+
+        List<TrackPoint> kept = TrajectorySimplifier.simplify(points, 5);
+
+        assertThat(kept).contains(points.get(0), points.get(20), points.get(40), points.get(60));
+        assertWithinTolerance(points, kept, 5);
+    }
+
+    @Test
+    void deviationBeyondTheToleranceIsKept() {
+        // 0.001 degrees of latitude is about 111 m off the line
+        TrackPoint a = new TrackPoint(0, 30.0, 50.0);
+        TrackPoint detour = new TrackPoint(5_000, 30.005, 50.001);
+        TrackPoint b = new TrackPoint(10_000, 30.01, 50.0);
+
+        assertThat(TrajectorySimplifier.simplify(List.of(a, detour, b), 100)).containsExactly(a, detour, b);
+        assertThat(TrajectorySimplifier.simplify(List.of(a, detour, b), 120)).containsExactly(a, b);
+    }
+
+    @Test
+    void droppedPointsAreWithinTheTolerance() {
+        List<TrackPoint> points = new ArrayList<>();
+        Random random = new Random(7);
+        double lon = 30.0;
+        double lat = 50.0;
+        for (int i = 0; i < 500; i++) {
+            lon += 0.0002 + random.nextGaussian() * 0.00005;
+            lat += random.nextGaussian() * 0.0001;
+            points.add(new TrackPoint(i * 2_000L + random.nextInt(500), lon, lat));
+        }
+
+        List<TrackPoint> kept = TrajectorySimplifier.simplify(points, 10);
+
+        assertThat(kept.size()).isLessThan(points.size());
+        assertThat(kept.get(0)).isEqualTo(points.get(0));
+        assertThat(kept.get(kept.size() - 1)).isEqualTo(points.get(points.size() - 1));
+        assertWithinTolerance(points, kept, 10);
+    }
+
+    /** Every original point lies within {@code tolerance} metres of the kept track at its own time. */
+    private static void assertWithinTolerance(List<TrackPoint> points, List<TrackPoint> kept, double tolerance) {
+        int next = 1;
+        for (TrackPoint p : points) {
+            while (next < kept.size() - 1 && kept.get(next).time() < p.time()) {
+                next++;
+            }
+            TrackPoint a = kept.get(next - 1);
+            TrackPoint b = kept.get(next);
+            TrackPoint expected = TrackPoint.between(a, b, p.time());
+            double lonScale = METERS_PER_DEGREE * Math.cos(Math.toRadians((a.lat() + b.lat()) / 2));
+            double distance = Math.hypot((p.lon() - expected.lon()) * lonScale, (p.lat() - expected.lat()) * METERS_PER_DEGREE);
+            assertThat(distance).as("point at %d ms", p.time()).isLessThanOrEqualTo(tolerance);
+        }
+    }
+}
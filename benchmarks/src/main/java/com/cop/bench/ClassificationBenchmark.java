@@ -0,0 +1,58 @@
+package com.cop.bench;
+
+import com.cop.enums.ClassificationLevel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Label parsing and clearance filtering over list sizes typical of a map layer and of a full
+ * table export.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassificationBenchmark {
+
+    // Mix of the spellings seen in imports and API parameters, including an unknown one
+    private static final String[] LABELS = {"SECRET", "s", "Top_Secret", "TS", "unclassified", "C", "confidential", "restricted"};
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private String[] labels;
+    private List<ClassificationLevel> levels;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        labels = new String[size];
+        levels = new ArrayList<>(size);
+        ClassificationLevel[] all = ClassificationLevel.values();
+        for (int i = 0; i < size; i++) {
+            labels[i] = LABELS[random.nextInt(LABELS.length)];
+            levels.add(all[random.nextInt(all.length)]);
+        }
+    }
+
+    @Benchmark
+    public void fromString(Blackhole blackhole) {
+        for (String label : labels) {
+            blackhole.consume(ClassificationLevel.fromString(label));
+        }
+    }
+
+    @Benchmark
+    public List<ClassificationLevel> filterByClearance() {
+        return levels.stream()
+            .filter(level -> level.canAccess(ClassificationLevel.SECRET))
+            .toList();
+    }
+}
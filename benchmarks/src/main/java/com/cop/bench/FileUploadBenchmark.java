@@ -0,0 +1,72 @@
+package com.cop.bench;
+
+import com.cop.file.api.FileController;
+import io.minio.MinioClient;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The file-service upload path: SHA-256 of the payload on its own, and the whole
+ * {@link FileController#upload} call against a loopback MinIO stand-in with the metadata insert
+ * stubbed out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileUploadBenchmark {
+
+    @Param({"65536", "1048576", "16777216"})
+    public int bytes;
+
+    private MinioStandIn minio;
+    private FileController controller;
+    private MockMultipartFile file;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        payload = new byte[bytes];
+        new SplittableRandom(42).nextBytes(payload);
+        file = new MockMultipartFile("file", "capture.jpg", "image/jpeg", payload);
+
+        minio = new MinioStandIn();
+        MinioClient client = MinioClient.builder()
+            .endpoint(minio.endpoint())
+            .credentials("benchmark", "benchmark")
+            // A fixed region skips the bucket-location lookup before each put
+            .region("us-east-1")
+            .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public int update(String sql, Object... args) {
+                return 1;
+            }
+        };
+        controller = new FileController(jdbcTemplate, client, "cop-files", minio.endpoint());
+    }
+
+    @TearDown
+    public void tearDown() {
+        minio.close();
+    }
+
+    @Benchmark
+    public String checksum() {
+        return DigestUtils.sha256Hex(payload);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> upload() throws Exception {
+        return controller.upload(file, null, null, "UNCLASSIFIED");
+    }
+}
@@ -0,0 +1,111 @@
+package com.cop.bench;
+
+import com.cop.common.geo.GeoJsonModule;
+import com.cop.entity.Event;
+import com.cop.entity.IntelligenceReport;
+import com.cop.entity.User;
+import com.cop.enums.ClassificationLevel;
+import com.cop.enums.ClearanceLevel;
+import com.cop.enums.EventStatus;
+import com.cop.enums.IntelligenceType;
+import com.cop.enums.ReportStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes report and event pages the way the REST layer does, with the mapper built by
+ * {@link Jackson2ObjectMapperBuilder} so the same well-known modules are registered.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonPageBenchmark {
+
+    @Param({"20", "200"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<IntelligenceReport> reports;
+    private Page<Event> events;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new GeoJsonModule()).build();
+
+        GeometryFactory geometryFactory = new GeometryFactory();
+        User analyst = new User();
+        analyst.setId(7L);
+        analyst.setUsername("analyst");
+        analyst.setFullName("Field Analyst");
+        analyst.setClearanceLevel(ClearanceLevel.values()[0]);
+
+        List<IntelligenceReport> reportList = new ArrayList<>(pageSize);
+        List<Event> eventList = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Point location = geometryFactory.createPoint(new Coordinate(69.0 + i * 1e-3, 34.5 + i * 1e-3));
+            location.setSRID(4326);
+            LocalDateTime time = LocalDateTime.of(2024, 3, 1, 0, 0).plusMinutes(i);
+
+            IntelligenceReport report = new IntelligenceReport();
+            report.setId((long) i);
+            report.setTitle("Report " + i);
+            report.setContent("Observed activity near grid reference " + (1000 + i) + ", assessed as routine resupply.");
+            report.setType(IntelligenceType.values()[i % IntelligenceType.values().length]);
+            report.setClearanceLevel(ClearanceLevel.values()[i % ClearanceLevel.values().length]);
+            report.setStatus(ReportStatus.PENDING);
+            report.setLocation(location);
+            report.setEventTime(time);
+            report.setSubmittedBy(analyst);
+            Map<String, String> metadata = new HashMap<>();
+            metadata.put("source", "patrol-" + (i % 12));
+            metadata.put("reliability", "B2");
+            report.setMetadata(metadata);
+            reportList.add(report);
+
+            Event event = new Event();
+            event.setId((long) i);
+            event.setType("MOVEMENT");
+            event.setStartTime(time);
+            event.setEndTime(time.plusHours(1));
+            event.setLocation(location);
+            event.setDescription("Fused movement event " + i);
+            event.setConfidenceScore(0.5 + (i % 50) / 100.0);
+            event.setClassificationLevel(ClassificationLevel.values()[i % ClassificationLevel.values().length]);
+            event.setStatus(EventStatus.values()[0]);
+            event.setSourceReports(Set.of());
+            event.setDecisions(List.of());
+            eventList.add(event);
+        }
+        reports = new PageImpl<>(reportList, PageRequest.of(0, pageSize), 10_000);
+        events = new PageImpl<>(eventList, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] reportPage() throws IOException {
+        return objectMapper.writeValueAsBytes(reports);
+    }
+
+    @Benchmark
+    public byte[] eventPage() throws IOException {
+        return objectMapper.writeValueAsBytes(events);
+    }
+}
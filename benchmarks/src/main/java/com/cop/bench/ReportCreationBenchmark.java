@@ -0,0 +1,81 @@
+package com.cop.bench;
+
+import com.cop.dto.CreateReportRequest;
+import com.cop.entity.IntelligenceReport;
+import com.cop.entity.User;
+import com.cop.enums.ClearanceLevel;
+import com.cop.enums.IntelligenceType;
+import com.cop.outbox.OutboxPublisher;
+import com.cop.repository.IntelligenceReportRepository;
+import com.cop.service.IntelligenceReportService;
+import com.cop.service.ReportDeduplicationService;
+import com.cop.service.UserService;
+import com.cop.track.TrackService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * {@link IntelligenceReportService#createReport} with persistence, dedup, the outbox and tracks stubbed
+ * out, so what is measured is request mapping, JTS point construction and entity population.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportCreationBenchmark {
+
+    @Param({"true", "false"})
+    public boolean located;
+
+    private IntelligenceReportService service;
+    private CreateReportRequest request;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("analyst");
+
+        // stubOnly: no invocation recording, so the stubs do not grow over millions of calls
+        IntelligenceReportRepository repository = mock(IntelligenceReportRepository.class, withSettings().stubOnly());
+        when(repository.save(any(IntelligenceReport.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        UserService userService = mock(UserService.class, withSettings().stubOnly());
+        when(userService.findByUsername(anyString())).thenReturn(user);
+
+        service = new IntelligenceReportService();
+        ReflectionTestUtils.setField(service, "reportRepository", repository);
+        ReflectionTestUtils.setField(service, "userService", userService);
+        ReflectionTestUtils.setField(service, "deduplicationService", mock(ReportDeduplicationService.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(service, "outboxPublisher", mock(OutboxPublisher.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(service, "trackService", mock(TrackService.class, withSettings().stubOnly()));
+
+        request = new CreateReportRequest();
+        request.setTitle("Convoy sighted on northern supply route");
+        request.setContent("Six vehicles, two with mounted weapons, moving south at approximately 40 km/h.");
+        request.setType(IntelligenceType.values()[0]);
+        request.setClearanceLevel(ClearanceLevel.values()[0]);
+        request.setEventTime(LocalDateTime.of(2024, 3, 1, 12, 0));
+        request.setMetadata(Map.of("source", "patrol-7", "reliability", "B2"));
+        if (located) {
+            request.setLatitude(34.5553);
+            request.setLongitude(69.2075);
+        }
+    }
+
+    @Benchmark
+    public IntelligenceReport createReport() {
+        return service.createReport(request, "analyst");
+    }
+}
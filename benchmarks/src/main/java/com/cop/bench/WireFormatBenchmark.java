@@ -0,0 +1,123 @@
+package com.cop.bench;
+
+import com.cop.schema.ConfidenceBreakdown;
+import com.cop.schema.FusedEvent;
+import com.cop.schema.GeoPoint;
+import com.cop.schema.ReportSubmission;
+import com.cop.schema.ShardReport;
+import com.cop.schema.ShardReportBatch;
+import com.cop.schema.wire.WireCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per message of the inter-service payloads as JSON, with the mapper the services use, and as
+ * protobuf through the {@code cop-schema} codecs. Run with {@code -prof gc} for allocation per
+ * message; the encoded sizes are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"fusedEvent", "reportSubmission", "shardBatch"})
+    public String message;
+
+    private ObjectMapper objectMapper;
+    private Object value;
+    private WireCodec<Object> codec;
+    private byte[] json;
+    private byte[] wire;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        switch (message) {
+            case "fusedEvent" -> {
+                value = fusedEvent(12);
+                codec = (WireCodec<Object>) (WireCodec<?>) FusedEvent.CODEC;
+            }
+            case "reportSubmission" -> {
+                value = reportSubmission();
+                codec = (WireCodec<Object>) (WireCodec<?>) ReportSubmission.CODEC;
+            }
+            case "shardBatch" -> {
+                value = shardBatch(200);
+                codec = (WireCodec<Object>) (WireCodec<?>) ShardReportBatch.CODEC;
+            }
+            default -> throw new IllegalArgumentException(message);
+        }
+        json = objectMapper.writeValueAsBytes(value);
+        wire = codec.encode(value);
+        System.out.printf("%n%s: json %d bytes, protobuf %d bytes (%.0f%%)%n",
+                message, json.length, wire.length, 100.0 * wire.length / json.length);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object jsonDecode() throws IOException {
+        return objectMapper.readValue(json, value.getClass());
+    }
+
+    @Benchmark
+    public byte[] wireEncode() {
+        return codec.encode(value);
+    }
+
+    @Benchmark
+    public Object wireDecode() {
+        return codec.decode(wire);
+    }
+
+    private static FusedEvent fusedEvent(int sources) {
+        Map<String, ConfidenceBreakdown.GroupFactor> groups = new LinkedHashMap<>();
+        Map<String, ConfidenceBreakdown.SourceFactor> factors = new LinkedHashMap<>();
+        List<String> reportIds = new ArrayList<>();
+        for (int i = 0; i < sources; i++) {
+            String id = new UUID(0x5eed, i).toString();
+            String group = "analyst:" + (i % 4);
+            reportIds.add(id);
+            factors.put(id, new ConfidenceBreakdown.SourceFactor(group, 0.4 + i * 0.05));
+            groups.merge(group, new ConfidenceBreakdown.GroupFactor(0.4 + i * 0.05, 1),
+                    (a, b) -> new ConfidenceBreakdown.GroupFactor(a.sum() + b.sum(), a.count() + b.count()));
+        }
+        return new FusedEvent("evt-1709251200000", "Fused Event", 0.87,
+                new ConfidenceBreakdown(0.2, 3.3, 0.87, groups, factors), reportIds, Instant.parse("2024-03-01T00:00:00Z"));
+    }
+
+    private static ReportSubmission reportSubmission() {
+        Map<String, String> content = new LinkedHashMap<>();
+        content.put("summary", "Convoy of six vehicles moving north on the ring road");
+        content.put("details", "Observed from the checkpoint at 0640; two trucks, four light vehicles, no markings.");
+        content.put("source", "patrol-7");
+        content.put("location", "Grid 42S WD 12345 67890");
+        return new ReportSubmission("HUMINT", "Vehicle movement near checkpoint", content, new GeoPoint(69.172, 34.531),
+                Instant.parse("2024-03-01T06:40:00Z"), "SECRET", "B", "2");
+    }
+
+    private static ShardReportBatch shardBatch(int size) {
+        List<ShardReport> reports = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            reports.add(new ShardReport(new UUID(0x5eed, i), 34.5 + i * 1e-4, 69.1 + i * 1e-4, 1709251200000L + i * 60_000L));
+        }
+        return new ShardReportBatch(reports);
+    }
+}
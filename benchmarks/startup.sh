@@ -0,0 +1,48 @@
+#!/bin/bash
+# Starts a service repeatedly and reports time-to-ready (launch until the readiness probe answers 200).
+# Usage: benchmarks/startup.sh <readiness-url> [runs] -- <command...>
+#   benchmarks/startup.sh http://localhost:8095/actuator/health/readiness 10 -- \
+#       docker run --rm --network host -e DB_HOST=localhost cop/map-service:fast-start
+set -e
+
+URL=$1
+RUNS=${2:-10}
+shift 2 || true
+[ "$1" = "--" ] && shift
+if [ -z "$URL" ] || [ $# -eq 0 ]; then
+    echo "Usage: $0 <readiness-url> [runs] -- <command...>" >&2
+    exit 1
+fi
+
+TIMEOUT_MS=${STARTUP_TIMEOUT_MS:-120000}
+LOG=$(mktemp)
+times=()
+
+for run in $(seq 1 "$RUNS"); do
+    start=$(date +%s%N)
+    "$@" >"$LOG" 2>&1 &
+    pid=$!
+    ready=
+    while kill -0 "$pid" 2>/dev/null; do
+        if curl -fs -o /dev/null "$URL"; then
+            ready=$(( ($(date +%s%N) - start) / 1000000 ))
+            break
+        fi
+        [ $(( ($(date +%s%N) - start) / 1000000 )) -gt "$TIMEOUT_MS" ] && break
+        sleep 0.02
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    if [ -z "$ready" ]; then
+        echo "run $run: not ready, last output:" >&2
+        tail -20 "$LOG" >&2
+        exit 1
+    fi
+    echo "run $run: ${ready} ms"
+    times+=("$ready")
+done
+
+rm -f "$LOG"
+printf '%s\n' "${times[@]}" | sort -n | awk '{ t[NR] = $1 } END {
+    printf "time-to-ready over %d runs: min %d ms, median %d ms, max %d ms\n", NR, t[1], t[int((NR + 1) / 2)], t[NR]
+}'
@@ -0,0 +1,117 @@
+package com.cop.loadgen;
+
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+
+/**
+ * Builds rows in PostgreSQL's COPY text format and streams them to a {@link CopyIn} in
+ * megabyte-sized writes.
+ */
+final class CopyRowWriter {
+    private static final int FLUSH_CHARS = 1 << 20;
+
+    private final CopyIn copy;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 8192);
+    private boolean firstField = true;
+    private long rows;
+
+    CopyRowWriter(CopyIn copy) {
+        this.copy = copy;
+    }
+
+    CopyRowWriter text(String value) {
+        separator();
+        if (value == null) {
+            buffer.append("\\N");
+            return this;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(c);
+            }
+        }
+        return this;
+    }
+
+    /** For values known not to need escaping: ids, numbers, enum labels. */
+    CopyRowWriter raw(Object value) {
+        separator();
+        if (value == null) {
+            buffer.append("\\N");
+        } else {
+            buffer.append(value);
+        }
+        return this;
+    }
+
+    CopyRowWriter number(double value, int decimals) {
+        separator();
+        double scale = Math.pow(10, decimals);
+        buffer.append(Math.round(value * scale) / scale);
+        return this;
+    }
+
+    CopyRowWriter timestamp(long epochSecond) {
+        return raw(Instant.ofEpochSecond(epochSecond));
+    }
+
+    CopyRowWriter point(double lat, double lon) {
+        separator();
+        buffer.append("SRID=4326;POINT(").append(lon).append(' ').append(lat).append(')');
+        return this;
+    }
+
+    /** A square of {@code halfSide} degrees around the point. */
+    CopyRowWriter square(double lat, double lon, double halfSide) {
+        separator();
+        double s = lat - halfSide, n = lat + halfSide, w = lon - halfSide, e = lon + halfSide;
+        buffer.append("SRID=4326;POLYGON((")
+            .append(w).append(' ').append(s).append(',')
+            .append(e).append(' ').append(s).append(',')
+            .append(e).append(' ').append(n).append(',')
+            .append(w).append(' ').append(n).append(',')
+            .append(w).append(' ').append(s).append("))");
+        return this;
+    }
+
+    void endRow() throws SQLException {
+        buffer.append('\n');
+        firstField = true;
+        rows++;
+        if (buffer.length() >= FLUSH_CHARS) {
+            flush();
+        }
+    }
+
+    long finish() throws SQLException {
+        flush();
+        return copy.endCopy();
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    private void separator() {
+        if (!firstField) {
+            buffer.append('\t');
+        }
+        firstField = false;
+    }
+}
@@ -0,0 +1,262 @@
+package com.cop.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load against the gateway: requests are issued on a fixed or Poisson arrival
+ * schedule regardless of how fast responses come back, and latency is measured from each
+ * request's scheduled start. A slow server therefore shows up as queueing in the percentiles
+ * instead of silently lowering the offered rate (coordinated omission).
+ */
+final class DriveCommand implements Scenario.Context {
+    private static final int OK = 0, CLIENT_ERROR = 1, SERVER_ERROR = 2, FAILED = 3, DROPPED = 4;
+    private static final String[] OUTCOMES = {"2xx", "4xx", "5xx", "failed", "dropped"};
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Options options;
+    private final Synthetic world;
+    private final String baseUrl;
+    private final double rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Duration timeout;
+    private final boolean poisson;
+    private final int maxInFlight;
+    private final Scenario[] scenarios;
+    private final WeightedChoice mix;
+    private final byte[][] payloads;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Scenario, Histogram> latencies = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, AtomicLongArray> outcomes = new EnumMap<>(Scenario.class);
+    private final Histogram overall = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile String bearer;
+    private volatile long bearerExpiresAt;
+
+    DriveCommand(Options options) {
+        this.options = options;
+        this.world = LoadGen.world(options);
+        this.baseUrl = options.get("base-url", "http://localhost:8081");
+        this.rate = options.getDouble("rate", 200);
+        this.duration = options.duration("duration", "60s");
+        this.warmup = options.duration("warmup", "10s");
+        this.timeout = options.duration("timeout", "30s");
+        this.poisson = !options.get("arrivals", "poisson").equals("uniform");
+        this.maxInFlight = options.getInt("max-in-flight", 4096);
+
+        String[] entries = options.get("mix", "points=35,density=20,events=10,reports=10,neighbors=10,submit=10,upload=5").split(",");
+        scenarios = new Scenario[entries.length];
+        double[] weights = new double[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            String[] kv = entries[i].trim().split("=");
+            scenarios[i] = Scenario.of(kv[0].trim());
+            weights[i] = Double.parseDouble(kv[1].trim());
+            latencies.put(scenarios[i], new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            outcomes.put(scenarios[i], new AtomicLongArray(OUTCOMES.length));
+        }
+        mix = new WeightedChoice(weights);
+
+        // A handful of pre-generated bodies keeps payload generation off the schedule thread
+        SplittableRandom random = new SplittableRandom(world.seed);
+        payloads = new byte[8][];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = new byte[(int) Math.min(32 << 20, Synthetic.logNormal(random, options.getInt("upload-median-bytes", 256 << 10), 1.0))];
+            random.nextBytes(payloads[i]);
+        }
+    }
+
+    void run() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(options.getInt("client-threads", 16));
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(executor)
+            .build();
+        refreshToken(client);
+
+        SplittableRandom random = new SplittableRandom(world.seed ^ 0x6472697665L);
+        double meanGapNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long recordFrom = start + warmup.toNanos();
+        long end = recordFrom + duration.toNanos();
+        long next = start;
+        long issued = 0;
+        System.out.printf("Driving %s at %.0f req/s (%s arrivals) for %s after %s warm-up%n",
+            baseUrl, rate, poisson ? "Poisson" : "uniform", duration, warmup);
+
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            long intended = next;
+            next += poisson ? (long) (-Math.log(1.0 - random.nextDouble()) * meanGapNanos) : (long) meanGapNanos;
+            Scenario scenario = scenarios[mix.next(random)];
+            boolean record = intended >= recordFrom;
+            issued++;
+
+            if ((issued & 1023) == 0) {
+                refreshToken(client);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                if (record) {
+                    outcomes.get(scenario).incrementAndGet(DROPPED);
+                }
+                continue;
+            }
+            HttpRequest request = scenario.request(this, random).timeout(timeout).build();
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    inFlight.decrementAndGet();
+                    if (!record) {
+                        return;
+                    }
+                    long micros = Math.min(MAX_LATENCY_MICROS, (System.nanoTime() - intended) / 1000);
+                    latencies.get(scenario).recordValue(micros);
+                    overall.recordValue(micros);
+                    int outcome = error != null ? FAILED
+                        : response.statusCode() >= 500 ? SERVER_ERROR
+                        : response.statusCode() >= 400 ? CLIENT_ERROR : OK;
+                    outcomes.get(scenario).incrementAndGet(outcome);
+                });
+        }
+
+        // Let stragglers finish so they are counted, up to the request timeout
+        long drainUntil = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(50);
+        }
+        executor.shutdownNow();
+        report();
+    }
+
+    private void report() throws Exception {
+        double seconds = duration.toNanos() / 1e9;
+        System.out.printf("%n%-10s %9s %9s %10s %10s %10s %10s %10s %7s %7s %7s %7s%n",
+            "scenario", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "4xx", "5xx", "failed", "dropped");
+        ObjectNode summary = objectMapper.createObjectNode();
+        summary.set("options", objectMapper.valueToTree(options.effective()));
+        ObjectNode byScenario = summary.putObject("scenarios");
+        for (Scenario scenario : scenarios) {
+            Histogram histogram = latencies.get(scenario);
+            AtomicLongArray counts = outcomes.get(scenario);
+            print(scenario.key, histogram, seconds, counts);
+            ObjectNode node = byScenario.putObject(scenario.key);
+            percentiles(node, histogram, seconds);
+            for (int i = 0; i < OUTCOMES.length; i++) {
+                node.put(OUTCOMES[i], counts.get(i));
+            }
+        }
+        print("all", overall, seconds, null);
+        percentiles(summary.putObject("overall"), overall, seconds);
+
+        String out = options.get("out", null);
+        if (out != null) {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(out), summary);
+            System.out.println("Wrote " + out);
+        }
+    }
+
+    private static void print(String name, Histogram h, double seconds, AtomicLongArray counts) {
+        System.out.printf("%-10s %9d %9.1f %10.2f %10.2f %10.2f %10.2f %10.2f",
+            name, h.getTotalCount(), h.getTotalCount() / seconds,
+            h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(90) / 1e3, h.getValueAtPercentile(99) / 1e3,
+            h.getValueAtPercentile(99.9) / 1e3, h.getMaxValue() / 1e3);
+        if (counts != null) {
+            System.out.printf(" %7d %7d %7d %7d", counts.get(CLIENT_ERROR), counts.get(SERVER_ERROR), counts.get(FAILED), counts.get(DROPPED));
+        }
+        System.out.println();
+    }
+
+    private static void percentiles(ObjectNode node, Histogram h, double seconds) {
+        node.put("count", h.getTotalCount());
+        node.put("throughput", h.getTotalCount() / seconds);
+        node.put("p50_ms", h.getValueAtPercentile(50) / 1e3);
+        node.put("p90_ms", h.getValueAtPercentile(90) / 1e3);
+        node.put("p99_ms", h.getValueAtPercentile(99) / 1e3);
+        node.put("p999_ms", h.getValueAtPercentile(99.9) / 1e3);
+        node.put("max_ms", h.getMaxValue() / 1e3);
+    }
+
+    /**
+     * Uses {@code --token} as given, or fetches one from {@code --token-url} with client
+     * credentials (or a password grant when {@code --username} is set) and renews it before expiry.
+     */
+    private void refreshToken(HttpClient client) throws Exception {
+        String fixed = options.get("token", null);
+        if (fixed != null) {
+            bearer = fixed;
+            return;
+        }
+        String tokenUrl = options.get("token-url", null);
+        if (tokenUrl == null || System.currentTimeMillis() < bearerExpiresAt - 30_000) {
+            return;
+        }
+        String username = options.get("username", null);
+        String form = "client_id=" + encode(options.get("client-id", "cop-frontend"))
+            + (options.get("client-secret", null) != null ? "&client_secret=" + encode(options.get("client-secret", null)) : "")
+            + (username != null
+                ? "&grant_type=password&username=" + encode(username) + "&password=" + encode(options.get("password", ""))
+                : "&grant_type=client_credentials");
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(tokenUrl))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Token request failed with " + response.statusCode() + ": " + response.body());
+        }
+        JsonNode token = objectMapper.readTree(response.body());
+        bearer = token.path("access_token").asText();
+        bearerExpiresAt = System.currentTimeMillis() + token.path("expires_in").asLong(300) * 1000;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Synthetic world() {
+        return world;
+    }
+
+    @Override
+    public URI uri(String pathAndQuery) {
+        return URI.create(baseUrl + pathAndQuery);
+    }
+
+    @Override
+    public HttpRequest.Builder authorized(HttpRequest.Builder builder) {
+        String token = bearer;
+        return token != null ? builder.header("Authorization", "Bearer " + token) : builder;
+    }
+
+    @Override
+    public byte[] payload(SplittableRandom random) {
+        return payloads[random.nextInt(payloads.length)];
+    }
+}
@@ -0,0 +1,68 @@
+package com.cop.loadgen;
+
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Starts disposable PostGIS and MinIO containers with the platform schema applied, optionally
+ * seeds them, and keeps them up until interrupted so services or the driver can be pointed at
+ * them.
+ */
+final class EnvironmentCommand {
+    private static final String[] SCHEMA = {
+        "001-setup-database.sql", "002-create-indexes.sql", "004-create-files-table.sql", "005-create-notifications-table.sql"
+    };
+
+    private final Options options;
+
+    EnvironmentCommand(Options options) {
+        this.options = options;
+    }
+
+    void run() throws Exception {
+        DockerImageName postgis = DockerImageName.parse(options.get("postgis-image", "postgis/postgis:15-3.4"))
+            .asCompatibleSubstituteFor("postgres");
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(postgis)
+                 .withDatabaseName("cop_prod").withUsername("cop_user").withPassword("cop_password");
+             MinIOContainer minio = new MinIOContainer(options.get("minio-image", "minio/minio:RELEASE.2023-09-04T19-57-37Z"))) {
+            postgres.start();
+            minio.start();
+            applySchema(postgres, Path.of(options.get("scripts", "scripts")));
+
+            System.out.println("PostGIS: " + postgres.getJdbcUrl() + " (cop_user / cop_password)");
+            System.out.println("MinIO:   " + minio.getS3URL() + " (" + minio.getUserName() + " / " + minio.getPassword() + ")");
+            System.out.println("export SPRING_DATASOURCE_URL=" + postgres.getJdbcUrl());
+            System.out.println("export MINIO_ENDPOINT=" + minio.getS3URL());
+            System.out.println("export MINIO_ACCESS_KEY=" + minio.getUserName());
+            System.out.println("export MINIO_SECRET_KEY=" + minio.getPassword());
+
+            if (options.flag("with-data")) {
+                options.put("jdbc-url", postgres.getJdbcUrl());
+                new SeedCommand(options).run();
+            }
+
+            System.out.println("Containers are up; press Ctrl-C to stop them.");
+            CountDownLatch stopped = new CountDownLatch(1);
+            Runtime.getRuntime().addShutdownHook(new Thread(stopped::countDown));
+            stopped.await();
+        }
+    }
+
+    private static void applySchema(PostgreSQLContainer<?> postgres, Path scripts) throws Exception {
+        try (Connection connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+             Statement statement = connection.createStatement()) {
+            for (String script : SCHEMA) {
+                // The scripts contain dollar-quoted functions, so send each file as one batch
+                statement.execute(Files.readString(scripts.resolve(script)));
+            }
+        }
+    }
+}
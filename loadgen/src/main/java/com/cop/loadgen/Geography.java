@@ -0,0 +1,76 @@
+package com.cop.loadgen;
+
+import java.util.SplittableRandom;
+
+/**
+ * Activity hotspots inside a theatre bounding box. Cluster sizes follow a Zipf curve, so a few
+ * cities dominate, and a small share of points is uniform background noise.
+ */
+final class Geography {
+    final double minLat;
+    final double minLon;
+    final double maxLat;
+    final double maxLon;
+    private final double[] centreLat;
+    private final double[] centreLon;
+    private final double[] sigmaDegrees;
+    private final double background;
+    final WeightedChoice weights;
+
+    Geography(long seed, int clusters, double background, double minLat, double minLon, double maxLat, double maxLon) {
+        this.minLat = minLat;
+        this.minLon = minLon;
+        this.maxLat = maxLat;
+        this.maxLon = maxLon;
+        this.background = background;
+        this.weights = WeightedChoice.zipf(clusters, 1.1);
+        centreLat = new double[clusters];
+        centreLon = new double[clusters];
+        sigmaDegrees = new double[clusters];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < clusters; i++) {
+            centreLat[i] = minLat + random.nextDouble() * (maxLat - minLat);
+            centreLon[i] = minLon + random.nextDouble() * (maxLon - minLon);
+            // From a city block to a province: ~1 km to ~100 km
+            sigmaDegrees[i] = 0.01 * Math.pow(100, random.nextDouble());
+        }
+    }
+
+    int clusters() {
+        return centreLat.length;
+    }
+
+    double centreLat(int cluster) {
+        return centreLat[cluster];
+    }
+
+    double centreLon(int cluster) {
+        return centreLon[cluster];
+    }
+
+    /** Fills {@code out} with {lat, lon}; {@code spread} scales the cluster's radius. */
+    void point(int cluster, double spread, SplittableRandom random, double[] out) {
+        if (random.nextDouble() < background) {
+            out[0] = minLat + random.nextDouble() * (maxLat - minLat);
+            out[1] = minLon + random.nextDouble() * (maxLon - minLon);
+            return;
+        }
+        double sigma = sigmaDegrees[cluster] * spread;
+        out[0] = clamp(centreLat[cluster] + gaussian(random) * sigma, -89.9, 89.9);
+        out[1] = wrap(centreLon[cluster] + gaussian(random) * sigma / Math.max(0.1, Math.cos(Math.toRadians(centreLat[cluster]))));
+    }
+
+    static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+        double u = 1.0 - random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double wrap(double lon) {
+        return lon > 180 ? lon - 360 : lon < -180 ? lon + 360 : lon;
+    }
+}
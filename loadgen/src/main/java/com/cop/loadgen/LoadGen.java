@@ -0,0 +1,56 @@
+package com.cop.loadgen;
+
+import java.time.Instant;
+
+/**
+ * Synthetic load for capacity planning.
+ *
+ * <pre>
+ * loadgen seed  [--jdbc-url URL] [--reports 10_000_000] [--threads N] [--truncate]
+ * loadgen drive [--base-url http://localhost:8081] [--rate 500] [--duration 5m] [--mix points=50,submit=10,...]
+ *               [--token JWT | --token-url URL --client-id ID [--client-secret S | --username U --password P]]
+ *               [--out results.json]
+ * loadgen env   [--with-data] [--scripts scripts]
+ * </pre>
+ *
+ * The data set is a pure function of {@code --seed}, {@code --users}, {@code --reports},
+ * {@code --reports-per-event}, {@code --days}, {@code --end}, {@code --clusters} and {@code --bbox};
+ * pass the same values to {@code drive} so it targets ids and hotspots that exist.
+ */
+public final class LoadGen {
+
+    private LoadGen() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("usage: loadgen <seed|drive|env> [--option value ...]");
+            System.exit(2);
+        }
+        Options options = Options.parse(args, 1);
+        switch (args[0]) {
+            case "seed" -> new SeedCommand(options).run();
+            case "drive" -> new DriveCommand(options).run();
+            case "env" -> new EnvironmentCommand(options).run();
+            default -> {
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+            }
+        }
+    }
+
+    static Synthetic world(Options options) {
+        long seed = options.getLong("seed", 42);
+        String[] bbox = options.get("bbox", "-35,-20,60,150").split(",");
+        Geography geography = new Geography(seed, options.getInt("clusters", 200), options.getDouble("background", 0.05),
+            Double.parseDouble(bbox[0]), Double.parseDouble(bbox[1]), Double.parseDouble(bbox[2]), Double.parseDouble(bbox[3]));
+        return new Synthetic(seed,
+            options.getLong("users", 2_000),
+            options.getLong("reports", 1_000_000),
+            options.getLong("reports-per-event", 20),
+            options.getInt("days", 180),
+            // Fixed by default so reruns produce identical timestamps
+            Instant.parse(options.get("end", "2025-01-01T00:00:00Z")),
+            geography);
+    }
+}
@@ -0,0 +1,81 @@
+package com.cop.loadgen;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code --name value} / {@code --name=value} command line options. Every value read is kept so
+ * the effective configuration can be written next to the results.
+ */
+final class Options {
+    private final Map<String, String> values = new LinkedHashMap<>();
+    private final Map<String, String> used = new LinkedHashMap<>();
+
+    static Options parse(String[] args, int from) {
+        Options options = new Options();
+        for (int i = from; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.values.put(arg.substring(2, eq), arg.substring(eq + 1));
+            } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.values.put(arg.substring(2), args[++i]);
+            } else {
+                options.values.put(arg.substring(2), "true");
+            }
+        }
+        return options;
+    }
+
+    void put(String name, String value) {
+        values.put(name, value);
+    }
+
+    String get(String name, String defaultValue) {
+        String value = values.getOrDefault(name, defaultValue);
+        if (value != null) {
+            used.put(name, value);
+        }
+        return value;
+    }
+
+    int getInt(String name, int defaultValue) {
+        return Integer.parseInt(get(name, String.valueOf(defaultValue)).replace("_", ""));
+    }
+
+    long getLong(String name, long defaultValue) {
+        return Long.parseLong(get(name, String.valueOf(defaultValue)).replace("_", ""));
+    }
+
+    double getDouble(String name, double defaultValue) {
+        return Double.parseDouble(get(name, String.valueOf(defaultValue)));
+    }
+
+    boolean flag(String name) {
+        return Boolean.parseBoolean(get(name, "false"));
+    }
+
+    /** Accepts {@code 90s}, {@code 5m}, {@code 1h} or plain seconds. */
+    Duration duration(String name, String defaultValue) {
+        String value = get(name, defaultValue).trim().toLowerCase();
+        char unit = value.charAt(value.length() - 1);
+        if (Character.isDigit(unit)) {
+            return Duration.ofSeconds(Long.parseLong(value));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (unit) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Bad duration for --" + name + ": " + value);
+        };
+    }
+
+    Map<String, String> effective() {
+        return used;
+    }
+}
@@ -0,0 +1,121 @@
+package com.cop.loadgen;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The gateway calls the driver mixes. Viewports are centred on the same hotspots the seeder
+ * used, at zoom levels from street to theatre, so caches and spatial indexes see a realistic
+ * mix of hot and cold areas.
+ */
+enum Scenario {
+    POINTS("points") {
+        @Override
+        HttpRequest.Builder request(Context context, SplittableRandom random) {
+            return get(context, "/api/map/points?" + viewport(context, random) + "&limit=2000");
+        }
+    },
+    DENSITY("density") {
+        @Override
+        HttpRequest.Builder request(Context context, SplittableRandom random) {
+            return get(context, "/api/map/density?" + viewport(context, random));
+        }
+    },
+    EVENTS("events") {
+        @Override
+        HttpRequest.Builder request(Context context, SplittableRandom random) {
+            return get(context, "/api/map/events?" + viewport(context, random));
+        }
+    },
+    REPORTS("reports") {
+        @Override
+        HttpRequest.Builder request(Context context, SplittableRandom random) {
+            return get(context, "/api/reports");
+        }
+    },
+    NEIGHBORS("neighbors") {
+        @Override
+        HttpRequest.Builder request(Context context, SplittableRandom random) {
+            long event = random.nextLong(context.world().events);
+            return get(context, "/api/fusion/graph/" + Synthetic.id(context.world().seed, Synthetic.EVENTS, event)
+                + "/neighbors?hops=" + (1 + random.nextInt(3)));
+        }
+    },
+    SUBMIT("submit") {
+        @Override
+        HttpRequest.Builder request(Context context, SplittableRandom random) {
+            Synthetic world = context.world();
+            int cluster = world.geography.weights.next(random);
+            double[] point = new double[2];
+            world.geography.point(cluster, 1.0, random, point);
+            String body = "{\"title\": \"Load test " + world.keyword(random) + " report\", \"content\": \"Synthetic content for "
+                + world.keyword(random) + " near hotspot " + cluster + "\", \"type\": \"" + world.reportType(cluster, random)
+                + "\", \"classification\": \"" + world.classification(random) + "\", \"latitude\": " + point[0]
+                + ", \"longitude\": " + point[1] + ", \"eventTime\": \"" + Instant.now() + "\"}";
+            return context.authorized(HttpRequest.newBuilder(context.uri("/api/reports")))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+    },
+    UPLOAD("upload") {
+        @Override
+        HttpRequest.Builder request(Context context, SplittableRandom random) {
+            String boundary = "loadgen" + Long.toHexString(random.nextLong());
+            byte[] payload = context.payload(random);
+            byte[] head = ("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"capture.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            byte[] tail = ("\r\n--" + boundary + "\r\nContent-Disposition: form-data; name=\"classification\"\r\n\r\n"
+                + context.world().classification(random) + "\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+            return context.authorized(HttpRequest.newBuilder(context.uri("/api/files/upload")))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArrays(List.of(head, payload, tail)));
+        }
+    };
+
+    /** What a scenario needs from the driver. */
+    interface Context {
+        Synthetic world();
+
+        URI uri(String pathAndQuery);
+
+        HttpRequest.Builder authorized(HttpRequest.Builder builder);
+
+        byte[] payload(SplittableRandom random);
+    }
+
+    final String key;
+
+    Scenario(String key) {
+        this.key = key;
+    }
+
+    abstract HttpRequest.Builder request(Context context, SplittableRandom random);
+
+    static Scenario of(String key) {
+        for (Scenario scenario : values()) {
+            if (scenario.key.equals(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario: " + key);
+    }
+
+    private static HttpRequest.Builder get(Context context, String pathAndQuery) {
+        return context.authorized(HttpRequest.newBuilder(context.uri(pathAndQuery))).GET();
+    }
+
+    private static String viewport(Context context, SplittableRandom random) {
+        Geography geography = context.world().geography;
+        int cluster = geography.weights.next(random);
+        // Half-span from ~0.01 degrees (street) to ~10 degrees (theatre), log-uniform
+        double half = 0.01 * Math.pow(1000, random.nextDouble());
+        double lat = geography.centreLat(cluster);
+        double lon = geography.centreLon(cluster);
+        return "minLat=" + Math.max(-90, lat - half) + "&minLon=" + Math.max(-180, lon - half)
+            + "&maxLat=" + Math.min(90, lat + half) + "&maxLon=" + Math.min(180, lon + half);
+    }
+}
@@ -0,0 +1,320 @@
+package com.cop.loadgen;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk-loads users, reports, attachments, events, fusion provenance and decisions into the
+ * schema from {@code scripts/001-setup-database.sql} with parallel COPY streams. Each chunk is
+ * its own COPY and transaction, so an interrupted run leaves whole chunks behind.
+ */
+final class SeedCommand {
+    private static final long CHUNK = 250_000;
+
+    private final Options options;
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final int threads;
+    private final Synthetic world;
+
+    SeedCommand(Options options) {
+        this.options = options;
+        this.jdbcUrl = options.get("jdbc-url", "jdbc:postgresql://localhost:5432/cop_prod");
+        this.username = options.get("db-user", "cop_user");
+        this.password = options.get("db-password", "cop_password");
+        this.threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+        this.world = LoadGen.world(options);
+    }
+
+    void run() throws Exception {
+        long start = System.nanoTime();
+        if (options.flag("truncate")) {
+            execute("TRUNCATE decisions, fusion_provenance, attachments, events, reports, users CASCADE");
+        }
+        copy("users", world.users, "COPY users (id, username, email, role, clearance_level, is_active) FROM STDIN", this::user);
+        copy("reports", world.reports, "COPY reports (id, type, title, content, location, collection_time, submitted_by, submitted_at, classification, reliability, credibility, status) FROM STDIN", this::report);
+        copy("attachments", world.reports, "COPY attachments (id, filename, file_path, file_size, mime_type, report_id, uploaded_by, uploaded_at, classification) FROM STDIN", this::attachments);
+        copy("events", world.events, "COPY events (id, type, title, description, start_time, end_time, location, area_of_interest, confidence_score, sensitivity, status, created_by, approved_by, created_at) FROM STDIN", this::event);
+        copy("fusion_provenance", world.events, "COPY fusion_provenance (id, event_id, source_report_id, fusion_algorithm, weight, created_at) FROM STDIN", this::provenance);
+        copy("decisions", world.events, "COPY decisions (id, decision_type, title, description, decision_maker, related_event_id, status, classification, created_at, effective_until) FROM STDIN", this::decision);
+        if (!options.flag("skip-analyze")) {
+            execute("ANALYZE users, reports, attachments, events, fusion_provenance, decisions");
+        }
+        System.out.printf("Seeded %,d reports and %,d events in %.1f s%n", world.reports, world.events, (System.nanoTime() - start) / 1e9);
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        void write(long index, CopyRowWriter out) throws SQLException;
+    }
+
+    private void copy(String table, long count, String sql, RowSource source) throws Exception {
+        long start = System.nanoTime();
+        AtomicLong written = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> chunks = new ArrayList<>();
+            for (long from = 0; from < count; from += CHUNK) {
+                long lo = from;
+                long hi = Math.min(count, from + CHUNK);
+                chunks.add(pool.submit(() -> {
+                    try (Connection connection = connect()) {
+                        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                        CopyRowWriter out = new CopyRowWriter(copyManager.copyIn(sql));
+                        for (long i = lo; i < hi; i++) {
+                            source.write(i, out);
+                        }
+                        out.finish();
+                        written.addAndGet(out.rows());
+                    }
+                    return null;
+                }));
+            }
+            long lastReport = System.nanoTime();
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+                if (System.nanoTime() - lastReport > 5_000_000_000L) {
+                    System.out.printf("  %s: %,d rows%n", table, written.get());
+                    lastReport = System.nanoTime();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-18s %,14d rows %8.1f s %,12.0f rows/s%n", table, written.get(), seconds, written.get() / seconds);
+    }
+
+    private void user(long user, CopyRowWriter out) throws SQLException {
+        SplittableRandom random = world.random(Synthetic.USERS, user);
+        String role = world.role(user);
+        String clearance = role.equals("HQ") ? (random.nextBoolean() ? "SECRET" : "TOP_SECRET") : world.classification(random);
+        out.raw(Synthetic.id(world.seed, Synthetic.USERS, user))
+            .raw("load_" + role.toLowerCase() + "_" + user)
+            .raw("load_" + user + "@load.cop.mil")
+            .raw(role)
+            .raw(clearance)
+            .raw("true");
+        out.endRow();
+    }
+
+    /** The report's fields, recomputed wherever another table needs them. */
+    private static final class ReportFields {
+        int cluster;
+        String type;
+        String classification;
+        long submitter;
+        long collected;
+        long submitted;
+        final double[] point = new double[2];
+    }
+
+    private void reportFields(long report, SplittableRandom random, ReportFields f) {
+        f.cluster = world.clusterOfReport(report);
+        f.type = world.reportType(f.cluster, random);
+        f.classification = world.classification(random);
+        f.submitter = world.analystFor(f.type, random);
+        f.collected = world.timestamp(random);
+        // Reports arrive minutes to days after collection
+        f.submitted = Math.min(world.endEpochSecond, f.collected + (long) Synthetic.logNormal(random, 1800, 1.5));
+        world.geography.point(f.cluster, 1.0, random, f.point);
+    }
+
+    private void report(long j, CopyRowWriter out) throws SQLException {
+        long report = world.reportAt(j);
+        SplittableRandom random = world.random(Synthetic.REPORTS, report);
+        ReportFields f = new ReportFields();
+        reportFields(report, random, f);
+        String keyword = world.keyword(random);
+        out.raw(Synthetic.id(world.seed, Synthetic.REPORTS, report))
+            .raw(f.type)
+            .text(f.type + " report: " + keyword + " activity near hotspot " + f.cluster)
+            .text(content(f.type, keyword, random))
+            .point(f.point[0], f.point[1])
+            .timestamp(f.collected)
+            .raw(Synthetic.id(world.seed, Synthetic.USERS, f.submitter))
+            .timestamp(f.submitted)
+            .raw(f.classification)
+            .raw(world.reliability(random))
+            .raw(world.credibility(random))
+            .raw(world.reportStatus(random));
+        out.endRow();
+    }
+
+    private String content(String type, String keyword, SplittableRandom random) {
+        String second = world.keyword(random);
+        return switch (type) {
+            case "SOCMINT" -> "{\"platform\": \"" + (random.nextBoolean() ? "Telegram" : "X") + "\", \"posts\": " + (1 + random.nextInt(200))
+                + ", \"keywords\": [\"" + keyword + "\", \"" + second + "\"], \"engagement\": \"" + (random.nextInt(3) == 0 ? "High" : "Low") + "\"}";
+            case "SIGINT" -> "{\"frequency\": \"" + (30 + random.nextInt(400)) + "." + random.nextInt(10) + " MHz\", \"duration_s\": " + (5 + random.nextInt(1800))
+                + ", \"participants\": " + (2 + random.nextInt(4)) + ", \"keywords\": [\"" + keyword + "\"]}";
+            default -> "{\"source_code\": \"HS-" + random.nextInt(1000) + "\", \"summary\": \"Source reports " + keyword + " and " + second
+                + "\", \"access\": \"" + (random.nextBoolean() ? "Direct" : "Indirect") + "\"}";
+        };
+    }
+
+    private static final String[][] MIME_BY_TYPE = {
+        {"image/jpeg", "jpg", "image/png", "png", "video/mp4", "mp4"},
+        {"audio/wav", "wav", "application/vnd.tcpdump.pcap", "pcap", "application/pdf", "pdf"},
+        {"application/pdf", "pdf", "image/jpeg", "jpg", "application/vnd.openxmlformats-officedocument.wordprocessingml.document", "docx"}
+    };
+
+    private void attachments(long j, CopyRowWriter out) throws SQLException {
+        long report = world.reportAt(j);
+        SplittableRandom random = world.random(Synthetic.ATTACHMENTS, report);
+        double roll = random.nextDouble();
+        int count = roll < 0.70 ? 0 : roll < 0.90 ? 1 : roll < 0.97 ? 2 : 3;
+        if (count == 0) {
+            return;
+        }
+        ReportFields f = new ReportFields();
+        reportFields(report, world.random(Synthetic.REPORTS, report), f);
+        String[] mimes = MIME_BY_TYPE[switch (f.type) { case "SOCMINT" -> 0; case "SIGINT" -> 1; default -> 2; }];
+        for (int k = 0; k < count; k++) {
+            int m = random.nextInt(3) * 2;
+            UUID id = Synthetic.id(world.seed, Synthetic.ATTACHMENTS, report * 4 + k);
+            out.raw(id)
+                .raw(id + "." + mimes[m + 1])
+                .raw("cop-files/" + id + "." + mimes[m + 1])
+                .raw((long) Synthetic.logNormal(random, 200_000, 1.5))
+                .raw(mimes[m])
+                .raw(Synthetic.id(world.seed, Synthetic.REPORTS, report))
+                .raw(Synthetic.id(world.seed, Synthetic.USERS, f.submitter))
+                .timestamp(f.submitted)
+                .raw(f.classification);
+            out.endRow();
+        }
+    }
+
+    private static final class EventFields {
+        int cluster;
+        int sources;
+        String type;
+        String status;
+        String sensitivity;
+        long creator;
+        long created;
+        final double[] point = new double[2];
+    }
+
+    private void eventFields(long event, EventFields f) {
+        SplittableRandom random = world.random(Synthetic.EVENTS, event);
+        f.cluster = world.clusterOfEvent(event);
+        f.sources = sourceCount(event);
+        f.type = world.eventType(random);
+        f.status = world.eventStatus(random);
+        // Fused products are rarely less sensitive than their sources
+        f.sensitivity = Synthetic.CLASSIFICATIONS[Math.max(indexOf(world.classification(random)), indexOf(world.classification(random)))];
+        f.creator = world.analystFor(world.reportType(f.cluster, random), random);
+        f.created = world.timestamp(random);
+        world.geography.point(f.cluster, 0.3, random, f.point);
+    }
+
+    private static int indexOf(String classification) {
+        for (int i = 0; i < Synthetic.CLASSIFICATIONS.length; i++) {
+            if (Synthetic.CLASSIFICATIONS[i].equals(classification)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private int sourceCount(long event) {
+        return 2 + world.random(Synthetic.PROVENANCE, event).nextInt(7);
+    }
+
+    private void event(long event, CopyRowWriter out) throws SQLException {
+        EventFields f = new EventFields();
+        eventFields(event, f);
+        SplittableRandom random = world.random(Synthetic.EVENTS ^ 1, event);
+        long duration = (long) Synthetic.logNormal(random, 7200, 1.0);
+        double confidence = Math.min(0.99, 0.35 + 0.07 * f.sources + 0.1 * random.nextDouble());
+        out.raw(Synthetic.id(world.seed, Synthetic.EVENTS, event))
+            .raw(f.type)
+            .text(f.type.charAt(0) + f.type.substring(1).toLowerCase() + " at hotspot " + f.cluster)
+            .text("Fused from " + f.sources + " reports")
+            .timestamp(f.created)
+            .timestamp(f.created + duration)
+            .point(f.point[0], f.point[1]);
+        if (random.nextBoolean()) {
+            out.square(f.point[0], f.point[1], 0.005 + random.nextDouble() * 0.05);
+        } else {
+            out.raw(null);
+        }
+        out.number(confidence, 2)
+            .raw(f.sensitivity)
+            .raw(f.status)
+            .raw(Synthetic.id(world.seed, Synthetic.USERS, f.creator))
+            .raw(f.status.equals("APPROVED") ? Synthetic.id(world.seed, Synthetic.USERS, world.userWithRole("HQ", random)) : null)
+            .timestamp(f.created);
+        out.endRow();
+    }
+
+    private void provenance(long event, CopyRowWriter out) throws SQLException {
+        SplittableRandom random = world.random(Synthetic.PROVENANCE, event);
+        int sources = 2 + random.nextInt(7);
+        int cluster = world.clusterOfEvent(event);
+        UUID eventId = Synthetic.id(world.seed, Synthetic.EVENTS, event);
+        long created = world.endEpochSecond - random.nextLong(world.spanSeconds);
+        for (int k = 0; k < sources; k++) {
+            out.raw(Synthetic.id(world.seed, Synthetic.PROVENANCE, event * 8 + k))
+                .raw(eventId)
+                .raw(Synthetic.id(world.seed, Synthetic.REPORTS, world.reportInCluster(cluster, random)))
+                .raw(random.nextInt(4) == 0 ? "manual" : "spatiotemporal-v1")
+                .number(0.3 + 0.7 * random.nextDouble(), 2)
+                .timestamp(created);
+            out.endRow();
+        }
+    }
+
+    private void decision(long event, CopyRowWriter out) throws SQLException {
+        SplittableRandom random = world.random(Synthetic.DECISIONS, event);
+        if (random.nextDouble() >= 0.3) {
+            return;
+        }
+        EventFields f = new EventFields();
+        eventFields(event, f);
+        String type = switch (f.status) {
+            case "APPROVED" -> "APPROVE_EVENT";
+            case "REJECTED" -> "REJECT_EVENT";
+            default -> random.nextBoolean() ? "REQUEST_INFO" : "OPERATIONAL_DECISION";
+        };
+        long decided = f.created + (long) Synthetic.logNormal(random, 3 * 3600, 1.2);
+        out.raw(Synthetic.id(world.seed, Synthetic.DECISIONS, event))
+            .raw(type)
+            .text(type.replace('_', ' ').toLowerCase() + ": hotspot " + f.cluster)
+            .text("Decision on fused " + f.type.toLowerCase() + " event")
+            .raw(Synthetic.id(world.seed, Synthetic.USERS, world.userWithRole("HQ", random)))
+            .raw(Synthetic.id(world.seed, Synthetic.EVENTS, event))
+            .raw(random.nextInt(10) == 0 ? "SUPERSEDED" : "ACTIVE")
+            .raw(f.sensitivity)
+            .timestamp(decided)
+            .raw(type.equals("OPERATIONAL_DECISION") ? Instant.ofEpochSecond(decided + 7 * 86_400L) : null);
+        out.endRow();
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(jdbcUrl, username, password);
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
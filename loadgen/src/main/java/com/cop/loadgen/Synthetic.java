@@ -0,0 +1,238 @@
+package com.cop.loadgen;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * The deterministic synthetic world: every row is a pure function of the seed, its table and its
+ * index, so seeding can run on any number of threads and foreign keys can be computed instead of
+ * looked up. Reports are assigned to hotspots in contiguous index ranges (events pick their
+ * sources from the same range) but are inserted in a scrambled order, so the physical table is
+ * not accidentally sorted by location.
+ */
+final class Synthetic {
+    static final String[] REPORT_TYPES = {"SOCMINT", "SIGINT", "HUMINT"};
+    static final String[] CLASSIFICATIONS = {"UNCLASSIFIED", "CONFIDENTIAL", "SECRET", "TOP_SECRET"};
+    static final String[] ROLES = {"ANALYST_SOCMINT", "ANALYST_SIGINT", "ANALYST_HUMINT", "HQ", "OBSERVER"};
+    static final String[] EVENT_TYPES = {"MOVEMENT", "MEETING", "INCIDENT", "COMMUNICATION", "LOGISTICS", "THREAT"};
+    static final String[] RELIABILITY = {"A", "B", "C", "D", "E", "F"};
+    static final String[] CREDIBILITY = {"1", "2", "3", "4", "5", "6"};
+    static final String[] REPORT_STATUS = {"SUBMITTED", "PROCESSING", "FUSED", "ARCHIVED"};
+    static final String[] EVENT_STATUS = {"PENDING", "UNDER_REVIEW", "APPROVED", "REJECTED"};
+    private static final String[] KEYWORDS = {"convoy", "checkpoint", "protest", "shipment", "meeting", "drone",
+        "border", "fuel", "radio", "compound", "market", "bridge", "port", "airfield", "weapons", "recruitment"};
+
+    // Table salts keep ids from different tables apart
+    static final long USERS = 0x55534552L;
+    static final long REPORTS = 0x5245504fL;
+    static final long EVENTS = 0x4556454eL;
+    static final long DECISIONS = 0x44454349L;
+    static final long ATTACHMENTS = 0x41545441L;
+    static final long PROVENANCE = 0x50524f56L;
+
+    // Keeps multiplier * index inside a long for the insertion-order permutation
+    static final long MAX_REPORTS = 3_000_000_000L;
+
+    final long seed;
+    final long users;
+    final long reports;
+    final long events;
+    final long endEpochSecond;
+    final long spanSeconds;
+    final Geography geography;
+
+    private final long[] clusterReportStart;
+    private final long[] clusterEventStart;
+    private final long permutationMultiplier;
+    private final WeightedChoice[] typeByCluster;
+    private final WeightedChoice classification = new WeightedChoice(50, 30, 15, 5);
+    private final WeightedChoice role = new WeightedChoice(35, 25, 20, 5, 15);
+    private final WeightedChoice reliability = new WeightedChoice(10, 35, 30, 15, 5, 5);
+    private final WeightedChoice credibility = new WeightedChoice(10, 35, 30, 15, 5, 5);
+    private final WeightedChoice reportStatus = new WeightedChoice(40, 10, 40, 10);
+    private final WeightedChoice eventStatus = new WeightedChoice(45, 15, 30, 10);
+    private final WeightedChoice eventType = WeightedChoice.zipf(EVENT_TYPES.length, 0.8);
+    private final WeightedChoice hour;
+    private final WeightedChoice analyst;
+
+    Synthetic(long seed, long users, long reports, long reportsPerEvent, int days, Instant end, Geography geography) {
+        if (reports < 1 || reports > MAX_REPORTS) {
+            throw new IllegalArgumentException("reports must be between 1 and " + MAX_REPORTS);
+        }
+        this.seed = seed;
+        this.users = users;
+        this.reports = reports;
+        this.events = Math.max(1, reports / reportsPerEvent);
+        this.endEpochSecond = end.getEpochSecond();
+        this.spanSeconds = days * 86_400L;
+        this.geography = geography;
+        this.clusterReportStart = partition(reports, geography.weights);
+        this.clusterEventStart = partition(events, geography.weights);
+        this.permutationMultiplier = coprimeMultiplier(reports);
+        // Each hotspot leans towards one discipline: a port is SIGINT-heavy, a market HUMINT-heavy
+        typeByCluster = new WeightedChoice[geography.clusters()];
+        for (int c = 0; c < typeByCluster.length; c++) {
+            double[] w = {60, 25, 15};
+            w[c % 3] *= 2.5;
+            typeByCluster[c] = new WeightedChoice(w);
+        }
+        // Activity peaks in daylight hours
+        double[] hours = new double[24];
+        for (int h = 0; h < 24; h++) {
+            hours[h] = 1.0 + 2.0 * Math.max(0, Math.sin(Math.PI * (h - 6) / 14.0));
+        }
+        hour = new WeightedChoice(hours);
+        // A few analysts write most of the reports
+        analyst = WeightedChoice.zipf((int) Math.max(1, users), 0.9);
+    }
+
+    static UUID id(long seed, long table, long index) {
+        long msb = mix64(seed ^ table ^ (index * 0x9E3779B97F4A7C15L));
+        long lsb = mix64(msb ^ index ^ 0xD1B54A32D192ED03L);
+        // Version 4, IETF variant
+        return new UUID((msb & ~0xF000L) | 0x4000L, (lsb & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L);
+    }
+
+    SplittableRandom random(long table, long index) {
+        return new SplittableRandom(mix64(seed ^ table ^ (index * 0xBF58476D1CE4E5B9L)));
+    }
+
+    /** Report index for the {@code j}-th inserted row: an affine bijection on {@code [0, reports)}. */
+    long reportAt(long j) {
+        return (permutationMultiplier * j % reports + Math.floorMod(seed, reports)) % reports;
+    }
+
+    int clusterOfReport(long report) {
+        return clusterOf(clusterReportStart, report);
+    }
+
+    int clusterOfEvent(long event) {
+        return clusterOf(clusterEventStart, event);
+    }
+
+    /** A report from the same hotspot as {@code cluster}. */
+    long reportInCluster(int cluster, SplittableRandom random) {
+        long start = clusterReportStart[cluster];
+        long size = clusterReportStart[cluster + 1] - start;
+        return size > 0 ? start + random.nextLong(size) : random.nextLong(reports);
+    }
+
+    String reportType(int cluster, SplittableRandom random) {
+        return REPORT_TYPES[typeByCluster[cluster].next(random)];
+    }
+
+    String classification(SplittableRandom random) {
+        return CLASSIFICATIONS[classification.next(random)];
+    }
+
+    String role(long user) {
+        // Deterministic per user so analysts of each discipline can be found without a lookup
+        return ROLES[role.next(random(USERS, user))];
+    }
+
+    /** An analyst for the discipline, skewed towards prolific ones; falls back to any user. */
+    long analystFor(String type, SplittableRandom random) {
+        String wanted = "ANALYST_" + type;
+        for (int attempt = 0; attempt < 16; attempt++) {
+            long user = analyst.next(random);
+            if (role(user).equals(wanted)) {
+                return user;
+            }
+        }
+        return random.nextLong(users);
+    }
+
+    long userWithRole(String wanted, SplittableRandom random) {
+        for (int attempt = 0; attempt < 64; attempt++) {
+            long user = random.nextLong(users);
+            if (role(user).equals(wanted)) {
+                return user;
+            }
+        }
+        return 0;
+    }
+
+    long timestamp(SplittableRandom random) {
+        long day = random.nextLong(Math.max(1, spanSeconds / 86_400L));
+        long dayStart = endEpochSecond - spanSeconds + day * 86_400L;
+        return dayStart + hour.next(random) * 3600L + random.nextLong(3600);
+    }
+
+    String reliability(SplittableRandom random) {
+        return RELIABILITY[reliability.next(random)];
+    }
+
+    String credibility(SplittableRandom random) {
+        return CREDIBILITY[credibility.next(random)];
+    }
+
+    String reportStatus(SplittableRandom random) {
+        return REPORT_STATUS[reportStatus.next(random)];
+    }
+
+    String eventStatus(SplittableRandom random) {
+        return EVENT_STATUS[eventStatus.next(random)];
+    }
+
+    String eventType(SplittableRandom random) {
+        return EVENT_TYPES[eventType.next(random)];
+    }
+
+    String keyword(SplittableRandom random) {
+        return KEYWORDS[random.nextInt(KEYWORDS.length)];
+    }
+
+    /** Log-normal with the given median, for sizes and delays. */
+    static double logNormal(SplittableRandom random, double median, double sigma) {
+        return median * Math.exp(sigma * Geography.gaussian(random));
+    }
+
+    private static long[] partition(long total, WeightedChoice weights) {
+        long[] start = new long[weights.size() + 1];
+        double cumulative = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            start[i] = Math.round(cumulative * total);
+            cumulative += weights.probability(i);
+        }
+        start[weights.size()] = total;
+        return start;
+    }
+
+    private static int clusterOf(long[] start, long index) {
+        int lo = 0;
+        int hi = start.length - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (start[mid] <= index) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private static long coprimeMultiplier(long n) {
+        long a = Math.max(1, (long) (n * 0.6180339887)) | 1;
+        while (gcd(a, n) != 1) {
+            a += 2;
+        }
+        return a;
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,43 @@
+package com.cop.loadgen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/** Draws an index with probability proportional to its weight, by binary search on the CDF. */
+final class WeightedChoice {
+    private final double[] cumulative;
+
+    WeightedChoice(double... weights) {
+        cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    /** Zipf-like weights {@code 1 / (rank + 1)^exponent}, the usual shape for hotspots and prolific users. */
+    static WeightedChoice zipf(int n, double exponent) {
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = 1.0 / Math.pow(i + 1, exponent);
+        }
+        return new WeightedChoice(weights);
+    }
+
+    int next(SplittableRandom random) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(i >= 0 ? i : -i - 1, cumulative.length - 1);
+    }
+
+    double probability(int i) {
+        return i == 0 ? cumulative[0] : cumulative[i] - cumulative[i - 1];
+    }
+
+    int size() {
+        return cumulative.length;
+    }
+}
@@ -0,0 +1,17 @@
+#!/bin/bash
+# Steps the offered rate through the gateway and keeps one JSON summary per step.
+# Usage: loadgen/sweep.sh "100 200 400 800" [extra drive options...]
+set -e
+
+RATES=${1:-"100 200 400 800"}
+shift || true
+JAR="$(dirname "$0")/target/loadgen.jar"
+OUT="loadgen-results/$(git rev-parse --short HEAD 2>/dev/null || echo local)-$(date +%Y%m%d-%H%M%S)"
+mkdir -p "$OUT"
+
+for rate in $RATES; do
+    echo "=== ${rate} req/s"
+    java -jar "$JAR" drive --rate "$rate" --out "$OUT/rate-${rate}.json" "$@"
+done
+
+echo "Results in $OUT"
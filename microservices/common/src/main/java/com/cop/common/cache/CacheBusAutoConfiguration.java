@@ -0,0 +1,68 @@
+package com.cop.common.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import javax.sql.DataSource;
+
+@AutoConfiguration(after = {DataSourceAutoConfiguration.class, RedisAutoConfiguration.class})
+@ConditionalOnProperty(prefix = "cop.cache-bus", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheBusAutoConfiguration {
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(name = "org.postgresql.PGConnection")
+	@ConditionalOnBean(DataSource.class)
+	@ConditionalOnProperty(prefix = "cop.cache-bus", name = "transport", havingValue = "postgres", matchIfMissing = true)
+	static class PostgresTransportConfiguration {
+		@Bean
+		@ConditionalOnMissingBean(InvalidationTransport.class)
+		PostgresInvalidationTransport postgresInvalidationTransport(DataSource dataSource,
+		                                                           @Value("${cop.cache-bus.channel:cache_invalidation}") String channel) {
+			return new PostgresInvalidationTransport(dataSource, channel);
+		}
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(RedisConnectionFactory.class)
+	@ConditionalOnBean(RedisConnectionFactory.class)
+	@ConditionalOnProperty(prefix = "cop.cache-bus", name = "transport", havingValue = "redis")
+	static class RedisTransportConfiguration {
+		@Bean
+		@ConditionalOnMissingBean
+		RedisMessageListenerContainer cacheBusListenerContainer(RedisConnectionFactory connectionFactory) {
+			RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+			container.setConnectionFactory(connectionFactory);
+			return container;
+		}
+
+		@Bean
+		@ConditionalOnMissingBean(InvalidationTransport.class)
+		RedisInvalidationTransport redisInvalidationTransport(RedisConnectionFactory connectionFactory,
+		                                                     RedisMessageListenerContainer container,
+		                                                     @Value("${cop.cache-bus.channel:cache_invalidation}") String channel) {
+			return new RedisInvalidationTransport(connectionFactory, container, channel);
+		}
+	}
+
+	@Bean
+	@ConditionalOnBean(InvalidationTransport.class)
+	@ConditionalOnMissingBean
+	CacheInvalidationBus cacheInvalidationBus(InvalidationTransport transport,
+	                                          ObjectProvider<CacheManager> cacheManager,
+	                                          ObjectProvider<InvalidationListener> listeners,
+	                                          @Value("${spring.application.name:cop}") String applicationName) {
+		return new CacheInvalidationBus(transport, cacheManager.getIfAvailable(), listeners.orderedStream().toList(), applicationName);
+	}
+}
@@ -0,0 +1,126 @@
+package com.cop.common.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Publishes cache invalidations to every service sharing the database and applies the ones it
+ * receives. Eviction is by string key, so caches that take part should key entries by
+ * {@code id.toString()}.
+ * <p>
+ * Inside a transaction the invalidations are collected and sent at commit. Entity listeners can
+ * add to them while the commit flushes, after {@code beforeCommit} has run; those are sent after
+ * commit through {@link InvalidationTransport#publishDetached}, outside the finished transaction.
+ */
+public class CacheInvalidationBus {
+	private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+	private final InvalidationTransport transport;
+	private final CacheManager cacheManager;
+	private final List<InvalidationListener> listeners;
+	private final String origin;
+
+	public CacheInvalidationBus(InvalidationTransport transport, CacheManager cacheManager,
+	                            List<InvalidationListener> listeners, String applicationName) {
+		this.transport = transport;
+		this.cacheManager = cacheManager;
+		this.listeners = listeners;
+		this.origin = applicationName + "-" + UUID.randomUUID().toString().substring(0, 8);
+		transport.subscribe(this::receive);
+	}
+
+	public void invalidate(String cache, Object key) {
+		publish(new InvalidationMessage(origin, cache, String.valueOf(key)));
+	}
+
+	public void invalidateAll(String cache) {
+		publish(new InvalidationMessage(origin, cache, InvalidationMessage.ALL_KEYS));
+	}
+
+	private void publish(InvalidationMessage message) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			apply(message);
+			transport.publish(message);
+			return;
+		}
+		Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			pending = new Pending();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		pending.add(message);
+	}
+
+	/**
+	 * The invalidations of one transaction. Local caches are evicted after commit so a concurrent
+	 * reader cannot re-cache the old row; a transactional transport sends what it has before commit
+	 * so it rides along with it, and anything left over is sent once the commit is through.
+	 */
+	private final class Pending implements TransactionSynchronization {
+		private final Set<InvalidationMessage> all = new LinkedHashSet<>();
+		private final Set<InvalidationMessage> unsent = new LinkedHashSet<>();
+
+		void add(InvalidationMessage message) {
+			if (all.add(message)) {
+				unsent.add(message);
+			}
+		}
+
+		@Override
+		public void beforeCommit(boolean readOnly) {
+			if (transport.transactional()) {
+				unsent.forEach(transport::publish);
+				unsent.clear();
+			}
+		}
+
+		@Override
+		public void afterCommit() {
+			all.forEach(CacheInvalidationBus.this::apply);
+			if (!unsent.isEmpty()) {
+				transport.publishDetached(List.copyOf(unsent));
+			}
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationBus.this);
+		}
+	}
+
+	private void receive(InvalidationMessage message) {
+		if (!origin.equals(message.origin())) {
+			apply(message);
+		}
+	}
+
+	private void apply(InvalidationMessage message) {
+		if (cacheManager != null) {
+			Cache cache = cacheManager.getCache(message.cache());
+			if (cache != null) {
+				if (message.allKeys()) {
+					cache.clear();
+				} else {
+					cache.evict(message.key());
+				}
+			}
+		}
+		for (InvalidationListener listener : listeners) {
+			try {
+				listener.onInvalidation(message);
+			} catch (RuntimeException e) {
+				log.warn("Cache invalidation listener {} failed for {}: {}", listener, message, e.getMessage());
+			}
+		}
+	}
+}
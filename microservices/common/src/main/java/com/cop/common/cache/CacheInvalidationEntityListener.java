@@ -0,0 +1,38 @@
+package com.cop.common.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that invalidates the cache named after the entity's simple class name,
+ * keyed by its id. Instantiated through Hibernate's Spring bean container, so it can be listed in
+ * {@code @EntityListeners} without being a bean itself.
+ */
+public class CacheInvalidationEntityListener {
+	private final ObjectProvider<CacheInvalidationBus> bus;
+	private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+	public CacheInvalidationEntityListener(ObjectProvider<CacheInvalidationBus> bus,
+	                                       ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+		this.bus = bus;
+		this.entityManagerFactory = entityManagerFactory;
+	}
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void onChange(Object entity) {
+		CacheInvalidationBus target = bus.getIfAvailable();
+		EntityManagerFactory emf = entityManagerFactory.getIfAvailable();
+		if (target == null || emf == null) {
+			return;
+		}
+		Object id = emf.getPersistenceUnitUtil().getIdentifier(entity);
+		if (id != null) {
+			target.invalidate(entity.getClass().getSimpleName(), id);
+		}
+	}
+}
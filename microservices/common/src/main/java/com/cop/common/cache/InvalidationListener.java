@@ -0,0 +1,9 @@
+package com.cop.common.cache;
+
+/**
+ * Implemented by caches that are not Spring {@code Cache}s and need to react to invalidations,
+ * local or remote.
+ */
+public interface InvalidationListener {
+	void onInvalidation(InvalidationMessage message);
+}
@@ -0,0 +1,28 @@
+package com.cop.common.cache;
+
+/**
+ * A request to evict {@code key} from the cache named {@code cache} in every service, or the
+ * whole cache when {@code key} is {@link #ALL_KEYS}. Encoded as one short pipe-separated line so
+ * it fits comfortably in a NOTIFY payload.
+ */
+public record InvalidationMessage(String origin, String cache, String key) {
+	public static final String ALL_KEYS = "*";
+	private static final String VERSION = "v1";
+
+	public boolean allKeys() {
+		return ALL_KEYS.equals(key);
+	}
+
+	public String encode() {
+		return VERSION + "|" + origin + "|" + cache + "|" + key;
+	}
+
+	public static InvalidationMessage decode(String encoded) {
+		// The key is last so it may itself contain '|'
+		String[] parts = encoded.split("\\|", 4);
+		if (parts.length != 4 || !VERSION.equals(parts[0])) {
+			throw new IllegalArgumentException("Unrecognised invalidation message: " + encoded);
+		}
+		return new InvalidationMessage(parts[1], parts[2], parts[3]);
+	}
+}
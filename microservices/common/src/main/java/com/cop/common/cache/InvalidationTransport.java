@@ -0,0 +1,26 @@
+package com.cop.common.cache;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface InvalidationTransport {
+	void publish(InvalidationMessage message);
+
+	/**
+	 * Sends the messages straight away, outside any transaction the calling thread still has
+	 * bound; used after a commit for invalidations that missed it.
+	 */
+	default void publishDetached(List<InvalidationMessage> messages) {
+		messages.forEach(this::publish);
+	}
+
+	void subscribe(Consumer<InvalidationMessage> handler);
+
+	/**
+	 * Whether {@link #publish} joins the caller's database transaction and is only delivered if it
+	 * commits.
+	 */
+	default boolean transactional() {
+		return false;
+	}
+}
@@ -0,0 +1,142 @@
+package com.cop.common.cache;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Sends invalidations with {@code pg_notify} and receives them on one dedicated connection held
+ * in {@code LISTEN}. Postgres only delivers a notification once the sending transaction commits.
+ */
+public class PostgresInvalidationTransport implements InvalidationTransport, SmartLifecycle {
+	private static final Logger log = LoggerFactory.getLogger(PostgresInvalidationTransport.class);
+	private static final int WAIT_MS = 10_000;
+
+	private final DataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+	private final String channel;
+	private final List<Consumer<InvalidationMessage>> handlers = new CopyOnWriteArrayList<>();
+	private volatile boolean running;
+	private Thread thread;
+
+	public PostgresInvalidationTransport(DataSource dataSource, String channel) {
+		if (!channel.matches("[a-z_][a-z0-9_]*")) {
+			throw new IllegalArgumentException("Invalid LISTEN channel name: " + channel);
+		}
+		this.dataSource = dataSource;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.channel = channel;
+	}
+
+	@Override
+	public void publish(InvalidationMessage message) {
+		jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, message.encode());
+	}
+
+	/**
+	 * Uses a connection of its own: after commit the caller's connection may still be bound to the
+	 * thread, and a NOTIFY sent on it would wait for a transaction that is never committed.
+	 */
+	@Override
+	public void publishDetached(List<InvalidationMessage> messages) {
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(true);
+			try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+				for (InvalidationMessage message : messages) {
+					statement.setString(1, channel);
+					statement.setString(2, message.encode());
+					statement.execute();
+				}
+			}
+		} catch (SQLException e) {
+			log.warn("Could not send {} cache invalidations: {}", messages.size(), e.getMessage());
+		}
+	}
+
+	@Override
+	public void subscribe(Consumer<InvalidationMessage> handler) {
+		handlers.add(handler);
+	}
+
+	@Override
+	public boolean transactional() {
+		return true;
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		thread = new Thread(this::listen, "cache-invalidation-listener");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	private void listen() {
+		while (running) {
+			try (Connection connection = dataSource.getConnection()) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("LISTEN " + channel);
+				}
+				PGConnection pgConnection = connection.unwrap(PGConnection.class);
+				while (running) {
+					PGNotification[] notifications = pgConnection.getNotifications(WAIT_MS);
+					if (notifications == null) {
+						continue;
+					}
+					for (PGNotification notification : notifications) {
+						dispatch(notification.getParameter());
+					}
+				}
+			} catch (Exception e) {
+				if (!running) {
+					return;
+				}
+				log.warn("Cache invalidation listener connection lost, reconnecting: {}", e.getMessage());
+				try {
+					Thread.sleep(WAIT_MS);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private void dispatch(String payload) {
+		InvalidationMessage message;
+		try {
+			message = InvalidationMessage.decode(payload);
+		} catch (IllegalArgumentException e) {
+			log.warn(e.getMessage());
+			return;
+		}
+		for (Consumer<InvalidationMessage> handler : handlers) {
+			handler.accept(message);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.cop.common.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Redis pub/sub alternative for services without a Postgres connection. Unlike NOTIFY it is not
+ * transactional, so {@link CacheInvalidationBus} defers publishing until after commit.
+ */
+public class RedisInvalidationTransport implements InvalidationTransport {
+	private static final Logger log = LoggerFactory.getLogger(RedisInvalidationTransport.class);
+
+	private final StringRedisTemplate redisTemplate;
+	private final RedisMessageListenerContainer container;
+	private final String channel;
+
+	public RedisInvalidationTransport(RedisConnectionFactory connectionFactory, RedisMessageListenerContainer container, String channel) {
+		this.redisTemplate = new StringRedisTemplate(connectionFactory);
+		this.container = container;
+		this.channel = channel;
+	}
+
+	@Override
+	public void publish(InvalidationMessage message) {
+		redisTemplate.convertAndSend(channel, message.encode());
+	}
+
+	@Override
+	public void subscribe(Consumer<InvalidationMessage> handler) {
+		container.addMessageListener((message, pattern) -> {
+			try {
+				handler.accept(InvalidationMessage.decode(new String(message.getBody(), StandardCharsets.UTF_8)));
+			} catch (IllegalArgumentException e) {
+				log.warn(e.getMessage());
+			}
+		}, new ChannelTopic(channel));
+	}
+}
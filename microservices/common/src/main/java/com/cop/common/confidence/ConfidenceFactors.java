@@ -0,0 +1,182 @@
+package com.cop.common.confidence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Confidence of a fused event as log-odds evidence from its source reports, maintained
+ * incrementally: adding, re-weighting or removing a source is O(1) and never revisits the others.
+ * <p>
+ * Each source contributes {@code weight * (logit(reliability) + logit(confidence))}. Sources are
+ * grouped by what makes them dependent (same analyst, near-duplicate content); a group of {@code n}
+ * contributes the sum of its evidence divided by {@code sqrt(n)}, so independent sources add up in
+ * full and correlated ones only sublinearly. The score is {@code sigmoid(logit(prior) + sum)}.
+ * Not thread-safe; callers hold the event's lock. {@link StoredConfidenceFactors} applies the same
+ * changes directly to the stored JSON.
+ */
+public final class ConfidenceFactors {
+	public static final String JSON_KEY = "confidence";
+	public static final double DEFAULT_RELIABILITY = 0.6;
+	public static final double PENDING_WEIGHT = 0.5;
+
+	private static final double EPSILON = 0.01;
+	private static final Map<String, Double> TYPE_RELIABILITY = Map.of(
+		"SIGINT", 0.8,
+		"HUMINT", 0.7,
+		"SOCMINT", 0.6
+	);
+
+	private final double prior;
+	private final Map<String, Group> groups = new HashMap<>();
+	private final Map<String, Source> sources = new HashMap<>();
+	private double total;
+
+	private record Source(String group, double evidence) {
+	}
+
+	private static final class Group {
+		double sum;
+		int count;
+
+		double contribution() {
+			return ConfidenceFactors.contribution(sum, count);
+		}
+	}
+
+	public ConfidenceFactors(double prior) {
+		this.prior = clamp(prior);
+	}
+
+	/**
+	 * Default reliability of an intelligence discipline, by {@code IntelligenceType} name.
+	 */
+	public static double typeReliability(String type) {
+		return type == null ? DEFAULT_RELIABILITY : TYPE_RELIABILITY.getOrDefault(type.toUpperCase(), DEFAULT_RELIABILITY);
+	}
+
+	/**
+	 * Weight of a report in its review state: approved counts fully, rejected not at all, anything
+	 * still under review at {@link #PENDING_WEIGHT}.
+	 */
+	public static double statusWeight(String status) {
+		if (status == null) {
+			return PENDING_WEIGHT;
+		}
+		return switch (status.toUpperCase()) {
+			case "APPROVED", "FUSED" -> 1.0;
+			case "REJECTED" -> 0.0;
+			default -> PENDING_WEIGHT;
+		};
+	}
+
+	public static double evidence(double reliability, double confidence, double weight) {
+		return weight * (logit(reliability) + logit(confidence));
+	}
+
+	/**
+	 * Adds the source, or moves it to its new group and evidence if already present. A zero weight
+	 * should be passed to {@link #remove} instead so it stops counting towards its group's size.
+	 */
+	public void put(String sourceId, String group, double evidence) {
+		remove(sourceId);
+		Group g = groups.computeIfAbsent(group, k -> new Group());
+		total -= g.contribution();
+		g.sum += evidence;
+		g.count++;
+		total += g.contribution();
+		sources.put(sourceId, new Source(group, evidence));
+	}
+
+	public boolean remove(String sourceId) {
+		Source source = sources.remove(sourceId);
+		if (source == null) {
+			return false;
+		}
+		Group g = groups.get(source.group());
+		total -= g.contribution();
+		g.sum -= source.evidence();
+		g.count--;
+		if (g.count == 0) {
+			groups.remove(source.group());
+		} else {
+			total += g.contribution();
+		}
+		return true;
+	}
+
+	/**
+	 * Group of a source already counted, so a near-duplicate of it can join the same group.
+	 */
+	public String groupOf(String sourceId) {
+		Source source = sources.get(sourceId);
+		return source != null ? source.group() : null;
+	}
+
+	public int sourceCount() {
+		return sources.size();
+	}
+
+	public double prior() {
+		return prior;
+	}
+
+	/**
+	 * Total log-odds evidence over all groups.
+	 */
+	public double evidence() {
+		return total;
+	}
+
+	/**
+	 * Receives every group and source, for copying the factors into another representation.
+	 */
+	public interface Visitor {
+		void group(String key, double sum, int count);
+
+		void source(String sourceId, String group, double evidence);
+	}
+
+	public void visit(Visitor visitor) {
+		groups.forEach((key, g) -> visitor.group(key, g.sum, g.count));
+		sources.forEach((id, s) -> visitor.source(id, s.group(), s.evidence()));
+	}
+
+	public double score() {
+		return score(prior, total);
+	}
+
+	/**
+	 * {@code sigmoid(logit(prior) + evidence)}.
+	 */
+	public static double score(double prior, double evidence) {
+		return 1.0 / (1.0 + Math.exp(-(logit(prior) + evidence)));
+	}
+
+	static double contribution(double sum, int count) {
+		return count <= 0 ? 0 : sum / Math.sqrt(count);
+	}
+
+	public ObjectNode toJson(ObjectMapper objectMapper) {
+		ObjectNode node = objectMapper.createObjectNode();
+		node.put("prior", prior);
+		node.put("evidence", total);
+		node.put("score", score());
+		ObjectNode groupsNode = node.putObject("groups");
+		groups.forEach((key, g) -> groupsNode.putObject(key).put("sum", g.sum).put("count", g.count));
+		ObjectNode sourcesNode = node.putObject("sources");
+		sources.forEach((id, s) -> sourcesNode.putObject(id).put("group", s.group()).put("evidence", s.evidence()));
+		return node;
+	}
+
+	private static double logit(double p) {
+		double c = clamp(p);
+		return Math.log(c / (1 - c));
+	}
+
+	static double clamp(double p) {
+		return Math.max(EPSILON, Math.min(1 - EPSILON, p));
+	}
+}
@@ -0,0 +1,89 @@
+package com.cop.common.confidence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * {@link ConfidenceFactors} edited in place in the JSON {@link ConfidenceFactors#toJson} wrote.
+ * A change reads and rewrites only the source it is about and that source's group, and moves the
+ * stored running {@code evidence} total by the group's change in contribution, so the cost does not
+ * grow with the number of sources an event already has.
+ * <p>
+ * The prior is not taken from the node: {@link #score(double)} is given the one in force when it
+ * is evaluated and records it under {@code prior}.
+ */
+public final class StoredConfidenceFactors {
+	private final ObjectNode node;
+	private final ObjectNode groups;
+	private final ObjectNode sources;
+	private double total;
+
+	private StoredConfidenceFactors(ObjectNode node) {
+		this.node = node;
+		this.groups = node.has("groups") && node.get("groups").isObject() ? (ObjectNode) node.get("groups") : node.putObject("groups");
+		this.sources = node.has("sources") && node.get("sources").isObject() ? (ObjectNode) node.get("sources") : node.putObject("sources");
+		this.total = node.path("evidence").asDouble(0);
+	}
+
+	/**
+	 * The factors under {@link ConfidenceFactors#JSON_KEY} in {@code parent}, created empty if missing.
+	 */
+	public static StoredConfidenceFactors in(ObjectNode parent) {
+		JsonNode node = parent.get(ConfidenceFactors.JSON_KEY);
+		return new StoredConfidenceFactors(node != null && node.isObject()
+			? (ObjectNode) node : parent.putObject(ConfidenceFactors.JSON_KEY));
+	}
+
+	/**
+	 * Adds the source, or moves it to its new group and evidence if already present.
+	 */
+	public void put(String sourceId, String group, double evidence) {
+		remove(sourceId);
+		adjust(group, evidence, 1);
+		sources.putObject(sourceId).put("group", group).put("evidence", evidence);
+	}
+
+	public boolean remove(String sourceId) {
+		JsonNode source = sources.remove(sourceId);
+		if (source == null) {
+			return false;
+		}
+		adjust(source.path("group").asText(), -source.path("evidence").asDouble(), -1);
+		return true;
+	}
+
+	public String groupOf(String sourceId) {
+		JsonNode source = sources.get(sourceId);
+		return source != null ? source.path("group").asText() : null;
+	}
+
+	public double evidence() {
+		return total;
+	}
+
+	/**
+	 * Score under {@code prior}, written back with the running total.
+	 */
+	public double score(double prior) {
+		double score = ConfidenceFactors.score(prior, total);
+		node.put("prior", ConfidenceFactors.clamp(prior));
+		node.put("evidence", total);
+		node.put("score", score);
+		return score;
+	}
+
+	private void adjust(String key, double evidence, int count) {
+		JsonNode stored = groups.get(key);
+		double sum = stored != null ? stored.path("sum").asDouble() : 0;
+		int n = stored != null ? stored.path("count").asInt() : 0;
+		total -= ConfidenceFactors.contribution(sum, n);
+		sum += evidence;
+		n += count;
+		if (n <= 0) {
+			groups.remove(key);
+			return;
+		}
+		total += ConfidenceFactors.contribution(sum, n);
+		groups.putObject(key).put("sum", sum).put("count", n);
+	}
+}
@@ -0,0 +1,49 @@
+package com.cop.common.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One immutable, versioned view of {@code system_config}. Registered settings are resolved into
+ * primitive slot arrays when the snapshot is built, so reading them never parses or allocates.
+ */
+public final class ConfigSnapshot {
+	final long version;
+	final Instant loadedAt;
+	final Map<String, JsonNode> values;
+	final double[] doubles;
+	final long[] longs;
+	final boolean[] booleans;
+	final String[] strings;
+
+	ConfigSnapshot(long version, Instant loadedAt, Map<String, JsonNode> values,
+	               double[] doubles, long[] longs, boolean[] booleans, String[] strings) {
+		this.version = version;
+		this.loadedAt = loadedAt;
+		this.values = values;
+		this.doubles = doubles;
+		this.longs = longs;
+		this.booleans = booleans;
+		this.strings = strings;
+	}
+
+	public long version() {
+		return version;
+	}
+
+	public Instant loadedAt() {
+		return loadedAt;
+	}
+
+	public Set<String> keys() {
+		return values.keySet();
+	}
+
+	/** The stored JSON value for {@code key}, or {@code null} when the key is absent. */
+	public JsonNode raw(String key) {
+		return values.get(key);
+	}
+}
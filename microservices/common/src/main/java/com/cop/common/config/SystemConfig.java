@@ -0,0 +1,251 @@
+package com.cop.common.config;
+
+import com.cop.common.cache.InvalidationListener;
+import com.cop.common.cache.InvalidationMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory copy of the {@code system_config} table. All keys are loaded at startup and again
+ * whenever the {@value #CACHE} cache is invalidated; each load builds a new {@link ConfigSnapshot}
+ * with the next version and swaps it in atomically.
+ *
+ * <p>Callers register a typed setting once, usually in a constructor, and read it on hot paths:
+ * <pre>
+ * private final SystemConfig.DoubleSetting threshold =
+ *         systemConfig.doubleSetting("fusion_confidence_threshold", 0.7);
+ * ...
+ * if (score &gt;= threshold.get()) { ... }
+ * </pre>
+ * A read is one volatile load and one array access. Missing or malformed values fall back to the
+ * registered default.
+ */
+public class SystemConfig implements InvalidationListener, InitializingBean {
+	public static final String CACHE = "system_config";
+
+	private static final Logger log = LoggerFactory.getLogger(SystemConfig.class);
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private enum Kind { DOUBLE, LONG, BOOLEAN, STRING }
+
+	private record Slot(Kind kind, String key, int index, Object defaultValue) {
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Map<String, Slot> slotsByKey = new HashMap<>();
+	private final List<Slot> slots = new ArrayList<>();
+	private final int[] slotCounts = new int[Kind.values().length];
+	private volatile ConfigSnapshot snapshot = new ConfigSnapshot(0, Instant.EPOCH, Map.of(),
+			new double[0], new long[0], new boolean[0], new String[0]);
+
+	public SystemConfig(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		reload();
+	}
+
+	@Override
+	public void onInvalidation(InvalidationMessage message) {
+		if (CACHE.equals(message.cache())) {
+			reload();
+		}
+	}
+
+	public ConfigSnapshot snapshot() {
+		return snapshot;
+	}
+
+	public long version() {
+		return snapshot.version;
+	}
+
+	/**
+	 * Reads every row of {@code system_config} and publishes a new snapshot. On failure the
+	 * current snapshot stays in place.
+	 */
+	public synchronized void reload() {
+		Map<String, JsonNode> values = new HashMap<>();
+		try {
+			jdbcTemplate.query("SELECT key, value::text FROM system_config", rs -> {
+				String key = rs.getString(1);
+				try {
+					values.put(key, MAPPER.readTree(rs.getString(2)));
+				} catch (JsonProcessingException e) {
+					log.warn("Ignoring system_config key {}: {}", key, e.getOriginalMessage());
+				}
+			});
+		} catch (DataAccessException e) {
+			log.warn("Could not load system_config, keeping version {}: {}", snapshot.version, e.getMessage());
+			return;
+		}
+		snapshot = resolve(snapshot.version + 1, Instant.now(), Map.copyOf(values));
+		log.info("Loaded system_config version {} ({} keys)", snapshot.version, values.size());
+	}
+
+	public DoubleSetting doubleSetting(String key, double defaultValue) {
+		return new DoubleSetting(this, register(Kind.DOUBLE, key, defaultValue));
+	}
+
+	public LongSetting longSetting(String key, long defaultValue) {
+		return new LongSetting(this, register(Kind.LONG, key, defaultValue));
+	}
+
+	public BooleanSetting booleanSetting(String key, boolean defaultValue) {
+		return new BooleanSetting(this, register(Kind.BOOLEAN, key, defaultValue));
+	}
+
+	public StringSetting stringSetting(String key, String defaultValue) {
+		return new StringSetting(this, register(Kind.STRING, key, defaultValue));
+	}
+
+	private synchronized int register(Kind kind, String key, Object defaultValue) {
+		Slot existing = slotsByKey.get(kind + ":" + key);
+		if (existing != null) {
+			if (!existing.defaultValue().equals(defaultValue)) {
+				log.warn("system_config key {} registered again with default {}, keeping {}", key, defaultValue, existing.defaultValue());
+			}
+			return existing.index();
+		}
+		Slot slot = new Slot(kind, key, slotCounts[kind.ordinal()]++, defaultValue);
+		slots.add(slot);
+		slotsByKey.put(kind + ":" + key, slot);
+		// Same data, wider arrays: the version only moves when the table changes
+		ConfigSnapshot current = snapshot;
+		snapshot = resolve(current.version, current.loadedAt, current.values);
+		return slot.index();
+	}
+
+	private ConfigSnapshot resolve(long version, Instant loadedAt, Map<String, JsonNode> values) {
+		double[] doubles = new double[slotCounts[Kind.DOUBLE.ordinal()]];
+		long[] longs = new long[slotCounts[Kind.LONG.ordinal()]];
+		boolean[] booleans = new boolean[slotCounts[Kind.BOOLEAN.ordinal()]];
+		String[] strings = new String[slotCounts[Kind.STRING.ordinal()]];
+		for (Slot slot : slots) {
+			JsonNode node = values.get(slot.key());
+			switch (slot.kind()) {
+				case DOUBLE -> doubles[slot.index()] = node != null && (node.isNumber() || isNumeric(node))
+						? node.asDouble() : defaulted(slot, node, (Double) slot.defaultValue());
+				case LONG -> longs[slot.index()] = node != null && (node.isIntegralNumber() || isNumeric(node))
+						? node.asLong() : defaulted(slot, node, (Long) slot.defaultValue());
+				case BOOLEAN -> booleans[slot.index()] = node != null && (node.isBoolean() || isBooleanText(node))
+						? node.asBoolean() : defaulted(slot, node, (Boolean) slot.defaultValue());
+				case STRING -> strings[slot.index()] = node != null && !node.isNull()
+						? (node.isTextual() ? node.textValue() : node.toString())
+						: (String) slot.defaultValue();
+			}
+		}
+		return new ConfigSnapshot(version, loadedAt, values, doubles, longs, booleans, strings);
+	}
+
+	private static boolean isNumeric(JsonNode node) {
+		if (!node.isTextual()) {
+			return false;
+		}
+		try {
+			Double.parseDouble(node.textValue());
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static boolean isBooleanText(JsonNode node) {
+		return node.isTextual() && ("true".equalsIgnoreCase(node.textValue()) || "false".equalsIgnoreCase(node.textValue()));
+	}
+
+	private static <T> T defaulted(Slot slot, JsonNode node, T defaultValue) {
+		if (node != null) {
+			log.warn("system_config key {} has {} where a {} was expected, using default {}",
+					slot.key(), node, slot.kind().name().toLowerCase(), defaultValue);
+		}
+		return defaultValue;
+	}
+
+	public static final class DoubleSetting {
+		private final SystemConfig config;
+		private final int index;
+
+		private DoubleSetting(SystemConfig config, int index) {
+			this.config = config;
+			this.index = index;
+		}
+
+		public double get() {
+			return config.snapshot.doubles[index];
+		}
+
+		/** Reads from a snapshot the caller holds, so several settings can be read consistently. */
+		public double get(ConfigSnapshot snapshot) {
+			return snapshot.doubles[index];
+		}
+	}
+
+	public static final class LongSetting {
+		private final SystemConfig config;
+		private final int index;
+
+		private LongSetting(SystemConfig config, int index) {
+			this.config = config;
+			this.index = index;
+		}
+
+		public long get() {
+			return config.snapshot.longs[index];
+		}
+
+		public long get(ConfigSnapshot snapshot) {
+			return snapshot.longs[index];
+		}
+	}
+
+	public static final class BooleanSetting {
+		private final SystemConfig config;
+		private final int index;
+
+		private BooleanSetting(SystemConfig config, int index) {
+			this.config = config;
+			this.index = index;
+		}
+
+		public boolean get() {
+			return config.snapshot.booleans[index];
+		}
+
+		public boolean get(ConfigSnapshot snapshot) {
+			return snapshot.booleans[index];
+		}
+	}
+
+	public static final class StringSetting {
+		private final SystemConfig config;
+		private final int index;
+
+		private StringSetting(SystemConfig config, int index) {
+			this.config = config;
+			this.index = index;
+		}
+
+		public String get() {
+			return config.snapshot.strings[index];
+		}
+
+		public String get(ConfigSnapshot snapshot) {
+			return snapshot.strings[index];
+		}
+	}
+}
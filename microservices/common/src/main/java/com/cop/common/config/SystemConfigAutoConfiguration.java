@@ -0,0 +1,39 @@
+package com.cop.common.config;
+
+import com.cop.common.cache.CacheBusAutoConfiguration;
+import com.cop.common.cache.PostgresInvalidationTransport;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+@AutoConfiguration(after = {DataSourceAutoConfiguration.class, CacheBusAutoConfiguration.class})
+@ConditionalOnClass(JdbcTemplate.class)
+@ConditionalOnBean(DataSource.class)
+@ConditionalOnProperty(prefix = "cop.system-config", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SystemConfigAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	SystemConfig systemConfig(DataSource dataSource) {
+		return new SystemConfig(new JdbcTemplate(dataSource));
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(name = "org.postgresql.PGConnection")
+	@ConditionalOnMissingBean(PostgresInvalidationTransport.class)
+	static class NotificationConfiguration {
+		@Bean
+		@ConditionalOnMissingBean
+		SystemConfigNotifications systemConfigNotifications(DataSource dataSource, SystemConfig systemConfig) {
+			return new SystemConfigNotifications(dataSource, systemConfig);
+		}
+	}
+}
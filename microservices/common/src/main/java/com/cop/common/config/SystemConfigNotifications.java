@@ -0,0 +1,38 @@
+package com.cop.common.config;
+
+import com.cop.common.cache.PostgresInvalidationTransport;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+
+/**
+ * Keeps {@link SystemConfig} current when the cache bus does not listen on Postgres, because it
+ * runs over Redis or is disabled. The {@code system_config} trigger only ever NOTIFYs Postgres, so
+ * this holds its own {@code LISTEN} on that channel and reloads on the config cache's messages.
+ */
+public class SystemConfigNotifications implements SmartLifecycle {
+	/** The channel changeset 008's trigger notifies, whatever {@code cop.cache-bus.channel} says. */
+	public static final String CHANNEL = "cache_invalidation";
+
+	private final PostgresInvalidationTransport transport;
+
+	public SystemConfigNotifications(DataSource dataSource, SystemConfig systemConfig) {
+		this.transport = new PostgresInvalidationTransport(dataSource, CHANNEL);
+		this.transport.subscribe(systemConfig::onInvalidation);
+	}
+
+	@Override
+	public void start() {
+		transport.start();
+	}
+
+	@Override
+	public void stop() {
+		transport.stop();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return transport.isRunning();
+	}
+}
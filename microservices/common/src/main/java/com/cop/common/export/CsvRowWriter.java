@@ -0,0 +1,88 @@
+package com.cop.common.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/** RFC 4180 CSV with a header row; timestamps in ISO-8601 UTC. */
+class CsvRowWriter implements RowWriter {
+	private final Writer out;
+	private final List<ExportColumn> columns;
+
+	CsvRowWriter(OutputStream stream, List<ExportColumn> columns) throws IOException {
+		this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024);
+		this.columns = columns;
+		for (int i = 0; i < columns.size(); i++) {
+			if (i > 0) {
+				out.write(',');
+			}
+			field(columns.get(i).name());
+		}
+		out.write("\r\n");
+	}
+
+	@Override
+	public void row(ResultSet rs) throws SQLException, IOException {
+		for (int i = 0; i < columns.size(); i++) {
+			if (i > 0) {
+				out.write(',');
+			}
+			int index = i + 1;
+			switch (columns.get(i).type()) {
+				case LONG -> {
+					long value = rs.getLong(index);
+					if (!rs.wasNull()) {
+						out.write(Long.toString(value));
+					}
+				}
+				case DOUBLE -> {
+					double value = rs.getDouble(index);
+					if (!rs.wasNull()) {
+						out.write(Double.toString(value));
+					}
+				}
+				case TIMESTAMP -> {
+					OffsetDateTime value = rs.getObject(index, OffsetDateTime.class);
+					if (value != null) {
+						out.write(value.withOffsetSameInstant(ZoneOffset.UTC).toString());
+					}
+				}
+				default -> {
+					String value = rs.getString(index);
+					if (value != null) {
+						field(value);
+					}
+				}
+			}
+		}
+		out.write("\r\n");
+	}
+
+	@Override
+	public void finish() throws IOException {
+		out.flush();
+	}
+
+	private void field(String value) throws IOException {
+		boolean quote = false;
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quote) {
+			out.write(value);
+			return;
+		}
+		out.write('"');
+		out.write(value.replace("\"", "\"\""));
+		out.write('"');
+	}
+}
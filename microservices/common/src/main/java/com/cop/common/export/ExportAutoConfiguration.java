@@ -0,0 +1,26 @@
+package com.cop.common.export;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+import javax.sql.DataSource;
+
+@AutoConfiguration(after = DataSourceAutoConfiguration.class)
+@ConditionalOnClass(SQLExceptionTranslator.class)
+@ConditionalOnBean(DataSource.class)
+public class ExportAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	JdbcStreamingExporter jdbcStreamingExporter(DataSource dataSource,
+			@Value("${cop.export.fetch-size:5000}") int fetchSize,
+			@Value("${cop.export.parquet-row-group-bytes:33554432}") long parquetRowGroupBytes) {
+		return new JdbcStreamingExporter(dataSource, fetchSize, parquetRowGroupBytes);
+	}
+}
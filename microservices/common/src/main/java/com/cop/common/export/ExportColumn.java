@@ -0,0 +1,29 @@
+package com.cop.common.export;
+
+/**
+ * One selected column of an export, in SQL select-list order. Columns named {@code lat} and
+ * {@code lon} become the GeoJSON geometry.
+ */
+public record ExportColumn(String name, Type type) {
+	public enum Type { STRING, LONG, DOUBLE, TIMESTAMP, JSON }
+
+	public static ExportColumn string(String name) {
+		return new ExportColumn(name, Type.STRING);
+	}
+
+	public static ExportColumn int64(String name) {
+		return new ExportColumn(name, Type.LONG);
+	}
+
+	public static ExportColumn float64(String name) {
+		return new ExportColumn(name, Type.DOUBLE);
+	}
+
+	public static ExportColumn timestamp(String name) {
+		return new ExportColumn(name, Type.TIMESTAMP);
+	}
+
+	public static ExportColumn json(String name) {
+		return new ExportColumn(name, Type.JSON);
+	}
+}
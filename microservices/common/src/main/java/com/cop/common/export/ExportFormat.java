@@ -0,0 +1,42 @@
+package com.cop.common.export;
+
+import org.springframework.util.ClassUtils;
+
+public enum ExportFormat {
+	GEOJSON("application/geo+json", "geojson"),
+	CSV("text/csv", "csv"),
+	PARQUET("application/vnd.apache.parquet", "parquet");
+
+	private static final boolean PARQUET_PRESENT = ClassUtils.isPresent(
+		"org.apache.parquet.hadoop.ParquetWriter", ExportFormat.class.getClassLoader());
+
+	private final String contentType;
+	private final String extension;
+
+	ExportFormat(String contentType, String extension) {
+		this.contentType = contentType;
+		this.extension = extension;
+	}
+
+	public String contentType() {
+		return contentType;
+	}
+
+	public String extension() {
+		return extension;
+	}
+
+	/** Parquet needs parquet-hadoop on the service's classpath; the text formats are always there. */
+	public boolean available() {
+		return this != PARQUET || PARQUET_PRESENT;
+	}
+
+	public static ExportFormat of(String value) {
+		for (ExportFormat format : values()) {
+			if (format.name().equalsIgnoreCase(value) || format.extension.equalsIgnoreCase(value)) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported export format: " + value);
+	}
+}
@@ -0,0 +1,10 @@
+package com.cop.common.export;
+
+import java.util.List;
+
+/**
+ * A query whose select list matches {@code columns} one to one. {@code String[]} arguments are
+ * bound as SQL text arrays, for {@code = ANY(?)} clearance filters.
+ */
+public record ExportQuery(String sql, List<Object> args, List<ExportColumn> columns) {
+}
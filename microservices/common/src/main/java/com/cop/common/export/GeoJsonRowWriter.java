@@ -0,0 +1,128 @@
+package com.cop.common.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * A GeoJSON FeatureCollection written feature by feature. {@code lat}/{@code lon} become a Point
+ * geometry (null when either is missing), {@code id} becomes the feature id and everything else
+ * goes into properties.
+ */
+class GeoJsonRowWriter implements RowWriter {
+	private static final JsonFactory JSON = new JsonFactory();
+
+	private final JsonGenerator json;
+	private final List<ExportColumn> columns;
+	private final int lat;
+	private final int lon;
+	private final int id;
+
+	GeoJsonRowWriter(OutputStream stream, List<ExportColumn> columns) throws IOException {
+		this.json = JSON.createGenerator(stream, JsonEncoding.UTF8);
+		// The servlet container owns the response stream
+		this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		this.columns = columns;
+		this.lat = indexOf(columns, "lat");
+		this.lon = indexOf(columns, "lon");
+		this.id = indexOf(columns, "id");
+		json.writeStartObject();
+		json.writeStringField("type", "FeatureCollection");
+		json.writeArrayFieldStart("features");
+	}
+
+	@Override
+	public void row(ResultSet rs) throws SQLException, IOException {
+		json.writeStartObject();
+		json.writeStringField("type", "Feature");
+		if (id >= 0) {
+			json.writeStringField("id", rs.getString(id + 1));
+		}
+		json.writeFieldName("geometry");
+		double y = lat >= 0 ? rs.getDouble(lat + 1) : 0;
+		boolean hasLat = lat >= 0 && !rs.wasNull();
+		double x = lon >= 0 ? rs.getDouble(lon + 1) : 0;
+		boolean hasLon = lon >= 0 && !rs.wasNull();
+		if (hasLat && hasLon) {
+			json.writeStartObject();
+			json.writeStringField("type", "Point");
+			json.writeArrayFieldStart("coordinates");
+			json.writeNumber(x);
+			json.writeNumber(y);
+			json.writeEndArray();
+			json.writeEndObject();
+		} else {
+			json.writeNull();
+		}
+		json.writeObjectFieldStart("properties");
+		for (int i = 0; i < columns.size(); i++) {
+			if (i == lat || i == lon || i == id) {
+				continue;
+			}
+			ExportColumn column = columns.get(i);
+			json.writeFieldName(column.name());
+			int index = i + 1;
+			switch (column.type()) {
+				case LONG -> {
+					long value = rs.getLong(index);
+					if (rs.wasNull()) {
+						json.writeNull();
+					} else {
+						json.writeNumber(value);
+					}
+				}
+				case DOUBLE -> {
+					double value = rs.getDouble(index);
+					if (rs.wasNull()) {
+						json.writeNull();
+					} else {
+						json.writeNumber(value);
+					}
+				}
+				case TIMESTAMP -> {
+					OffsetDateTime value = rs.getObject(index, OffsetDateTime.class);
+					if (value == null) {
+						json.writeNull();
+					} else {
+						json.writeString(value.withOffsetSameInstant(ZoneOffset.UTC).toString());
+					}
+				}
+				case JSON -> {
+					String value = rs.getString(index);
+					if (value == null) {
+						json.writeNull();
+					} else {
+						json.writeRawValue(value);
+					}
+				}
+				default -> json.writeString(rs.getString(index));
+			}
+		}
+		json.writeEndObject();
+		json.writeEndObject();
+	}
+
+	@Override
+	public void finish() throws IOException {
+		json.writeEndArray();
+		json.writeEndObject();
+		json.close();
+	}
+
+	private static int indexOf(List<ExportColumn> columns, String name) {
+		for (int i = 0; i < columns.size(); i++) {
+			if (columns.get(i).name().equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,162 @@
+package com.cop.common.export;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Parquet written straight to the response. Memory is bounded by the row-group size: each group
+ * is flushed to the stream once it fills, and the footer follows the last one.
+ */
+class ParquetRowWriter implements RowWriter {
+	private final ParquetWriter<Group> writer;
+	private final SimpleGroupFactory groups;
+	private final List<ExportColumn> columns;
+
+	ParquetRowWriter(OutputStream stream, List<ExportColumn> columns, long rowGroupBytes) throws IOException {
+		MessageType schema = schema(columns);
+		this.columns = columns;
+		this.groups = new SimpleGroupFactory(schema);
+		this.writer = ExampleParquetWriter.builder(new StreamOutputFile(stream))
+			.withConf(new Configuration(false))
+			.withType(schema)
+			.withCompressionCodec(CompressionCodecName.SNAPPY)
+			.withRowGroupSize(rowGroupBytes)
+			.build();
+	}
+
+	@Override
+	public void row(ResultSet rs) throws SQLException, IOException {
+		Group group = groups.newGroup();
+		for (int i = 0; i < columns.size(); i++) {
+			ExportColumn column = columns.get(i);
+			int index = i + 1;
+			switch (column.type()) {
+				case LONG -> {
+					long value = rs.getLong(index);
+					if (!rs.wasNull()) {
+						group.add(column.name(), value);
+					}
+				}
+				case DOUBLE -> {
+					double value = rs.getDouble(index);
+					if (!rs.wasNull()) {
+						group.add(column.name(), value);
+					}
+				}
+				case TIMESTAMP -> {
+					OffsetDateTime value = rs.getObject(index, OffsetDateTime.class);
+					if (value != null) {
+						group.add(column.name(), ChronoUnit.MICROS.between(Instant.EPOCH, value.toInstant()));
+					}
+				}
+				default -> {
+					String value = rs.getString(index);
+					if (value != null) {
+						group.add(column.name(), value);
+					}
+				}
+			}
+		}
+		writer.write(group);
+	}
+
+	@Override
+	public void finish() throws IOException {
+		writer.close();
+	}
+
+	private static MessageType schema(List<ExportColumn> columns) {
+		Types.MessageTypeBuilder message = Types.buildMessage();
+		for (ExportColumn column : columns) {
+			switch (column.type()) {
+				case LONG -> message.optional(PrimitiveTypeName.INT64).named(column.name());
+				case DOUBLE -> message.optional(PrimitiveTypeName.DOUBLE).named(column.name());
+				case TIMESTAMP -> message.optional(PrimitiveTypeName.INT64)
+					.as(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MICROS))
+					.named(column.name());
+				case JSON -> message.optional(PrimitiveTypeName.BINARY)
+					.as(LogicalTypeAnnotation.jsonType()).named(column.name());
+				default -> message.optional(PrimitiveTypeName.BINARY)
+					.as(LogicalTypeAnnotation.stringType()).named(column.name());
+			}
+		}
+		return message.named("export");
+	}
+
+	/** A write-once Parquet target over a non-seekable stream; closing it only flushes. */
+	private static final class StreamOutputFile implements OutputFile {
+		private final OutputStream stream;
+
+		StreamOutputFile(OutputStream stream) {
+			this.stream = stream;
+		}
+
+		@Override
+		public PositionOutputStream create(long blockSizeHint) {
+			return new PositionOutputStream() {
+				private long position;
+
+				@Override
+				public long getPos() {
+					return position;
+				}
+
+				@Override
+				public void write(int b) throws IOException {
+					stream.write(b);
+					position++;
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					stream.write(b, off, len);
+					position += len;
+				}
+
+				@Override
+				public void flush() throws IOException {
+					stream.flush();
+				}
+
+				@Override
+				public void close() throws IOException {
+					stream.flush();
+				}
+			};
+		}
+
+		@Override
+		public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+			return create(blockSizeHint);
+		}
+
+		@Override
+		public boolean supportsBlockSize() {
+			return false;
+		}
+
+		@Override
+		public long defaultBlockSize() {
+			return 0;
+		}
+	}
+}
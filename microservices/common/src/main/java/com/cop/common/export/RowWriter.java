@@ -0,0 +1,13 @@
+package com.cop.common.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/** Writes the current row of a result set to an export stream. */
+interface RowWriter {
+	void row(ResultSet rs) throws SQLException, IOException;
+
+	/** Completes the document; does not close the underlying stream. */
+	void finish() throws IOException;
+}
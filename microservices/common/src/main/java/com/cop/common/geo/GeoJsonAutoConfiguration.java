@@ -0,0 +1,24 @@
+package com.cop.common.geo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.locationtech.jts.geom.Geometry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registers {@link GeoJsonModule} wherever JTS is on the classpath; Spring Boot's Jackson
+ * auto-configuration installs every {@code Module} bean into the application's ObjectMapper.
+ */
+@AutoConfiguration
+@ConditionalOnClass({Geometry.class, ObjectMapper.class})
+public class GeoJsonAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	GeoJsonModule geoJsonModule(@Value("${cop.geojson.coordinate-decimals:" + GeoJsonModule.DEFAULT_COORDINATE_DECIMALS + "}") int coordinateDecimals) {
+		return new GeoJsonModule(coordinateDecimals);
+	}
+}
@@ -0,0 +1,186 @@
+package com.cop.common.geo;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a GeoJSON geometry object token by token. Members may come in any order, so the
+ * coordinates are collected as positions and lists of them while the type is still unknown, and
+ * the geometry is built once the object closes; no tree or map is built along the way. Unknown
+ * members such as {@code bbox} or {@code crs} are skipped.
+ */
+class GeoJsonDeserializer<T extends Geometry> extends StdDeserializer<T> {
+	private final Class<T> target;
+	private final GeometryFactory factory;
+
+	GeoJsonDeserializer(Class<T> target, GeometryFactory factory) {
+		super(target);
+		this.target = target;
+		this.factory = factory;
+	}
+
+	@Override
+	public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+		Geometry geometry = read(p, ctxt);
+		if (!target.isInstance(geometry)) {
+			return ctxt.reportInputMismatch(this, "Expected a GeoJSON %s, got %s", target.getSimpleName(), geometry.getGeometryType());
+		}
+		return target.cast(geometry);
+	}
+
+	private Geometry read(JsonParser p, DeserializationContext ctxt) throws IOException {
+		JsonToken token = p.currentToken();
+		if (token == JsonToken.START_OBJECT) {
+			token = p.nextToken();
+		} else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+			return ctxt.reportInputMismatch(this, "Expected a GeoJSON geometry object, got %s", token);
+		}
+		GeoJsonType type = null;
+		Object coordinates = null;
+		List<Geometry> geometries = null;
+		for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+			String field = p.currentName();
+			JsonToken value = p.nextToken();
+			switch (field) {
+				case "type" -> {
+					type = GeoJsonType.named(p.getValueAsString());
+					if (type == null) {
+						return ctxt.reportInputMismatch(this, "Unknown GeoJSON geometry type '%s'", p.getText());
+					}
+				}
+				case "coordinates" -> coordinates = value == JsonToken.VALUE_NULL ? null : coordinates(p, ctxt);
+				case "geometries" -> geometries = value == JsonToken.VALUE_NULL ? null : geometries(p, ctxt);
+				default -> p.skipChildren();
+			}
+		}
+		if (type == null) {
+			return ctxt.reportInputMismatch(this, "GeoJSON geometry without a type");
+		}
+		try {
+			return build(type, coordinates, geometries);
+		} catch (IllegalArgumentException e) {
+			// Wrong nesting depth, or a ring JTS refuses (unclosed, too few points)
+			return ctxt.reportInputMismatch(this, "Invalid GeoJSON %s: %s", type.name, e.getMessage());
+		}
+	}
+
+	/**
+	 * A position as a {@link Coordinate}, or an array of positions or of further arrays as a list.
+	 */
+	private Object coordinates(JsonParser p, DeserializationContext ctxt) throws IOException {
+		if (p.currentToken() != JsonToken.START_ARRAY) {
+			return ctxt.reportInputMismatch(this, "GeoJSON coordinates must be arrays, got %s", p.currentToken());
+		}
+		JsonToken token = p.nextToken();
+		if (token != null && token.isNumeric()) {
+			return position(p, ctxt);
+		}
+		List<Object> items = new ArrayList<>();
+		for (; token != JsonToken.END_ARRAY; token = p.nextToken()) {
+			items.add(coordinates(p, ctxt));
+		}
+		return items;
+	}
+
+	private Coordinate position(JsonParser p, DeserializationContext ctxt) throws IOException {
+		double x = p.getDoubleValue();
+		JsonToken token = p.nextToken();
+		if (token == null || !token.isNumeric()) {
+			return ctxt.reportInputMismatch(this, "A GeoJSON position needs at least two numbers");
+		}
+		double y = p.getDoubleValue();
+		double z = Coordinate.NULL_ORDINATE;
+		token = p.nextToken();
+		if (token != null && token.isNumeric()) {
+			z = p.getDoubleValue();
+			token = p.nextToken();
+		}
+		// Further elements (measures and the like) are allowed but not kept
+		for (; token != JsonToken.END_ARRAY; token = p.nextToken()) {
+			if (token == null || !token.isNumeric()) {
+				return ctxt.reportInputMismatch(this, "A GeoJSON position holds only numbers");
+			}
+		}
+		return new Coordinate(x, y, z);
+	}
+
+	private List<Geometry> geometries(JsonParser p, DeserializationContext ctxt) throws IOException {
+		if (p.currentToken() != JsonToken.START_ARRAY) {
+			return ctxt.reportInputMismatch(this, "GeoJSON geometries must be an array, got %s", p.currentToken());
+		}
+		List<Geometry> geometries = new ArrayList<>();
+		while (p.nextToken() != JsonToken.END_ARRAY) {
+			geometries.add(read(p, ctxt));
+		}
+		return geometries;
+	}
+
+	private Geometry build(GeoJsonType type, Object coordinates, List<Geometry> geometries) {
+		if (type == GeoJsonType.GEOMETRY_COLLECTION) {
+			return factory.createGeometryCollection(geometries == null ? new Geometry[0] : geometries.toArray(Geometry[]::new));
+		}
+		if (coordinates == null) {
+			throw new IllegalArgumentException("missing coordinates");
+		}
+		return switch (type) {
+			case POINT -> coordinates instanceof Coordinate position ? factory.createPoint(position)
+				: list(coordinates).isEmpty() ? factory.createPoint() : fail("a position");
+			case LINE_STRING -> factory.createLineString(positions(coordinates));
+			case POLYGON -> polygon(coordinates);
+			case MULTI_POINT -> factory.createMultiPointFromCoords(positions(coordinates));
+			case MULTI_LINE_STRING -> factory.createMultiLineString(list(coordinates).stream()
+				.map(line -> factory.createLineString(positions(line))).toArray(LineString[]::new));
+			case MULTI_POLYGON -> factory.createMultiPolygon(list(coordinates).stream()
+				.map(this::polygon).toArray(Polygon[]::new));
+			case GEOMETRY_COLLECTION -> throw new IllegalStateException();
+		};
+	}
+
+	private Polygon polygon(Object coordinates) {
+		List<?> rings = list(coordinates);
+		if (rings.isEmpty()) {
+			return factory.createPolygon();
+		}
+		LinearRing shell = factory.createLinearRing(positions(rings.get(0)));
+		LinearRing[] holes = new LinearRing[rings.size() - 1];
+		for (int i = 0; i < holes.length; i++) {
+			holes[i] = factory.createLinearRing(positions(rings.get(i + 1)));
+		}
+		return factory.createPolygon(shell, holes);
+	}
+
+	private static Coordinate[] positions(Object coordinates) {
+		List<?> items = list(coordinates);
+		Coordinate[] positions = new Coordinate[items.size()];
+		for (int i = 0; i < positions.length; i++) {
+			if (!(items.get(i) instanceof Coordinate position)) {
+				return fail("an array of positions");
+			}
+			positions[i] = position;
+		}
+		return positions;
+	}
+
+	private static List<?> list(Object coordinates) {
+		if (coordinates instanceof List<?> items) {
+			return items;
+		}
+		return fail("an array");
+	}
+
+	private static <R> R fail(String expected) {
+		throw new IllegalArgumentException("coordinates are not " + expected);
+	}
+}
@@ -0,0 +1,52 @@
+package com.cop.common.geo;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.PrecisionModel;
+
+/**
+ * Jackson support for JTS geometries as RFC 7946 GeoJSON geometry objects, so entity fields such
+ * as {@code Point location} are written as {@code {"type":"Point","coordinates":[lon,lat]}} and
+ * read back from the same shape.
+ * <p>
+ * Coordinates are written with at most {@code coordinateDecimals} decimals (a negative value keeps
+ * full double precision). Parsed geometries come from the given factory; by default one with
+ * SRID 4326, which is what GeoJSON coordinates are and what the spatial columns expect.
+ */
+public class GeoJsonModule extends SimpleModule {
+	public static final int DEFAULT_COORDINATE_DECIMALS = 7;
+	public static final int WGS84_SRID = 4326;
+
+	public GeoJsonModule() {
+		this(DEFAULT_COORDINATE_DECIMALS);
+	}
+
+	public GeoJsonModule(int coordinateDecimals) {
+		this(coordinateDecimals, new GeometryFactory(new PrecisionModel(), WGS84_SRID));
+	}
+
+	public GeoJsonModule(int coordinateDecimals, GeometryFactory geometryFactory) {
+		super("cop-geojson");
+		addSerializer(Geometry.class, new GeoJsonSerializer(coordinateDecimals));
+		deserializer(Geometry.class, geometryFactory);
+		deserializer(Point.class, geometryFactory);
+		deserializer(LineString.class, geometryFactory);
+		deserializer(Polygon.class, geometryFactory);
+		deserializer(MultiPoint.class, geometryFactory);
+		deserializer(MultiLineString.class, geometryFactory);
+		deserializer(MultiPolygon.class, geometryFactory);
+		deserializer(GeometryCollection.class, geometryFactory);
+	}
+
+	private <T extends Geometry> void deserializer(Class<T> type, GeometryFactory geometryFactory) {
+		addDeserializer(type, new GeoJsonDeserializer<>(type, geometryFactory));
+	}
+}
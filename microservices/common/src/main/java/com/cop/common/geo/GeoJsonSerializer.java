@@ -0,0 +1,163 @@
+package com.cop.common.geo;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+
+import java.io.IOException;
+
+/**
+ * Writes a JTS geometry as a GeoJSON geometry object, reading ordinates from the coordinate
+ * sequences and writing them straight to the generator without building {@code Coordinate}s,
+ * strings or intermediate trees.
+ * <p>
+ * With a non-negative number of decimals each ordinate is rounded and its digits formatted into a
+ * reused buffer, trailing zeros dropped; seven decimals is about a centimetre at the equator.
+ */
+class GeoJsonSerializer extends StdSerializer<Geometry> {
+	private static final double[] POWERS = {1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+
+	private final int decimals;
+	private final double scale;
+	// Beyond this the scaled value no longer fits a long exactly; such ordinates are not coordinates anyway
+	private final double limit;
+
+	GeoJsonSerializer(int decimals) {
+		super(Geometry.class);
+		if (decimals >= POWERS.length) {
+			throw new IllegalArgumentException("At most " + (POWERS.length - 1) + " coordinate decimals are supported");
+		}
+		this.decimals = decimals;
+		this.scale = decimals < 0 ? 1 : POWERS[decimals];
+		this.limit = 9.0e15 / scale;
+	}
+
+	@Override
+	public void serialize(Geometry geometry, JsonGenerator gen, SerializerProvider provider) throws IOException {
+		write(geometry, gen, new char[24]);
+	}
+
+	@Override
+	public boolean isEmpty(SerializerProvider provider, Geometry geometry) {
+		return geometry == null;
+	}
+
+	private void write(Geometry geometry, JsonGenerator gen, char[] buffer) throws IOException {
+		gen.writeStartObject();
+		gen.writeStringField("type", GeoJsonType.of(geometry).name);
+		if (geometry.getClass() == GeometryCollection.class) {
+			gen.writeArrayFieldStart("geometries");
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				write(geometry.getGeometryN(i), gen, buffer);
+			}
+			gen.writeEndArray();
+		} else {
+			gen.writeFieldName("coordinates");
+			coordinates(geometry, gen, buffer);
+		}
+		gen.writeEndObject();
+	}
+
+	private void coordinates(Geometry geometry, JsonGenerator gen, char[] buffer) throws IOException {
+		if (geometry instanceof Point point) {
+			CoordinateSequence sequence = point.getCoordinateSequence();
+			if (sequence.size() == 0) {
+				gen.writeStartArray();
+				gen.writeEndArray();
+			} else {
+				position(sequence, 0, gen, buffer);
+			}
+		} else if (geometry instanceof LineString line) {
+			sequence(line.getCoordinateSequence(), gen, buffer);
+		} else if (geometry instanceof Polygon polygon) {
+			rings(polygon, gen, buffer);
+		} else if (geometry instanceof MultiPoint || geometry instanceof MultiLineString || geometry instanceof MultiPolygon) {
+			gen.writeStartArray();
+			for (int i = 0; i < geometry.getNumGeometries(); i++) {
+				Geometry part = geometry.getGeometryN(i);
+				if (part instanceof Point point) {
+					// An empty member has no position; GeoJSON has no way to say so, so it is left out
+					if (!point.isEmpty()) {
+						position(point.getCoordinateSequence(), 0, gen, buffer);
+					}
+				} else {
+					coordinates(part, gen, buffer);
+				}
+			}
+			gen.writeEndArray();
+		} else {
+			throw new IllegalArgumentException("Unsupported geometry type " + geometry.getGeometryType());
+		}
+	}
+
+	private void rings(Polygon polygon, JsonGenerator gen, char[] buffer) throws IOException {
+		gen.writeStartArray();
+		if (!polygon.isEmpty()) {
+			sequence(polygon.getExteriorRing().getCoordinateSequence(), gen, buffer);
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+				sequence(polygon.getInteriorRingN(i).getCoordinateSequence(), gen, buffer);
+			}
+		}
+		gen.writeEndArray();
+	}
+
+	private void sequence(CoordinateSequence sequence, JsonGenerator gen, char[] buffer) throws IOException {
+		gen.writeStartArray();
+		for (int i = 0; i < sequence.size(); i++) {
+			position(sequence, i, gen, buffer);
+		}
+		gen.writeEndArray();
+	}
+
+	private void position(CoordinateSequence sequence, int index, JsonGenerator gen, char[] buffer) throws IOException {
+		gen.writeStartArray();
+		number(sequence.getX(index), gen, buffer);
+		number(sequence.getY(index), gen, buffer);
+		if (sequence.hasZ()) {
+			double z = sequence.getZ(index);
+			if (!Double.isNaN(z)) {
+				number(z, gen, buffer);
+			}
+		}
+		gen.writeEndArray();
+	}
+
+	private void number(double value, JsonGenerator gen, char[] buffer) throws IOException {
+		if (decimals < 0 || !(Math.abs(value) < limit)) {
+			gen.writeNumber(value);
+			return;
+		}
+		long scaled = Math.round(value * scale);
+		long remaining = Math.abs(scaled);
+		int position = buffer.length;
+		boolean fraction = false;
+		for (int i = 0; i < decimals; i++) {
+			int digit = (int) (remaining % 10);
+			remaining /= 10;
+			if (digit != 0 || fraction) {
+				buffer[--position] = (char) ('0' + digit);
+				fraction = true;
+			}
+		}
+		if (fraction) {
+			buffer[--position] = '.';
+		}
+		do {
+			buffer[--position] = (char) ('0' + remaining % 10);
+			remaining /= 10;
+		} while (remaining != 0);
+		if (scaled < 0) {
+			buffer[--position] = '-';
+		}
+		gen.writeNumber(buffer, position, buffer.length - position);
+	}
+}
@@ -0,0 +1,60 @@
+package com.cop.common.geo;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * The seven GeoJSON geometry types. JTS names them the same except for {@code LinearRing}, which
+ * GeoJSON has no type for and is written as a LineString.
+ */
+enum GeoJsonType {
+	POINT("Point"),
+	LINE_STRING("LineString"),
+	POLYGON("Polygon"),
+	MULTI_POINT("MultiPoint"),
+	MULTI_LINE_STRING("MultiLineString"),
+	MULTI_POLYGON("MultiPolygon"),
+	GEOMETRY_COLLECTION("GeometryCollection");
+
+	final String name;
+
+	GeoJsonType(String name) {
+		this.name = name;
+	}
+
+	static GeoJsonType of(Geometry geometry) {
+		if (geometry instanceof Point) {
+			return POINT;
+		}
+		if (geometry instanceof LineString) {
+			return LINE_STRING;
+		}
+		if (geometry instanceof Polygon) {
+			return POLYGON;
+		}
+		if (geometry instanceof MultiPoint) {
+			return MULTI_POINT;
+		}
+		if (geometry instanceof MultiLineString) {
+			return MULTI_LINE_STRING;
+		}
+		if (geometry instanceof MultiPolygon) {
+			return MULTI_POLYGON;
+		}
+		return GEOMETRY_COLLECTION;
+	}
+
+	static GeoJsonType named(String name) {
+		for (GeoJsonType type : values()) {
+			if (type.name.equals(name)) {
+				return type;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,32 @@
+package com.cop.common.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * The shared secret that service-to-service calls on {@code /internal/**} present in
+ * {@value #HEADER}. Those paths are not routed by the gateway and carry no user token, so this is
+ * their only authentication: with no secret configured nothing is accepted, rather than
+ * everything.
+ */
+public final class InternalToken {
+	public static final String HEADER = "X-Outbox-Token";
+
+	private final byte[] expected;
+
+	public InternalToken(String configured) {
+		this.expected = configured == null || configured.isBlank() ? new byte[0] : configured.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public boolean isConfigured() {
+		return expected.length > 0;
+	}
+
+	/** Whether the presented header value is the configured secret; always false if none is configured. */
+	public boolean matches(String presented) {
+		if (!isConfigured() || presented == null || presented.isEmpty()) {
+			return false;
+		}
+		return MessageDigest.isEqual(expected, presented.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,74 @@
+package com.cop.common.security;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public enum ClassificationLevel {
+	UNCLASSIFIED(0, "U"),
+	CONFIDENTIAL(1, "C"),
+	SECRET(2, "S"),
+	TOP_SECRET(3, "TS");
+
+	private final int level;
+	private final String abbreviation;
+
+	ClassificationLevel(int level, String abbreviation) {
+		this.level = level;
+		this.abbreviation = abbreviation;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	/** Stored spellings, full names and abbreviations, of every level this clearance may read. */
+	public String[] readableLabels() {
+		List<String> labels = new ArrayList<>();
+		for (ClassificationLevel other : values()) {
+			if (other.level <= level) {
+				labels.add(other.name());
+				labels.add(other.abbreviation);
+			}
+		}
+		return labels.toArray(String[]::new);
+	}
+
+	/** The level spelled {@code classification}, by full name or abbreviation; anything else is refused. */
+	public static ClassificationLevel fromString(String classification) {
+		ClassificationLevel level = find(classification);
+		if (level == null) {
+			throw new IllegalArgumentException("Unknown classification: " + classification);
+		}
+		return level;
+	}
+
+	/**
+	 * The classification of a stored row or event. A missing or unknown label is read as
+	 * {@link #TOP_SECRET}, so a mislabeled row is hidden rather than shown to everyone.
+	 */
+	public static ClassificationLevel ofLabel(String label) {
+		ClassificationLevel level = find(label);
+		return level != null ? level : TOP_SECRET;
+	}
+
+	/**
+	 * The clearance a caller's token claims. A missing or unknown claim is read as
+	 * {@link #UNCLASSIFIED}, the clearance that reads the least.
+	 */
+	public static ClassificationLevel ofClearance(String claim) {
+		ClassificationLevel level = find(claim);
+		return level != null ? level : UNCLASSIFIED;
+	}
+
+	private static ClassificationLevel find(String classification) {
+		if (classification == null) {
+			return null;
+		}
+		for (ClassificationLevel level : values()) {
+			if (level.name().equalsIgnoreCase(classification) || level.abbreviation.equalsIgnoreCase(classification)) {
+				return level;
+			}
+		}
+		return null;
+	}
+}
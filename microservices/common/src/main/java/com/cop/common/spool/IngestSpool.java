@@ -0,0 +1,372 @@
+package com.cop.common.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Write-ahead spool in front of Postgres for ingest paths that must not fail while the database is
+ * slow or failing over. A write that hits an unavailable database is appended to the local
+ * {@link SpoolLog} instead and acknowledged once durable; while anything is spooled, later writes
+ * are spooled too so they reach the database in the order they were accepted.
+ * <p>
+ * A background thread replays the spool in batches. Each batch runs in one transaction that first
+ * claims the records' keys in {@code ingest_spool_applied}, then hands only the newly claimed ones
+ * to the {@link Handler} for their kind, so a batch that committed just before a crash is skipped
+ * rather than applied twice when the log replays from its last checkpoint. {@link #write} claims the
+ * key of a direct write the same way. A record the database rejects outright, or one of a kind no
+ * handler is registered for, is recorded there with its error and body instead of blocking the spool.
+ */
+public class IngestSpool implements SmartLifecycle {
+	private static final Logger log = LoggerFactory.getLogger(IngestSpool.class);
+	private static final long PRUNE_INTERVAL_MS = 3_600_000;
+
+	private final SpoolLog spoolLog;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final Settings settings;
+	private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+	private final Object wakeup = new Object();
+	private volatile boolean running;
+	private volatile String lastError;
+	private Thread thread;
+	private long lastPrune;
+
+	public record Settings(int batchSize, Duration pollInterval, Duration retryInterval, Duration maxRetryInterval, Duration retention) {
+	}
+
+	public record Entry(String kind, String key, byte[] body) {
+
+		byte[] encode() {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + kind.length() + key.length() + 4);
+			try (DataOutputStream out = new DataOutputStream(bytes)) {
+				out.writeUTF(kind);
+				out.writeUTF(key);
+				out.write(body);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return bytes.toByteArray();
+		}
+
+		static Entry decode(byte[] payload) {
+			try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+				String kind = in.readUTF();
+				String key = in.readUTF();
+				return new Entry(kind, key, in.readAllBytes());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unreadable spool record: " + e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Applies spooled records of one kind. Called inside the replay transaction with records in the
+	 * order they were spooled, none of which has been applied before.
+	 */
+	public interface Handler {
+		void apply(List<Entry> entries);
+
+		/**
+		 * Called once the transaction that applied {@code entries} has committed.
+		 */
+		default void afterCommit(List<Entry> entries) {
+		}
+	}
+
+	public IngestSpool(SpoolLog spoolLog, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Settings settings) {
+		this.spoolLog = spoolLog;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.settings = settings;
+	}
+
+	public void register(String kind, Handler handler) {
+		if (handlers.putIfAbsent(kind, handler) != null) {
+			throw new IllegalStateException("Spool handler for " + kind + " already registered");
+		}
+	}
+
+	/**
+	 * Whether new writes should go to the spool rather than the database, so they do not overtake
+	 * writes spooled earlier.
+	 */
+	public boolean active() {
+		return spoolLog.pending() > 0;
+	}
+
+	/**
+	 * Spools a write and returns once it is as durable as the log's policy makes it. The key must
+	 * be unique per write; replay applies each key at most once.
+	 */
+	public String append(String kind, String key, byte[] body) {
+		spoolLog.append(new Entry(kind, key, body).encode());
+		synchronized (wakeup) {
+			wakeup.notifyAll();
+		}
+		return key;
+	}
+
+	/**
+	 * Runs a write straight against the database, claiming {@code key} in the same transaction. A
+	 * caller that cannot tell whether the write committed spools it under the same key, and replay
+	 * then skips it if it did rather than applying it twice.
+	 */
+	public <T> T write(String kind, String key, Supplier<T> write) {
+		return transactionTemplate.execute(status -> {
+			jdbcTemplate.update("INSERT INTO ingest_spool_applied (spool_key, kind) VALUES (?, ?)", key, kind);
+			return write.get();
+		});
+	}
+
+	/**
+	 * Whether a failed write is worth spooling: the database could not be reached, timed out or
+	 * went away mid-transaction, as opposed to rejecting the write itself.
+	 */
+	public static boolean isUnavailable(Throwable error) {
+		for (Throwable e = error; e != null; e = e.getCause() == e ? null : e.getCause()) {
+			if (e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+				|| e instanceof DataAccessResourceFailureException || e instanceof CannotCreateTransactionException
+				|| e instanceof TransactionSystemException || e instanceof SQLTransientException
+				|| e instanceof SQLRecoverableException || e instanceof ConnectException) {
+				return true;
+			}
+			if (e instanceof SQLException sql && sql.getSQLState() != null) {
+				String state = sql.getSQLState();
+				// Connection exceptions, shutdown/failover in progress, out of resources
+				if (state.startsWith("08") || state.startsWith("57P") || state.startsWith("53")) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("pending", spoolLog.pending());
+		status.put("lastSequence", spoolLog.lastSequence());
+		status.put("checkpoint", spoolLog.checkpointSequence());
+		status.put("segments", spoolLog.segmentCount());
+		status.put("durability", spoolLog.durability().name());
+		status.put("lastError", lastError);
+		return status;
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		thread = new Thread(this::run, "ingest-spool-replay");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join(settings.retryInterval().toMillis());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	private void run() {
+		long backoff = settings.retryInterval().toMillis();
+		while (running) {
+			try {
+				int applied = drainOnce();
+				lastError = null;
+				backoff = settings.retryInterval().toMillis();
+				if (applied > 0) {
+					continue;
+				}
+				prune();
+				synchronized (wakeup) {
+					// An append since the read above is replayed at once
+					if (spoolLog.pending() == 0) {
+						wakeup.wait(settings.pollInterval().toMillis());
+					}
+				}
+			} catch (InterruptedException e) {
+				return;
+			} catch (RuntimeException e) {
+				if (!running) {
+					return;
+				}
+				lastError = e.getMessage();
+				log.warn("Spool replay stalled with {} records pending, retrying in {} ms: {}", spoolLog.pending(), backoff, e.getMessage());
+				try {
+					// Not woken by appends, which keep arriving while the database is down
+					Thread.sleep(backoff);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+				backoff = Math.min(backoff * 2, settings.maxRetryInterval().toMillis());
+			}
+		}
+	}
+
+	/**
+	 * Replays one batch from the checkpoint and returns how many records it consumed. Throws if the
+	 * database is unavailable, leaving the checkpoint where it was.
+	 */
+	int drainOnce() {
+		List<SpoolLog.Record> records = spoolLog.read(spoolLog.checkpointSequence() + 1, settings.batchSize());
+		if (records.isEmpty()) {
+			return 0;
+		}
+		// Null where a record cannot be applied at all, so it is passed over instead of stalling the spool
+		List<Entry> entries = new ArrayList<>(records.size());
+		for (SpoolLog.Record record : records) {
+			entries.add(applicable(record));
+		}
+		List<Entry> batch = entries.stream().filter(Objects::nonNull).toList();
+		int consumed;
+		try {
+			if (!batch.isEmpty()) {
+				applyAndNotify(batch);
+			}
+			consumed = entries.size();
+		} catch (RuntimeException e) {
+			if (isUnavailable(e)) {
+				throw e;
+			}
+			// Something in the batch is rejected; find it by applying one record at a time
+			consumed = 0;
+			for (Entry entry : entries) {
+				if (entry != null) {
+					try {
+						applyAndNotify(List.of(entry));
+					} catch (RuntimeException single) {
+						if (isUnavailable(single)) {
+							break;
+						}
+						reject(entry, single);
+					}
+				}
+				consumed++;
+			}
+		}
+		if (consumed > 0) {
+			try {
+				spoolLog.checkpoint(records.get(consumed - 1).sequence());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot write spool checkpoint: " + e.getMessage(), e);
+			}
+		}
+		return consumed;
+	}
+
+	/**
+	 * Decodes a record, or returns null for one that cannot be decoded (logged and skipped) or has
+	 * no handler (quarantined in {@code ingest_spool_applied} like a rejected record).
+	 */
+	private Entry applicable(SpoolLog.Record record) {
+		Entry entry;
+		try {
+			entry = Entry.decode(record.payload());
+		} catch (UncheckedIOException e) {
+			log.error("Skipping unreadable spool record {}: {}", record.sequence(), e.getMessage());
+			return null;
+		}
+		if (!handlers.containsKey(entry.kind())) {
+			reject(entry, new IllegalStateException("No spool handler registered for " + entry.kind()));
+			return null;
+		}
+		return entry;
+	}
+
+	private void applyAndNotify(List<Entry> entries) {
+		Map<String, List<Entry>> applied = transactionTemplate.execute(status -> apply(entries));
+		applied.forEach((kind, list) -> {
+			try {
+				handlers.get(kind).afterCommit(list);
+			} catch (RuntimeException e) {
+				log.warn("Spool after-commit hook for {} failed: {}", kind, e.getMessage());
+			}
+		});
+	}
+
+	private Map<String, List<Entry>> apply(List<Entry> entries) {
+		Set<String> fresh = new HashSet<>(jdbcTemplate.queryForList(
+			"INSERT INTO ingest_spool_applied (spool_key, kind) SELECT * FROM unnest(?::varchar[], ?::varchar[]) " +
+				"ON CONFLICT (spool_key) DO NOTHING RETURNING spool_key",
+			String.class,
+			entries.stream().map(Entry::key).toArray(String[]::new),
+			entries.stream().map(Entry::kind).toArray(String[]::new)));
+		Map<String, List<Entry>> applied = new LinkedHashMap<>();
+		// Hand over runs of the same kind so writes of different kinds keep their relative order
+		List<Entry> run = new ArrayList<>();
+		for (Entry entry : entries) {
+			if (!fresh.remove(entry.key())) {
+				continue;
+			}
+			if (!run.isEmpty() && !run.get(0).kind().equals(entry.kind())) {
+				handlers.get(run.get(0).kind()).apply(run);
+				applied.computeIfAbsent(run.get(0).kind(), k -> new ArrayList<>()).addAll(run);
+				run = new ArrayList<>();
+			}
+			run.add(entry);
+		}
+		if (!run.isEmpty()) {
+			handlers.get(run.get(0).kind()).apply(run);
+			applied.computeIfAbsent(run.get(0).kind(), k -> new ArrayList<>()).addAll(run);
+		}
+		return applied;
+	}
+
+	private void reject(Entry entry, RuntimeException error) {
+		log.error("Spooled {} {} rejected, moved to ingest_spool_applied: {}", entry.kind(), entry.key(), error.getMessage());
+		jdbcTemplate.update("INSERT INTO ingest_spool_applied (spool_key, kind, error, body) VALUES (?, ?, ?, ?) " +
+				"ON CONFLICT (spool_key) DO NOTHING",
+			entry.key(), entry.kind(), String.valueOf(error.getMessage()), entry.body());
+	}
+
+	private void prune() {
+		long now = System.currentTimeMillis();
+		if (now - lastPrune < PRUNE_INTERVAL_MS) {
+			return;
+		}
+		lastPrune = now;
+		// Keys only guard the window between a commit and the checkpoint after it; rejected records stay
+		jdbcTemplate.update("DELETE FROM ingest_spool_applied WHERE error IS NULL AND applied_at < NOW() - make_interval(secs => ?)",
+			(double) settings.retention().toSeconds());
+	}
+}
@@ -0,0 +1,49 @@
+package com.cop.common.spool;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@AutoConfiguration(afterName = {
+	"org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+	"org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration",
+	"org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration"
+})
+@ConditionalOnClass(JdbcTemplate.class)
+@ConditionalOnBean({DataSource.class, PlatformTransactionManager.class})
+@ConditionalOnProperty(prefix = "cop.spool", name = "enabled", havingValue = "true")
+public class SpoolAutoConfiguration {
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnMissingBean
+	SpoolLog spoolLog(@Value("${cop.spool.dir:spool}") String dir,
+	                  @Value("${cop.spool.segment-bytes:67108864}") int segmentBytes,
+	                  @Value("${cop.spool.durability:sync}") String durability,
+	                  @Value("${cop.spool.flush-interval-ms:200}") long flushIntervalMs) throws IOException {
+		return SpoolLog.open(Path.of(dir), segmentBytes, SpoolLog.Durability.valueOf(durability.toUpperCase()), flushIntervalMs);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	IngestSpool ingestSpool(SpoolLog spoolLog, DataSource dataSource, PlatformTransactionManager transactionManager,
+	                        @Value("${cop.spool.batch-size:500}") int batchSize,
+	                        @Value("${cop.spool.poll-interval:PT5S}") Duration pollInterval,
+	                        @Value("${cop.spool.retry-interval:PT1S}") Duration retryInterval,
+	                        @Value("${cop.spool.max-retry-interval:PT30S}") Duration maxRetryInterval,
+	                        @Value("${cop.spool.applied-retention:P7D}") Duration retention) {
+		return new IngestSpool(spoolLog, new JdbcTemplate(dataSource), new TransactionTemplate(transactionManager),
+			new IngestSpool.Settings(batchSize, pollInterval, retryInterval, maxRetryInterval, retention));
+	}
+}
@@ -0,0 +1,436 @@
+package com.cop.common.spool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of opaque records in fixed-size, memory-mapped segment files. Each record is
+ * framed as {@code [length][crc32c][sequence][payload]}; the checksum covers the sequence and the
+ * payload, so a torn write at the tail is detected on open and the log is truncated to the last
+ * whole record. Segments are named by their first sequence and deleted once a {@link #checkpoint}
+ * has passed every record in them.
+ * <p>
+ * Appends are copied into the mapped segment under a lock and are visible to {@link #read} at
+ * once. When they reach the disk depends on the {@link Durability}.
+ */
+public final class SpoolLog implements Closeable {
+	public static final int HEADER_BYTES = 16;
+
+	private static final String SEGMENT_PREFIX = "spool-";
+	private static final String SEGMENT_SUFFIX = ".seg";
+	private static final String CHECKPOINT = "checkpoint";
+
+	public enum Durability {
+		/** {@link #append} returns once the record is forced to disk; concurrent appends share one force. */
+		SYNC,
+		/** Forced on a fixed interval; an OS crash can lose that interval, a process crash loses nothing. */
+		INTERVAL,
+		/** Left to the kernel's writeback; survives a process crash only. */
+		NONE
+	}
+
+	public record Record(long sequence, byte[] payload) {
+	}
+
+	private final Path directory;
+	private final int segmentBytes;
+	private final Durability durability;
+	private final TreeMap<Long, Segment> segments = new TreeMap<>();
+	private final Object forceLock = new Object();
+	private final ScheduledExecutorService flusher;
+	private Segment current;
+	private long nextSequence;
+	private long checkpoint;
+	private volatile long durableSequence;
+	private boolean closed;
+
+	private static final class Segment {
+		final Path path;
+		final long firstSequence;
+		final FileChannel channel;
+		final MappedByteBuffer buffer;
+		int[] offsets = new int[1024];
+		int count;
+		int position;
+
+		Segment(Path path, long firstSequence, int size) throws IOException {
+			this.path = path;
+			this.firstSequence = firstSequence;
+			this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			// Mapping past the end grows the file to its full size up front
+			this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+		}
+
+		long lastSequence() {
+			return firstSequence + count - 1;
+		}
+
+		void addOffset(int offset) {
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			offsets[count++] = offset;
+		}
+
+		void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Opens the log in {@code directory}, creating it if needed, and recovers every whole record
+	 * after the last checkpoint.
+	 */
+	public static SpoolLog open(Path directory, int segmentBytes, Durability durability, long flushIntervalMs) throws IOException {
+		return new SpoolLog(directory, segmentBytes, durability, flushIntervalMs);
+	}
+
+	private SpoolLog(Path directory, int segmentBytes, Durability durability, long flushIntervalMs) throws IOException {
+		if (segmentBytes < HEADER_BYTES * 64) {
+			throw new IllegalArgumentException("Spool segments must be at least " + HEADER_BYTES * 64 + " bytes");
+		}
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.durability = durability;
+		Files.createDirectories(directory);
+		checkpoint = readCheckpoint();
+		recover();
+		durableSequence = nextSequence - 1;
+		if (durability == Durability.INTERVAL) {
+			flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "spool-flusher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+		} else {
+			flusher = null;
+		}
+	}
+
+	/**
+	 * Appends a record and returns its sequence, after forcing it to disk if the durability is
+	 * {@link Durability#SYNC}.
+	 */
+	public long append(byte[] payload) {
+		if (payload.length > segmentBytes - HEADER_BYTES - 4) {
+			throw new IllegalArgumentException("Spool record of " + payload.length + " bytes exceeds the segment size");
+		}
+		long sequence;
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("Spool is closed");
+			}
+			// Keep four zero bytes after the record so a reader always finds the end marker
+			if (current == null || current.position + HEADER_BYTES + payload.length + 4 > current.buffer.capacity()) {
+				roll();
+			}
+			sequence = nextSequence++;
+			CRC32C crc = new CRC32C();
+			ByteBuffer seq = ByteBuffer.allocate(Long.BYTES).putLong(0, sequence);
+			crc.update(seq);
+			crc.update(payload);
+			ByteBuffer buffer = current.buffer;
+			int offset = current.position;
+			// Length goes in last so a concurrent crash never exposes a header without its payload
+			buffer.putInt(offset + 4, (int) crc.getValue());
+			buffer.putLong(offset + 8, sequence);
+			buffer.put(offset + HEADER_BYTES, payload);
+			buffer.putInt(offset, payload.length);
+			current.addOffset(offset);
+			current.position = offset + HEADER_BYTES + payload.length;
+		}
+		if (durability == Durability.SYNC) {
+			awaitDurable(sequence);
+		}
+		return sequence;
+	}
+
+	/**
+	 * Up to {@code max} records from {@code fromSequence} on, in order.
+	 */
+	public synchronized List<Record> read(long fromSequence, int max) {
+		List<Record> records = new ArrayList<>(Math.min(max, 1024));
+		long sequence = Math.max(fromSequence, checkpoint + 1);
+		Map.Entry<Long, Segment> entry = segments.floorEntry(sequence);
+		while (entry != null && records.size() < max) {
+			Segment segment = entry.getValue();
+			for (long s = sequence; s <= segment.lastSequence() && records.size() < max; s++) {
+				int offset = segment.offsets[(int) (s - segment.firstSequence)];
+				byte[] payload = new byte[segment.buffer.getInt(offset)];
+				segment.buffer.get(offset + HEADER_BYTES, payload);
+				records.add(new Record(s, payload));
+			}
+			sequence = segment.lastSequence() + 1;
+			entry = segments.higherEntry(entry.getKey());
+		}
+		return records;
+	}
+
+	/**
+	 * Marks every record up to {@code sequence} as consumed. The checkpoint is replaced atomically
+	 * and forced before any segment it covers is deleted.
+	 */
+	public void checkpoint(long sequence) throws IOException {
+		List<Segment> obsolete = new ArrayList<>();
+		synchronized (this) {
+			if (sequence <= checkpoint) {
+				return;
+			}
+			if (sequence >= nextSequence) {
+				throw new IllegalArgumentException("Checkpoint " + sequence + " is past the end of the spool");
+			}
+			writeCheckpoint(sequence);
+			checkpoint = sequence;
+			while (!segments.isEmpty()) {
+				Segment first = segments.firstEntry().getValue();
+				if (first == current || first.lastSequence() > sequence) {
+					break;
+				}
+				segments.pollFirstEntry();
+				obsolete.add(first);
+			}
+		}
+		for (Segment segment : obsolete) {
+			segment.close();
+			Files.deleteIfExists(segment.path);
+		}
+	}
+
+	public synchronized long checkpointSequence() {
+		return checkpoint;
+	}
+
+	public synchronized long lastSequence() {
+		return nextSequence - 1;
+	}
+
+	/**
+	 * Records appended but not yet passed by a checkpoint.
+	 */
+	public synchronized long pending() {
+		return nextSequence - 1 - checkpoint;
+	}
+
+	public synchronized int segmentCount() {
+		return segments.size();
+	}
+
+	public Durability durability() {
+		return durability;
+	}
+
+	/**
+	 * Forces everything appended so far to disk.
+	 */
+	public void flush() {
+		long target;
+		synchronized (this) {
+			target = nextSequence - 1;
+		}
+		awaitDurable(target);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (flusher != null) {
+			flusher.shutdownNow();
+		}
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+		synchronized (forceLock) {
+			synchronized (this) {
+				for (Segment segment : segments.values()) {
+					segment.buffer.force();
+					segment.close();
+				}
+				segments.clear();
+			}
+		}
+	}
+
+	/**
+	 * Group commit: one thread forces the segment while later appenders wait on the lock, and by
+	 * the time they get it their record is usually already covered by that force.
+	 */
+	private void awaitDurable(long sequence) {
+		if (durableSequence >= sequence) {
+			return;
+		}
+		synchronized (forceLock) {
+			if (durableSequence >= sequence) {
+				return;
+			}
+			long target;
+			MappedByteBuffer buffer;
+			synchronized (this) {
+				if (closed) {
+					throw new IllegalStateException("Spool is closed");
+				}
+				target = nextSequence - 1;
+				buffer = current != null ? current.buffer : null;
+			}
+			// Earlier segments were forced when the log rolled past them
+			if (buffer != null) {
+				buffer.force();
+			}
+			durableSequence = target;
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			// Closed under us; nothing left to flush
+		}
+	}
+
+	private void roll() {
+		try {
+			if (current != null) {
+				current.buffer.force();
+			}
+			Path path = directory.resolve(segmentName(nextSequence));
+			Segment segment = new Segment(path, nextSequence, segmentBytes);
+			segments.put(nextSequence, segment);
+			current = segment;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot create spool segment: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Rebuilds the record index from the segment files. Scanning stops at the first frame that is
+	 * empty, does not fit, has the wrong sequence or fails its checksum; the rest of that segment is
+	 * zeroed and any later segments, which can only hold records appended after the tear, are dropped.
+	 */
+	private void recover() throws IOException {
+		List<Path> files;
+		try (Stream<Path> list = Files.list(directory)) {
+			files = list.filter(p -> {
+				String name = p.getFileName().toString();
+				return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+			}).sorted().toList();
+		}
+		long expected = -1;
+		boolean torn = false;
+		for (Path path : files) {
+			long first = Long.parseLong(path.getFileName().toString()
+				.substring(SEGMENT_PREFIX.length(), path.getFileName().toString().length() - SEGMENT_SUFFIX.length()));
+			if (torn || (expected >= 0 && first != expected)) {
+				torn = true;
+				Files.delete(path);
+				continue;
+			}
+			Segment segment = new Segment(path, first, segmentBytes);
+			int offset = 0;
+			long sequence = first;
+			while (true) {
+				if (offset + HEADER_BYTES > segment.buffer.capacity()) {
+					break;
+				}
+				int length = segment.buffer.getInt(offset);
+				if (length == 0 && segment.buffer.getLong(offset + 8) == 0) {
+					break;
+				}
+				if (length < 0 || offset + HEADER_BYTES + (long) length > segment.buffer.capacity()
+					|| segment.buffer.getLong(offset + 8) != sequence
+					|| segment.buffer.getInt(offset + 4) != crc(segment.buffer, offset, length, sequence)) {
+					torn = true;
+					break;
+				}
+				segment.addOffset(offset);
+				offset += HEADER_BYTES + length;
+				sequence++;
+			}
+			if (torn) {
+				byte[] zeros = new byte[8192];
+				for (int i = offset; i < segment.buffer.capacity(); i += zeros.length) {
+					segment.buffer.put(i, zeros, 0, Math.min(zeros.length, segment.buffer.capacity() - i));
+				}
+				segment.buffer.force();
+			}
+			segment.position = offset;
+			expected = sequence;
+			segments.put(first, segment);
+		}
+		// Segments the checkpoint already covers are never read again
+		while (!segments.isEmpty() && segments.firstEntry().getValue().lastSequence() <= checkpoint) {
+			Segment obsolete = segments.pollFirstEntry().getValue();
+			obsolete.close();
+			Files.delete(obsolete.path);
+		}
+		current = segments.isEmpty() ? null : segments.lastEntry().getValue();
+		nextSequence = current != null ? current.lastSequence() + 1 : checkpoint + 1;
+	}
+
+	private static int crc(MappedByteBuffer buffer, int offset, int length, long sequence) {
+		CRC32C crc = new CRC32C();
+		crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+		crc.update(buffer.slice(offset + HEADER_BYTES, length));
+		return (int) crc.getValue();
+	}
+
+	private long readCheckpoint() throws IOException {
+		Path path = directory.resolve(CHECKPOINT);
+		if (!Files.exists(path)) {
+			return 0;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+		if (buffer.remaining() != 12) {
+			throw new IOException("Corrupt spool checkpoint in " + path);
+		}
+		long sequence = buffer.getLong();
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.array(), 0, Long.BYTES);
+		if (buffer.getInt() != (int) crc.getValue()) {
+			throw new IOException("Corrupt spool checkpoint in " + path);
+		}
+		return sequence;
+	}
+
+	private void writeCheckpoint(long sequence) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(12).putLong(sequence);
+		CRC32C crc = new CRC32C();
+		crc.update(buffer.array(), 0, Long.BYTES);
+		buffer.putInt((int) crc.getValue()).flip();
+		Path tmp = directory.resolve(CHECKPOINT + ".tmp");
+		try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.write(buffer);
+			channel.force(true);
+		}
+		try {
+			Files.move(tmp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static String segmentName(long firstSequence) {
+		return SEGMENT_PREFIX + String.format("%020d", firstSequence) + SEGMENT_SUFFIX;
+	}
+}
@@ -0,0 +1,209 @@
+package com.cop.common.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two nodes sharing one transport. The entity listener runs while the commit flushes, after
+ * {@code beforeCommit}, which is where Hibernate calls {@code @PostUpdate} and {@code @PostRemove}.
+ */
+class CacheInvalidationBusTest {
+
+	@Test
+	void updateFlushedAtCommitEvictsTheRemoteEntry() {
+		NotifyLikeTransport transport = new NotifyLikeTransport();
+		CacheManager local = cachedReport();
+		CacheManager remote = cachedReport();
+		CacheInvalidationBus bus = new CacheInvalidationBus(transport, local, List.of(), "local");
+		new CacheInvalidationBus(transport, remote, List.of(), "remote");
+		FlushingTransactionManager transactionManager = new FlushingTransactionManager(transport);
+		transactionManager.flush = () -> listener(bus).onChange(new Report(42L));
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+		});
+
+		assertThat(remote.getCache("Report").get("42")).isNull();
+		assertThat(local.getCache("Report").get("42")).isNull();
+	}
+
+	@Test
+	void rolledBackChangeIsNotPublished() {
+		NotifyLikeTransport transport = new NotifyLikeTransport();
+		CacheManager remote = cachedReport();
+		CacheInvalidationBus bus = new CacheInvalidationBus(transport, cachedReport(), List.of(), "local");
+		new CacheInvalidationBus(transport, remote, List.of(), "remote");
+
+		new TransactionTemplate(new FlushingTransactionManager(transport)).executeWithoutResult(status -> {
+			bus.invalidate("Report", 42L);
+			status.setRollbackOnly();
+		});
+
+		assertThat(remote.getCache("Report").get("42")).isNotNull();
+	}
+
+	@Test
+	void changesMadeInTheTransactionAreSentOnce() {
+		NotifyLikeTransport transport = new NotifyLikeTransport();
+		CacheInvalidationBus bus = new CacheInvalidationBus(transport, cachedReport(), List.of(), "local");
+		FlushingTransactionManager transactionManager = new FlushingTransactionManager(transport);
+		transactionManager.flush = () -> bus.invalidate("Report", 42L);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			bus.invalidate("Report", 42L);
+			bus.invalidate("Report", 43L);
+		});
+
+		assertThat(transport.delivered).extracting(InvalidationMessage::key).containsExactly("42", "43");
+	}
+
+	@Test
+	@EnabledIfEnvironmentVariable(named = "COP_TEST_DATABASE_URL", matches = ".+")
+	void postgresNotifiesTheOtherNodeOfAnUpdateFlushedAtCommit() throws InterruptedException {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getenv("COP_TEST_DATABASE_URL"),
+			System.getenv().getOrDefault("COP_TEST_DATABASE_USER", "postgres"), System.getenv().getOrDefault("COP_TEST_DATABASE_PASSWORD", ""));
+		PostgresInvalidationTransport sender = new PostgresInvalidationTransport(dataSource, "cache_invalidation_test");
+		PostgresInvalidationTransport receiver = new PostgresInvalidationTransport(dataSource, "cache_invalidation_test");
+		CacheManager remote = cachedReport();
+		CacheInvalidationBus bus = new CacheInvalidationBus(sender, cachedReport(), List.of(), "local");
+		new CacheInvalidationBus(receiver, remote, List.of(), "remote");
+		receiver.start();
+		try {
+			// Let the listener connection reach LISTEN before anything is sent
+			Thread.sleep(500);
+			DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource) {
+				@Override
+				protected void doCommit(DefaultTransactionStatus status) {
+					listener(bus).onChange(new Report(42L));
+					super.doCommit(status);
+				}
+			};
+
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			});
+
+			for (int i = 0; i < 50 && remote.getCache("Report").get("42") != null; i++) {
+				Thread.sleep(100);
+			}
+			assertThat(remote.getCache("Report").get("42")).isNull();
+		} finally {
+			receiver.stop();
+		}
+	}
+
+	private static CacheManager cachedReport() {
+		CacheManager cacheManager = new ConcurrentMapCacheManager("Report");
+		cacheManager.getCache("Report").put("42", "report 42");
+		return cacheManager;
+	}
+
+	private static CacheInvalidationEntityListener listener(CacheInvalidationBus bus) {
+		PersistenceUnitUtil util = mock(PersistenceUnitUtil.class);
+		when(util.getIdentifier(any())).thenAnswer(invocation -> ((Report) invocation.getArgument(0)).id());
+		EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+		when(entityManagerFactory.getPersistenceUnitUtil()).thenReturn(util);
+		StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("bus", bus, "entityManagerFactory", entityManagerFactory));
+		return new CacheInvalidationEntityListener(beans.getBeanProvider(CacheInvalidationBus.class), beans.getBeanProvider(EntityManagerFactory.class));
+	}
+
+	record Report(Long id) {
+	}
+
+	/** Like NOTIFY: what is published inside a transaction is delivered when it commits, if it does. */
+	private static final class NotifyLikeTransport implements InvalidationTransport {
+		private final List<Consumer<InvalidationMessage>> handlers = new CopyOnWriteArrayList<>();
+		private final List<InvalidationMessage> buffered = new ArrayList<>();
+		private final List<InvalidationMessage> delivered = new ArrayList<>();
+		private boolean inTransaction;
+
+		@Override
+		public void publish(InvalidationMessage message) {
+			if (inTransaction) {
+				buffered.add(message);
+			} else {
+				deliver(message);
+			}
+		}
+
+		@Override
+		public void publishDetached(List<InvalidationMessage> messages) {
+			messages.forEach(this::deliver);
+		}
+
+		@Override
+		public void subscribe(Consumer<InvalidationMessage> handler) {
+			handlers.add(handler);
+		}
+
+		@Override
+		public boolean transactional() {
+			return true;
+		}
+
+		void end(boolean committed) {
+			inTransaction = false;
+			if (committed) {
+				buffered.forEach(this::deliver);
+			}
+			buffered.clear();
+		}
+
+		private void deliver(InvalidationMessage message) {
+			delivered.add(message);
+			handlers.forEach(handler -> handler.accept(message));
+		}
+	}
+
+	/** Runs {@link #flush} inside the commit, after the synchronizations' {@code beforeCommit}. */
+	private static final class FlushingTransactionManager extends AbstractPlatformTransactionManager {
+		private final NotifyLikeTransport transport;
+		Runnable flush = () -> {
+		};
+
+		FlushingTransactionManager(NotifyLikeTransport transport) {
+			this.transport = transport;
+		}
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			transport.inTransaction = true;
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+			flush.run();
+			transport.end(true);
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+			transport.end(false);
+		}
+	}
+}
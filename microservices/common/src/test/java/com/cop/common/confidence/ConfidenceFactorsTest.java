@@ -0,0 +1,113 @@
+package com.cop.common.confidence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ConfidenceFactorsTest {
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void noSourcesScoresThePrior() {
+		ConfidenceFactors factors = new ConfidenceFactors(0.2);
+		assertThat(factors.score()).isCloseTo(0.2, within(1e-9));
+		assertThat(factors.evidence()).isZero();
+	}
+
+	@Test
+	void correlatedSourcesCountSublinearly() {
+		double e = ConfidenceFactors.evidence(0.8, 0.9, 1.0);
+		ConfidenceFactors independent = new ConfidenceFactors(0.2);
+		independent.put("1", "analyst:1", e);
+		independent.put("2", "analyst:2", e);
+		ConfidenceFactors correlated = new ConfidenceFactors(0.2);
+		correlated.put("1", "analyst:1", e);
+		correlated.put("2", "analyst:1", e);
+
+		assertThat(independent.evidence()).isCloseTo(2 * e, within(1e-9));
+		assertThat(correlated.evidence()).isCloseTo(2 * e / Math.sqrt(2), within(1e-9));
+		assertThat(correlated.score()).isLessThan(independent.score());
+	}
+
+	@Test
+	void putReplacesAndRemoveRestores() {
+		ConfidenceFactors factors = new ConfidenceFactors(0.2);
+		factors.put("1", "analyst:1", 1.5);
+		factors.put("2", "analyst:1", 0.5);
+		factors.put("2", "analyst:2", 0.5);
+		assertThat(factors.evidence()).isCloseTo(2.0, within(1e-9));
+		assertThat(factors.groupOf("2")).isEqualTo("analyst:2");
+
+		assertThat(factors.remove("2")).isTrue();
+		assertThat(factors.remove("2")).isFalse();
+		factors.remove("1");
+		assertThat(factors.sourceCount()).isZero();
+		assertThat(factors.evidence()).isCloseTo(0, within(1e-9));
+	}
+
+	@Test
+	void weightsFollowReviewStatus() {
+		assertThat(ConfidenceFactors.statusWeight("APPROVED")).isEqualTo(1.0);
+		assertThat(ConfidenceFactors.statusWeight("rejected")).isZero();
+		assertThat(ConfidenceFactors.statusWeight(null)).isEqualTo(ConfidenceFactors.PENDING_WEIGHT);
+		assertThat(ConfidenceFactors.typeReliability("sigint")).isEqualTo(0.8);
+		assertThat(ConfidenceFactors.typeReliability("OSINT")).isEqualTo(ConfidenceFactors.DEFAULT_RELIABILITY);
+		// Certain inputs are clamped rather than producing infinite evidence
+		assertThat(ConfidenceFactors.evidence(1.0, 1.0, 1.0)).isFinite();
+	}
+
+	@Test
+	void storedFactorsMatchInMemoryOnes() {
+		ConfidenceFactors expected = new ConfidenceFactors(0.3);
+		ObjectNode root = objectMapper.createObjectNode();
+		StoredConfidenceFactors stored = StoredConfidenceFactors.in(root);
+		for (int i = 0; i < 10; i++) {
+			double e = ConfidenceFactors.evidence(0.7, 0.4 + i * 0.05, i % 3 == 0 ? 0.5 : 1.0);
+			expected.put(String.valueOf(i), "analyst:" + i % 3, e);
+			stored.put(String.valueOf(i), "analyst:" + i % 3, e);
+		}
+		expected.put("4", "analyst:9", 0.25);
+		stored.put("4", "analyst:9", 0.25);
+		expected.remove("7");
+		stored.remove("7");
+
+		assertThat(stored.score(0.3)).isCloseTo(expected.score(), within(1e-9));
+		assertThat(stored.groupOf("4")).isEqualTo("analyst:9");
+
+		// Reopening the written JSON carries on from the stored running total
+		ObjectNode reread = (ObjectNode) objectMapper.valueToTree(root);
+		StoredConfidenceFactors reopened = StoredConfidenceFactors.in(reread);
+		assertThat(reopened.evidence()).isCloseTo(expected.evidence(), within(1e-9));
+		expected.remove("0");
+		reopened.remove("0");
+		assertThat(reopened.score(0.3)).isCloseTo(expected.score(), within(1e-9));
+	}
+
+	@Test
+	void storedScoreUsesThePriorGivenAtEvaluation() {
+		ObjectNode root = objectMapper.createObjectNode();
+		StoredConfidenceFactors stored = StoredConfidenceFactors.in(root);
+		stored.put("1", "analyst:1", 1.0);
+		stored.score(0.2);
+
+		double later = StoredConfidenceFactors.in(root).score(0.5);
+		assertThat(later).isCloseTo(ConfidenceFactors.score(0.5, 1.0), within(1e-9));
+		assertThat(root.path(ConfidenceFactors.JSON_KEY).path("prior").asDouble()).isEqualTo(0.5);
+	}
+
+	@Test
+	void emptiedGroupsAreDropped() {
+		ObjectNode root = objectMapper.createObjectNode();
+		StoredConfidenceFactors stored = StoredConfidenceFactors.in(root);
+		stored.put("1", "analyst:1", 1.0);
+		stored.remove("1");
+		stored.score(0.2);
+
+		assertThat(root.path(ConfidenceFactors.JSON_KEY).path("groups").size()).isZero();
+		assertThat(root.path(ConfidenceFactors.JSON_KEY).path("sources").size()).isZero();
+		assertThat(stored.evidence()).isCloseTo(0, within(1e-9));
+	}
+}
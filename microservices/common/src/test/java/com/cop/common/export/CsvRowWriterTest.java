@@ -0,0 +1,98 @@
+package com.cop.common.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvRowWriterTest {
+	private static final List<ExportColumn> COLUMNS = List.of(
+		ExportColumn.string("id"),
+		ExportColumn.string("title"),
+		ExportColumn.int64("count"),
+		ExportColumn.float64("lat"),
+		ExportColumn.timestamp("time"));
+
+	@Test
+	void headerAndRowsRoundTrip() throws Exception {
+		String csv = write(List.of(
+			new Object[]{"r1", "Convoy north", 6L, 50.45, OffsetDateTime.parse("2026-01-01T02:00:00+02:00")},
+			new Object[]{"r2", "Checkpoint", 0L, -0.5, OffsetDateTime.parse("2026-01-01T00:00:00Z")}));
+
+		assertThat(csv).endsWith("\r\n");
+		assertThat(parse(csv)).containsExactly(
+			List.of("id", "title", "count", "lat", "time"),
+			List.of("r1", "Convoy north", "6", "50.45", "2026-01-01T00:00Z"),
+			List.of("r2", "Checkpoint", "0", "-0.5", "2026-01-01T00:00Z"));
+	}
+
+	@Test
+	void fieldsWithSeparatorsQuotesAndLineBreaksAreQuoted() throws Exception {
+		String title = "Trucks, \"six\"\r\nheading north";
+		String csv = write(List.<Object[]>of(new Object[]{"r1", title, 1L, 1.0, null}));
+
+		assertThat(csv).contains("\"Trucks, \"\"six\"\"\r\nheading north\"");
+		assertThat(parse(csv).get(1).get(1)).isEqualTo(title);
+	}
+
+	@Test
+	void nullsAreEmptyFields() throws Exception {
+		String csv = write(List.<Object[]>of(new Object[]{"r1", null, null, null, null}));
+
+		assertThat(csv.split("\r\n")[1]).isEqualTo("r1,,,,");
+	}
+
+	private static String write(List<Object[]> rows) throws IOException, SQLException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CsvRowWriter writer = new CsvRowWriter(out, COLUMNS);
+		ResultSet rs = Rows.of(rows);
+		while (rs.next()) {
+			writer.row(rs);
+		}
+		writer.finish();
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	/** Reads RFC 4180 back into records of fields. */
+	private static List<List<String>> parse(String csv) {
+		List<List<String>> records = new ArrayList<>();
+		List<String> record = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < csv.length(); i++) {
+			char c = csv.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				record.add(field.toString());
+				field.setLength(0);
+			} else if (c == '\r' && csv.charAt(i + 1) == '\n') {
+				record.add(field.toString());
+				field.setLength(0);
+				records.add(record);
+				record = new ArrayList<>();
+				i++;
+			} else {
+				field.append(c);
+			}
+		}
+		return records;
+	}
+}
@@ -0,0 +1,79 @@
+package com.cop.common.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoJsonRowWriterTest {
+	private static final List<ExportColumn> COLUMNS = List.of(
+		ExportColumn.string("id"),
+		ExportColumn.string("title"),
+		ExportColumn.float64("lat"),
+		ExportColumn.float64("lon"),
+		ExportColumn.int64("count"),
+		ExportColumn.timestamp("time"),
+		ExportColumn.json("content"));
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Test
+	void rowsBecomeFeaturesWithPointGeometry() throws Exception {
+		JsonNode collection = write(List.<Object[]>of(
+			new Object[]{"r1", "Convoy", 50.45, 30.52, 6L, OffsetDateTime.parse("2026-01-01T02:00:00+02:00"), "{\"source\":\"patrol\",\"n\":[1,2]}"}));
+
+		assertThat(collection.get("type").asText()).isEqualTo("FeatureCollection");
+		JsonNode feature = collection.get("features").get(0);
+		assertThat(feature.get("id").asText()).isEqualTo("r1");
+		assertThat(feature.at("/geometry/type").asText()).isEqualTo("Point");
+		assertThat(feature.at("/geometry/coordinates/0").asDouble()).isEqualTo(30.52);
+		assertThat(feature.at("/geometry/coordinates/1").asDouble()).isEqualTo(50.45);
+		JsonNode properties = feature.get("properties");
+		assertThat(properties.fieldNames()).toIterable().containsExactly("title", "count", "time", "content");
+		assertThat(properties.get("count").asLong()).isEqualTo(6);
+		assertThat(properties.get("time").asText()).isEqualTo("2026-01-01T00:00Z");
+		assertThat(properties.get("content")).isEqualTo(MAPPER.readTree("{\"source\":\"patrol\",\"n\":[1,2]}"));
+	}
+
+	@Test
+	void missingCoordinateGivesNullGeometryAndNullsStayNull() throws Exception {
+		JsonNode feature = write(List.<Object[]>of(new Object[]{"r1", null, 50.45, null, null, null, null})).get("features").get(0);
+
+		assertThat(feature.get("geometry").isNull()).isTrue();
+		assertThat(feature.at("/properties/title").isNull()).isTrue();
+		assertThat(feature.at("/properties/count").isNull()).isTrue();
+		assertThat(feature.at("/properties/content").isNull()).isTrue();
+	}
+
+	@Test
+	void stringsAreEscaped() throws Exception {
+		String title = "\"Quoted\", back\\slash,\nnew line and \u0001 control";
+		JsonNode feature = write(List.<Object[]>of(new Object[]{"r\"1", title, 0.0, 0.0, 1L, null, null})).get("features").get(0);
+
+		assertThat(feature.get("id").asText()).isEqualTo("r\"1");
+		assertThat(feature.at("/properties/title").asText()).isEqualTo(title);
+	}
+
+	@Test
+	void emptyResultIsAnEmptyCollection() throws Exception {
+		assertThat(write(List.of()).get("features")).isEmpty();
+	}
+
+	private static JsonNode write(List<Object[]> rows) throws IOException, SQLException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GeoJsonRowWriter writer = new GeoJsonRowWriter(out, COLUMNS);
+		ResultSet rs = Rows.of(rows);
+		while (rs.next()) {
+			writer.row(rs);
+		}
+		writer.finish();
+		return MAPPER.readTree(out.toByteArray());
+	}
+}
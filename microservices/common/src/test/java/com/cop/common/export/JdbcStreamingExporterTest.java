@@ -0,0 +1,66 @@
+package com.cop.common.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledIfEnvironmentVariable(named = "COP_TEST_DATABASE_URL", matches = ".+")
+class JdbcStreamingExporterTest {
+	private static final String SQL = "SELECT id, title, time FROM (VALUES " +
+		"('r1', 'open', TIMESTAMPTZ '2026-01-01 00:00:00+00', 'UNCLASSIFIED'), " +
+		"('r2', 'secret, \"quoted\"', TIMESTAMPTZ '2026-01-02 00:00:00+00', 'SECRET'), " +
+		"('r3', 'top', TIMESTAMPTZ '2026-01-03 00:00:00+00', 'TOP_SECRET')) AS r(id, title, time, classification) " +
+		"WHERE classification = ANY(?) ORDER BY id";
+	private static final List<ExportColumn> COLUMNS = List.of(
+		ExportColumn.string("id"), ExportColumn.string("title"), ExportColumn.timestamp("time"));
+
+	@Test
+	void streamsOnlyRowsMatchingTheLabelArray() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long rows = exporter(dataSource(), 1).export(
+			new ExportQuery(SQL, labels("UNCLASSIFIED", "SECRET"), COLUMNS), ExportFormat.CSV, out);
+
+		assertThat(rows).isEqualTo(2);
+		assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("id,title,time\r\n" +
+			"r1,open,2026-01-01T00:00Z\r\n" +
+			"r2,\"secret, \"\"quoted\"\"\",2026-01-02T00:00Z\r\n");
+	}
+
+	@Test
+	void connectionIsHandedBackAsItWasLent() throws Exception {
+		SingleConnectionDataSource dataSource = new SingleConnectionDataSource(dataSource().getConnection(), true);
+		try {
+			exporter(dataSource, 2).export(new ExportQuery(SQL, labels("TOP_SECRET"), COLUMNS),
+				ExportFormat.GEOJSON, new ByteArrayOutputStream());
+
+			Connection connection = dataSource.getConnection();
+			assertThat(connection.getAutoCommit()).isTrue();
+			assertThat(connection.isReadOnly()).isFalse();
+		} finally {
+			dataSource.destroy();
+		}
+	}
+
+	private static List<Object> labels(String... labels) {
+		// Bound as one text array, not spread as separate arguments
+		return List.of((Object) labels);
+	}
+
+	private static JdbcStreamingExporter exporter(DataSource dataSource, int fetchSize) {
+		return new JdbcStreamingExporter(dataSource, fetchSize, 1024 * 1024);
+	}
+
+	private static DriverManagerDataSource dataSource() {
+		return new DriverManagerDataSource(System.getenv("COP_TEST_DATABASE_URL"),
+			System.getenv().getOrDefault("COP_TEST_DATABASE_USER", "postgres"), System.getenv().getOrDefault("COP_TEST_DATABASE_PASSWORD", ""));
+	}
+}
@@ -0,0 +1,129 @@
+package com.cop.common.export;
+
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.convert.GroupRecordConverter;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.DelegatingSeekableInputStream;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.io.SeekableInputStream;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParquetRowWriterTest {
+	private static final List<ExportColumn> COLUMNS = List.of(
+		ExportColumn.string("id"),
+		ExportColumn.int64("count"),
+		ExportColumn.float64("lat"),
+		ExportColumn.timestamp("time"),
+		ExportColumn.json("content"));
+
+	@Test
+	void rowsRoundTripWithTypedColumns() throws Exception {
+		byte[] file = write(List.of(
+			new Object[]{"r1, \"quoted\"", 6L, 50.45, OffsetDateTime.parse("2026-01-01T02:00:00.000123+02:00"), "{\"a\":1}"},
+			new Object[]{"r2", null, null, null, null}), 1024 * 1024);
+
+		MessageType schema;
+		try (ParquetFileReader reader = ParquetFileReader.open(new BytesInputFile(file))) {
+			schema = reader.getFooter().getFileMetaData().getSchema();
+		}
+		assertThat(schema.getType("time").getLogicalTypeAnnotation())
+			.isEqualTo(LogicalTypeAnnotation.timestampType(true, LogicalTypeAnnotation.TimeUnit.MICROS));
+		assertThat(schema.getType("content").getLogicalTypeAnnotation()).isEqualTo(LogicalTypeAnnotation.jsonType());
+
+		List<Group> groups = read(file);
+		assertThat(groups).hasSize(2);
+		Group first = groups.get(0);
+		assertThat(first.getString("id", 0)).isEqualTo("r1, \"quoted\"");
+		assertThat(first.getLong("count", 0)).isEqualTo(6);
+		assertThat(first.getDouble("lat", 0)).isEqualTo(50.45);
+		assertThat(first.getLong("time", 0)).isEqualTo(OffsetDateTime.parse("2026-01-01T00:00:00.000123Z").toEpochSecond() * 1_000_000 + 123);
+		assertThat(first.getString("content", 0)).isEqualTo("{\"a\":1}");
+		Group second = groups.get(1);
+		for (ExportColumn column : COLUMNS.subList(1, COLUMNS.size())) {
+			assertThat(second.getFieldRepetitionCount(column.name())).as(column.name()).isZero();
+		}
+	}
+
+	@Test
+	void smallRowGroupsSplitTheFileWithoutLosingRows() throws Exception {
+		List<Object[]> rows = new ArrayList<>();
+		for (long i = 0; i < 20_000; i++) {
+			rows.add(new Object[]{"r" + i, i, i / 100.0, null, null});
+		}
+		byte[] file = write(rows, 64 * 1024);
+
+		try (ParquetFileReader reader = ParquetFileReader.open(new BytesInputFile(file))) {
+			assertThat(reader.getRowGroups()).hasSizeGreaterThan(1);
+		}
+		List<Group> groups = read(file);
+		assertThat(groups).hasSize(20_000);
+		assertThat(groups.get(19_999).getLong("count", 0)).isEqualTo(19_999);
+	}
+
+	private static byte[] write(List<Object[]> rows, long rowGroupBytes) throws IOException, SQLException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ParquetRowWriter writer = new ParquetRowWriter(out, COLUMNS, rowGroupBytes);
+		ResultSet rs = Rows.of(rows);
+		while (rs.next()) {
+			writer.row(rs);
+		}
+		writer.finish();
+		return out.toByteArray();
+	}
+
+	private static List<Group> read(byte[] file) throws IOException {
+		List<Group> groups = new ArrayList<>();
+		try (ParquetFileReader reader = ParquetFileReader.open(new BytesInputFile(file))) {
+			MessageType schema = reader.getFooter().getFileMetaData().getSchema();
+			PageReadStore pages;
+			while ((pages = reader.readNextRowGroup()) != null) {
+				RecordReader<Group> records = new ColumnIOFactory().getColumnIO(schema)
+					.getRecordReader(pages, new GroupRecordConverter(schema));
+				for (long i = 0; i < pages.getRowCount(); i++) {
+					groups.add(records.read());
+				}
+			}
+		}
+		return groups;
+	}
+
+	private record BytesInputFile(byte[] bytes) implements InputFile {
+		@Override
+		public long getLength() {
+			return bytes.length;
+		}
+
+		@Override
+		public SeekableInputStream newStream() {
+			ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+			return new DelegatingSeekableInputStream(in) {
+				@Override
+				public long getPos() {
+					return bytes.length - in.available();
+				}
+
+				@Override
+				public void seek(long position) {
+					in.reset();
+					in.skip(position);
+				}
+			};
+		}
+	}
+}
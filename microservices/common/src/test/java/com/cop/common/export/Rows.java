@@ -0,0 +1,41 @@
+package com.cop.common.export;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/** A forward-only {@link ResultSet} over rows of plain values, answering what the row writers call. */
+final class Rows {
+	private Rows() {
+	}
+
+	static ResultSet of(List<Object[]> rows) {
+		int[] cursor = {-1};
+		boolean[] wasNull = {false};
+		return (ResultSet) Proxy.newProxyInstance(Rows.class.getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "next" -> {
+					return ++cursor[0] < rows.size();
+				}
+				case "wasNull" -> {
+					return wasNull[0];
+				}
+				case "close" -> {
+					return null;
+				}
+				default -> {
+				}
+			}
+			Object value = rows.get(cursor[0])[(Integer) args[0] - 1];
+			wasNull[0] = value == null;
+			return switch (method.getName()) {
+				case "getString" -> value == null ? null : value.toString();
+				case "getLong" -> value == null ? 0L : ((Number) value).longValue();
+				case "getDouble" -> value == null ? 0.0 : ((Number) value).doubleValue();
+				case "getObject" -> (OffsetDateTime) value;
+				default -> throw new UnsupportedOperationException(method.getName());
+			};
+		});
+	}
+}
@@ -0,0 +1,123 @@
+package com.cop.common.geo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.io.WKTReader;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeoJsonSerializerTest {
+	private final GeometryFactory factory = new GeometryFactory(new PrecisionModel(), GeoJsonModule.WGS84_SRID);
+	private final WKTReader wkt = new WKTReader(factory);
+	private final ObjectMapper mapper = new ObjectMapper().registerModule(new GeoJsonModule());
+
+	@Test
+	void writesEveryGeometryType() throws Exception {
+		assertThat(json("POINT (30.5 50.25)")).isEqualTo("{\"type\":\"Point\",\"coordinates\":[30.5,50.25]}");
+		assertThat(json("LINESTRING (0 0, 1 1)")).isEqualTo("{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]}");
+		assertThat(json("POLYGON ((0 0, 4 0, 4 4, 0 0), (1 1, 2 1, 2 2, 1 1))")).isEqualTo(
+			"{\"type\":\"Polygon\",\"coordinates\":[[[0,0],[4,0],[4,4],[0,0]],[[1,1],[2,1],[2,2],[1,1]]]}");
+		assertThat(json("MULTIPOINT ((1 2), (3 4))")).isEqualTo("{\"type\":\"MultiPoint\",\"coordinates\":[[1,2],[3,4]]}");
+		assertThat(json("MULTILINESTRING ((0 0, 1 1), (2 2, 3 3))")).isEqualTo(
+			"{\"type\":\"MultiLineString\",\"coordinates\":[[[0,0],[1,1]],[[2,2],[3,3]]]}");
+		assertThat(json("MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))")).isEqualTo(
+			"{\"type\":\"MultiPolygon\",\"coordinates\":[[[[0,0],[1,0],[1,1],[0,0]]],[[[5,5],[6,5],[6,6],[5,5]]]]}");
+		assertThat(json("GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1))")).isEqualTo(
+			"{\"type\":\"GeometryCollection\",\"geometries\":[{\"type\":\"Point\",\"coordinates\":[1,2]},"
+				+ "{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]}]}");
+	}
+
+	@Test
+	void linearRingIsWrittenAsLineString() throws Exception {
+		LinearRing ring = factory.createLinearRing(new Coordinate[] {
+			new Coordinate(0, 0), new Coordinate(1, 0), new Coordinate(1, 1), new Coordinate(0, 0)});
+		assertThat(mapper.writeValueAsString(ring)).startsWith("{\"type\":\"LineString\"");
+	}
+
+	@Test
+	void emptyGeometriesHaveEmptyCoordinates() throws Exception {
+		assertThat(json("POINT EMPTY")).isEqualTo("{\"type\":\"Point\",\"coordinates\":[]}");
+		assertThat(json("LINESTRING EMPTY")).isEqualTo("{\"type\":\"LineString\",\"coordinates\":[]}");
+		assertThat(json("POLYGON EMPTY")).isEqualTo("{\"type\":\"Polygon\",\"coordinates\":[]}");
+		assertThat(json("GEOMETRYCOLLECTION EMPTY")).isEqualTo("{\"type\":\"GeometryCollection\",\"geometries\":[]}");
+		// An empty member of a multi-point has no position to write
+		assertThat(json("MULTIPOINT ((1 2), EMPTY)")).isEqualTo("{\"type\":\"MultiPoint\",\"coordinates\":[[1,2]]}");
+	}
+
+	@Test
+	void zIsWrittenOnlyWhenPresent() throws Exception {
+		assertThat(json("POINT Z (1 2 3)")).isEqualTo("{\"type\":\"Point\",\"coordinates\":[1,2,3]}");
+		Point noZ = factory.createPoint(new Coordinate(1, 2));
+		assertThat(mapper.writeValueAsString(noZ)).isEqualTo("{\"type\":\"Point\",\"coordinates\":[1,2]}");
+	}
+
+	@Test
+	void ordinatesAreRoundedToTheConfiguredDecimals() throws Exception {
+		Point point = factory.createPoint(new Coordinate(-0.123456789, 51.00000004));
+		assertThat(mapper.writeValueAsString(point)).isEqualTo("{\"type\":\"Point\",\"coordinates\":[-0.1234568,51]}");
+
+		ObjectMapper twoDecimals = new ObjectMapper().registerModule(new GeoJsonModule(2));
+		assertThat(twoDecimals.writeValueAsString(factory.createPoint(new Coordinate(179.999, -0.004))))
+			.isEqualTo("{\"type\":\"Point\",\"coordinates\":[180,0]}");
+		assertThat(twoDecimals.writeValueAsString(factory.createPoint(new Coordinate(-1.05, 0.5))))
+			.isEqualTo("{\"type\":\"Point\",\"coordinates\":[-1.05,0.5]}");
+
+		ObjectMapper noDecimals = new ObjectMapper().registerModule(new GeoJsonModule(0));
+		assertThat(noDecimals.writeValueAsString(factory.createPoint(new Coordinate(10.6, -10.4))))
+			.isEqualTo("{\"type\":\"Point\",\"coordinates\":[11,-10]}");
+	}
+
+	@Test
+	void negativeDecimalsKeepFullPrecision() throws Exception {
+		ObjectMapper full = new ObjectMapper().registerModule(new GeoJsonModule(-1));
+		assertThat(full.writeValueAsString(factory.createPoint(new Coordinate(0.1 + 0.2, 1e-9))))
+			.isEqualTo("{\"type\":\"Point\",\"coordinates\":[0.30000000000000004,1.0E-9]}");
+	}
+
+	@Test
+	void valuesTooLargeToScaleAreWrittenAsDoubles() throws Exception {
+		assertThat(mapper.writeValueAsString(factory.createPoint(new Coordinate(1e12, -2.5e15))))
+			.isEqualTo("{\"type\":\"Point\",\"coordinates\":[1.0E12,-2.5E15]}");
+	}
+
+	@Test
+	void tooManyDecimalsAreRefused() {
+		assertThatThrownBy(() -> new GeoJsonModule(16)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void geometryFieldsAreWrittenInline() throws Exception {
+		assertThat(mapper.writeValueAsString(Map.of("location", factory.createPoint(new Coordinate(1, 2)))))
+			.isEqualTo("{\"location\":{\"type\":\"Point\",\"coordinates\":[1,2]}}");
+	}
+
+	@Test
+	void writtenGeometriesReadBack() throws Exception {
+		for (String text : new String[] {
+			"POINT (30.5 50.25)",
+			"LINESTRING (0 0, 1.5 1, 2 -3)",
+			"POLYGON ((0 0, 4 0, 4 4, 0 0), (1 1, 2 1, 2 2, 1 1))",
+			"MULTIPOINT ((1 2), (3 4))",
+			"MULTILINESTRING ((0 0, 1 1), (2 2, 3 3))",
+			"MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))",
+			"GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1))"}) {
+			Geometry geometry = wkt.read(text);
+			Geometry read = mapper.readValue(mapper.writeValueAsString(geometry), Geometry.class);
+			assertThat(read.equalsExact(geometry)).as(text).isTrue();
+			assertThat(read.getSRID()).isEqualTo(GeoJsonModule.WGS84_SRID);
+		}
+	}
+
+	private String json(String text) throws Exception {
+		return mapper.writeValueAsString(wkt.read(text));
+	}
+}
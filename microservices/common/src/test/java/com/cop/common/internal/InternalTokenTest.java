@@ -0,0 +1,27 @@
+package com.cop.common.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InternalTokenTest {
+
+	@Test
+	void unsetSecretAcceptsNothing() {
+		InternalToken token = new InternalToken("");
+		assertThat(token.isConfigured()).isFalse();
+		assertThat(token.matches(null)).isFalse();
+		assertThat(token.matches("")).isFalse();
+		assertThat(token.matches("anything")).isFalse();
+		assertThat(new InternalToken(null).matches(null)).isFalse();
+	}
+
+	@Test
+	void configuredSecretAcceptsOnlyItself() {
+		InternalToken token = new InternalToken("s3cret");
+		assertThat(token.matches("s3cret")).isTrue();
+		assertThat(token.matches("s3cre")).isFalse();
+		assertThat(token.matches(null)).isFalse();
+		assertThat(token.matches("")).isFalse();
+	}
+}
@@ -0,0 +1,52 @@
+package com.cop.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClassificationLevelTest {
+
+	@Test
+	void readsNamesAndAbbreviationsInAnyCase() {
+		assertThat(ClassificationLevel.fromString("SECRET")).isEqualTo(ClassificationLevel.SECRET);
+		assertThat(ClassificationLevel.fromString("ts")).isEqualTo(ClassificationLevel.TOP_SECRET);
+		assertThat(ClassificationLevel.fromString("Confidential")).isEqualTo(ClassificationLevel.CONFIDENTIAL);
+	}
+
+	@Test
+	void unknownOrMissingIsRefused() {
+		assertThatThrownBy(() -> ClassificationLevel.fromString(null)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ClassificationLevel.fromString("RESTRICTED"))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("RESTRICTED");
+	}
+
+	@Test
+	void unreadableLabelIsHiddenFromEveryoneBelowTheTop() {
+		assertThat(ClassificationLevel.ofLabel(null)).isEqualTo(ClassificationLevel.TOP_SECRET);
+		assertThat(ClassificationLevel.ofLabel("SECERT")).isEqualTo(ClassificationLevel.TOP_SECRET);
+		assertThat(ClassificationLevel.ofLabel("U")).isEqualTo(ClassificationLevel.UNCLASSIFIED);
+	}
+
+	@Test
+	void unreadableClearanceReadsOnlyUnclassified() {
+		assertThat(ClassificationLevel.ofClearance(null)).isEqualTo(ClassificationLevel.UNCLASSIFIED);
+		assertThat(ClassificationLevel.ofClearance("ADMIN")).isEqualTo(ClassificationLevel.UNCLASSIFIED);
+		assertThat(ClassificationLevel.ofClearance("S")).isEqualTo(ClassificationLevel.SECRET);
+	}
+
+	@Test
+	void levelsAreTheOrderOfTheValues() {
+		// Arrays indexed by level rely on this
+		for (ClassificationLevel level : ClassificationLevel.values()) {
+			assertThat(level.getLevel()).isEqualTo(level.ordinal());
+		}
+	}
+
+	@Test
+	void readableLabelsStopAtTheClearance() {
+		assertThat(ClassificationLevel.CONFIDENTIAL.readableLabels())
+			.containsExactlyInAnyOrder("UNCLASSIFIED", "U", "CONFIDENTIAL", "C");
+	}
+}
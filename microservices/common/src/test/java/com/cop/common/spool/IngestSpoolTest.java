@@ -0,0 +1,202 @@
+package com.cop.common.spool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against the Postgres at {@code COP_TEST_DATABASE_URL}, in a schema of its own holding
+ * {@code ingest_spool_applied} as the changelog creates it and a {@code sightings} table the
+ * handler writes to.
+ */
+@EnabledIfEnvironmentVariable(named = "COP_TEST_DATABASE_URL", matches = ".+")
+class IngestSpoolTest {
+	private static final String SCHEMA = "ingest_spool_test";
+	private static final String SIGHTING = "SIGHTING";
+
+	@TempDir
+	Path directory;
+
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+	private SpoolLog spoolLog;
+	private final List<List<String>> applied = new ArrayList<>();
+	private final List<List<String>> committed = new ArrayList<>();
+
+	@BeforeEach
+	void createSchema() throws SQLException, IOException {
+		DriverManagerDataSource database = new DriverManagerDataSource(System.getenv("COP_TEST_DATABASE_URL"),
+			System.getenv().getOrDefault("COP_TEST_DATABASE_USER", "postgres"), System.getenv().getOrDefault("COP_TEST_DATABASE_PASSWORD", ""));
+		dataSource = new SingleConnectionDataSource(database.getConnection(), true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+		jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+		jdbcTemplate.execute("CREATE TABLE ingest_spool_applied (spool_key VARCHAR(64) PRIMARY KEY, kind VARCHAR(64) NOT NULL, " +
+			"applied_at TIMESTAMPTZ NOT NULL DEFAULT NOW(), error TEXT, body BYTEA)");
+		jdbcTemplate.execute("CREATE TABLE sightings (spool_key VARCHAR(64) PRIMARY KEY, vehicles INTEGER NOT NULL CHECK (vehicles >= 0))");
+		spoolLog = SpoolLog.open(directory, 64 * 1024, SpoolLog.Durability.NONE, 1000);
+	}
+
+	@AfterEach
+	void dropSchema() throws IOException {
+		spoolLog.close();
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+		dataSource.destroy();
+	}
+
+	@Test
+	void spooledRecordsAreAppliedInOneBatchAndCheckpointed() {
+		IngestSpool spool = spool();
+		spool.append(SIGHTING, "a", body(3));
+		spool.append(SIGHTING, "b", body(5));
+		assertThat(spool.active()).isTrue();
+
+		assertThat(spool.drainOnce()).isEqualTo(2);
+
+		assertThat(applied).containsExactly(List.of("a", "b"));
+		assertThat(committed).containsExactly(List.of("a", "b"));
+		assertThat(sightings()).containsExactly(Map.entry("a", 3), Map.entry("b", 5));
+		assertThat(spoolLog.checkpointSequence()).isEqualTo(2);
+		assertThat(spool.active()).isFalse();
+		assertThat(spool.drainOnce()).isZero();
+	}
+
+	@Test
+	void aBatchCommittedBeforeACrashIsNotAppliedAgain() throws IOException {
+		IngestSpool spool = spool();
+		spool.append(SIGHTING, "a", body(3));
+		spool.drainOnce();
+		// As if the process died between the commit and the checkpoint
+		spoolLog.close();
+		Files.delete(directory.resolve("checkpoint"));
+		spoolLog = SpoolLog.open(directory, 64 * 1024, SpoolLog.Durability.NONE, 1000);
+		applied.clear();
+		IngestSpool restarted = spool();
+		restarted.append(SIGHTING, "b", body(5));
+
+		assertThat(restarted.drainOnce()).isEqualTo(2);
+
+		assertThat(applied).containsExactly(List.of("b"));
+		assertThat(sightings()).containsExactly(Map.entry("a", 3), Map.entry("b", 5));
+	}
+
+	@Test
+	void aDirectWriteThatCommittedIsSkippedWhenItIsAlsoSpooled() {
+		IngestSpool spool = spool();
+		spool.write(SIGHTING, "a", () -> jdbcTemplate.update("INSERT INTO sightings VALUES ('a', 3)"));
+		// The caller could not tell whether the write committed
+		spool.append(SIGHTING, "a", body(3));
+
+		assertThat(spool.drainOnce()).isEqualTo(1);
+
+		assertThat(applied).isEmpty();
+		assertThat(sightings()).containsExactly(Map.entry("a", 3));
+	}
+
+	@Test
+	void aRejectedRecordIsQuarantinedAndTheRestOfTheBatchApplied() {
+		IngestSpool spool = spool();
+		spool.append(SIGHTING, "a", body(3));
+		spool.append(SIGHTING, "b", body(-1));
+		spool.append(SIGHTING, "c", body(5));
+
+		assertThat(spool.drainOnce()).isEqualTo(3);
+
+		// The whole batch, rolled back, then one record at a time
+		assertThat(applied).containsExactly(List.of("a", "b", "c"), List.of("a"), List.of("b"), List.of("c"));
+		assertThat(committed).containsExactly(List.of("a"), List.of("c"));
+		assertThat(sightings()).containsExactly(Map.entry("a", 3), Map.entry("c", 5));
+		Map<String, Object> quarantined = jdbcTemplate.queryForMap("SELECT error, body FROM ingest_spool_applied WHERE spool_key = 'b'");
+		assertThat((String) quarantined.get("error")).contains("sightings_vehicles_check");
+		assertThat((byte[]) quarantined.get("body")).isEqualTo(body(-1));
+		assertThat(spoolLog.checkpointSequence()).isEqualTo(3);
+	}
+
+	@Test
+	void aRecordOfAnUnknownKindIsQuarantinedWithoutStoppingTheSpool() {
+		IngestSpool spool = spool();
+		spool.append("RETIRED", "old", body(1));
+		spool.append(SIGHTING, "a", body(3));
+
+		assertThat(spool.drainOnce()).isEqualTo(2);
+
+		assertThat(sightings()).containsExactly(Map.entry("a", 3));
+		assertThat(jdbcTemplate.queryForObject("SELECT error FROM ingest_spool_applied WHERE spool_key = 'old'", String.class))
+			.isEqualTo("No spool handler registered for RETIRED");
+	}
+
+	@Test
+	void anUnavailableDatabaseLeavesTheCheckpointWhereItWas() {
+		IngestSpool spool = new IngestSpool(spoolLog, jdbcTemplate, transactionTemplate, settings());
+		spool.register(SIGHTING, entries -> {
+			throw new TransientDataAccessResourceException("connection refused");
+		});
+		spool.append(SIGHTING, "a", body(3));
+
+		assertThatThrownBy(spool::drainOnce).isInstanceOf(TransientDataAccessResourceException.class);
+
+		assertThat(spoolLog.checkpointSequence()).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM ingest_spool_applied", Integer.class)).isZero();
+	}
+
+	private IngestSpool spool() {
+		IngestSpool spool = new IngestSpool(spoolLog, jdbcTemplate, transactionTemplate, settings());
+		spool.register(SIGHTING, new IngestSpool.Handler() {
+			@Override
+			public void apply(List<IngestSpool.Entry> entries) {
+				applied.add(keys(entries));
+				for (IngestSpool.Entry entry : entries) {
+					jdbcTemplate.update("INSERT INTO sightings VALUES (?, ?)", entry.key(),
+						Integer.parseInt(new String(entry.body(), StandardCharsets.UTF_8)));
+				}
+			}
+
+			@Override
+			public void afterCommit(List<IngestSpool.Entry> entries) {
+				committed.add(keys(entries));
+			}
+		});
+		return spool;
+	}
+
+	private static IngestSpool.Settings settings() {
+		return new IngestSpool.Settings(100, Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofDays(1));
+	}
+
+	private List<Map.Entry<String, Integer>> sightings() {
+		return jdbcTemplate.query("SELECT spool_key, vehicles FROM sightings ORDER BY spool_key",
+			(rs, i) -> Map.entry(rs.getString("spool_key"), rs.getInt("vehicles")));
+	}
+
+	private static List<String> keys(List<IngestSpool.Entry> entries) {
+		return entries.stream().map(IngestSpool.Entry::key).toList();
+	}
+
+	private static byte[] body(int vehicles) {
+		return String.valueOf(vehicles).getBytes(StandardCharsets.UTF_8);
+	}
+}
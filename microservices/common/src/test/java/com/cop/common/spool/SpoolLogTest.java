@@ -0,0 +1,173 @@
+package com.cop.common.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Records here are {@value #PAYLOAD_BYTES} bytes, so eight fit in a segment of the minimum size.
+ */
+class SpoolLogTest {
+	private static final int SEGMENT_BYTES = SpoolLog.HEADER_BYTES * 64;
+	private static final int PAYLOAD_BYTES = 100;
+	private static final int FRAME_BYTES = SpoolLog.HEADER_BYTES + PAYLOAD_BYTES;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recordsAreReadBackInOrderAfterAReopen() throws IOException {
+		try (SpoolLog log = open(SpoolLog.Durability.SYNC)) {
+			assertThat(append(log, 3)).containsExactly(1L, 2L, 3L);
+			assertThat(texts(log.read(2, 10))).containsExactly("record 2", "record 3");
+		}
+
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			assertThat(texts(log.read(1, 10))).containsExactly("record 1", "record 2", "record 3");
+			assertThat(log.append(payload("record 4"))).isEqualTo(4);
+		}
+	}
+
+	@Test
+	void aTornTailIsCutOffOnRecovery() throws IOException {
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			append(log, 3);
+		}
+		// A fourth header written without its checksum or the end of its payload
+		try (FileChannel segment = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+			segment.write(ByteBuffer.allocate(SpoolLog.HEADER_BYTES + 10).putInt(PAYLOAD_BYTES).putInt(0).putLong(4).put("record".getBytes()).flip(),
+				3 * FRAME_BYTES);
+		}
+
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			assertThat(log.lastSequence()).isEqualTo(3);
+			assertThat(log.append(payload("after the tear"))).isEqualTo(4);
+		}
+
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			assertThat(texts(log.read(1, 10))).containsExactly("record 1", "record 2", "record 3", "after the tear");
+		}
+	}
+
+	@Test
+	void aRecordFailingItsChecksumEndsTheLogAndLaterSegmentsAreDropped() throws IOException {
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			append(log, 20);
+			assertThat(log.segmentCount()).isEqualTo(3);
+		}
+		try (FileChannel segment = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+			segment.write(ByteBuffer.wrap(new byte[] {'X'}), FRAME_BYTES + SpoolLog.HEADER_BYTES);
+		}
+
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			assertThat(texts(log.read(1, 100))).containsExactly("record 1");
+			assertThat(log.segmentCount()).isEqualTo(1);
+			assertThat(segments()).hasSize(1);
+			assertThat(log.append(payload("replacement"))).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void appendsRollOverToANewSegmentNamedByItsFirstSequence() throws IOException {
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			append(log, 20);
+
+			assertThat(log.segmentCount()).isEqualTo(3);
+			assertThat(segments()).extracting(path -> path.getFileName().toString()).containsExactly(
+				"spool-00000000000000000001.seg", "spool-00000000000000000009.seg", "spool-00000000000000000017.seg");
+			assertThat(log.read(1, 100)).extracting(SpoolLog.Record::sequence).containsExactlyElementsOf(
+				Stream.iterate(1L, s -> s + 1).limit(20).toList());
+			assertThat(log.read(7, 4)).extracting(SpoolLog.Record::sequence).containsExactly(7L, 8L, 9L, 10L);
+		}
+	}
+
+	@Test
+	void aCheckpointSurvivesAReopenAndDeletesTheSegmentsItPassed() throws IOException {
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			append(log, 20);
+
+			log.checkpoint(10);
+
+			assertThat(log.pending()).isEqualTo(10);
+			assertThat(segments()).hasSize(2);
+			assertThat(log.read(1, 100)).first().extracting(SpoolLog.Record::sequence).isEqualTo(11L);
+		}
+
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			assertThat(log.checkpointSequence()).isEqualTo(10);
+			assertThat(log.pending()).isEqualTo(10);
+			assertThat(log.read(1, 1)).extracting(SpoolLog.Record::sequence).containsExactly(11L);
+			// Passing everything keeps the current segment to append to
+			log.checkpoint(20);
+			assertThat(log.segmentCount()).isEqualTo(1);
+			assertThat(log.append(payload("next"))).isEqualTo(21);
+		}
+	}
+
+	@Test
+	void checkpointsCannotPassTheEndOrGoBack() throws IOException {
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			append(log, 3);
+			log.checkpoint(2);
+
+			assertThatThrownBy(() -> log.checkpoint(4)).isInstanceOf(IllegalArgumentException.class);
+			log.checkpoint(1);
+			assertThat(log.checkpointSequence()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void aCorruptCheckpointIsRefused() throws IOException {
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			append(log, 3);
+			log.checkpoint(2);
+		}
+		byte[] checkpoint = Files.readAllBytes(directory.resolve("checkpoint"));
+		checkpoint[7] ^= 1;
+		Files.write(directory.resolve("checkpoint"), checkpoint);
+
+		assertThatThrownBy(() -> open(SpoolLog.Durability.NONE)).isInstanceOf(IOException.class).hasMessageContaining("checkpoint");
+	}
+
+	@Test
+	void recordsLargerThanASegmentAreRejected() throws IOException {
+		try (SpoolLog log = open(SpoolLog.Durability.NONE)) {
+			assertThatThrownBy(() -> log.append(new byte[SEGMENT_BYTES])).isInstanceOf(IllegalArgumentException.class);
+			assertThat(log.lastSequence()).isZero();
+		}
+	}
+
+	private SpoolLog open(SpoolLog.Durability durability) throws IOException {
+		return SpoolLog.open(directory, SEGMENT_BYTES, durability, 1000);
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().endsWith(".seg")).sorted().toList();
+		}
+	}
+
+	private static List<Long> append(SpoolLog log, int count) {
+		return Stream.iterate(1, i -> i + 1).limit(count).map(i -> log.append(payload("record " + i))).toList();
+	}
+
+	private static byte[] payload(String text) {
+		return String.format("%-" + PAYLOAD_BYTES + "s", text).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<String> texts(List<SpoolLog.Record> records) {
+		return records.stream().map(record -> new String(record.payload(), StandardCharsets.UTF_8).trim()).toList();
+	}
+}
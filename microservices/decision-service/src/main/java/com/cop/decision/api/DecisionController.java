@@ -1,31 +1,32 @@
 package com.cop.decision.api;
 
+import com.cop.schema.CreateDecision;
+import com.cop.schema.Decision;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.OffsetDateTime;
+import java.time.Instant;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/decisions")
 public class DecisionController {
 	@PostMapping
 	@PreAuthorize("hasRole('HQ')")
-	public ResponseEntity<Map<String, Object>> createDecision(@RequestBody Map<String, Object> body) {
-		Map<String, Object> decision = Map.of(
-			"id", "dec-" + System.currentTimeMillis(),
-			"status", body.getOrDefault("status", "APPROVED"),
-			"relatedEventId", body.get("relatedEventId"),
-			"createdAt", OffsetDateTime.now().toString()
+	public ResponseEntity<Decision> createDecision(@RequestBody CreateDecision body) {
+		Decision decision = new Decision(
+			"dec-" + System.currentTimeMillis(),
+			body.status() != null ? body.status() : "APPROVED",
+			body.relatedEventId(),
+			Instant.now()
 		);
 		return ResponseEntity.ok(decision);
 	}
 
 	@GetMapping
 	@PreAuthorize("hasAnyRole('HQ','OBSERVER','ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT')")
-	public ResponseEntity<List<Map<String, Object>>> list() {
+	public ResponseEntity<List<Decision>> list() {
 		return ResponseEntity.ok(List.of());
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.cop.file.api;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.file.derivative.DerivativeService;
+import io.minio.GetObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Thumbnails, previews and pyramid tiles for image files. Derivatives never change once written,
+ * so clients may cache them privately. Files above the caller's clearance are reported as not
+ * found, as in {@link SearchController}.
+ */
+@RestController
+@RequestMapping("/api/files")
+public class DerivativeController {
+	private static final CacheControl CACHE = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+
+	private final DerivativeService derivatives;
+
+	public DerivativeController(DerivativeService derivatives) {
+		this.derivatives = derivatives;
+	}
+
+	@GetMapping("/{id}/derivatives")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<?> describe(@AuthenticationPrincipal Jwt jwt, @PathVariable("id") String id) {
+		Optional<DerivativeService.Derivatives> found = derivatives.find(id, clearance(jwt));
+		if (found.isEmpty()) return ResponseEntity.notFound().build();
+		DerivativeService.Derivatives d = found.get();
+		Map<String, Object> resp = new HashMap<>();
+		resp.put("status", d.status());
+		resp.put("width", d.width());
+		resp.put("height", d.height());
+		if ("READY".equals(d.status())) {
+			resp.put("thumbnail", "/api/files/" + id + "/thumbnail");
+			resp.put("preview", "/api/files/" + id + "/preview");
+			if (d.levels() != null) {
+				resp.put("tileSize", d.tileSize());
+				resp.put("levels", d.levels());
+				resp.put("tiles", "/api/files/" + id + "/tiles/{z}/{x}/{y}.jpg");
+			}
+		}
+		return ResponseEntity.ok(resp);
+	}
+
+	@GetMapping("/{id}/thumbnail")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<byte[]> thumbnail(@AuthenticationPrincipal Jwt jwt, @PathVariable("id") String id) throws Exception {
+		return serve(id, derivatives.find(id, clearance(jwt)), "thumbnail.jpg");
+	}
+
+	@GetMapping("/{id}/preview")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<byte[]> preview(@AuthenticationPrincipal Jwt jwt, @PathVariable("id") String id) throws Exception {
+		return serve(id, derivatives.find(id, clearance(jwt)), "preview.jpg");
+	}
+
+	@GetMapping("/{id}/tiles/{z}/{x}/{y}.jpg")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<byte[]> tile(@AuthenticationPrincipal Jwt jwt, @PathVariable("id") String id, @PathVariable("z") int z,
+	                                   @PathVariable("x") int x, @PathVariable("y") int y) throws Exception {
+		Optional<DerivativeService.Derivatives> found = derivatives.find(id, clearance(jwt));
+		if (found.isEmpty() || found.get().levels() == null || z < 0 || z >= found.get().levels() || x < 0 || y < 0) {
+			return ResponseEntity.notFound().build();
+		}
+		return serve(id, found, "tiles/" + z + "/" + x + "_" + y + ".jpg");
+	}
+
+	private ResponseEntity<byte[]> serve(String id, Optional<DerivativeService.Derivatives> found, String name) throws Exception {
+		if (found.isEmpty() || !"READY".equals(found.get().status())) return ResponseEntity.notFound().build();
+		byte[] content;
+		try (GetObjectResponse object = derivatives.open(id, name)) {
+			content = object.readAllBytes();
+		} catch (ErrorResponseException e) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok()
+			.cacheControl(CACHE)
+			.contentType(MediaType.IMAGE_JPEG)
+			.body(content);
+	}
+
+	private static ClassificationLevel clearance(Jwt jwt) {
+		return ClassificationLevel.ofClearance(jwt != null ? jwt.getClaimAsString("clearance_level") : null);
+	}
+}
@@ -1,9 +1,15 @@
 package com.cop.file.api;
 
+import com.cop.file.ingest.FileRecordWriter;
+import com.cop.common.spool.IngestSpool;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.minio.GetObjectArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -25,14 +31,28 @@ public class FileController {
 	private final MinioClient minioClient;
 	private final JdbcTemplate jdbcTemplate;
 	private final String bucket;
+	private final String endpoint;
+	private final FileRecordWriter records;
 
-	public FileController(JdbcTemplate jdbcTemplate) {
+	public FileController(JdbcTemplate jdbcTemplate, MinioClient minioClient, String bucket, String endpoint) {
+		this(jdbcTemplate, minioClient, bucket, endpoint, event -> { });
+	}
+
+	public FileController(JdbcTemplate jdbcTemplate, MinioClient minioClient, String bucket, String endpoint,
+	                      ApplicationEventPublisher events) {
+		this(jdbcTemplate, minioClient, bucket, endpoint, new FileRecordWriter(jdbcTemplate, (IngestSpool) null, new ObjectMapper(), events));
+	}
+
+	@Autowired
+	public FileController(JdbcTemplate jdbcTemplate, MinioClient minioClient,
+	                      @Value("${files.minio.bucket}") String bucket,
+	                      @Value("${files.minio.endpoint}") String endpoint,
+	                      FileRecordWriter records) {
 		this.jdbcTemplate = jdbcTemplate;
-		this.minioClient = MinioClient.builder()
-			.endpoint(System.getenv().getOrDefault("MINIO_ENDPOINT", "http://minio:9000"))
-			.credentials(System.getenv().getOrDefault("MINIO_ACCESS_KEY", ""), System.getenv().getOrDefault("MINIO_SECRET_KEY", ""))
-			.build();
-		this.bucket = System.getenv().getOrDefault("MINIO_BUCKET", "cop-files");
+		this.minioClient = minioClient;
+		this.bucket = bucket;
+		this.endpoint = endpoint;
+		this.records = records;
 	}
 
 	@PostMapping(path = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -54,10 +74,11 @@ public class FileController {
 			.stream(new ByteArrayInputStream(bytes), bytes.length, -1)
 			.build());
 
-		String s3Url = System.getenv().getOrDefault("MINIO_ENDPOINT", "http://minio:9000") + "/" + bucket + "/" + objectName;
+		String s3Url = endpoint + "/" + bucket + "/" + objectName;
 
-		jdbcTemplate.update("INSERT INTO files (id, filename, original_name, mime_type, size, classification, uploaded_by, uploaded_at, report_id, event_id, tags, checksum, s3_url) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?)",
-				id, id + ext, file.getOriginalFilename(), file.getContentType(), file.getSize(), classification, null, OffsetDateTime.now(), reportId, eventId, "[]", checksum, s3Url);
+		// While Postgres is unavailable the row is spooled; the object is already stored under its id
+		boolean written = records.write(new FileRecordWriter.FileRecord(id, id + ext, file.getOriginalFilename(), file.getContentType(),
+			file.getSize(), classification, OffsetDateTime.now(), reportId, eventId, checksum, s3Url));
 
 		Map<String, Object> resp = new HashMap<>();
 		resp.put("id", id);
@@ -68,6 +89,10 @@ public class FileController {
 		resp.put("classification", classification);
 		resp.put("checksum", checksum);
 		resp.put("s3Url", s3Url);
+		if (!written) {
+			resp.put("status", "SPOOLED");
+			return ResponseEntity.accepted().body(resp);
+		}
 		return ResponseEntity.ok(resp);
 	}
 
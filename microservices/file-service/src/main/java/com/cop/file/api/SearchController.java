@@ -0,0 +1,75 @@
+package com.cop.file.api;
+
+import com.cop.common.security.ClassificationLevel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text search over extracted attachment text. Queries use web search syntax ("quoted
+ * phrases", OR, -excluded) and only match files at or below the caller's clearance.
+ */
+@RestController
+@RequestMapping("/api/files")
+public class SearchController {
+	private final JdbcTemplate jdbcTemplate;
+	private final int maxResults;
+
+	public SearchController(JdbcTemplate jdbcTemplate, @Value("${files.text.max-results:100}") int maxResults) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.maxResults = maxResults;
+	}
+
+	@GetMapping("/search")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<?> search(@AuthenticationPrincipal Jwt jwt,
+	                                @RequestParam("q") String query,
+	                                @RequestParam(value = "reportId", required = false) String reportId,
+	                                @RequestParam(value = "eventId", required = false) String eventId,
+	                                @RequestParam(value = "limit", required = false) Integer limit) {
+		if (query.isBlank()) {
+			return ResponseEntity.badRequest().body(Map.of("error", "q must not be blank"));
+		}
+		ClassificationLevel clearance = ClassificationLevel.ofClearance(jwt != null ? jwt.getClaimAsString("clearance_level") : null);
+		StringBuilder sql = new StringBuilder("SELECT f.id, f.original_name, f.mime_type, f.report_id, f.event_id, f.classification, " +
+			"ts_headline('simple', t.content, q, 'MaxFragments=2, MinWords=5, MaxWords=20') AS snippet, ts_rank(t.search_vector, q) AS rank " +
+			"FROM websearch_to_tsquery('simple', ?) q, file_texts t JOIN files f ON f.checksum = t.checksum " +
+			"WHERE t.status = 'READY' AND t.search_vector @@ q AND COALESCE(f.classification, 'UNCLASSIFIED') = ANY(?)");
+		List<Object> args = new ArrayList<>();
+		args.add(query);
+		args.add(clearance.readableLabels());
+		if (reportId != null) {
+			sql.append(" AND f.report_id = ?::uuid");
+			args.add(reportId);
+		}
+		if (eventId != null) {
+			sql.append(" AND f.event_id = ?::uuid");
+			args.add(eventId);
+		}
+		sql.append(" ORDER BY rank DESC LIMIT ?");
+		args.add(limit != null ? Math.max(1, Math.min(limit, maxResults)) : maxResults);
+
+		List<Map<String, Object>> results = jdbcTemplate.query(sql.toString(), (rs, i) -> {
+			Map<String, Object> m = new HashMap<>();
+			m.put("id", rs.getString("id"));
+			m.put("originalName", rs.getString("original_name"));
+			m.put("mimeType", rs.getString("mime_type"));
+			m.put("reportId", rs.getString("report_id"));
+			m.put("eventId", rs.getString("event_id"));
+			m.put("classification", rs.getString("classification"));
+			m.put("snippet", rs.getString("snippet"));
+			m.put("rank", rs.getDouble("rank"));
+			return m;
+		}, args.toArray());
+		return ResponseEntity.ok(results);
+	}
+}
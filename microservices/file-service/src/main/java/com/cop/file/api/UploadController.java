@@ -0,0 +1,127 @@
+package com.cop.file.api;
+
+import com.cop.file.upload.ChunkedUploadService;
+import com.cop.file.upload.UploadSession;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resumable uploads for files too large, or links too flaky, for {@code /api/files/upload}:
+ * <ol>
+ *   <li>{@code POST /api/files/uploads} declares the file and returns its chunk layout</li>
+ *   <li>{@code PUT /api/files/uploads/{id}/chunks/{index}} sends each chunk, in any order and in parallel</li>
+ *   <li>{@code GET /api/files/uploads/{id}} lists the chunks received so far, to resume after an interruption</li>
+ *   <li>{@code POST /api/files/uploads/{id}/complete} assembles the file and records it in {@code files}</li>
+ * </ol>
+ */
+@RestController
+@RequestMapping("/api/files/uploads")
+public class UploadController {
+	private final ChunkedUploadService uploads;
+
+	public UploadController(ChunkedUploadService uploads) {
+		this.uploads = uploads;
+	}
+
+	public record CreateUploadRequest(String filename, String mimeType, long size, Integer chunkSize, String classification,
+	                                  String reportId, String eventId, String checksum) {
+	}
+
+	@PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<?> create(@AuthenticationPrincipal Jwt jwt, @RequestBody CreateUploadRequest request) throws IOException {
+		try {
+			UploadSession session = uploads.create(request.filename(), request.mimeType(), request.size(), request.chunkSize(),
+				request.classification(), request.reportId(), request.eventId(), request.checksum(), subject(jwt));
+			return ResponseEntity.created(URI.create("/api/files/uploads/" + session.id()))
+				.body(describe(session, List.of()));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@GetMapping("/{id}")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<?> status(@AuthenticationPrincipal Jwt jwt, @PathVariable("id") String id) {
+		Optional<UploadSession> session = uploads.find(id, subject(jwt));
+		if (session.isEmpty()) return ResponseEntity.notFound().build();
+		return ResponseEntity.ok(describe(session.get(), uploads.chunks(id)));
+	}
+
+	@PutMapping(path = "/{id}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<?> putChunk(@AuthenticationPrincipal Jwt jwt,
+	                                  @PathVariable("id") String id,
+	                                  @PathVariable("index") int index,
+	                                  @RequestHeader(value = "Upload-Checksum", required = false) String checksum,
+	                                  HttpServletRequest request) throws IOException {
+		try {
+			Optional<ChunkedUploadService.Chunk> chunk = uploads.putChunk(id, index, request.getInputStream(), checksum, subject(jwt));
+			if (chunk.isEmpty()) return ResponseEntity.notFound().build();
+			return ResponseEntity.ok(chunk.get());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		} catch (IllegalStateException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@PostMapping("/{id}/complete")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<?> complete(@AuthenticationPrincipal Jwt jwt, @PathVariable("id") String id) throws IOException {
+		try {
+			Optional<Map<String, Object>> file = uploads.complete(id, subject(jwt));
+			if (file.isEmpty()) return ResponseEntity.notFound().build();
+			return ResponseEntity.ok(file.get());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		} catch (IllegalStateException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	@DeleteMapping("/{id}")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<?> abort(@AuthenticationPrincipal Jwt jwt, @PathVariable("id") String id) throws IOException {
+		try {
+			if (!uploads.abort(id, subject(jwt))) return ResponseEntity.notFound().build();
+			return ResponseEntity.noContent().build();
+		} catch (IllegalStateException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+		}
+	}
+
+	private static String subject(Jwt jwt) {
+		return jwt != null ? jwt.getSubject() : null;
+	}
+
+	private static Map<String, Object> describe(UploadSession session, List<ChunkedUploadService.Chunk> chunks) {
+		long received = 0;
+		for (ChunkedUploadService.Chunk chunk : chunks) {
+			received += chunk.size();
+		}
+		Map<String, Object> resp = new HashMap<>();
+		resp.put("id", session.id());
+		resp.put("originalName", session.originalName());
+		resp.put("size", session.size());
+		resp.put("chunkSize", session.chunkSize());
+		resp.put("chunkCount", session.chunkCount());
+		resp.put("status", session.status());
+		resp.put("receivedChunks", chunks.stream().map(ChunkedUploadService.Chunk::index).toList());
+		resp.put("bytesReceived", received);
+		return resp;
+	}
+}
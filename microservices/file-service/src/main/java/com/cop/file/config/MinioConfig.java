@@ -0,0 +1,47 @@
+package com.cop.file.config;
+
+import com.cop.observability.MinioMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import okhttp3.OkHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The object store clients every component of the service shares. The blocking and async clients
+ * use one instrumented HTTP client, so they share its connection pool and metrics.
+ */
+@Configuration
+public class MinioConfig {
+	@Bean
+	OkHttpClient minioHttpClient(MeterRegistry meterRegistry) {
+		return MinioMetrics.httpClient(meterRegistry);
+	}
+
+	@Bean
+	MinioClient minioClient(OkHttpClient minioHttpClient,
+	                        @Value("${files.minio.endpoint}") String endpoint,
+	                        @Value("${files.minio.access-key}") String accessKey,
+	                        @Value("${files.minio.secret-key}") String secretKey) {
+		return MinioClient.builder()
+			.endpoint(endpoint)
+			.httpClient(minioHttpClient)
+			.credentials(accessKey, secretKey)
+			.build();
+	}
+
+	/** Only for the multipart calls {@link com.cop.file.upload.MultipartStore} needs. */
+	@Bean
+	MinioAsyncClient minioAsyncClient(OkHttpClient minioHttpClient,
+	                                  @Value("${files.minio.endpoint}") String endpoint,
+	                                  @Value("${files.minio.access-key}") String accessKey,
+	                                  @Value("${files.minio.secret-key}") String secretKey) {
+		return MinioAsyncClient.builder()
+			.endpoint(endpoint)
+			.httpClient(minioHttpClient)
+			.credentials(accessKey, secretKey)
+			.build();
+	}
+}
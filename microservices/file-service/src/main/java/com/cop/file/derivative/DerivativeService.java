@@ -0,0 +1,154 @@
+package com.cop.file.derivative;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.file.job.ClaimedJobWorker;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds a thumbnail, a preview and, for large rasters, a tile pyramid for every image in
+ * {@code files}, stored under {@code cop-files/<id>/}:
+ * <pre>
+ * thumbnail.jpg           fits in files.derivatives.thumbnail-edge
+ * preview.jpg             fits in files.derivatives.preview-edge
+ * tiles/{z}/{x}_{y}.jpg   level 0 is one tile, the last level is full resolution
+ * </pre>
+ *
+ * <p>Progress is tracked in {@code file_derivatives}, one {@link ClaimedJobWorker} job per file.
+ */
+@Service
+public class DerivativeService extends ClaimedJobWorker {
+	private static final Logger log = LoggerFactory.getLogger(DerivativeService.class);
+	private static final String PREFIX = "cop-files/";
+	private static final float JPEG_QUALITY = 0.85f;
+
+	private final int thumbnailEdge;
+	private final int previewEdge;
+	private final int pyramidMinEdge;
+	private final int tileSize;
+
+	@Autowired
+	public DerivativeService(JdbcTemplate jdbcTemplate, MinioClient minioClient,
+	                         @Value("${files.minio.bucket}") String bucket,
+	                         @Value("${files.derivatives.workers:2}") int workers,
+	                         @Value("${files.derivatives.queue-capacity:100}") int queueCapacity,
+	                         @Value("${files.derivatives.thumbnail-edge:256}") int thumbnailEdge,
+	                         @Value("${files.derivatives.preview-edge:1600}") int previewEdge,
+	                         @Value("${files.derivatives.pyramid-min-edge:4096}") int pyramidMinEdge,
+	                         @Value("${files.derivatives.tile-size:256}") int tileSize,
+	                         @Value("${files.derivatives.max-attempts:3}") int maxAttempts,
+	                         @Value("${files.derivatives.lease:PT30M}") Duration lease) {
+		super("derivatives", jdbcTemplate, minioClient, bucket, "file_derivatives", "file_id", "?::uuid",
+			workers, queueCapacity, maxAttempts, lease);
+		this.thumbnailEdge = thumbnailEdge;
+		this.previewEdge = previewEdge;
+		this.pyramidMinEdge = pyramidMinEdge;
+		this.tileSize = tileSize;
+	}
+
+	public record Derivatives(String status, Integer width, Integer height, Integer tileSize, Integer levels) {
+	}
+
+	@EventListener
+	public void onFileStored(FileStoredEvent event) {
+		if (event.mimeType() == null || !event.mimeType().startsWith("image/")) {
+			return;
+		}
+		jdbcTemplate.update("INSERT INTO file_derivatives (file_id) VALUES (?::uuid) ON CONFLICT DO NOTHING", event.fileId());
+		submit(event.fileId());
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${files.derivatives.sweep-interval-ms:60000}")
+	public void sweep() {
+		super.sweep();
+	}
+
+	@Override
+	protected void backfill(int limit) {
+		jdbcTemplate.update("INSERT INTO file_derivatives (file_id) SELECT f.id FROM files f WHERE f.mime_type LIKE 'image/%' " +
+			"AND NOT EXISTS (SELECT 1 FROM file_derivatives d WHERE d.file_id = f.id) ORDER BY f.uploaded_at LIMIT ?", limit);
+	}
+
+	/** The file's derivatives, or empty when there are none or the file is above {@code clearance}. */
+	public Optional<Derivatives> find(String fileId, ClassificationLevel clearance) {
+		List<Derivatives> rows = jdbcTemplate.query("SELECT d.status, d.width, d.height, d.tile_size, d.levels FROM file_derivatives d " +
+				"JOIN files f ON f.id = d.file_id WHERE d.file_id = ?::uuid AND COALESCE(f.classification, 'UNCLASSIFIED') = ANY(?)",
+			(rs, i) -> new Derivatives(rs.getString("status"), (Integer) rs.getObject("width"), (Integer) rs.getObject("height"),
+				(Integer) rs.getObject("tile_size"), (Integer) rs.getObject("levels")), fileId, clearance.readableLabels());
+		return rows.stream().findFirst();
+	}
+
+	/** Opens a stored derivative; {@code name} is relative to the file's derivative prefix. */
+	public GetObjectResponse open(String fileId, String name) throws Exception {
+		return minioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(PREFIX + fileId + "/" + name).build());
+	}
+
+	@Override
+	protected void process(String fileId) throws Exception {
+		long started = System.nanoTime();
+		List<String> filenames = jdbcTemplate.queryForList("SELECT filename FROM files WHERE id = ?::uuid", String.class, fileId);
+		if (filenames.isEmpty()) {
+			// Deleted since it was claimed; without this the row would sit in PROCESSING until the lease ran out
+			discard(fileId);
+			return;
+		}
+		spooled(PREFIX + filenames.get(0), "derivative-", local -> {
+			try (ImageDerivatives image = ImageDerivatives.open(local)) {
+				if (image == null) {
+					jdbcTemplate.update("UPDATE file_derivatives SET status = 'SKIPPED', error = 'Unsupported image format', updated_at = NOW() WHERE file_id = ?::uuid", fileId);
+					return;
+				}
+				put(fileId, "thumbnail.jpg", ImageDerivatives.jpeg(image.fit(thumbnailEdge), JPEG_QUALITY));
+				put(fileId, "preview.jpg", ImageDerivatives.jpeg(image.fit(previewEdge), JPEG_QUALITY));
+				Integer levels = null;
+				if (Math.max(image.width(), image.height()) >= pyramidMinEdge) {
+					levels = image.levels(tileSize);
+					pyramid(fileId, image, levels);
+				}
+				jdbcTemplate.update("UPDATE file_derivatives SET status = 'READY', width = ?, height = ?, tile_size = ?, levels = ?, error = NULL, " +
+						"updated_at = NOW() WHERE file_id = ?::uuid",
+					image.width(), image.height(), levels != null ? tileSize : null, levels, fileId);
+			}
+			log.info("Generated derivatives for {} in {} ms", fileId, (System.nanoTime() - started) / 1_000_000);
+		});
+	}
+
+	private void pyramid(String fileId, ImageDerivatives image, int levels) throws Exception {
+		image.pyramid(tileSize, (level, row, strip) -> {
+			for (int x = 0, col = 0; x < strip.getWidth(); x += tileSize, col++) {
+				int w = Math.min(tileSize, strip.getWidth() - x);
+				BufferedImage tile = ImageDerivatives.crop(strip, x, 0, w, strip.getHeight(), w, strip.getHeight());
+				put(fileId, "tiles/" + level + "/" + col + "_" + row + ".jpg", ImageDerivatives.jpeg(tile, JPEG_QUALITY));
+			}
+			if (level == levels - 1) {
+				heartbeat(fileId);
+			}
+		});
+	}
+
+	private void put(String fileId, String name, byte[] bytes) throws Exception {
+		minioClient.putObject(PutObjectArgs.builder()
+			.bucket(bucket)
+			.object(PREFIX + fileId + "/" + name)
+			.contentType("image/jpeg")
+			.stream(new ByteArrayInputStream(bytes), bytes.length, -1)
+			.build());
+	}
+}
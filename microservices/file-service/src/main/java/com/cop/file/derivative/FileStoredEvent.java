@@ -0,0 +1,5 @@
+package com.cop.file.derivative;
+
+/** Published once a file's object and {@code files} row both exist. */
+public record FileStoredEvent(String fileId, String mimeType) {
+}
@@ -0,0 +1,235 @@
+package com.cop.file.derivative;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Downscaled reads of a raster file that never decode it at full size. Every read goes through
+ * {@link ImageReadParam} source regions and subsampling, so the decoder only materialises roughly
+ * the pixels that end up in the output; a 40k x 40k scene costs no more heap for a thumbnail than
+ * a phone photo does.
+ */
+final class ImageDerivatives implements AutoCloseable {
+	private final ImageInputStream input;
+	private final ImageReader reader;
+	private final int width;
+	private final int height;
+
+	private ImageDerivatives(ImageInputStream input, ImageReader reader) throws IOException {
+		this.input = input;
+		this.reader = reader;
+		this.width = reader.getWidth(0);
+		this.height = reader.getHeight(0);
+	}
+
+	/** Opens the file, or returns null when no installed ImageIO reader understands it. */
+	static ImageDerivatives open(Path file) throws IOException {
+		ImageInputStream input = ImageIO.createImageInputStream(file.toFile());
+		Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+		if (!readers.hasNext()) {
+			input.close();
+			return null;
+		}
+		ImageReader reader = readers.next();
+		reader.setInput(input, true, true);
+		try {
+			return new ImageDerivatives(input, reader);
+		} catch (IOException | RuntimeException e) {
+			reader.dispose();
+			input.close();
+			throw e;
+		}
+	}
+
+	int width() {
+		return width;
+	}
+
+	int height() {
+		return height;
+	}
+
+	/**
+	 * The whole image scaled to fit within {@code maxEdge}, never enlarged. Decodes at about twice
+	 * the target size and filters the rest of the way down, which avoids the aliasing of plain
+	 * subsampling.
+	 */
+	BufferedImage fit(int maxEdge) throws IOException {
+		double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+		int targetWidth = Math.max(1, (int) Math.round(width * scale));
+		int targetHeight = Math.max(1, (int) Math.round(height * scale));
+		int subsampling = Math.max(1, (int) (1 / scale) / 2);
+		return resize(read(new Rectangle(0, 0, width, height), subsampling), targetWidth, targetHeight);
+	}
+
+	/**
+	 * Number of pyramid levels for the given tile size: level 0 fits in one tile and the last
+	 * level is full resolution.
+	 */
+	int levels(int tileSize) {
+		int levels = 1;
+		for (long edge = Math.max(width, height); edge > tileSize; edge = (edge + 1) / 2) {
+			levels++;
+		}
+		return levels;
+	}
+
+	/** Receives one row of tiles of one pyramid level: the strip is the level's full width. */
+	@FunctionalInterface
+	interface StripConsumer {
+		void accept(int level, int row, BufferedImage strip) throws Exception;
+	}
+
+	/**
+	 * Produces every level of the pyramid in one pass down the image. Each {@code tileSize}-row
+	 * strip of the full-resolution level is decoded once; every coarser strip is the pair of strips
+	 * below it halved. Heap use is bounded by one full-resolution strip plus one waiting strip per
+	 * level, and strips arrive in row order within each level.
+	 */
+	void pyramid(int tileSize, StripConsumer consumer) throws Exception {
+		int levels = levels(tileSize);
+		// Per level, the upper half of a coarser strip, waiting for its lower half
+		BufferedImage[] waiting = new BufferedImage[levels];
+		int[] rows = new int[levels];
+		for (int y = 0; y < height; y += tileSize) {
+			int rowsHere = Math.min(tileSize, height - y);
+			// Flattened to opaque RGB, as every tile is, before anything is averaged
+			push(levels - 1, resize(read(new Rectangle(0, y, width, rowsHere), 1), width, rowsHere), waiting, rows, consumer);
+		}
+		// An odd strip count leaves a last upper half with nothing below it
+		for (int level = levels - 1; level > 0; level--) {
+			if (waiting[level] != null) {
+				BufferedImage upper = waiting[level];
+				waiting[level] = null;
+				push(level - 1, halve(upper, null), waiting, rows, consumer);
+			}
+		}
+	}
+
+	private static void push(int level, BufferedImage strip, BufferedImage[] waiting, int[] rows, StripConsumer consumer) throws Exception {
+		consumer.accept(level, rows[level]++, strip);
+		if (level == 0) {
+			return;
+		}
+		if (waiting[level] == null) {
+			waiting[level] = strip;
+			return;
+		}
+		BufferedImage upper = waiting[level];
+		waiting[level] = null;
+		push(level - 1, halve(upper, strip), waiting, rows, consumer);
+	}
+
+	/**
+	 * Stacks {@code lower} (may be null) under {@code upper} and averages each 2 x 2 block into one
+	 * pixel; an odd last row or column averages what there is.
+	 */
+	static BufferedImage halve(BufferedImage upper, BufferedImage lower) {
+		int sourceWidth = upper.getWidth();
+		int sourceHeight = upper.getHeight() + (lower != null ? lower.getHeight() : 0);
+		int outWidth = (sourceWidth + 1) / 2;
+		int outHeight = (sourceHeight + 1) / 2;
+		BufferedImage out = new BufferedImage(outWidth, outHeight, BufferedImage.TYPE_INT_RGB);
+		int[] top = new int[sourceWidth];
+		int[] bottom = new int[sourceWidth];
+		int[] line = new int[outWidth];
+		for (int y = 0; y < outHeight; y++) {
+			int pairRows = Math.min(2, sourceHeight - 2 * y);
+			sourceRow(upper, lower, 2 * y, top);
+			if (pairRows == 2) {
+				sourceRow(upper, lower, 2 * y + 1, bottom);
+			}
+			for (int x = 0; x < outWidth; x++) {
+				int pairColumns = Math.min(2, sourceWidth - 2 * x);
+				int r = 0;
+				int g = 0;
+				int b = 0;
+				for (int dy = 0; dy < pairRows; dy++) {
+					int[] row = dy == 0 ? top : bottom;
+					for (int dx = 0; dx < pairColumns; dx++) {
+						int rgb = row[2 * x + dx];
+						r += (rgb >> 16) & 0xff;
+						g += (rgb >> 8) & 0xff;
+						b += rgb & 0xff;
+					}
+				}
+				int n = pairRows * pairColumns;
+				line[x] = ((r + n / 2) / n) << 16 | ((g + n / 2) / n) << 8 | (b + n / 2) / n;
+			}
+			out.setRGB(0, y, outWidth, 1, line, 0, outWidth);
+		}
+		return out;
+	}
+
+	private static void sourceRow(BufferedImage upper, BufferedImage lower, int y, int[] row) {
+		if (y < upper.getHeight()) {
+			upper.getRGB(0, y, row.length, 1, row, 0, row.length);
+		} else {
+			lower.getRGB(0, y - upper.getHeight(), row.length, 1, row, 0, row.length);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.dispose();
+		input.close();
+	}
+
+	private BufferedImage read(Rectangle region, int subsampling) throws IOException {
+		ImageReadParam param = reader.getDefaultReadParam();
+		param.setSourceRegion(region);
+		param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+		return reader.read(0, param);
+	}
+
+	/** Copies a region of {@code source} into an opaque RGB image of the given size. */
+	static BufferedImage resize(BufferedImage source, int width, int height) {
+		return crop(source, 0, 0, source.getWidth(), source.getHeight(), width, height);
+	}
+
+	static BufferedImage crop(BufferedImage source, int x, int y, int w, int h, int width, int height) {
+		BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = out.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			// JPEG has no alpha; flatten transparency onto white
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, width, height);
+			g.drawImage(source, 0, 0, width, height, x, y, x + w, y + h, null);
+		} finally {
+			g.dispose();
+		}
+		return out;
+	}
+
+	static byte[] jpeg(BufferedImage image, float quality) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(bytes)) {
+			writer.setOutput(out);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(quality);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return bytes.toByteArray();
+	}
+}
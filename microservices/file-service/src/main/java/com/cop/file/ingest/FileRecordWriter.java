@@ -0,0 +1,109 @@
+package com.cop.file.ingest;
+
+import com.cop.common.spool.IngestSpool;
+import com.cop.file.derivative.FileStoredEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Writes the {@code files} row of a stored object. While Postgres is unavailable, or rows spooled
+ * earlier are still waiting, the row goes to the {@link IngestSpool} under the file's id instead
+ * and is inserted by its replay; {@link FileStoredEvent} follows the row either way.
+ */
+@Component
+public class FileRecordWriter {
+	public static final String KIND = "file";
+
+	private static final Logger log = LoggerFactory.getLogger(FileRecordWriter.class);
+	private static final String INSERT = "INSERT INTO files (id, filename, original_name, mime_type, size, classification, uploaded_by, uploaded_at, report_id, event_id, tags, checksum, s3_url) " +
+		"VALUES (?::uuid,?,?,?,?,?,?,?,?::uuid,?::uuid,?::jsonb,?,?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final IngestSpool spool;
+	private final ObjectMapper objectMapper;
+	private final ApplicationEventPublisher events;
+
+	public record FileRecord(String id, String filename, String originalName, String mimeType, long size,
+	                         String classification, OffsetDateTime uploadedAt, String reportId, String eventId,
+	                         String checksum, String s3Url) {
+
+		Object[] args() {
+			return new Object[] {id, filename, originalName, mimeType, size, classification, null, uploadedAt, reportId, eventId, "[]", checksum, s3Url};
+		}
+	}
+
+	@Autowired
+	public FileRecordWriter(JdbcTemplate jdbcTemplate, ObjectProvider<IngestSpool> spool, ObjectMapper objectMapper,
+	                        ApplicationEventPublisher events) {
+		this(jdbcTemplate, spool.getIfAvailable(), objectMapper, events);
+	}
+
+	public FileRecordWriter(JdbcTemplate jdbcTemplate, IngestSpool spool, ObjectMapper objectMapper, ApplicationEventPublisher events) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.spool = spool;
+		this.objectMapper = objectMapper;
+		this.events = events;
+		if (spool != null) {
+			spool.register(KIND, new IngestSpool.Handler() {
+				@Override
+				public void apply(List<IngestSpool.Entry> entries) {
+					jdbcTemplate.batchUpdate(INSERT + " ON CONFLICT (id) DO NOTHING",
+						entries.stream().map(e -> decode(e.body()).args()).toList());
+				}
+
+				@Override
+				public void afterCommit(List<IngestSpool.Entry> entries) {
+					entries.forEach(e -> published(decode(e.body())));
+				}
+			});
+		}
+	}
+
+	/**
+	 * Inserts the row, or spools it if the database is unavailable. Returns false if it was spooled.
+	 */
+	public boolean write(FileRecord record) {
+		if (spool == null || !spool.active()) {
+			try {
+				jdbcTemplate.update(INSERT, record.args());
+				published(record);
+				return true;
+			} catch (RuntimeException e) {
+				if (spool == null || !IngestSpool.isUnavailable(e)) {
+					throw e;
+				}
+				log.warn("Database unavailable, spooling file {}: {}", record.id(), e.getMessage());
+			}
+		}
+		try {
+			spool.append(KIND, record.id(), objectMapper.writeValueAsBytes(record));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("File record cannot be serialized: " + e.getOriginalMessage(), e);
+		}
+		return false;
+	}
+
+	private void published(FileRecord record) {
+		events.publishEvent(new FileStoredEvent(record.id(), record.mimeType()));
+	}
+
+	private FileRecord decode(byte[] body) {
+		try {
+			return objectMapper.readValue(body, FileRecord.class);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unreadable spooled file record: " + e.getMessage(), e);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package com.cop.file.job;
+
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background work over a job table with {@code status}, {@code attempts}, {@code error} and
+ * {@code updated_at} columns, one row per job.
+ *
+ * <p>Callers enqueue keys directly onto a fixed pool with a bounded queue; overflow is rejected and
+ * left to {@link #sweep()}, which also picks up anything left half done by a restart and failures
+ * below the retry limit. A job is claimed with a conditional update before it runs, so two
+ * instances never process the same key, and marked {@code FAILED} if {@link #process} throws. An
+ * {@link Error}, such as running out of heap on an oversized input, would only recur, so it fails
+ * the job for good.
+ */
+public abstract class ClaimedJobWorker implements DisposableBean {
+	// New work, or a failed or abandoned (lease expired, e.g. by a restart) attempt with retries left
+	private static final String CLAIMABLE = "(status = 'PENDING' OR (status IN ('FAILED', 'PROCESSING') AND attempts < ? " +
+		"AND (status = 'FAILED' OR updated_at < ?)))";
+
+	private final Logger log = LoggerFactory.getLogger(getClass());
+
+	protected final JdbcTemplate jdbcTemplate;
+	protected final MinioClient minioClient;
+	protected final String bucket;
+	private final String table;
+	private final String keyColumn;
+	private final String key;
+	private final ThreadPoolExecutor workers;
+	private final int maxAttempts;
+	private final Duration lease;
+
+	/**
+	 * @param keyParameter placeholder the key is bound to, e.g. {@code ?::uuid}
+	 */
+	protected ClaimedJobWorker(String name, JdbcTemplate jdbcTemplate, MinioClient minioClient, String bucket,
+	                           String table, String keyColumn, String keyParameter,
+	                           int workers, int queueCapacity, int maxAttempts, Duration lease) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.minioClient = minioClient;
+		this.bucket = bucket;
+		this.table = table;
+		this.keyColumn = keyColumn;
+		this.key = keyColumn + " = " + keyParameter;
+		AtomicInteger threads = new AtomicInteger();
+		// Jobs are CPU and heap heavy, so both the pool and its queue are small and fixed
+		this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(queueCapacity), r -> {
+				Thread t = new Thread(r, name + "-" + threads.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}, new ThreadPoolExecutor.AbortPolicy());
+		this.maxAttempts = maxAttempts;
+		this.lease = lease;
+	}
+
+	/** Runs one claimed job. Throwing marks it {@code FAILED}, to be retried while attempts remain. */
+	protected abstract void process(String id) throws Exception;
+
+	/** Inserts job rows for up to {@code limit} items that have none yet. */
+	protected abstract void backfill(int limit);
+
+	/** Backfills and queues pending, stale and retryable jobs, up to the free queue capacity. */
+	public void sweep() {
+		int capacity = workers.getQueue().remainingCapacity();
+		if (capacity == 0) {
+			return;
+		}
+		backfill(capacity);
+		List<String> ids = jdbcTemplate.queryForList("SELECT " + keyColumn + " FROM " + table +
+				" WHERE " + CLAIMABLE + " ORDER BY updated_at LIMIT ?",
+			String.class, maxAttempts, OffsetDateTime.now().minus(lease), capacity);
+		ids.forEach(this::submit);
+	}
+
+	protected void submit(String id) {
+		try {
+			workers.execute(() -> run(id));
+		} catch (RejectedExecutionException e) {
+			log.debug("{} queue full; {} left for the next sweep", table, id);
+		}
+	}
+
+	void run(String id) {
+		int claimed = jdbcTemplate.update("UPDATE " + table + " SET status = 'PROCESSING', attempts = attempts + 1, updated_at = NOW() " +
+				"WHERE " + key + " AND " + CLAIMABLE,
+			id, maxAttempts, OffsetDateTime.now().minus(lease));
+		if (claimed == 0) {
+			return;
+		}
+		try {
+			process(id);
+		} catch (Exception e) {
+			log.warn("{} job failed for {}: {}", table, id, e.toString());
+			jdbcTemplate.update("UPDATE " + table + " SET status = 'FAILED', error = ?, updated_at = NOW() WHERE " + key,
+				String.valueOf(e.getMessage()), id);
+		} catch (Error e) {
+			log.error("{} job failed for {} and will not be retried", table, id, e);
+			jdbcTemplate.update("UPDATE " + table + " SET status = 'FAILED', attempts = GREATEST(attempts, ?), error = ?, updated_at = NOW() WHERE " + key,
+				maxAttempts, e.toString(), id);
+		}
+	}
+
+	/** Pushes the claim's lease forward during a long job. */
+	protected void heartbeat(String id) {
+		jdbcTemplate.update("UPDATE " + table + " SET updated_at = NOW() WHERE " + key, id);
+	}
+
+	/** Removes the job row, e.g. when the file it was for no longer exists. */
+	protected void discard(String id) {
+		jdbcTemplate.update("DELETE FROM " + table + " WHERE " + key, id);
+	}
+
+	@FunctionalInterface
+	protected interface SpooledTask {
+		void run(Path local) throws Exception;
+	}
+
+	/**
+	 * Copies an object to a temporary file, so readers that want random access do not hold it on
+	 * the heap, runs {@code task} on it and deletes the file again.
+	 */
+	protected void spooled(String objectName, String prefix, SpooledTask task) throws Exception {
+		Path local = Files.createTempFile(prefix, ".tmp");
+		try {
+			try (InputStream in = minioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(objectName).build())) {
+				Files.copy(in, local, StandardCopyOption.REPLACE_EXISTING);
+			}
+			task.run(local);
+		} finally {
+			try {
+				Files.deleteIfExists(local);
+			} catch (Exception e) {
+				log.debug("Could not delete {}", local, e);
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		workers.shutdownNow();
+	}
+}
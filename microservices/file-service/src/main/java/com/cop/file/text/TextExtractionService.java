@@ -0,0 +1,210 @@
+package com.cop.file.text;
+
+import com.cop.file.derivative.FileStoredEvent;
+import com.cop.file.job.ClaimedJobWorker;
+import io.minio.MinioClient;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.xml.sax.SAXException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extracts plain text from document attachments into {@code file_texts}, where a generated
+ * {@code tsvector} column makes it searchable. Work is keyed by the file's SHA-256, so re-uploads
+ * and copies of the same document are extracted once and a finished checksum is never touched
+ * again.
+ *
+ * <p>Each {@link ClaimedJobWorker} job spools the object to disk and parses it with Tika under a
+ * character limit, so memory per worker stays bounded whatever the file size. A parse that runs
+ * past {@code files.text.parse-timeout}, e.g. on a malformed document, is interrupted and the job
+ * failed, so it cannot hold a worker indefinitely. Parses run on a fixed pool of
+ * {@code files.text.parse-threads}; a parser that ignores the interrupt keeps its thread, and once
+ * hung parses have taken every thread and the queue behind them is full, new parses are refused and
+ * their jobs failed rather than starting more threads.
+ */
+@Service
+public class TextExtractionService extends ClaimedJobWorker {
+	private static final Logger log = LoggerFactory.getLogger(TextExtractionService.class);
+
+	private final Parser parser;
+	private final ThreadPoolExecutor parsers;
+	private final List<String> mimeTypes;
+	private final int maxChars;
+	private final Duration parseTimeout;
+
+	@Autowired
+	public TextExtractionService(JdbcTemplate jdbcTemplate, MinioClient minioClient,
+	                             @Value("${files.minio.bucket}") String bucket,
+	                             @Value("${files.text.workers:2}") int workers,
+	                             @Value("${files.text.queue-capacity:100}") int queueCapacity,
+	                             @Value("${files.text.mime-types}") List<String> mimeTypes,
+	                             @Value("${files.text.max-chars:262144}") int maxChars,
+	                             @Value("${files.text.max-attempts:3}") int maxAttempts,
+	                             @Value("${files.text.lease:PT30M}") Duration lease,
+	                             @Value("${files.text.parse-timeout:PT2M}") Duration parseTimeout,
+	                             @Value("${files.text.parse-threads:4}") int parseThreads) {
+		this(jdbcTemplate, minioClient, bucket, workers, queueCapacity, mimeTypes, maxChars, maxAttempts, lease, parseTimeout,
+			parseThreads, new AutoDetectParser());
+	}
+
+	TextExtractionService(JdbcTemplate jdbcTemplate, MinioClient minioClient, String bucket, int workers, int queueCapacity,
+	                      List<String> mimeTypes, int maxChars, int maxAttempts, Duration lease, Duration parseTimeout,
+	                      int parseThreads, Parser parser) {
+		super("text-extraction", jdbcTemplate, minioClient, bucket, "file_texts", "checksum", "?",
+			workers, queueCapacity, maxAttempts, lease);
+		AtomicInteger threads = new AtomicInteger();
+		// Parses run apart from the workers so a timed-out one can be abandoned; a parser that
+		// ignores the interrupt keeps its pool thread, but no longer a worker or the job. The queue
+		// holds one parse per worker, so a worker never waits behind more than the hung parses.
+		this.parsers = new ThreadPoolExecutor(parseThreads, parseThreads, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(workers), r -> {
+				Thread t = new Thread(r, "text-parse-" + threads.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}, new ThreadPoolExecutor.AbortPolicy());
+		this.parser = parser;
+		this.mimeTypes = mimeTypes;
+		this.maxChars = maxChars;
+		this.parseTimeout = parseTimeout;
+	}
+
+	@EventListener
+	public void onFileStored(FileStoredEvent event) {
+		if (!extractable(event.mimeType())) {
+			return;
+		}
+		List<String> checksums = jdbcTemplate.queryForList("SELECT checksum FROM files WHERE id = ?::uuid", String.class, event.fileId());
+		if (checksums.isEmpty()) {
+			return;
+		}
+		if (jdbcTemplate.update("INSERT INTO file_texts (checksum) VALUES (?) ON CONFLICT DO NOTHING", checksums.get(0)) > 0) {
+			submit(checksums.get(0));
+		}
+	}
+
+	@Override
+	@Scheduled(fixedDelayString = "${files.text.sweep-interval-ms:60000}")
+	public void sweep() {
+		super.sweep();
+	}
+
+	@Override
+	protected void backfill(int limit) {
+		jdbcTemplate.update("INSERT INTO file_texts (checksum) SELECT DISTINCT f.checksum FROM files f WHERE f.mime_type = ANY(?) " +
+			"AND NOT EXISTS (SELECT 1 FROM file_texts t WHERE t.checksum = f.checksum) LIMIT ? ON CONFLICT DO NOTHING",
+			mimeTypes.toArray(String[]::new), limit);
+	}
+
+	@Override
+	public void destroy() {
+		super.destroy();
+		parsers.shutdownNow();
+	}
+
+	private boolean extractable(String mimeType) {
+		return mimeType != null && mimeTypes.contains(mimeType);
+	}
+
+	@Override
+	protected void process(String checksum) throws Exception {
+		long started = System.nanoTime();
+		// Any copy will do; they share a checksum
+		List<String> filenames = jdbcTemplate.queryForList("SELECT filename FROM files WHERE checksum = ? LIMIT 1", String.class, checksum);
+		if (filenames.isEmpty()) {
+			discard(checksum);
+			return;
+		}
+		spooled("cop-files/" + filenames.get(0), "extract-", local -> {
+			BodyContentHandler handler = new BodyContentHandler(maxChars);
+			boolean truncated = parse(local, handler);
+			// PostgreSQL text cannot hold NUL
+			String text = handler.toString().replace("\u0000", "").strip();
+			jdbcTemplate.update("UPDATE file_texts SET status = 'READY', content = ?, chars = ?, truncated = ?, error = NULL, updated_at = NOW() " +
+				"WHERE checksum = ?", text, text.length(), truncated, checksum);
+			log.info("Extracted {} chars from {} in {} ms", text.length(), checksum, (System.nanoTime() - started) / 1_000_000);
+		});
+	}
+
+	/**
+	 * Parses {@code local} into {@code handler} and returns whether the character limit cut it short.
+	 *
+	 * @throws RejectedExecutionException when every parse thread is busy and the queue is full
+	 */
+	private boolean parse(Path local, BodyContentHandler handler) throws Exception {
+		Future<Boolean> parse;
+		try {
+			parse = parsers.submit(() -> {
+				Metadata metadata = new Metadata();
+				try (TikaInputStream in = TikaInputStream.get(local, metadata)) {
+					parser.parse(in, new Interruptible(handler), metadata, new ParseContext());
+					return false;
+				} catch (SAXException e) {
+					if (!WriteLimitReachedException.isWriteLimitReached(e)) {
+						throw e;
+					}
+					return true;
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			throw new RejectedExecutionException("All " + parsers.getMaximumPoolSize() + " parse threads are busy and the queue is full", e);
+		}
+		try {
+			return parse.get(parseTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			parse.cancel(true);
+			// A parse cancelled while still queued would otherwise keep its queue slot
+			parsers.purge();
+			throw new TimeoutException("Parsing took longer than " + parseTimeout);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception cause) {
+				throw cause;
+			}
+			throw e;
+		} catch (InterruptedException e) {
+			parse.cancel(true);
+			parsers.purge();
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+	}
+
+	/** Stops a parse that is still producing output once its thread is interrupted. */
+	private static final class Interruptible extends ContentHandlerDecorator {
+		Interruptible(BodyContentHandler handler) {
+			super(handler);
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new SAXException("Parse interrupted");
+			}
+			super.characters(ch, start, length);
+		}
+	}
+}
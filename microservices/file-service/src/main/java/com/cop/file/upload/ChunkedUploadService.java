@@ -0,0 +1,316 @@
+package com.cop.file.upload;
+
+import com.cop.file.derivative.FileStoredEvent;
+import io.minio.messages.Part;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Resumable uploads in independently addressed chunks, loosely after tus with the concatenation
+ * extension. Each chunk maps to one MinIO multipart part, so chunks can arrive in any order and in
+ * parallel, and a failed chunk is retried alone. Upload and part state lives in
+ * {@code file_uploads}/{@code file_upload_parts}, so a client can ask which chunks are missing
+ * after either side restarts.
+ *
+ * <p>Errors follow the controllers' split: {@link IllegalArgumentException} for a bad request,
+ * {@link IllegalStateException} for an upload in the wrong state, an empty result when the upload
+ * does not exist or belongs to someone else.
+ */
+@Service
+public class ChunkedUploadService {
+	private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+	private static final int MAX_PARTS = 10_000;
+	private static final String SELECT = "SELECT id, object_name, multipart_upload_id, original_name, mime_type, size, chunk_size, " +
+		"chunk_count, classification, report_id, event_id, expected_checksum, created_by, status, updated_at FROM file_uploads";
+	private static final RowMapper<UploadSession> SESSION = (rs, i) -> new UploadSession(
+		rs.getString("id"), rs.getString("object_name"), rs.getString("multipart_upload_id"), rs.getString("original_name"),
+		rs.getString("mime_type"), rs.getLong("size"), rs.getInt("chunk_size"), rs.getInt("chunk_count"),
+		rs.getString("classification"), rs.getString("report_id"), rs.getString("event_id"), rs.getString("expected_checksum"),
+		rs.getString("created_by"), rs.getString("status"), rs.getObject("updated_at", OffsetDateTime.class));
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate tx;
+	private final MultipartStore store;
+	private final ApplicationEventPublisher events;
+	private final int minChunkBytes;
+	private final int maxChunkBytes;
+	private final int defaultChunkBytes;
+	private final Duration expireAfter;
+	private final Duration completionLease;
+
+	public ChunkedUploadService(JdbcTemplate jdbcTemplate, TransactionTemplate tx, MultipartStore store, ApplicationEventPublisher events,
+	                            @Value("${files.upload.min-chunk-bytes:5242880}") int minChunkBytes,
+	                            @Value("${files.upload.max-chunk-bytes:67108864}") int maxChunkBytes,
+	                            @Value("${files.upload.default-chunk-bytes:16777216}") int defaultChunkBytes,
+	                            @Value("${files.upload.expire-after:PT24H}") Duration expireAfter,
+	                            @Value("${files.upload.completion-lease:PT15M}") Duration completionLease) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.tx = tx;
+		this.store = store;
+		this.events = events;
+		this.minChunkBytes = minChunkBytes;
+		this.maxChunkBytes = maxChunkBytes;
+		this.defaultChunkBytes = defaultChunkBytes;
+		this.expireAfter = expireAfter;
+		this.completionLease = completionLease;
+	}
+
+	public record Chunk(int index, int size, String checksum) {
+	}
+
+	public UploadSession create(String originalName, String mimeType, long size, Integer chunkSize, String classification,
+	                            String reportId, String eventId, String checksum, String user) throws IOException {
+		if (originalName == null || originalName.isBlank()) {
+			throw new IllegalArgumentException("filename is required");
+		}
+		if (size <= 0) {
+			throw new IllegalArgumentException("size must be positive");
+		}
+		if (checksum != null && !checksum.matches("[0-9a-fA-F]{64}")) {
+			throw new IllegalArgumentException("checksum must be a hex SHA-256 digest");
+		}
+		int chunk = chunkSize != null ? chunkSize : defaultChunkBytes;
+		if (chunk < minChunkBytes || chunk > maxChunkBytes) {
+			throw new IllegalArgumentException("chunkSize must be between " + minChunkBytes + " and " + maxChunkBytes + " bytes");
+		}
+		long chunks = (size + chunk - 1) / chunk;
+		if (chunks > MAX_PARTS) {
+			throw new IllegalArgumentException("File needs more than " + MAX_PARTS + " chunks; use a larger chunkSize");
+		}
+
+		if (uploaderId(user) == null) {
+			throw new IllegalArgumentException("Uploads must be made by a registered user");
+		}
+
+		String id = UUID.randomUUID().toString();
+		String ext = originalName.contains(".") ? originalName.substring(originalName.lastIndexOf('.')) : "";
+		String objectName = "cop-files/" + id + ext;
+		String mime = mimeType != null && !mimeType.isBlank() ? mimeType : "application/octet-stream";
+		String multipartId = store.begin(objectName, mime);
+		try {
+			jdbcTemplate.update("INSERT INTO file_uploads (id, object_name, multipart_upload_id, original_name, mime_type, size, chunk_size, " +
+					"chunk_count, classification, report_id, event_id, expected_checksum, created_by) VALUES (?::uuid,?,?,?,?,?,?,?,?,?::uuid,?::uuid,?,?)",
+				id, objectName, multipartId, originalName, mime, size, chunk, (int) chunks,
+				classification != null ? classification : "UNCLASSIFIED", reportId, eventId,
+				checksum != null ? checksum.toLowerCase() : null, user);
+		} catch (RuntimeException e) {
+			// Nothing refers to the multipart upload without its row, so give it back now
+			try {
+				store.abort(objectName, multipartId);
+			} catch (IOException abortFailed) {
+				e.addSuppressed(abortFailed);
+			}
+			throw e;
+		}
+		return find(id, user).orElseThrow();
+	}
+
+	public Optional<UploadSession> find(String id, String user) {
+		List<UploadSession> rows = jdbcTemplate.query(SELECT + " WHERE id = ?::uuid", SESSION, id);
+		if (rows.isEmpty() || (rows.get(0).createdBy() != null && !rows.get(0).createdBy().equals(user))) {
+			return Optional.empty();
+		}
+		return Optional.of(rows.get(0));
+	}
+
+	public List<Chunk> chunks(String id) {
+		return jdbcTemplate.query("SELECT part_number, size, checksum FROM file_upload_parts WHERE upload_id = ?::uuid ORDER BY part_number",
+			(rs, i) -> new Chunk(rs.getInt("part_number") - 1, rs.getInt("size"), rs.getString("checksum")), id);
+	}
+
+	/**
+	 * Stores one chunk. The body must be exactly the chunk's length; {@code uploadChecksum} is a
+	 * tus {@code Upload-Checksum} value ({@code sha256 <base64>}) and is verified when present.
+	 * Re-sending a chunk replaces it.
+	 */
+	public Optional<Chunk> putChunk(String id, int index, InputStream body, String uploadChecksum, String user) throws IOException {
+		Optional<UploadSession> found = find(id, user);
+		if (found.isEmpty()) {
+			return Optional.empty();
+		}
+		UploadSession session = found.get();
+		if (!"ACTIVE".equals(session.status())) {
+			throw new IllegalStateException("Upload is " + session.status());
+		}
+		if (index < 0 || index >= session.chunkCount()) {
+			throw new IllegalArgumentException("Chunk index must be between 0 and " + (session.chunkCount() - 1));
+		}
+		int expected = session.chunkLength(index);
+		byte[] data = body.readNBytes(expected);
+		if (data.length != expected || body.read() != -1) {
+			throw new IllegalArgumentException("Chunk " + index + " must be exactly " + expected + " bytes");
+		}
+		String checksum = DigestUtils.sha256Hex(data);
+		if (uploadChecksum != null && !checksum.equals(expectedChecksum(uploadChecksum))) {
+			throw new IllegalArgumentException("Chunk " + index + " checksum mismatch");
+		}
+
+		String etag = store.putPart(session.objectName(), session.multipartUploadId(), index + 1, data);
+		jdbcTemplate.update("INSERT INTO file_upload_parts (upload_id, part_number, size, checksum, etag) VALUES (?::uuid,?,?,?,?) " +
+				"ON CONFLICT (upload_id, part_number) DO UPDATE SET size = EXCLUDED.size, checksum = EXCLUDED.checksum, " +
+				"etag = EXCLUDED.etag, uploaded_at = NOW()",
+			id, index + 1, expected, checksum, etag);
+		jdbcTemplate.update("UPDATE file_uploads SET updated_at = NOW() WHERE id = ?::uuid", id);
+		return Optional.of(new Chunk(index, expected, checksum));
+	}
+
+	/**
+	 * Assembles the chunks, hashes the assembled object and registers it in {@code files}. The
+	 * whole-file SHA-256 is computed by streaming the object back once, since parallel chunks
+	 * cannot be fed to a single digest in order. Calling this again after success returns the
+	 * same file; a completion abandoned by a crash can be retried once its lease expires.
+	 */
+	public Optional<Map<String, Object>> complete(String id, String user) throws IOException {
+		Optional<UploadSession> found = find(id, user);
+		if (found.isEmpty()) {
+			return Optional.empty();
+		}
+		UploadSession session = found.get();
+		if ("COMPLETED".equals(session.status())) {
+			return Optional.of(fileMetadata(session, jdbcTemplate.queryForObject("SELECT checksum FROM files WHERE id = ?::uuid", String.class, id)));
+		}
+		String uploader = uploaderId(session.createdBy());
+		if (uploader == null) {
+			throw new IllegalStateException("Upload has no registered uploader");
+		}
+		int claimed = jdbcTemplate.update("UPDATE file_uploads SET status = 'COMPLETING', updated_at = NOW() WHERE id = ?::uuid " +
+				"AND (status = 'ACTIVE' OR (status = 'COMPLETING' AND updated_at < ?))",
+			id, OffsetDateTime.now().minus(completionLease));
+		if (claimed == 0) {
+			throw new IllegalStateException("Upload is " + session.status());
+		}
+
+		List<Part> parts = jdbcTemplate.query("SELECT part_number, etag FROM file_upload_parts WHERE upload_id = ?::uuid ORDER BY part_number",
+			(rs, i) -> new Part(rs.getInt("part_number"), rs.getString("etag")), id);
+		if (parts.size() != session.chunkCount()) {
+			release(id);
+			throw new IllegalStateException("Upload has " + parts.size() + " of " + session.chunkCount() + " chunks");
+		}
+
+		String checksum;
+		try {
+			store.complete(session.objectName(), session.multipartUploadId(), parts);
+			checksum = sha256(session.objectName());
+		} catch (IOException e) {
+			release(id);
+			throw e;
+		}
+		if (session.expectedChecksum() != null && !session.expectedChecksum().equals(checksum)) {
+			// The parts are gone once assembled, so the only way forward is a fresh upload
+			jdbcTemplate.update("UPDATE file_uploads SET status = 'ABORTED', updated_at = NOW() WHERE id = ?::uuid", id);
+			store.remove(session.objectName());
+			throw new IllegalArgumentException("File checksum mismatch: expected " + session.expectedChecksum() + ", got " + checksum);
+		}
+
+		tx.executeWithoutResult(status -> {
+			jdbcTemplate.update("INSERT INTO files (id, filename, original_name, mime_type, size, classification, uploaded_by, uploaded_at, report_id, event_id, tags, checksum, s3_url) VALUES (?::uuid,?,?,?,?,?,?::uuid,?,?::uuid,?::uuid,?::jsonb,?,?)",
+				id, session.filename(), session.originalName(), session.mimeType(), session.size(), session.classification(), uploader,
+				OffsetDateTime.now(), session.reportId(), session.eventId(), "[]", checksum, store.url(session.objectName()));
+			jdbcTemplate.update("UPDATE file_uploads SET status = 'COMPLETED', file_id = ?::uuid, updated_at = NOW() WHERE id = ?::uuid", id, id);
+		});
+		events.publishEvent(new FileStoredEvent(id, session.mimeType()));
+		return Optional.of(fileMetadata(session, checksum));
+	}
+
+	public boolean abort(String id, String user) throws IOException {
+		Optional<UploadSession> found = find(id, user);
+		if (found.isEmpty()) {
+			return false;
+		}
+		int updated = jdbcTemplate.update("UPDATE file_uploads SET status = 'ABORTED', updated_at = NOW() WHERE id = ?::uuid AND status = 'ACTIVE'", id);
+		if (updated == 0) {
+			throw new IllegalStateException("Upload is " + found.get().status());
+		}
+		store.abort(found.get().objectName(), found.get().multipartUploadId());
+		return true;
+	}
+
+	/** Aborts uploads nobody has touched for {@code files.upload.expire-after}, releasing their parts. */
+	@Scheduled(fixedDelayString = "${files.upload.sweep-interval-ms:3600000}")
+	public void expire() {
+		List<UploadSession> stale = jdbcTemplate.query(
+			"UPDATE file_uploads SET status = 'ABORTED', updated_at = NOW() WHERE status = 'ACTIVE' AND updated_at < ? RETURNING *",
+			SESSION, OffsetDateTime.now().minus(expireAfter));
+		for (UploadSession session : stale) {
+			try {
+				store.abort(session.objectName(), session.multipartUploadId());
+			} catch (IOException e) {
+				log.warn("Could not abort expired upload {}: {}", session.id(), e.getMessage());
+			}
+		}
+		if (!stale.isEmpty()) {
+			log.info("Expired {} idle uploads", stale.size());
+		}
+	}
+
+	/** The {@code users} id of the token subject, which is either that id or the username. */
+	private String uploaderId(String subject) {
+		if (subject == null) {
+			return null;
+		}
+		List<String> ids = jdbcTemplate.queryForList("SELECT id::text FROM users WHERE id::text = ? OR username = ?", String.class, subject, subject);
+		return ids.isEmpty() ? null : ids.get(0);
+	}
+
+	private void release(String id) {
+		jdbcTemplate.update("UPDATE file_uploads SET status = 'ACTIVE', updated_at = NOW() WHERE id = ?::uuid AND status = 'COMPLETING'", id);
+	}
+
+	private String sha256(String objectName) throws IOException {
+		MessageDigest digest = DigestUtils.getSha256Digest();
+		byte[] buffer = new byte[64 * 1024];
+		try (InputStream in = store.open(objectName)) {
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, n);
+			}
+		}
+		return Hex.encodeHexString(digest.digest());
+	}
+
+	private static String expectedChecksum(String uploadChecksum) {
+		String[] parts = uploadChecksum.trim().split("\\s+", 2);
+		if (parts.length != 2 || !parts[0].equalsIgnoreCase("sha256")) {
+			throw new IllegalArgumentException("Upload-Checksum must be 'sha256 <base64 digest>'");
+		}
+		try {
+			return Hex.encodeHexString(Base64.getDecoder().decode(parts[1]));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Upload-Checksum digest is not valid base64");
+		}
+	}
+
+	private Map<String, Object> fileMetadata(UploadSession session, String checksum) {
+		Map<String, Object> resp = new HashMap<>();
+		resp.put("id", session.id());
+		resp.put("filename", session.filename());
+		resp.put("originalName", session.originalName());
+		resp.put("mimeType", session.mimeType());
+		resp.put("size", session.size());
+		resp.put("classification", session.classification());
+		resp.put("checksum", checksum);
+		resp.put("s3Url", store.url(session.objectName()));
+		return resp;
+	}
+}
@@ -0,0 +1,136 @@
+package com.cop.file.upload;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.GetObjectArgs;
+import io.minio.MinioAsyncClient;
+import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.MinioException;
+import io.minio.messages.Part;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The S3 multipart calls backing resumable uploads. MinIO's client only exposes them to
+ * subclasses, hence the inheritance: the store copies the service's shared async client.
+ * Everything else goes through the usual argument builders.
+ */
+@Component
+public class MultipartStore extends MinioAsyncClient {
+	private final String bucket;
+	private final String endpoint;
+
+	@Autowired
+	public MultipartStore(MinioAsyncClient client,
+	                      @Value("${files.minio.bucket}") String bucket,
+	                      @Value("${files.minio.endpoint}") String endpoint) {
+		super(client);
+		this.bucket = bucket;
+		this.endpoint = endpoint;
+	}
+
+	public String url(String objectName) {
+		return endpoint + "/" + bucket + "/" + objectName;
+	}
+
+	/** Starts a multipart upload and returns its MinIO upload id. */
+	public String begin(String objectName, String contentType) throws IOException {
+		Multimap<String, String> headers = HashMultimap.create();
+		headers.put("Content-Type", contentType);
+		try {
+			return await(createMultipartUploadAsync(bucket, null, objectName, headers, null)).result().uploadId();
+		} catch (MinioException | GeneralSecurityException e) {
+			throw new IOException("Could not start multipart upload for " + objectName, e);
+		}
+	}
+
+	/** Uploads one part, replacing any earlier attempt at the same number, and returns its ETag. */
+	public String putPart(String objectName, String uploadId, int partNumber, byte[] data) throws IOException {
+		try {
+			return await(uploadPartAsync(bucket, null, objectName, data, data.length, uploadId, partNumber, null, null)).etag();
+		} catch (MinioException | GeneralSecurityException e) {
+			throw new IOException("Could not upload part " + partNumber + " of " + objectName, e);
+		}
+	}
+
+	/**
+	 * Assembles the parts into the final object. A repeat call after a successful completion,
+	 * e.g. when the service died before recording it, is treated as success if the object exists.
+	 */
+	public void complete(String objectName, String uploadId, List<Part> parts) throws IOException {
+		try {
+			await(completeMultipartUploadAsync(bucket, null, objectName, uploadId, parts.toArray(Part[]::new), null, null));
+		} catch (IOException e) {
+			if (!(e.getCause() instanceof ErrorResponseException error)
+					|| !"NoSuchUpload".equals(error.errorResponse().code()) || !exists(objectName)) {
+				throw e;
+			}
+		} catch (MinioException | GeneralSecurityException e) {
+			throw new IOException("Could not complete multipart upload for " + objectName, e);
+		}
+	}
+
+	public void abort(String objectName, String uploadId) throws IOException {
+		try {
+			await(abortMultipartUploadAsync(bucket, null, objectName, uploadId, null, null));
+		} catch (MinioException | GeneralSecurityException e) {
+			throw new IOException("Could not abort multipart upload for " + objectName, e);
+		}
+	}
+
+	public InputStream open(String objectName) throws IOException {
+		try {
+			return await(getObject(GetObjectArgs.builder().bucket(bucket).object(objectName).build()));
+		} catch (MinioException | GeneralSecurityException e) {
+			throw new IOException("Could not read " + objectName, e);
+		}
+	}
+
+	public void remove(String objectName) throws IOException {
+		try {
+			await(removeObject(RemoveObjectArgs.builder().bucket(bucket).object(objectName).build()));
+		} catch (MinioException | GeneralSecurityException e) {
+			throw new IOException("Could not remove " + objectName, e);
+		}
+	}
+
+	private boolean exists(String objectName) throws IOException {
+		try {
+			await(statObject(StatObjectArgs.builder().bucket(bucket).object(objectName).build()));
+			return true;
+		} catch (IOException e) {
+			if (e.getCause() instanceof ErrorResponseException) {
+				return false;
+			}
+			throw e;
+		} catch (MinioException | GeneralSecurityException e) {
+			throw new IOException("Could not stat " + objectName, e);
+		}
+	}
+
+	private static <T> T await(CompletableFuture<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for MinIO");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException io) {
+				throw io;
+			}
+			throw new IOException("MinIO request failed: " + cause.getMessage(), cause);
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package com.cop.file.upload;
+
+import java.time.OffsetDateTime;
+
+/** One row of {@code file_uploads}. Chunk {@code i} is stored as multipart part {@code i + 1}. */
+public record UploadSession(String id,
+                            String objectName,
+                            String multipartUploadId,
+                            String originalName,
+                            String mimeType,
+                            long size,
+                            int chunkSize,
+                            int chunkCount,
+                            String classification,
+                            String reportId,
+                            String eventId,
+                            String expectedChecksum,
+                            String createdBy,
+                            String status,
+                            OffsetDateTime updatedAt) {
+
+	/** Every chunk is {@code chunkSize} bytes except the last, which holds the remainder. */
+	public int chunkLength(int index) {
+		return index < chunkCount - 1 ? chunkSize : (int) (size - (long) chunkSize * (chunkCount - 1));
+	}
+
+	public String filename() {
+		return objectName.substring(objectName.lastIndexOf('/') + 1);
+	}
+}
@@ -0,0 +1,113 @@
+package com.cop.file.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the Postgres at {@code COP_TEST_DATABASE_URL}, in a schema of its own holding
+ * {@code files} and {@code file_texts} as the changelog creates them.
+ */
+@EnabledIfEnvironmentVariable(named = "COP_TEST_DATABASE_URL", matches = ".+")
+class SearchControllerTest {
+	private static final String SCHEMA = "file_search_test";
+	private static final String REPORT = "5b0e4bb2-59b4-4a4f-8b3c-46a2a4d1c0de";
+
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private SearchController search;
+
+	@BeforeEach
+	void createSchema() throws SQLException {
+		DriverManagerDataSource database = new DriverManagerDataSource(System.getenv("COP_TEST_DATABASE_URL"),
+			System.getenv().getOrDefault("COP_TEST_DATABASE_USER", "postgres"), System.getenv().getOrDefault("COP_TEST_DATABASE_PASSWORD", ""));
+		dataSource = new SingleConnectionDataSource(database.getConnection(), true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+		jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+		jdbcTemplate.execute("CREATE TABLE files (id UUID PRIMARY KEY, original_name VARCHAR(255) NOT NULL, mime_type VARCHAR(100) NOT NULL, " +
+			"classification VARCHAR(20), report_id UUID, event_id UUID, checksum VARCHAR(64) NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE file_texts (checksum VARCHAR(64) PRIMARY KEY, status VARCHAR(20) NOT NULL DEFAULT 'PENDING', " +
+			"content TEXT, search_vector TSVECTOR GENERATED ALWAYS AS (to_tsvector('simple', COALESCE(content, ''))) STORED)");
+		search = new SearchController(jdbcTemplate, 100);
+
+		file("convoy.pdf", "UNCLASSIFIED", REPORT, "a", "READY", "Convoy of six trucks sighted near the northern bridge at dawn");
+		file("copy-of-convoy.pdf", null, null, "a", "READY", null);
+		file("bridge.docx", "SECRET", null, "b", "READY", "Demolition charges found under the northern bridge");
+		file("pending.pdf", "UNCLASSIFIED", null, "c", "PENDING", "Bridge survey not yet extracted");
+	}
+
+	@AfterEach
+	void dropSchema() {
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+		dataSource.destroy();
+	}
+
+	@Test
+	void matchesEveryCopyOfAReadyTextWithASnippet() {
+		List<Map<String, Object>> results = results(search("convoy", "UNCLASSIFIED", null));
+
+		assertThat(results).extracting(r -> r.get("originalName")).containsExactlyInAnyOrder("convoy.pdf", "copy-of-convoy.pdf");
+		assertThat((String) results.get(0).get("snippet")).contains("<b>Convoy</b>");
+	}
+
+	@Test
+	void filesAboveTheCallersClearanceAreLeftOut() {
+		assertThat(results(search("bridge", "UNCLASSIFIED", null))).extracting(r -> r.get("originalName"))
+			.containsExactlyInAnyOrder("convoy.pdf", "copy-of-convoy.pdf");
+		assertThat(results(search("bridge", "SECRET", null))).extracting(r -> r.get("originalName"))
+			.containsExactlyInAnyOrder("convoy.pdf", "copy-of-convoy.pdf", "bridge.docx");
+	}
+
+	@Test
+	void queriesUseWebSearchSyntax() {
+		assertThat(results(search("bridge -convoy", "SECRET", null))).extracting(r -> r.get("originalName")).containsExactly("bridge.docx");
+		assertThat(results(search("\"bridge at dawn\"", "SECRET", null))).extracting(r -> r.get("originalName"))
+			.containsExactlyInAnyOrder("convoy.pdf", "copy-of-convoy.pdf");
+		assertThat(results(search("\"dawn at bridge\"", "SECRET", null))).isEmpty();
+	}
+
+	@Test
+	void resultsNarrowToAReport() {
+		assertThat(results(search("bridge", "SECRET", REPORT))).extracting(r -> r.get("originalName")).containsExactly("convoy.pdf");
+	}
+
+	@Test
+	void blankQueriesAreRejected() {
+		assertThat(search(" ", "SECRET", null).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	private ResponseEntity<?> search(String query, String clearance, String reportId) {
+		Jwt jwt = Jwt.withTokenValue("token").header("alg", "none").subject("analyst").claim("clearance_level", clearance).build();
+		return search.search(jwt, query, reportId, null, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, Object>> results(ResponseEntity<?> response) {
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		return (List<Map<String, Object>>) response.getBody();
+	}
+
+	private void file(String name, String classification, String reportId, String checksum, String status, String content) {
+		jdbcTemplate.update("INSERT INTO files (id, original_name, mime_type, classification, report_id, checksum) VALUES (?, ?, 'application/pdf', ?, ?::uuid, ?)",
+			UUID.randomUUID(), name, classification, reportId, checksum);
+		if (content != null) {
+			jdbcTemplate.update("INSERT INTO file_texts (checksum, status, content) VALUES (?, ?, ?)", checksum, status, content);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.cop.file.derivative;
+
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import okhttp3.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DerivativeServiceTest {
+	private static final String FILE_ID = "7d1c5a52-3f7e-4f59-9a43-0c1e3b6f8a10";
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final MinioClient minioClient = mock(MinioClient.class);
+	private final DerivativeService derivatives = new DerivativeService(jdbcTemplate, minioClient, "files", 1, 4,
+		64, 320, 512, 256, 3, Duration.ofMinutes(30));
+
+	@AfterEach
+	void shutDown() {
+		derivatives.destroy();
+	}
+
+	@Test
+	void largeImagesGetAThumbnailAPreviewAndEveryTileOfThePyramid() throws Exception {
+		stored("photo.png", image(1000, 600, "png"));
+
+		derivatives.process(FILE_ID);
+
+		// Levels of 250 x 150, 500 x 300 and 1000 x 600 in 256-pixel tiles
+		List<String> expected = new ArrayList<>(List.of("thumbnail.jpg", "preview.jpg", "tiles/0/0_0.jpg"));
+		for (int x = 0; x < 2; x++) {
+			for (int y = 0; y < 2; y++) {
+				expected.add("tiles/1/" + x + "_" + y + ".jpg");
+			}
+		}
+		for (int x = 0; x < 4; x++) {
+			for (int y = 0; y < 3; y++) {
+				expected.add("tiles/2/" + x + "_" + y + ".jpg");
+			}
+		}
+		assertThat(written()).containsExactlyInAnyOrderElementsOf(expected.stream().map(name -> "cop-files/" + FILE_ID + "/" + name).toList());
+		verify(jdbcTemplate).update(contains("status = 'READY'"), eq(1000), eq(600), eq(256), eq(3), eq(FILE_ID));
+		// The lease is renewed as the full-resolution rows go by
+		verify(jdbcTemplate, atLeastOnce()).update(contains("SET updated_at = NOW()"), eq(FILE_ID));
+	}
+
+	@Test
+	void smallImagesGetNoPyramid() throws Exception {
+		stored("photo.jpg", image(400, 300, "jpeg"));
+
+		derivatives.process(FILE_ID);
+
+		assertThat(written()).containsExactlyInAnyOrder("cop-files/" + FILE_ID + "/thumbnail.jpg", "cop-files/" + FILE_ID + "/preview.jpg");
+		verify(jdbcTemplate).update(contains("status = 'READY'"), eq(400), eq(300), isNull(), isNull(), eq(FILE_ID));
+	}
+
+	@Test
+	void unreadableFilesAreSkipped() throws Exception {
+		stored("notes.png", "not an image".getBytes());
+
+		derivatives.process(FILE_ID);
+
+		verify(minioClient, never()).putObject(any());
+		verify(jdbcTemplate).update(contains("status = 'SKIPPED'"), eq(FILE_ID));
+	}
+
+	@Test
+	void filesDeletedSinceTheClaimDropTheirJob() throws Exception {
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(FILE_ID))).thenReturn(List.of());
+
+		derivatives.process(FILE_ID);
+
+		verify(minioClient, never()).getObject(any());
+		verify(jdbcTemplate).update(contains("DELETE FROM file_derivatives"), eq(FILE_ID));
+	}
+
+	private void stored(String filename, byte[] content) throws Exception {
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(FILE_ID))).thenReturn(List.of(filename));
+		when(minioClient.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> new GetObjectResponse(Headers.of(), "files", null,
+			"cop-files/" + filename, new ByteArrayInputStream(content)));
+	}
+
+	private List<String> written() throws Exception {
+		ArgumentCaptor<PutObjectArgs> puts = ArgumentCaptor.forClass(PutObjectArgs.class);
+		verify(minioClient, atLeastOnce()).putObject(puts.capture());
+		return puts.getAllValues().stream().map(PutObjectArgs::object).toList();
+	}
+
+	private static byte[] image(int width, int height, String format) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				image.setRGB(x, y, (x & 0xff) << 16 | (y & 0xff) << 8);
+			}
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageIO.write(image, format, bytes);
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,139 @@
+package com.cop.file.derivative;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDerivativesTest {
+	@TempDir
+	Path dir;
+
+	@Test
+	void unknownFormatsOpenAsNull() throws IOException {
+		Path file = Files.write(dir.resolve("notes.txt"), "not an image".getBytes());
+
+		assertThat(ImageDerivatives.open(file)).isNull();
+	}
+
+	@Test
+	void fitKeepsTheAspectRatioAndNeverEnlarges() throws Exception {
+		try (ImageDerivatives image = ImageDerivatives.open(png(gradient(1000, 600)))) {
+			assertThat(image.width()).isEqualTo(1000);
+			assertThat(image.height()).isEqualTo(600);
+			BufferedImage thumbnail = image.fit(100);
+			assertThat(thumbnail.getWidth()).isEqualTo(100);
+			assertThat(thumbnail.getHeight()).isEqualTo(60);
+			BufferedImage whole = image.fit(5000);
+			assertThat(whole.getWidth()).isEqualTo(1000);
+			assertThat(whole.getHeight()).isEqualTo(600);
+		}
+	}
+
+	@Test
+	void levelsHalveUntilOneTileHoldsTheImage() throws Exception {
+		try (ImageDerivatives image = ImageDerivatives.open(png(gradient(1000, 600)))) {
+			assertThat(image.levels(256)).isEqualTo(3);
+			assertThat(image.levels(1000)).isEqualTo(1);
+			assertThat(image.levels(999)).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void pyramidHandsOverEveryStripOfEveryLevelInRowOrder() throws Exception {
+		List<int[]> strips = new ArrayList<>();
+		try (ImageDerivatives image = ImageDerivatives.open(png(gradient(1000, 600)))) {
+			image.pyramid(256, (level, row, strip) -> strips.add(new int[]{level, row, strip.getWidth(), strip.getHeight()}));
+		}
+
+		assertThat(strips).containsExactlyInAnyOrder(
+			new int[]{2, 0, 1000, 256}, new int[]{2, 1, 1000, 256}, new int[]{2, 2, 1000, 88},
+			new int[]{1, 0, 500, 256}, new int[]{1, 1, 500, 44},
+			new int[]{0, 0, 250, 150});
+		for (int level = 0; level < 3; level++) {
+			int expectedRow = 0;
+			for (int[] strip : strips) {
+				if (strip[0] == level) {
+					assertThat(strip[1]).isEqualTo(expectedRow++);
+				}
+			}
+		}
+	}
+
+	@Test
+	void fullResolutionStripsArePixelExactAndCoarserOnesAreAveraged() throws Exception {
+		BufferedImage source = gradient(600, 300);
+		Map<Integer, List<BufferedImage>> levels = new HashMap<>();
+		try (ImageDerivatives image = ImageDerivatives.open(png(source))) {
+			image.pyramid(256, (level, row, strip) -> levels.computeIfAbsent(level, l -> new ArrayList<>()).add(strip));
+		}
+
+		List<BufferedImage> finest = levels.get(2);
+		assertThat(finest).hasSize(2);
+		assertThat(finest.get(1).getRGB(17, 3) & 0xffffff).isEqualTo(source.getRGB(17, 256 + 3) & 0xffffff);
+		// Level 1 pixel (10, 140) comes from source rows 280 and 281, in the second full-resolution strip
+		assertThat(levels.get(1).get(0).getRGB(10, 140) & 0xffffff).isEqualTo(average(source, 20, 280));
+	}
+
+	@Test
+	void halveAveragesWhatIsLeftAtOddEdges() {
+		BufferedImage upper = new BufferedImage(3, 1, BufferedImage.TYPE_INT_RGB);
+		upper.setRGB(0, 0, 0x000000);
+		upper.setRGB(1, 0, 0x0000ff);
+		upper.setRGB(2, 0, 0x00ff00);
+		BufferedImage lower = new BufferedImage(3, 1, BufferedImage.TYPE_INT_RGB);
+		lower.setRGB(0, 0, 0x0000ff);
+		lower.setRGB(1, 0, 0x0000ff);
+		lower.setRGB(2, 0, 0xff0000);
+
+		BufferedImage half = ImageDerivatives.halve(upper, lower);
+		BufferedImage single = ImageDerivatives.halve(upper, null);
+
+		assertThat(half.getWidth()).isEqualTo(2);
+		assertThat(half.getHeight()).isEqualTo(1);
+		assertThat(half.getRGB(0, 0) & 0xffffff).isEqualTo(0x0000bf);
+		assertThat(half.getRGB(1, 0) & 0xffffff).isEqualTo(0x808000);
+		assertThat(single.getRGB(1, 0) & 0xffffff).isEqualTo(0x00ff00);
+	}
+
+	private Path png(BufferedImage image) throws IOException {
+		Path file = dir.resolve("image-" + image.getWidth() + "x" + image.getHeight() + ".png");
+		ImageIO.write(image, "png", file.toFile());
+		return file;
+	}
+
+	private static BufferedImage gradient(int width, int height) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8 | (x + y) & 0xff);
+			}
+		}
+		return image;
+	}
+
+	private static int average(BufferedImage image, int x, int y) {
+		int r = 0;
+		int g = 0;
+		int b = 0;
+		for (int dy = 0; dy < 2; dy++) {
+			for (int dx = 0; dx < 2; dx++) {
+				int rgb = image.getRGB(x + dx, y + dy);
+				r += (rgb >> 16) & 0xff;
+				g += (rgb >> 8) & 0xff;
+				b += rgb & 0xff;
+			}
+		}
+		return ((r + 2) / 4) << 16 | ((g + 2) / 4) << 8 | (b + 2) / 4;
+	}
+}
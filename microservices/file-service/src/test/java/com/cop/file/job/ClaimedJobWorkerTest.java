@@ -0,0 +1,77 @@
+package com.cop.file.job;
+
+import io.minio.MinioClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClaimedJobWorkerTest {
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private Throwable failure;
+	private final ClaimedJobWorker worker = new ClaimedJobWorker("test", jdbcTemplate, mock(MinioClient.class), "files",
+		"jobs", "id", "?", 1, 1, 3, Duration.ofMinutes(5)) {
+		@Override
+		protected void process(String id) throws Exception {
+			if (failure instanceof Exception e) {
+				throw e;
+			}
+			if (failure instanceof Error e) {
+				throw e;
+			}
+		}
+
+		@Override
+		protected void backfill(int limit) {
+		}
+	};
+
+	@AfterEach
+	void shutDown() {
+		worker.destroy();
+	}
+
+	@Test
+	void anExceptionLeavesTheJobRetryable() {
+		claimed();
+		failure = new IllegalStateException("storage unavailable");
+
+		worker.run("a");
+
+		verify(jdbcTemplate).update(contains("status = 'FAILED', error = ?"), eq("storage unavailable"), eq("a"));
+	}
+
+	@Test
+	void anErrorFailsTheJobForGood() {
+		claimed();
+		failure = new OutOfMemoryError("Java heap space");
+
+		worker.run("a");
+
+		verify(jdbcTemplate).update(contains("attempts = GREATEST(attempts, ?)"), eq(3), eq("java.lang.OutOfMemoryError: Java heap space"), eq("a"));
+	}
+
+	@Test
+	void aJobClaimedElsewhereIsNotRun() {
+		failure = new OutOfMemoryError();
+
+		worker.run("a");
+
+		verify(jdbcTemplate, never()).update(contains("SET status = 'FAILED'"), any(), any());
+		verify(jdbcTemplate, never()).update(contains("SET status = 'FAILED'"), any(), any(), any());
+	}
+
+	private void claimed() {
+		when(jdbcTemplate.update(contains("SET status = 'PROCESSING'"), anyString(), any(), any())).thenReturn(1);
+	}
+}
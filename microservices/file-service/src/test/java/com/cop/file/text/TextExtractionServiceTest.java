@@ -0,0 +1,154 @@
+package com.cop.file.text;
+
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import okhttp3.Headers;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.xml.sax.ContentHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TextExtractionServiceTest {
+	private static final String CHECKSUM = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final MinioClient minioClient = mock(MinioClient.class);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final List<TextExtractionService> services = new ArrayList<>();
+
+	@AfterEach
+	void shutDown() {
+		release.countDown();
+		services.forEach(TextExtractionService::destroy);
+	}
+
+	@Test
+	void extractedTextIsStoredTrimmed() throws Exception {
+		stored("Convoy sighted near the bridge\n\n");
+
+		service(1000, Duration.ofSeconds(30), 1, new AutoDetectParser()).process(CHECKSUM);
+
+		verify(jdbcTemplate).update(contains("status = 'READY'"), eq("Convoy sighted near the bridge"), eq(30), eq(false), eq(CHECKSUM));
+	}
+
+	@Test
+	void textPastTheLimitIsCutAndFlagged() throws Exception {
+		stored("Convoy sighted near the bridge");
+
+		service(6, Duration.ofSeconds(30), 1, new AutoDetectParser()).process(CHECKSUM);
+
+		verify(jdbcTemplate).update(contains("status = 'READY'"), eq("Convoy"), eq(6), eq(true), eq(CHECKSUM));
+	}
+
+	@Test
+	void checksumsWithNoFileLeftDropTheirJob() throws Exception {
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(CHECKSUM))).thenReturn(List.of());
+
+		service(1000, Duration.ofSeconds(30), 1, new AutoDetectParser()).process(CHECKSUM);
+
+		verify(minioClient, never()).getObject(any());
+		verify(jdbcTemplate).update(contains("DELETE FROM file_texts"), eq(CHECKSUM));
+	}
+
+	@Test
+	void aParsePastTheTimeoutFailsTheJob() throws Exception {
+		stored("anything");
+		TextExtractionService service = service(1000, Duration.ofMillis(200), 1, new HungParser());
+
+		assertThatThrownBy(() -> service.process(CHECKSUM)).isInstanceOf(TimeoutException.class).hasMessageContaining("PT0.2S");
+		verify(jdbcTemplate, never()).update(contains("status = 'READY'"), any(), any(), any(), any());
+	}
+
+	@Test
+	void parsesAreRefusedOnceHungParsesHoldEveryThreadAndTheQueueIsFull() throws Exception {
+		stored("anything");
+		TextExtractionService service = service(1000, Duration.ofSeconds(2), 1, new HungParser());
+		// Holds the only parse thread past its timeout
+		CompletableFuture<Void> hung = CompletableFuture.runAsync(() -> process(service));
+		awaitDownloads(1);
+		// Waits in the one queue slot behind it
+		CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> process(service));
+		awaitDownloads(2);
+		Thread.sleep(200);
+
+		assertThatThrownBy(() -> service.process(CHECKSUM)).isInstanceOf(RejectedExecutionException.class);
+		assertThatThrownBy(hung::join).hasRootCauseInstanceOf(TimeoutException.class);
+		assertThatThrownBy(queued::join).hasRootCauseInstanceOf(TimeoutException.class);
+	}
+
+	private TextExtractionService service(int maxChars, Duration parseTimeout, int parseThreads, Parser parser) {
+		TextExtractionService service = new TextExtractionService(jdbcTemplate, minioClient, "files", 1, 4, List.of("text/plain"),
+			maxChars, 3, Duration.ofMinutes(30), parseTimeout, parseThreads, parser);
+		services.add(service);
+		return service;
+	}
+
+	private void stored(String content) throws Exception {
+		when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(CHECKSUM))).thenReturn(List.of("notes.txt"));
+		when(minioClient.getObject(any(GetObjectArgs.class))).thenAnswer(invocation -> new GetObjectResponse(Headers.of(), "files", null,
+			"cop-files/notes.txt", new ByteArrayInputStream(content.getBytes())));
+	}
+
+	private void process(TextExtractionService service) {
+		try {
+			service.process(CHECKSUM);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void awaitDownloads(int count) throws InterruptedException {
+		while (mockingDetails(minioClient).getInvocations().stream().filter(i -> i.getMethod().getName().equals("getObject")).count() < count) {
+			Thread.sleep(10);
+		}
+	}
+
+	/** A parser stuck in a loop that never checks for interruption. */
+	private final class HungParser implements Parser {
+		@Override
+		public Set<MediaType> getSupportedTypes(ParseContext context) {
+			return Set.of(MediaType.TEXT_PLAIN);
+		}
+
+		@Override
+		public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context) {
+			while (true) {
+				try {
+					release.await();
+					return;
+				} catch (InterruptedException e) {
+					// Ignored, as a parser stuck in native code or a tight loop would
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package com.cop.file.upload;
+
+import com.cop.file.derivative.FileStoredEvent;
+import io.minio.MinioAsyncClient;
+import io.minio.messages.Part;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against the Postgres at {@code COP_TEST_DATABASE_URL}, in a schema of its own holding the
+ * tables the service touches, with MinIO replaced by an in-memory multipart store.
+ */
+@EnabledIfEnvironmentVariable(named = "COP_TEST_DATABASE_URL", matches = ".+")
+class ChunkedUploadServiceTest {
+	private static final String SCHEMA = "chunked_upload_test";
+	private static final int CHUNK = 8;
+	// Three chunks: 8 + 8 + 4
+	private static final byte[] CONTENT = "0123456789abcdefghij".getBytes();
+
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+	private final InMemoryStore store = new InMemoryStore();
+	private final List<Object> events = new ArrayList<>();
+	private ChunkedUploadService uploads;
+	private String userId;
+
+	@BeforeEach
+	void createSchema() throws SQLException {
+		DriverManagerDataSource database = new DriverManagerDataSource(System.getenv("COP_TEST_DATABASE_URL"),
+			System.getenv().getOrDefault("COP_TEST_DATABASE_USER", "postgres"), System.getenv().getOrDefault("COP_TEST_DATABASE_PASSWORD", ""));
+		dataSource = new SingleConnectionDataSource(database.getConnection(), true);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+		jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+		jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+		jdbcTemplate.execute("CREATE TABLE users (id UUID PRIMARY KEY, username VARCHAR(255) UNIQUE NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE files (id UUID PRIMARY KEY, filename VARCHAR(255) NOT NULL, original_name VARCHAR(255) NOT NULL, " +
+			"mime_type VARCHAR(100) NOT NULL, size BIGINT NOT NULL, classification VARCHAR(20) NOT NULL, " +
+			"uploaded_by UUID NOT NULL REFERENCES users(id), uploaded_at TIMESTAMPTZ, report_id UUID, event_id UUID, tags JSONB, " +
+			"checksum VARCHAR(64) NOT NULL, s3_url TEXT NOT NULL)");
+		jdbcTemplate.execute("CREATE TABLE file_uploads (id UUID PRIMARY KEY, object_name TEXT NOT NULL, multipart_upload_id TEXT NOT NULL, " +
+			"original_name VARCHAR(255) NOT NULL, mime_type VARCHAR(100) NOT NULL, size BIGINT NOT NULL, chunk_size INTEGER NOT NULL, " +
+			"chunk_count INTEGER NOT NULL, classification VARCHAR(20) NOT NULL DEFAULT 'UNCLASSIFIED', report_id UUID, event_id UUID, " +
+			"expected_checksum VARCHAR(64), created_by VARCHAR(255), status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE', " +
+			"file_id UUID REFERENCES files(id), created_at TIMESTAMPTZ DEFAULT NOW(), updated_at TIMESTAMPTZ DEFAULT NOW())");
+		jdbcTemplate.execute("CREATE TABLE file_upload_parts (upload_id UUID NOT NULL REFERENCES file_uploads(id) ON DELETE CASCADE, " +
+			"part_number INTEGER NOT NULL, size INTEGER NOT NULL, checksum VARCHAR(64) NOT NULL, etag TEXT NOT NULL, " +
+			"uploaded_at TIMESTAMPTZ DEFAULT NOW(), PRIMARY KEY (upload_id, part_number))");
+		userId = UUID.randomUUID().toString();
+		jdbcTemplate.update("INSERT INTO users (id, username) VALUES (?::uuid, 'analyst')", userId);
+
+		uploads = new ChunkedUploadService(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)), store,
+			events::add, 4, 64, CHUNK, Duration.ofHours(24), Duration.ofMinutes(15));
+	}
+
+	@AfterEach
+	void dropSchema() {
+		jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+		dataSource.destroy();
+	}
+
+	@Test
+	void interruptedUploadResumesFromTheChunksReceived() throws IOException {
+		UploadSession session = create(null);
+		put(session, 2);
+		put(session, 0);
+
+		assertThat(uploads.chunks(session.id())).extracting(ChunkedUploadService.Chunk::index).containsExactly(0, 2);
+		put(session, 1);
+		assertThat(uploads.complete(session.id(), "analyst")).isPresent();
+		assertThat(store.objects.get(session.objectName())).isEqualTo(CONTENT);
+	}
+
+	@Test
+	void missingChunkRefusesCompletionAndLeavesTheUploadOpen() throws IOException {
+		UploadSession session = create(null);
+		put(session, 0);
+		put(session, 2);
+
+		assertThatThrownBy(() -> uploads.complete(session.id(), "analyst"))
+			.isInstanceOf(IllegalStateException.class).hasMessageContaining("2 of 3");
+		assertThat(uploads.find(session.id(), "analyst").orElseThrow().status()).isEqualTo("ACTIVE");
+		put(session, 1);
+		assertThat(uploads.complete(session.id(), "analyst")).isPresent();
+	}
+
+	@Test
+	void resentChunkReplacesTheEarlierOne() throws IOException {
+		UploadSession session = create(DigestUtils.sha256Hex(CONTENT));
+		uploads.putChunk(session.id(), 0, new ByteArrayInputStream("XXXXXXXX".getBytes()), null, "analyst");
+		put(session, 0);
+		put(session, 1);
+		put(session, 2);
+
+		assertThat(uploads.chunks(session.id())).hasSize(3);
+		assertThat(uploads.complete(session.id(), "analyst").orElseThrow()).containsEntry("checksum", DigestUtils.sha256Hex(CONTENT));
+	}
+
+	@Test
+	void wrongLengthChunkIsRejected() throws IOException {
+		UploadSession session = create(null);
+
+		assertThatThrownBy(() -> uploads.putChunk(session.id(), 2, new ByteArrayInputStream(CONTENT), null, "analyst"))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThat(uploads.chunks(session.id())).isEmpty();
+	}
+
+	@Test
+	void completionRecordsTheFileForItsUploader() throws IOException {
+		UploadSession session = create(DigestUtils.sha256Hex(CONTENT));
+		for (int i = 0; i < 3; i++) {
+			put(session, i);
+		}
+
+		Map<String, Object> file = uploads.complete(session.id(), "analyst").orElseThrow();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT uploaded_by::text FROM files WHERE id = ?::uuid", String.class, session.id())).isEqualTo(userId);
+		assertThat(jdbcTemplate.queryForMap("SELECT status, file_id::text AS file_id FROM file_uploads WHERE id = ?::uuid", session.id()))
+			.containsEntry("status", "COMPLETED").containsEntry("file_id", session.id());
+		assertThat(events).singleElement().isInstanceOf(FileStoredEvent.class);
+		// Completing again is answered from the record
+		assertThat(uploads.complete(session.id(), "analyst")).contains(file);
+		assertThat(uploads.complete(session.id(), "someone-else")).isEmpty();
+	}
+
+	@Test
+	void unknownUploaderCannotStartAnUpload() {
+		assertThatThrownBy(() -> uploads.create("report.pdf", "application/pdf", CONTENT.length, null, null, null, null, null, "stranger"))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThat(store.begun).isEmpty();
+	}
+
+	@Test
+	void multipartUploadIsAbortedWhenItsRowCannotBeWritten() {
+		assertThatThrownBy(() -> uploads.create("report.pdf", "application/pdf", CONTENT.length, null, "NOT-A-CLASSIFICATION-LABEL", null, null, null, "analyst"))
+			.isInstanceOf(RuntimeException.class);
+		assertThat(store.begun).hasSize(1);
+		assertThat(store.aborted).isEqualTo(store.begun);
+	}
+
+	private UploadSession create(String checksum) throws IOException {
+		return uploads.create("report.pdf", "application/pdf", CONTENT.length, null, "SECRET", null, null, checksum, "analyst");
+	}
+
+	private void put(UploadSession session, int index) throws IOException {
+		int from = index * CHUNK;
+		byte[] chunk = Arrays.copyOfRange(CONTENT, from, Math.min(CONTENT.length, from + CHUNK));
+		assertThat(uploads.putChunk(session.id(), index, new ByteArrayInputStream(chunk), null, "analyst")).isPresent();
+	}
+
+	private static final class InMemoryStore extends MultipartStore {
+		final Map<String, Map<Integer, byte[]>> parts = new HashMap<>();
+		final Map<String, byte[]> objects = new HashMap<>();
+		final Set<String> begun = new HashSet<>();
+		final Set<String> aborted = new HashSet<>();
+
+		InMemoryStore() {
+			super(MinioAsyncClient.builder().endpoint("http://localhost:9000").credentials("test", "test").build(), "files", "http://localhost:9000");
+		}
+
+		@Override
+		public String begin(String objectName, String contentType) {
+			String uploadId = UUID.randomUUID().toString();
+			parts.put(uploadId, new TreeMap<>());
+			begun.add(uploadId);
+			return uploadId;
+		}
+
+		@Override
+		public String putPart(String objectName, String uploadId, int partNumber, byte[] data) {
+			parts.get(uploadId).put(partNumber, data.clone());
+			return DigestUtils.md5Hex(data);
+		}
+
+		@Override
+		public void complete(String objectName, String uploadId, List<Part> completed) {
+			ByteArrayOutputStream object = new ByteArrayOutputStream();
+			for (Part part : completed) {
+				object.writeBytes(parts.get(uploadId).get(part.partNumber()));
+			}
+			objects.put(objectName, object.toByteArray());
+			parts.remove(uploadId);
+		}
+
+		@Override
+		public void abort(String objectName, String uploadId) {
+			parts.remove(uploadId);
+			aborted.add(uploadId);
+		}
+
+		@Override
+		public InputStream open(String objectName) {
+			return new ByteArrayInputStream(objects.get(objectName));
+		}
+
+		@Override
+		public void remove(String objectName) {
+			objects.remove(objectName);
+		}
+	}
+}
@@ -2,8 +2,10 @@ package com.cop.fusion;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FusionServiceApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(FusionServiceApplication.class, args);
@@ -1,27 +1,104 @@
 package com.cop.fusion.api;
 
+import com.cop.common.confidence.ConfidenceFactors;
+import com.cop.schema.ConfidenceBreakdown;
+import com.cop.schema.FuseRequest;
+import com.cop.schema.FusedEvent;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.OffsetDateTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/fusion")
 public class FusionController {
+	// NATO admiralty grades; F and 6 ("cannot be judged") fall back to the type default and neutral
+	private static final Map<String, Double> SOURCE_RELIABILITY = Map.of("A", 0.95, "B", 0.8, "C", 0.65, "D", 0.5, "E", 0.3);
+	private static final Map<String, Double> INFORMATION_CREDIBILITY = Map.of("1", 0.9, "2", 0.75, "3", 0.6, "4", 0.4, "5", 0.2);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final double eventPrior;
+
+	public FusionController(JdbcTemplate jdbcTemplate,
+	                        @Value("${fusion.confidence.event-prior:0.2}") double eventPrior) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.eventPrior = eventPrior;
+	}
+
+	/**
+	 * JSON by default; services send and accept {@code application/x-protobuf} (see {@code cop.proto}).
+	 */
 	@PostMapping
 	@PreAuthorize("hasAnyRole('HQ','ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT')")
-	public ResponseEntity<Map<String, Object>> fuse(@RequestBody Map<String, Object> body) {
-		List<String> reportIds = (List<String>) body.getOrDefault("reportIds", List.of());
-		Map<String, Object> fused = Map.of(
-			"id", "evt-" + System.currentTimeMillis(),
-			"title", "Fused Event",
-			"confidenceScore", 0.75,
-			"sourceReports", reportIds,
-			"createdAt", OffsetDateTime.now().toString()
+	public ResponseEntity<FusedEvent> fuse(@RequestBody FuseRequest request) {
+		ConfidenceFactors factors = score(request.reportIds());
+		FusedEvent fused = new FusedEvent(
+			"evt-" + System.currentTimeMillis(),
+			"Fused Event",
+			factors.score(),
+			breakdown(factors),
+			request.reportIds(),
+			Instant.now()
 		);
 		return ResponseEntity.ok(fused);
 	}
-}
\ No newline at end of file
+
+	private static ConfidenceBreakdown breakdown(ConfidenceFactors factors) {
+		Map<String, ConfidenceBreakdown.GroupFactor> groups = new LinkedHashMap<>();
+		Map<String, ConfidenceBreakdown.SourceFactor> sources = new LinkedHashMap<>();
+		factors.visit(new ConfidenceFactors.Visitor() {
+			@Override
+			public void group(String key, double sum, int count) {
+				groups.put(key, new ConfidenceBreakdown.GroupFactor(sum, count));
+			}
+
+			@Override
+			public void source(String sourceId, String group, double evidence) {
+				sources.put(sourceId, new ConfidenceBreakdown.SourceFactor(group, evidence));
+			}
+		});
+		return new ConfidenceBreakdown(factors.prior(), factors.evidence(), factors.score(), groups, sources);
+	}
+
+	/**
+	 * Same model as the backend's event confidence, with the admiralty grades of each report in
+	 * place of the per-discipline defaults where they are known. Ids that are not known reports
+	 * contribute nothing.
+	 */
+	private ConfidenceFactors score(List<String> reportIds) {
+		ConfidenceFactors factors = new ConfidenceFactors(eventPrior);
+		List<UUID> ids = new ArrayList<>();
+		for (String id : reportIds) {
+			try {
+				ids.add(UUID.fromString(id));
+			} catch (IllegalArgumentException e) {
+				// Not a report in this schema
+			}
+		}
+		if (ids.isEmpty()) {
+			return factors;
+		}
+		jdbcTemplate.query("SELECT id, type, reliability, credibility, submitted_by, status FROM reports WHERE id = ANY(?)", rs -> {
+			double weight = ConfidenceFactors.statusWeight(rs.getString("status"));
+			if (weight == 0) {
+				return;
+			}
+			String reliability = rs.getString("reliability");
+			double sourceReliability = reliability != null && SOURCE_RELIABILITY.containsKey(reliability)
+				? SOURCE_RELIABILITY.get(reliability)
+				: ConfidenceFactors.typeReliability(rs.getString("type"));
+			double credibility = INFORMATION_CREDIBILITY.getOrDefault(String.valueOf(rs.getString("credibility")), 0.5);
+			factors.put(rs.getString("id"), "analyst:" + rs.getString("submitted_by"),
+				ConfidenceFactors.evidence(sourceReliability, credibility, weight));
+		}, (Object) ids.toArray(UUID[]::new));
+		return factors;
+	}
+}
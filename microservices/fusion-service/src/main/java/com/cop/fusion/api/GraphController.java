@@ -0,0 +1,68 @@
+package com.cop.fusion.api;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.fusion.graph.GraphNode;
+import com.cop.fusion.graph.LinkGraph;
+import com.cop.fusion.graph.NodeKind;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/fusion/graph")
+public class GraphController {
+	private final LinkGraph linkGraph;
+	private final int maxHops;
+
+	public GraphController(LinkGraph linkGraph, @Value("${fusion.graph.max-hops:6}") int maxHops) {
+		this.linkGraph = linkGraph;
+		this.maxHops = maxHops;
+	}
+
+	@GetMapping("/{id}/neighbors")
+	@PreAuthorize("hasAnyRole('HQ','ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT')")
+	public ResponseEntity<?> neighbors(@AuthenticationPrincipal Jwt jwt,
+	                                   @PathVariable("id") UUID id,
+	                                   @RequestParam(value = "hops", defaultValue = "2") int hops,
+	                                   @RequestParam(value = "kinds", required = false) List<NodeKind> kinds,
+	                                   @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+		if (hops < 1 || hops > maxHops) {
+			return ResponseEntity.badRequest().body(Map.of("error", "hops must be between 1 and " + maxHops));
+		}
+		Set<NodeKind> wanted = kinds == null || kinds.isEmpty() ? EnumSet.allOf(NodeKind.class) : EnumSet.copyOf(kinds);
+		List<GraphNode> nodes = linkGraph.neighborhood(id, hops, clearance(jwt), wanted, Math.max(1, limit));
+		Map<String, Object> resp = new HashMap<>();
+		resp.put("id", id);
+		resp.put("hops", hops);
+		resp.put("nodes", nodes);
+		return ResponseEntity.ok(resp);
+	}
+
+	@GetMapping("/path")
+	@PreAuthorize("hasAnyRole('HQ','ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT')")
+	public ResponseEntity<?> path(@AuthenticationPrincipal Jwt jwt,
+	                              @RequestParam("from") UUID from,
+	                              @RequestParam("to") UUID to,
+	                              @RequestParam(value = "maxHops", required = false) Integer hops) {
+		int limit = hops != null ? Math.max(1, Math.min(hops, maxHops)) : maxHops;
+		List<GraphNode> path = linkGraph.shortestPath(from, to, limit, clearance(jwt));
+		if (path.isEmpty()) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(Map.of("length", path.size() - 1, "path", path));
+	}
+
+	private static ClassificationLevel clearance(Jwt jwt) {
+		return ClassificationLevel.ofClearance(jwt != null ? jwt.getClaimAsString("clearance_level") : null);
+	}
+}
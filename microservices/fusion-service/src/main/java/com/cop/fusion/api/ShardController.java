@@ -0,0 +1,64 @@
+package com.cop.fusion.api;
+
+import com.cop.common.internal.InternalToken;
+import com.cop.fusion.shard.ReportPoint;
+import com.cop.fusion.shard.ShardNode;
+import com.cop.schema.ShardReportBatch;
+import com.cop.schema.WireMessages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class ShardController {
+	private static final Logger log = LoggerFactory.getLogger(ShardController.class);
+
+	private final ShardNode shardNode;
+	private final InternalToken token;
+
+	public ShardController(ShardNode shardNode, @Value("${outbox.token:}") String token) {
+		this.shardNode = shardNode;
+		this.token = new InternalToken(token);
+		if (!this.token.isConfigured()) {
+			log.warn("outbox.token is not set; /internal/shard/reports will refuse every delivery");
+		}
+	}
+
+	/**
+	 * Reports forwarded by a peer for cells this node owns, as a protobuf {@code ShardReportBatch}.
+	 */
+	@PostMapping(path = "/internal/shard/reports", consumes = WireMessages.MEDIA_TYPE)
+	public ResponseEntity<Void> receive(@RequestHeader(value = InternalToken.HEADER, required = false) String presented,
+	                                    @RequestBody ShardReportBatch batch) {
+		return receive(presented, batch.reports().stream()
+			.map(r -> new ReportPoint(r.id(), r.lat(), r.lon(), r.eventTime()))
+			.toList());
+	}
+
+	/**
+	 * The same as JSON, as sent by nodes from before the binary protocol during a rolling upgrade.
+	 */
+	@PostMapping(path = "/internal/shard/reports", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Void> receive(@RequestHeader(value = InternalToken.HEADER, required = false) String presented,
+	                                    @RequestBody List<ReportPoint> points) {
+		if (!token.matches(presented)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		shardNode.accept(points);
+		return ResponseEntity.noContent().build();
+	}
+
+	@GetMapping("/api/fusion/shards")
+	@PreAuthorize("hasRole('HQ')")
+	public ResponseEntity<Map<String, Object>> status() {
+		return ResponseEntity.ok(shardNode.status());
+	}
+}
@@ -0,0 +1,23 @@
+package com.cop.fusion.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+
+@Configuration
+public class SecurityConfig {
+	@Bean
+	SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+		// /internal is not routed by the gateway; callers authenticate with the outbox token instead
+		http
+			.authorizeHttpRequests(auth -> auth
+				.requestMatchers("/internal/**").permitAll()
+				.anyRequest().authenticated()
+			)
+			.oauth2ResourceServer(oauth -> oauth.jwt(Customizer.withDefaults()))
+			.csrf(csrf -> csrf.ignoringRequestMatchers("/internal/**"));
+		return http.build();
+	}
+}
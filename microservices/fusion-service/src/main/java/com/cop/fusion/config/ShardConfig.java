@@ -0,0 +1,54 @@
+package com.cop.fusion.config;
+
+import com.cop.fusion.graph.LinkGraph;
+import com.cop.fusion.shard.HttpShardTransport;
+import com.cop.fusion.shard.JdbcFusionLinks;
+import com.cop.fusion.shard.JdbcMembership;
+import com.cop.fusion.shard.ShardMembership;
+import com.cop.fusion.shard.ShardNode;
+import com.cop.fusion.shard.StaticMembership;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Spatial fusion sharding. With {@code fusion.shard.enabled=false} (the default) this node owns
+ * every cell; otherwise nodes find each other through {@code fusion_nodes} and forward reports
+ * over HTTP.
+ */
+@Configuration
+public class ShardConfig {
+	@Bean
+	ShardMembership shardMembership(JdbcTemplate jdbcTemplate,
+	                                @Value("${fusion.shard.enabled:false}") boolean enabled,
+	                                @Value("${fusion.shard.node-id:fusion-local}") String nodeId,
+	                                @Value("${fusion.shard.address:http://localhost:8092}") String address,
+	                                @Value("${fusion.shard.node-ttl-ms:20000}") long nodeTtlMillis) {
+		return enabled
+			? new JdbcMembership(jdbcTemplate, nodeId, address, nodeTtlMillis)
+			: StaticMembership.single(nodeId);
+	}
+
+	@Bean
+	JdbcFusionLinks fusionLinks(JdbcTemplate jdbcTemplate, LinkGraph linkGraph) {
+		return new JdbcFusionLinks(jdbcTemplate, linkGraph);
+	}
+
+	@Bean
+	ShardNode shardNode(ShardMembership membership, JdbcFusionLinks fusionLinks, RestClient.Builder restClientBuilder,
+	                    @Value("${outbox.token:}") String token,
+	                    @Value("${fusion.shard.cell-degrees:0.5}") double cellDegrees,
+	                    @Value("${fusion.shard.link-radius-m:2000}") double linkRadiusMeters,
+	                    @Value("${fusion.shard.window-minutes:60}") long windowMinutes,
+	                    @Value("${fusion.shard.virtual-nodes:64}") int virtualNodes) {
+		ShardNode.Settings settings = new ShardNode.Settings(cellDegrees, linkRadiusMeters,
+			Duration.ofMinutes(windowMinutes).toMillis(), virtualNodes);
+		return new ShardNode(membership, new HttpShardTransport(restClientBuilder.build(), token),
+			fusionLinks, fusionLinks, settings, Clock.systemUTC());
+	}
+}
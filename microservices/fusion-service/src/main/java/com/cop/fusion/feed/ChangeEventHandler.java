@@ -0,0 +1,115 @@
+package com.cop.fusion.feed;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.fusion.graph.LinkGraph;
+import com.cop.fusion.graph.NodeKind;
+import com.cop.fusion.shard.ReportPoint;
+import com.cop.fusion.shard.ShardNode;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+public class ChangeEventHandler {
+	private static final int SEEN_CAPACITY = 100_000;
+
+	private final LinkGraph linkGraph;
+	private final ShardNode shardNode;
+	// The outbox relay delivers at least once; remember recent event ids so retries are ignored
+	private final Set<Long> seen = Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, false) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+			return size() > SEEN_CAPACITY;
+		}
+	});
+
+	public ChangeEventHandler(LinkGraph linkGraph, ShardNode shardNode) {
+		this.linkGraph = linkGraph;
+		this.shardNode = shardNode;
+	}
+
+	/**
+	 * Applies the batch to the link graph and routes located reports to their fusion shards; changes
+	 * to existing reports go to every shard, since they may have moved. If a shard cannot be reached
+	 * the batch is forgotten and the exception propagates, so the relay redelivers it.
+	 */
+	public void handle(List<ChangeEvent> events) {
+		List<ReportPoint> created = new ArrayList<>();
+		List<ReportPoint> updated = new ArrayList<>();
+		List<Long> applied = apply(events, created, updated);
+		if (created.isEmpty() && updated.isEmpty()) {
+			return;
+		}
+		try {
+			if (!created.isEmpty()) {
+				shardNode.route(created);
+			}
+			if (!updated.isEmpty()) {
+				shardNode.routeUpdates(updated);
+			}
+		} catch (RuntimeException e) {
+			synchronized (this) {
+				applied.forEach(seen::remove);
+			}
+			throw e;
+		}
+	}
+
+	private synchronized List<Long> apply(List<ChangeEvent> events, List<ReportPoint> created, List<ReportPoint> updated) {
+		List<Long> applied = new ArrayList<>();
+		for (ChangeEvent event : events) {
+			if (!seen.add(event.id()) || !"REPORT".equals(event.aggregateType())) {
+				continue;
+			}
+			applied.add(event.id());
+			JsonNode payload = event.payload();
+			switch (event.eventType()) {
+				case "CREATED", "UPDATED", "APPROVED", "REJECTED" -> {
+					UUID reportId = event.aggregateUuid();
+					linkGraph.upsertNode(reportId, NodeKind.REPORT,
+						ClassificationLevel.ofLabel(payload.path("classification").asText(null)));
+					if (payload.hasNonNull("duplicateOf")) {
+						linkGraph.addEdge(reportId, ChangeEvent.toUuid(event.aggregateType(), payload.get("duplicateOf").asText()));
+					}
+					// A report already flagged as a duplicate adds nothing to fusion; the link above keeps it reachable
+					if (!"REJECTED".equals(event.eventType()) && !payload.hasNonNull("duplicateOf")
+						&& payload.hasNonNull("lat") && payload.hasNonNull("lon")) {
+						("CREATED".equals(event.eventType()) ? created : updated).add(new ReportPoint(reportId, payload.get("lat").asDouble(), payload.get("lon").asDouble(),
+							eventTime(payload.path("eventTime").asText(null))));
+					}
+				}
+				case "DELETED", "ARCHIVED" -> linkGraph.removeNode(event.aggregateUuid());
+				default -> {
+				}
+			}
+		}
+		return applied;
+	}
+
+	private static long eventTime(String value) {
+		if (value != null) {
+			try {
+				return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+			} catch (DateTimeParseException e) {
+				try {
+					// The backend sends LocalDateTime, written in its zone; the services share one
+					return LocalDateTime.parse(value).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+				} catch (DateTimeParseException ignored) {
+					// Fall through to arrival time
+				}
+			}
+		}
+		return System.currentTimeMillis();
+	}
+}
@@ -0,0 +1,63 @@
+package com.cop.fusion.graph;
+
+import java.util.Arrays;
+
+/**
+ * Compressed sparse row adjacency: the neighbours of node {@code n} are
+ * {@code targets[offsets[n] .. offsets[n + 1])}, sorted and de-duplicated. Edges are undirected.
+ */
+final class CsrAdjacency {
+	static final CsrAdjacency EMPTY = build(0, new int[0], new int[0], 0);
+
+	final int nodeCount;
+	final int[] offsets;
+	final int[] targets;
+
+	private CsrAdjacency(int nodeCount, int[] offsets, int[] targets) {
+		this.nodeCount = nodeCount;
+		this.offsets = offsets;
+		this.targets = targets;
+	}
+
+	static CsrAdjacency build(int nodeCount, int[] from, int[] to, int edgeCount) {
+		int[] counts = new int[nodeCount + 1];
+		for (int e = 0; e < edgeCount; e++) {
+			counts[from[e] + 1]++;
+			counts[to[e] + 1]++;
+		}
+		for (int n = 0; n < nodeCount; n++) {
+			counts[n + 1] += counts[n];
+		}
+		int[] cursor = Arrays.copyOf(counts, nodeCount);
+		int[] raw = new int[edgeCount * 2];
+		for (int e = 0; e < edgeCount; e++) {
+			raw[cursor[from[e]]++] = to[e];
+			raw[cursor[to[e]]++] = from[e];
+		}
+
+		// Sort each row and drop duplicate edges loaded from overlapping join tables
+		int[] offsets = new int[nodeCount + 1];
+		int write = 0;
+		for (int n = 0; n < nodeCount; n++) {
+			int start = counts[n];
+			int end = counts[n + 1];
+			Arrays.sort(raw, start, end);
+			offsets[n] = write;
+			for (int i = start; i < end; i++) {
+				if (raw[i] != n && (write == offsets[n] || raw[write - 1] != raw[i])) {
+					raw[write++] = raw[i];
+				}
+			}
+		}
+		offsets[nodeCount] = write;
+		return new CsrAdjacency(nodeCount, offsets, Arrays.copyOf(raw, write));
+	}
+
+	int start(int node) {
+		return node < nodeCount ? offsets[node] : 0;
+	}
+
+	int end(int node) {
+		return node < nodeCount ? offsets[node + 1] : 0;
+	}
+}
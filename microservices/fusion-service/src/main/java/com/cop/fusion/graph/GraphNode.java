@@ -0,0 +1,8 @@
+package com.cop.fusion.graph;
+
+import com.cop.common.security.ClassificationLevel;
+
+import java.util.UUID;
+
+public record GraphNode(UUID id, NodeKind kind, ClassificationLevel classification, int hops) {
+}
@@ -0,0 +1,163 @@
+package com.cop.fusion.graph;
+
+import com.cop.common.security.ClassificationLevel;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mutable side of the link graph: the node table, the id index and the edge lists that the CSR
+ * views are built from. All mutation happens under the state's monitor; readers only see the
+ * immutable {@link View} published by {@link #publish()}. New nodes are appended past the
+ * published node count, which views never read; a node's classification is the one thing changed
+ * in place, so the array is copied first if a view holds it.
+ * <p>
+ * A removed node leaves the id index and is classified {@link #REMOVED}, above every clearance,
+ * so traversals step over it and its edges; the next reload builds the graph without it.
+ */
+final class GraphState {
+	static final byte REMOVED = Byte.MAX_VALUE;
+
+	private final ConcurrentHashMap<UUID, Integer> index = new ConcurrentHashMap<>();
+	private final int mergeRatio;
+
+	private int nodeCount;
+	private byte[] kinds = new byte[1024];
+	private byte[] classifications = new byte[1024];
+	private long[] idMsb = new long[1024];
+	private long[] idLsb = new long[1024];
+	// Published views hold the classifications array; it is copied before the first in-place change after a publish
+	private boolean classificationsShared;
+
+	private final EdgeList baseEdges = new EdgeList();
+	private final EdgeList deltaEdges = new EdgeList();
+	private CsrAdjacency base = CsrAdjacency.EMPTY;
+
+	private volatile View view = new View(0, kinds, classifications, idMsb, idLsb, CsrAdjacency.EMPTY, CsrAdjacency.EMPTY);
+
+	record View(int nodeCount, byte[] kinds, byte[] classifications, long[] idMsb, long[] idLsb,
+	            CsrAdjacency base, CsrAdjacency delta) {
+		GraphNode node(int n, int hops) {
+			return new GraphNode(new UUID(idMsb[n], idLsb[n]), NodeKind.values()[kinds[n]],
+				ClassificationLevel.values()[classifications[n]], hops);
+		}
+	}
+
+	GraphState(int mergeRatio) {
+		this.mergeRatio = mergeRatio;
+	}
+
+	View view() {
+		return view;
+	}
+
+	Integer indexOf(UUID id) {
+		return index.get(id);
+	}
+
+	synchronized int upsertNode(UUID id, NodeKind kind, ClassificationLevel classification) {
+		Integer existing = index.get(id);
+		if (existing != null) {
+			classify(existing, (byte) classification.getLevel());
+			return existing;
+		}
+		if (nodeCount == kinds.length) {
+			int capacity = kinds.length * 2;
+			kinds = Arrays.copyOf(kinds, capacity);
+			classifications = Arrays.copyOf(classifications, capacity);
+			classificationsShared = false;
+			idMsb = Arrays.copyOf(idMsb, capacity);
+			idLsb = Arrays.copyOf(idLsb, capacity);
+		}
+		int n = nodeCount++;
+		kinds[n] = (byte) kind.ordinal();
+		classifications[n] = (byte) classification.getLevel();
+		idMsb[n] = id.getMostSignificantBits();
+		idLsb[n] = id.getLeastSignificantBits();
+		index.put(id, n);
+		return n;
+	}
+
+	/** Hides the node with this id, if there is one; returns whether there was. */
+	synchronized boolean removeNode(UUID id) {
+		Integer existing = index.remove(id);
+		if (existing == null) {
+			return false;
+		}
+		classify(existing, REMOVED);
+		return true;
+	}
+
+	private void classify(int n, byte level) {
+		if (classifications[n] != level) {
+			if (classificationsShared) {
+				classifications = classifications.clone();
+				classificationsShared = false;
+			}
+			classifications[n] = level;
+		}
+	}
+
+	synchronized boolean addEdge(UUID a, UUID b) {
+		Integer from = index.get(a);
+		Integer to = index.get(b);
+		if (from == null || to == null) {
+			return false;
+		}
+		deltaEdges.add(from, to);
+		return true;
+	}
+
+	/**
+	 * Rebuilds the delta CSR from edges added since the last merge and folds it into the base once
+	 * it outgrows {@code 1 / mergeRatio} of the base edge count.
+	 */
+	synchronized void publish() {
+		CsrAdjacency delta;
+		if (deltaEdges.size > 0 && deltaEdges.size >= Math.max(4096, baseEdges.size / mergeRatio)) {
+			baseEdges.addAll(deltaEdges);
+			deltaEdges.clear();
+			base = CsrAdjacency.build(nodeCount, baseEdges.from, baseEdges.to, baseEdges.size);
+			delta = CsrAdjacency.EMPTY;
+		} else {
+			delta = CsrAdjacency.build(nodeCount, deltaEdges.from, deltaEdges.to, deltaEdges.size);
+		}
+		view = new View(nodeCount, kinds, classifications, idMsb, idLsb, base, delta);
+		classificationsShared = true;
+	}
+
+	synchronized void compact() {
+		baseEdges.addAll(deltaEdges);
+		deltaEdges.clear();
+		base = CsrAdjacency.build(nodeCount, baseEdges.from, baseEdges.to, baseEdges.size);
+		view = new View(nodeCount, kinds, classifications, idMsb, idLsb, base, CsrAdjacency.EMPTY);
+		classificationsShared = true;
+	}
+
+	private static final class EdgeList {
+		int[] from = new int[1024];
+		int[] to = new int[1024];
+		int size;
+
+		void add(int a, int b) {
+			if (size == from.length) {
+				from = Arrays.copyOf(from, size * 2);
+				to = Arrays.copyOf(to, size * 2);
+			}
+			from[size] = a;
+			to[size] = b;
+			size++;
+		}
+
+		void addAll(EdgeList other) {
+			for (int i = 0; i < other.size; i++) {
+				add(other.from[i], other.to[i]);
+			}
+		}
+
+		void clear() {
+			size = 0;
+		}
+	}
+}
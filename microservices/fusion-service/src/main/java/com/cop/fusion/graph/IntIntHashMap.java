@@ -0,0 +1,71 @@
+package com.cop.fusion.graph;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing int to int map for traversal bookkeeping, sized to the visited set rather than
+ * to the whole graph. Keys must be non-negative.
+ */
+final class IntIntHashMap {
+	private static final int EMPTY = -1;
+
+	private int[] keys;
+	private int[] values;
+	private int size;
+
+	IntIntHashMap(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	boolean containsKey(int key) {
+		return keys[slot(keys, key)] == key;
+	}
+
+	int get(int key, int defaultValue) {
+		int slot = slot(keys, key);
+		return keys[slot] == key ? values[slot] : defaultValue;
+	}
+
+	void put(int key, int value) {
+		if ((size + 1) * 2 > keys.length) {
+			grow();
+		}
+		int slot = slot(keys, key);
+		if (keys[slot] == EMPTY) {
+			keys[slot] = key;
+			size++;
+		}
+		values[slot] = value;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private static int slot(int[] keys, int key) {
+		int mask = keys.length - 1;
+		int slot = (key * 0x9E3779B9) >>> 1 & mask;
+		while (keys[slot] != EMPTY && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		values = new int[oldValues.length * 2];
+		Arrays.fill(keys, EMPTY);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = slot(keys, oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+}
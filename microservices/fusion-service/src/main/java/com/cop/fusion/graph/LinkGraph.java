@@ -0,0 +1,194 @@
+package com.cop.fusion.graph;
+
+import com.cop.common.security.ClassificationLevel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * In-memory link graph over events, reports and entities. Traversals never pass through a node
+ * above the caller's clearance, so hidden nodes cannot leak connections either.
+ * <p>
+ * A reload builds a new graph while changes keep arriving. Those changes are applied to the
+ * current graph and also journaled, and the journal is replayed onto the loaded graph before it
+ * replaces the current one, so nothing applied during the load is lost.
+ */
+@Component
+public class LinkGraph {
+	private final int mergeRatio;
+	private final Object writeLock = new Object();
+	private volatile GraphState state;
+	// Changes applied since beginReload, to replay onto the loaded graph; null when no reload is running
+	private List<Consumer<GraphState>> journal;
+
+	public LinkGraph(@Value("${fusion.graph.merge-ratio:16}") int mergeRatio) {
+		this.mergeRatio = mergeRatio;
+		this.state = new GraphState(mergeRatio);
+	}
+
+	/** An empty graph to load into; changes from now on are journaled for {@link #finishReload}. */
+	GraphState beginReload() {
+		synchronized (writeLock) {
+			journal = new ArrayList<>();
+		}
+		return new GraphState(mergeRatio);
+	}
+
+	/** Replays the changes journaled during the load onto {@code loaded} and makes it current. */
+	void finishReload(GraphState loaded) {
+		synchronized (writeLock) {
+			journal.forEach(change -> change.accept(loaded));
+			journal = null;
+			loaded.compact();
+			this.state = loaded;
+		}
+	}
+
+	/** Drops a failed load; the current graph stays. */
+	void abortReload() {
+		synchronized (writeLock) {
+			journal = null;
+		}
+	}
+
+	public void upsertNode(UUID id, NodeKind kind, ClassificationLevel classification) {
+		apply(graph -> graph.upsertNode(id, kind, classification));
+	}
+
+	public void addEdge(UUID a, UUID b) {
+		apply(graph -> graph.addEdge(a, b));
+	}
+
+	/** Takes the node out of every traversal; its edges stay but are never followed. */
+	public void removeNode(UUID id) {
+		apply(graph -> graph.removeNode(id));
+	}
+
+	private void apply(Consumer<GraphState> change) {
+		synchronized (writeLock) {
+			change.accept(state);
+			if (journal != null) {
+				journal.add(change);
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${fusion.graph.flush-interval-ms:1000}")
+	public void flush() {
+		state.publish();
+	}
+
+	public int nodeCount() {
+		return state.view().nodeCount();
+	}
+
+	public List<GraphNode> neighborhood(UUID id, int maxHops, ClassificationLevel clearance, Set<NodeKind> kinds, int limit) {
+		GraphState current = state;
+		GraphState.View view = current.view();
+		int start = visibleIndex(current, view, id, clearance);
+		if (start < 0) {
+			return List.of();
+		}
+
+		List<GraphNode> found = new ArrayList<>();
+		IntIntHashMap depth = new IntIntHashMap(256);
+		int[] queue = new int[64];
+		int head = 0;
+		int tail = 0;
+		depth.put(start, 0);
+		queue[tail++] = start;
+		while (head < tail && found.size() < limit) {
+			int node = queue[head++];
+			int d = depth.get(node, 0);
+			if (d > 0 && kinds.contains(NodeKind.values()[view.kinds()[node]])) {
+				found.add(view.node(node, d));
+			}
+			if (d == maxHops) {
+				continue;
+			}
+			for (CsrAdjacency adjacency : new CsrAdjacency[]{view.base(), view.delta()}) {
+				for (int i = adjacency.start(node), end = adjacency.end(node); i < end; i++) {
+					int next = adjacency.targets[i];
+					if (next >= view.nodeCount() || view.classifications()[next] > clearance.getLevel() || depth.containsKey(next)) {
+						continue;
+					}
+					depth.put(next, d + 1);
+					if (tail == queue.length) {
+						queue = Arrays.copyOf(queue, queue.length * 2);
+					}
+					queue[tail++] = next;
+				}
+			}
+		}
+		return found;
+	}
+
+	public List<GraphNode> shortestPath(UUID fromId, UUID toId, int maxHops, ClassificationLevel clearance) {
+		GraphState current = state;
+		GraphState.View view = current.view();
+		int from = visibleIndex(current, view, fromId, clearance);
+		int to = visibleIndex(current, view, toId, clearance);
+		if (from < 0 || to < 0) {
+			return List.of();
+		}
+
+		IntIntHashMap parent = new IntIntHashMap(256);
+		IntIntHashMap depth = new IntIntHashMap(256);
+		int[] queue = new int[64];
+		int head = 0;
+		int tail = 0;
+		parent.put(from, from);
+		depth.put(from, 0);
+		queue[tail++] = from;
+		while (head < tail && !parent.containsKey(to)) {
+			int node = queue[head++];
+			int d = depth.get(node, 0);
+			if (d == maxHops) {
+				continue;
+			}
+			for (CsrAdjacency adjacency : new CsrAdjacency[]{view.base(), view.delta()}) {
+				for (int i = adjacency.start(node), end = adjacency.end(node); i < end; i++) {
+					int next = adjacency.targets[i];
+					if (next >= view.nodeCount() || view.classifications()[next] > clearance.getLevel() || parent.containsKey(next)) {
+						continue;
+					}
+					parent.put(next, node);
+					depth.put(next, d + 1);
+					if (tail == queue.length) {
+						queue = Arrays.copyOf(queue, queue.length * 2);
+					}
+					queue[tail++] = next;
+				}
+			}
+		}
+		if (!parent.containsKey(to)) {
+			return List.of();
+		}
+
+		List<GraphNode> path = new ArrayList<>();
+		for (int node = to; ; node = parent.get(node, from)) {
+			path.add(view.node(node, depth.get(node, 0)));
+			if (node == from) {
+				break;
+			}
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	private static int visibleIndex(GraphState state, GraphState.View view, UUID id, ClassificationLevel clearance) {
+		Integer n = state.indexOf(id);
+		if (n == null || n >= view.nodeCount() || view.classifications()[n] > clearance.getLevel()) {
+			return -1;
+		}
+		return n;
+	}
+}
@@ -0,0 +1,107 @@
+package com.cop.fusion.graph;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.fusion.feed.ChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+@Component
+public class LinkGraphLoader {
+	private static final Logger log = LoggerFactory.getLogger(LinkGraphLoader.class);
+	// Aggregate types as the outbox names them
+	private static final String EVENT = "EVENT";
+	private static final String REPORT = "REPORT";
+	private static final String ENTITY = "ENTITY";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate readOnlyTx;
+	private final LinkGraph linkGraph;
+
+	public LinkGraphLoader(DataSource dataSource, PlatformTransactionManager transactionManager, LinkGraph linkGraph) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(10000);
+		this.readOnlyTx = new TransactionTemplate(transactionManager);
+		this.readOnlyTx.setReadOnly(true);
+		this.linkGraph = linkGraph;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void bootstrap() {
+		reload();
+	}
+
+	/**
+	 * Builds the graph afresh and swaps it in, keeping the changes applied while it loaded. Ids are
+	 * read as text and mapped the way change events map them, so a numeric JPA id and its outbox
+	 * events land on the same node.
+	 */
+	@Scheduled(initialDelayString = "${fusion.graph.reload-interval-ms:600000}", fixedDelayString = "${fusion.graph.reload-interval-ms:600000}")
+	public synchronized void reload() {
+		long start = System.currentTimeMillis();
+		GraphState loaded = linkGraph.beginReload();
+		try {
+			readOnlyTx.executeWithoutResult(status -> load(loaded));
+		} catch (RuntimeException e) {
+			linkGraph.abortReload();
+			throw e;
+		}
+		linkGraph.finishReload(loaded);
+		log.info("Loaded link graph with {} nodes in {} ms", linkGraph.nodeCount(), System.currentTimeMillis() - start);
+	}
+
+	private void load(GraphState loaded) {
+		jdbcTemplate.query("SELECT id::text, sensitivity FROM events", rs -> {
+			loaded.upsertNode(id(EVENT, rs.getString(1)), NodeKind.EVENT, ClassificationLevel.ofLabel(rs.getString(2)));
+		});
+		jdbcTemplate.query("SELECT id::text, classification FROM reports", rs -> {
+			loaded.upsertNode(id(REPORT, rs.getString(1)), NodeKind.REPORT, ClassificationLevel.ofLabel(rs.getString(2)));
+		});
+		jdbcTemplate.query("SELECT id::text, classification FROM entities", rs -> {
+			loaded.upsertNode(id(ENTITY, rs.getString(1)), NodeKind.ENTITY, ClassificationLevel.ofLabel(rs.getString(2)));
+		});
+		// The backend's reports, the ones REPORT change events are about
+		if (exists("intelligence_reports")) {
+			jdbcTemplate.query("SELECT id::text, clearance_level FROM intelligence_reports", rs -> {
+				loaded.upsertNode(id(REPORT, rs.getString(1)), NodeKind.REPORT, ClassificationLevel.ofLabel(rs.getString(2)));
+			});
+			jdbcTemplate.query("SELECT report_id::text, metadata_value FROM report_metadata WHERE metadata_key = 'duplicate_of'", rs -> {
+				loaded.addEdge(id(REPORT, rs.getString(1)), id(REPORT, rs.getString(2)));
+			});
+		}
+		jdbcTemplate.query("SELECT event_id::text, source_report_id::text FROM fusion_provenance WHERE event_id IS NOT NULL AND source_report_id IS NOT NULL", rs -> {
+			loaded.addEdge(id(EVENT, rs.getString(1)), id(REPORT, rs.getString(2)));
+		});
+		jdbcTemplate.query("SELECT event_id::text, entity_id::text FROM event_entities", rs -> {
+			loaded.addEdge(id(EVENT, rs.getString(1)), id(ENTITY, rs.getString(2)));
+		});
+		// event_reports is only created where the JPA mapping has been migrated
+		if (exists("event_reports")) {
+			jdbcTemplate.query("SELECT event_id::text, report_id::text FROM event_reports", rs -> {
+				loaded.addEdge(id(EVENT, rs.getString(1)), id(REPORT, rs.getString(2)));
+			});
+		}
+		if (exists("fusion_links")) {
+			jdbcTemplate.query("SELECT report_a::text, report_b::text FROM fusion_links", rs -> {
+				loaded.addEdge(id(REPORT, rs.getString(1)), id(REPORT, rs.getString(2)));
+			});
+		}
+	}
+
+	private boolean exists(String table) {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+	}
+
+	private static UUID id(String aggregateType, String id) {
+		return ChangeEvent.toUuid(aggregateType, id);
+	}
+}
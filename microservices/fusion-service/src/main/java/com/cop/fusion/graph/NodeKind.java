@@ -0,0 +1,7 @@
+package com.cop.fusion.graph;
+
+public enum NodeKind {
+	EVENT,
+	REPORT,
+	ENTITY
+}
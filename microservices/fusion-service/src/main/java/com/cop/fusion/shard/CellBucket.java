@@ -0,0 +1,66 @@
+package com.cop.fusion.shard;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The recent reports a node holds for one grid cell, including halo copies of reports from
+ * neighbouring cells.
+ */
+final class CellBucket {
+	private final long cell;
+	private final Map<UUID, ReportPoint> points = new LinkedHashMap<>();
+
+	CellBucket(long cell) {
+		this.cell = cell;
+	}
+
+	/**
+	 * Adds the report and collects its links to the reports already here. A pair is only linked in
+	 * the home cell of its smaller id, so it is found once even though halos put both reports into
+	 * several cells.
+	 */
+	synchronized void add(ReportPoint point, GridCell grid, double radiusMeters, long windowMillis, List<FusionLinkSink.Link> links) {
+		points.remove(point.id());
+		for (ReportPoint other : points.values()) {
+			if (Math.abs(point.time() - other.time()) > windowMillis) {
+				continue;
+			}
+			ReportPoint first = point.id().compareTo(other.id()) < 0 ? point : other;
+			if (grid.cellOf(first.lat(), first.lon()) != cell) {
+				continue;
+			}
+			double distance = GridCell.distanceMeters(point.lat(), point.lon(), other.lat(), other.lon());
+			if (distance <= radiusMeters) {
+				ReportPoint second = first == point ? other : point;
+				links.add(new FusionLinkSink.Link(first.id(), second.id(), distance));
+			}
+		}
+		points.put(point.id(), point);
+	}
+
+	/**
+	 * Drops the copy of a report that has since moved out of this cell's reach.
+	 */
+	synchronized void remove(UUID id) {
+		points.remove(id);
+	}
+
+	synchronized int evictBefore(long time) {
+		int evicted = 0;
+		for (Iterator<ReportPoint> it = points.values().iterator(); it.hasNext(); ) {
+			if (it.next().time() < time) {
+				it.remove();
+				evicted++;
+			}
+		}
+		return evicted;
+	}
+
+	synchronized int size() {
+		return points.size();
+	}
+}
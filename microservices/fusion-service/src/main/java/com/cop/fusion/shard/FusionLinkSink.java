@@ -0,0 +1,15 @@
+package com.cop.fusion.shard;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Receives the co-location links found by a shard. Each link is emitted by exactly one node while
+ * the ring is stable, but may repeat after a rebalance, so sinks must be idempotent.
+ */
+public interface FusionLinkSink {
+	record Link(UUID a, UUID b, double distanceMeters) {
+	}
+
+	void accept(List<Link> links);
+}
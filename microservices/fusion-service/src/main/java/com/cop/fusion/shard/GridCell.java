@@ -0,0 +1,77 @@
+package com.cop.fusion.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed lat/lon grid that fusion work is partitioned on. A cell is identified by a packed
+ * {@code long} key, which is what the hash ring places.
+ */
+public final class GridCell {
+	private static final double METERS_PER_DEGREE = 111_320.0;
+
+	private final double size;
+	private final int columns;
+	private final int rows;
+
+	public GridCell(double sizeDegrees) {
+		if (sizeDegrees <= 0 || sizeDegrees > 90) {
+			throw new IllegalArgumentException("Cell size must be in (0, 90] degrees");
+		}
+		this.size = sizeDegrees;
+		this.columns = (int) Math.ceil(360 / sizeDegrees);
+		this.rows = (int) Math.ceil(180 / sizeDegrees);
+	}
+
+	public long cellOf(double lat, double lon) {
+		return key(column(lon), row(lat));
+	}
+
+	/**
+	 * Every cell whose area, widened by {@code haloMeters} on all sides, contains the point: its own
+	 * cell, plus the neighbours it lies within the halo of. A pair of points closer than the halo
+	 * therefore always shares the cell of either point.
+	 */
+	public List<Long> cellsNear(double lat, double lon, double haloMeters) {
+		double haloLat = haloMeters / METERS_PER_DEGREE;
+		double haloLon = haloMeters / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(lat)), 0.01));
+		int minRow = row(lat - haloLat);
+		int maxRow = row(lat + haloLat);
+		int minColumn = (int) Math.floor((lon - haloLon + 180) / size);
+		int maxColumn = (int) Math.floor((lon + haloLon + 180) / size);
+		List<Long> cells = new ArrayList<>(4);
+		for (int r = minRow; r <= maxRow; r++) {
+			for (int c = minColumn; c <= maxColumn; c++) {
+				long cell = key(Math.floorMod(c, columns), r);
+				if (!cells.contains(cell)) {
+					cells.add(cell);
+				}
+			}
+		}
+		return cells;
+	}
+
+	public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+		double dLat = Math.toRadians(lat2 - lat1);
+		double dLon = Math.toRadians(lon2 - lon1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+			+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+		return 2 * 6_371_000.0 * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	public static String describe(long cell) {
+		return (int) (cell >> 32) + "/" + (int) cell;
+	}
+
+	private int column(double lon) {
+		return Math.floorMod((int) Math.floor((lon + 180) / size), columns);
+	}
+
+	private int row(double lat) {
+		return Math.max(0, Math.min(rows - 1, (int) Math.floor((lat + 90) / size)));
+	}
+
+	private static long key(int column, int row) {
+		return ((long) column << 32) | (row & 0xffffffffL);
+	}
+}
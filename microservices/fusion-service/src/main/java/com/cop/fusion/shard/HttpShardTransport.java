@@ -0,0 +1,41 @@
+package com.cop.fusion.shard;
+
+import com.cop.common.internal.InternalToken;
+import com.cop.schema.ShardReport;
+import com.cop.schema.ShardReportBatch;
+import com.cop.schema.WireMessages;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+
+/**
+ * Forwards reports to a peer's {@code /internal/shard/reports} as a protobuf
+ * {@code ShardReportBatch}, authenticated with the same shared token as the outbox feed.
+ */
+public class HttpShardTransport implements ShardTransport {
+	private final RestClient restClient;
+	private final String token;
+
+	public HttpShardTransport(RestClient restClient, String token) {
+		this.restClient = restClient;
+		this.token = token;
+	}
+
+	@Override
+	public void send(String node, String address, List<ReportPoint> points) {
+		if (address == null || address.isEmpty()) {
+			throw new IllegalStateException("No address registered for fusion node " + node);
+		}
+		byte[] body = ShardReportBatch.CODEC.encode(new ShardReportBatch(points.stream()
+			.map(p -> new ShardReport(p.id(), p.lat(), p.lon(), p.time()))
+			.toList()));
+		restClient.post()
+			.uri(address + "/internal/shard/reports")
+			.contentType(MediaType.parseMediaType(WireMessages.MEDIA_TYPE))
+			.header(InternalToken.HEADER, token)
+			.body(body)
+			.retrieve()
+			.toBodilessEntity();
+	}
+}
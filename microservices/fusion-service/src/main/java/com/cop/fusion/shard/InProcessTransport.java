@@ -0,0 +1,30 @@
+package com.cop.fusion.shard;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivers directly to {@link ShardNode}s registered in the same JVM, for running several nodes
+ * in one process.
+ */
+public class InProcessTransport implements ShardTransport {
+	private final Map<String, ShardNode> nodes = new ConcurrentHashMap<>();
+
+	public void register(ShardNode node) {
+		nodes.put(node.self(), node);
+	}
+
+	public void unregister(String node) {
+		nodes.remove(node);
+	}
+
+	@Override
+	public void send(String node, String address, List<ReportPoint> points) {
+		ShardNode target = nodes.get(node);
+		if (target == null) {
+			throw new IllegalStateException("Fusion node " + node + " is not running");
+		}
+		target.accept(points);
+	}
+}
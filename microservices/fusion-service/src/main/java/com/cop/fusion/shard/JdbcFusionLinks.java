@@ -0,0 +1,55 @@
+package com.cop.fusion.shard;
+
+import com.cop.fusion.feed.ChangeEvent;
+import com.cop.fusion.graph.LinkGraph;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persists co-location links to {@code fusion_links} and adds them to this node's link graph, and
+ * reads recent located reports for warming cells after a rebalance.
+ */
+public class JdbcFusionLinks implements FusionLinkSink, RecentReports {
+	private final JdbcTemplate jdbcTemplate;
+	private final LinkGraph linkGraph;
+
+	public JdbcFusionLinks(JdbcTemplate jdbcTemplate, LinkGraph linkGraph) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.linkGraph = linkGraph;
+	}
+
+	@Override
+	public void accept(List<Link> links) {
+		List<Object[]> rows = new ArrayList<>(links.size());
+		for (Link link : links) {
+			rows.add(new Object[] {link.a(), link.b(), link.distanceMeters()});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO fusion_links (report_a, report_b, distance_m) VALUES (?, ?, ?) " +
+			"ON CONFLICT (report_a, report_b) DO NOTHING", rows);
+		for (Link link : links) {
+			linkGraph.addEdge(link.a(), link.b());
+		}
+	}
+
+	@Override
+	public List<ReportPoint> since(long since) {
+		Timestamp from = new Timestamp(since);
+		List<ReportPoint> points = new ArrayList<>();
+		jdbcTemplate.query("SELECT id, ST_Y(location), ST_X(location), COALESCE(collection_time, submitted_at) FROM reports " +
+			"WHERE location IS NOT NULL AND COALESCE(collection_time, submitted_at) >= ?", rs -> {
+				points.add(new ReportPoint(rs.getObject(1, UUID.class), rs.getDouble(2), rs.getDouble(3), rs.getTimestamp(4).getTime()));
+			}, from);
+		// intelligence_reports only exists where the backend's JPA schema has been migrated
+		if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass('intelligence_reports') IS NOT NULL", Boolean.class))) {
+			jdbcTemplate.query("SELECT id, ST_Y(location), ST_X(location), event_time FROM intelligence_reports " +
+				"WHERE location IS NOT NULL AND event_time >= ?", rs -> {
+					points.add(new ReportPoint(ChangeEvent.toUuid("REPORT", rs.getString(1)), rs.getDouble(2), rs.getDouble(3), rs.getTimestamp(4).getTime()));
+				}, from);
+		}
+		return points;
+	}
+}
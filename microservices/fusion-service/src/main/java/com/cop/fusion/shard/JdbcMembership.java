@@ -0,0 +1,49 @@
+package com.cop.fusion.shard;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Membership through the {@code fusion_nodes} table: each node heartbeats its row, and rows not
+ * refreshed within the TTL are treated as gone. A clean shutdown deletes the row so peers
+ * rebalance without waiting for the TTL.
+ */
+public class JdbcMembership implements ShardMembership {
+	private final JdbcTemplate jdbcTemplate;
+	private final String self;
+	private final String address;
+	private final long ttlMillis;
+
+	public JdbcMembership(JdbcTemplate jdbcTemplate, String self, String address, long ttlMillis) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.self = self;
+		this.address = address;
+		this.ttlMillis = ttlMillis;
+	}
+
+	@Override
+	public String self() {
+		return self;
+	}
+
+	public void heartbeat() {
+		jdbcTemplate.update("INSERT INTO fusion_nodes (node_id, address, heartbeat_at) VALUES (?, ?, NOW()) " +
+			"ON CONFLICT (node_id) DO UPDATE SET address = EXCLUDED.address, heartbeat_at = NOW()", self, address);
+	}
+
+	public void leave() {
+		jdbcTemplate.update("DELETE FROM fusion_nodes WHERE node_id = ?", self);
+	}
+
+	@Override
+	public Map<String, String> liveNodes() {
+		Map<String, String> nodes = new HashMap<>();
+		jdbcTemplate.query("SELECT node_id, address FROM fusion_nodes WHERE heartbeat_at > NOW() - make_interval(secs => ?)",
+			rs -> {
+				nodes.put(rs.getString(1), rs.getString(2));
+			}, ttlMillis / 1000.0);
+		return nodes;
+	}
+}
@@ -0,0 +1,11 @@
+package com.cop.fusion.shard;
+
+import java.util.List;
+
+/**
+ * Located reports with an event time at or after {@code since}, used to warm cells a node takes
+ * over when the ring changes.
+ */
+public interface RecentReports {
+	List<ReportPoint> since(long since);
+}
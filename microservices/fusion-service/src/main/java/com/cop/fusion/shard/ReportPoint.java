@@ -0,0 +1,10 @@
+package com.cop.fusion.shard;
+
+import java.util.UUID;
+
+/**
+ * A located report as seen by the spatial fusion shards; {@code time} is its event time in epoch
+ * milliseconds.
+ */
+public record ReportPoint(UUID id, double lat, double lon, long time) {
+}
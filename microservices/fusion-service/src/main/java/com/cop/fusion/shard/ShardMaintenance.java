@@ -0,0 +1,46 @@
+package com.cop.fusion.shard;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Heartbeats this node, picks up ring changes and evicts reports that left the fusion window.
+ */
+@Component
+public class ShardMaintenance {
+	private final ShardMembership membership;
+	private final ShardNode shardNode;
+
+	public ShardMaintenance(ShardMembership membership, ShardNode shardNode) {
+		this.membership = membership;
+		this.shardNode = shardNode;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void join() {
+		heartbeat();
+	}
+
+	@Scheduled(initialDelayString = "${fusion.shard.heartbeat-ms:5000}", fixedDelayString = "${fusion.shard.heartbeat-ms:5000}")
+	public void heartbeat() {
+		if (membership instanceof JdbcMembership jdbcMembership) {
+			jdbcMembership.heartbeat();
+		}
+		shardNode.refresh();
+	}
+
+	@Scheduled(fixedDelayString = "${fusion.shard.evict-interval-ms:60000}")
+	public void evict() {
+		shardNode.evict();
+	}
+
+	@PreDestroy
+	public void leave() {
+		if (membership instanceof JdbcMembership jdbcMembership) {
+			jdbcMembership.leave();
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package com.cop.fusion.shard;
+
+import java.util.Map;
+
+/**
+ * Where a node learns which fusion nodes are alive.
+ */
+public interface ShardMembership {
+	String self();
+
+	/**
+	 * Live node ids mapped to the base URL peers reach them at.
+	 */
+	Map<String, String> liveNodes();
+}
@@ -0,0 +1,226 @@
+package com.cop.fusion.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One fusion node's share of the spatial fusion work. Reports are partitioned by grid cell over a
+ * consistent-hash ring of the live nodes; each report also goes to the owners of neighbouring
+ * cells whose halo ({@code linkRadiusMeters}) it falls in, so reports either side of a border are
+ * still compared. Nodes hold only their cells' recent reports, so adding nodes divides both memory
+ * and comparisons.
+ * <p>
+ * When membership changes, cells that moved away are dropped and cells taken over are warmed from
+ * {@link RecentReports}. A report that moves is dropped from the cells it has left, on this node by
+ * {@link #accept} and on the others by {@link #routeUpdates}. Needs no Spring, so several nodes can run in one JVM with
+ * {@link StaticMembership} and {@link InProcessTransport}.
+ */
+public class ShardNode {
+	private static final Logger log = LoggerFactory.getLogger(ShardNode.class);
+
+	public record Settings(double cellDegrees, double linkRadiusMeters, long windowMillis, int virtualNodes) {
+	}
+
+	// The cells a report was placed in here, so a later copy can be taken out of those it left
+	private record Placement(long time, Set<Long> cells) {
+	}
+
+	private final ShardMembership membership;
+	private final ShardTransport transport;
+	private final FusionLinkSink sink;
+	private final RecentReports recentReports;
+	private final Settings settings;
+	private final Clock clock;
+	private final GridCell grid;
+	private final Map<Long, CellBucket> cells = new ConcurrentHashMap<>();
+	private final Map<UUID, Placement> placements = new ConcurrentHashMap<>();
+
+	private volatile ShardRing ring;
+	private volatile Map<String, String> addresses = Map.of();
+
+	public ShardNode(ShardMembership membership, ShardTransport transport, FusionLinkSink sink,
+	                 RecentReports recentReports, Settings settings, Clock clock) {
+		this.membership = membership;
+		this.transport = transport;
+		this.sink = sink;
+		this.recentReports = recentReports;
+		this.settings = settings;
+		this.clock = clock;
+		this.grid = new GridCell(settings.cellDegrees());
+	}
+
+	public String self() {
+		return membership.self();
+	}
+
+	/**
+	 * Sends each report to every node owning a cell it is in or near, handling this node's share
+	 * directly. Throws if a peer could not be reached; everything is safe to resend.
+	 */
+	public void route(List<ReportPoint> points) {
+		route(points, false);
+	}
+
+	/**
+	 * {@link #route} for reports that may have moved since they were last routed. Every live node
+	 * gets them, so one holding a copy for the old location drops it even if it owns nothing near
+	 * the new one.
+	 */
+	public void routeUpdates(List<ReportPoint> points) {
+		route(points, true);
+	}
+
+	private void route(List<ReportPoint> points, boolean everyNode) {
+		ShardRing current = currentRing();
+		Map<String, List<ReportPoint>> byNode = new LinkedHashMap<>();
+		for (ReportPoint point : points) {
+			Set<String> owners = new LinkedHashSet<>();
+			if (everyNode) {
+				owners.addAll(current.nodes());
+			} else {
+				for (long cell : grid.cellsNear(point.lat(), point.lon(), settings.linkRadiusMeters())) {
+					owners.add(current.owner(cell));
+				}
+			}
+			for (String owner : owners) {
+				byNode.computeIfAbsent(owner, k -> new ArrayList<>()).add(point);
+			}
+		}
+		for (Map.Entry<String, List<ReportPoint>> entry : byNode.entrySet()) {
+			if (entry.getKey().equals(self())) {
+				accept(entry.getValue());
+			} else {
+				transport.send(entry.getKey(), addresses.get(entry.getKey()), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Takes reports routed to this node and links them to the reports already held for the cells
+	 * it owns. Cells this node does not own (a sender with an older ring view) are ignored, and
+	 * earlier copies of a report are removed from the cells it is no longer near.
+	 */
+	public void accept(List<ReportPoint> points) {
+		ShardRing current = currentRing();
+		List<FusionLinkSink.Link> links = new ArrayList<>();
+		for (ReportPoint point : points) {
+			placements.compute(point.id(), (id, previous) -> {
+				Set<Long> placed = add(point, current, null, links);
+				if (previous != null) {
+					for (long cell : previous.cells()) {
+						CellBucket bucket = cells.get(cell);
+						if (bucket != null && !placed.contains(cell)) {
+							bucket.remove(id);
+						}
+					}
+				}
+				return placed.isEmpty() ? null : new Placement(point.time(), placed);
+			});
+		}
+		if (!links.isEmpty()) {
+			sink.accept(links);
+		}
+	}
+
+	/**
+	 * Re-reads membership and rebalances if the set of live nodes changed. This node always counts
+	 * itself as live.
+	 */
+	public synchronized void refresh() {
+		Map<String, String> live = new HashMap<>(membership.liveNodes());
+		live.putIfAbsent(self(), "");
+		addresses = Map.copyOf(live);
+		ShardRing previous = ring;
+		if (previous != null && previous.nodes().equals(live.keySet())) {
+			return;
+		}
+		ShardRing next = new ShardRing(live.keySet(), settings.virtualNodes());
+		ring = next;
+
+		int dropped = 0;
+		for (Long cell : List.copyOf(cells.keySet())) {
+			if (!self().equals(next.owner(cell))) {
+				cells.remove(cell);
+				dropped++;
+			}
+		}
+		List<FusionLinkSink.Link> links = new ArrayList<>();
+		int warmed = 0;
+		for (ReportPoint point : recentReports.since(clock.millis() - settings.windowMillis())) {
+			Set<Long> placed = add(point, next, previous, links);
+			if (!placed.isEmpty()) {
+				placements.merge(point.id(), new Placement(point.time(), placed), (a, b) -> {
+					Set<Long> union = new HashSet<>(a.cells());
+					union.addAll(b.cells());
+					return new Placement(b.time(), union);
+				});
+				warmed += placed.size();
+			}
+		}
+		if (!links.isEmpty()) {
+			sink.accept(links);
+		}
+		log.info("Fusion shard ring now {} nodes; {} dropped {} cells and warmed {} report placements",
+			next.nodes().size(), self(), dropped, warmed);
+	}
+
+	/**
+	 * Drops reports that have left the fusion window.
+	 */
+	public void evict() {
+		long before = clock.millis() - settings.windowMillis();
+		cells.values().forEach(bucket -> bucket.evictBefore(before));
+		cells.values().removeIf(bucket -> bucket.size() == 0);
+		placements.values().removeIf(placement -> placement.time() < before);
+	}
+
+	public Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("node", self());
+		status.put("nodes", currentRing().nodes());
+		status.put("cells", cells.size());
+		status.put("reports", cells.values().stream().mapToInt(CellBucket::size).sum());
+		return status;
+	}
+
+	/**
+	 * Places the report in each cell near it that {@code ring} assigns here, skipping cells that
+	 * {@code skipOwnedIn} already assigned here. Returns the cells it was added to.
+	 */
+	private Set<Long> add(ReportPoint point, ShardRing ring, ShardRing skipOwnedIn, List<FusionLinkSink.Link> links) {
+		if (point.time() < clock.millis() - settings.windowMillis()) {
+			return Set.of();
+		}
+		Set<Long> added = new HashSet<>();
+		for (long cell : grid.cellsNear(point.lat(), point.lon(), settings.linkRadiusMeters())) {
+			if (!self().equals(ring.owner(cell)) || (skipOwnedIn != null && self().equals(skipOwnedIn.owner(cell)))) {
+				continue;
+			}
+			cells.computeIfAbsent(cell, CellBucket::new)
+				.add(point, grid, settings.linkRadiusMeters(), settings.windowMillis(), links);
+			added.add(cell);
+		}
+		return added;
+	}
+
+	private ShardRing currentRing() {
+		ShardRing current = ring;
+		if (current == null) {
+			refresh();
+			current = ring;
+		}
+		return current;
+	}
+}
@@ -0,0 +1,57 @@
+package com.cop.fusion.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring of fusion nodes. Each node is placed at {@code virtualNodes}
+ * points, so when one joins or leaves only about {@code 1/n} of the cells change owner.
+ */
+public final class ShardRing {
+	private final TreeMap<Long, String> points = new TreeMap<>();
+	private final Set<String> nodes;
+
+	public ShardRing(Collection<String> nodes, int virtualNodes) {
+		this.nodes = Set.copyOf(new TreeSet<>(nodes));
+		for (String node : this.nodes) {
+			for (int i = 0; i < virtualNodes; i++) {
+				points.put(hash(node + "#" + i), node);
+			}
+		}
+	}
+
+	public Set<String> nodes() {
+		return nodes;
+	}
+
+	public String owner(long cell) {
+		if (points.isEmpty()) {
+			return null;
+		}
+		Map.Entry<Long, String> entry = points.ceilingEntry(mix(cell));
+		return (entry != null ? entry : points.firstEntry()).getValue();
+	}
+
+	private static long hash(String value) {
+		// FNV-1a, then the murmur3 finalizer so nearby strings land far apart
+		long h = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			h ^= b;
+			h *= 0x100000001b3L;
+		}
+		return mix(h);
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
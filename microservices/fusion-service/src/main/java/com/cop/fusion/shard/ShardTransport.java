@@ -0,0 +1,11 @@
+package com.cop.fusion.shard;
+
+import java.util.List;
+
+/**
+ * Hands reports to the node that owns (or holds a halo of) their cells. Must throw if the peer
+ * did not accept them, so the change feed redelivers.
+ */
+public interface ShardTransport {
+	void send(String node, String address, List<ReportPoint> points);
+}
@@ -0,0 +1,34 @@
+package com.cop.fusion.shard;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Membership from a shared in-memory map: a single unsharded node, or several nodes in one JVM
+ * that join and leave by changing the map.
+ */
+public class StaticMembership implements ShardMembership {
+	private final String self;
+	private final Map<String, String> nodes;
+
+	public StaticMembership(String self, Map<String, String> nodes) {
+		this.self = self;
+		this.nodes = nodes;
+	}
+
+	public static StaticMembership single(String self) {
+		Map<String, String> nodes = new ConcurrentHashMap<>();
+		nodes.put(self, "");
+		return new StaticMembership(self, nodes);
+	}
+
+	@Override
+	public String self() {
+		return self;
+	}
+
+	@Override
+	public Map<String, String> liveNodes() {
+		return Map.copyOf(nodes);
+	}
+}
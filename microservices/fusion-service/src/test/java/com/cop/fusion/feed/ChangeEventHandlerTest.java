@@ -0,0 +1,70 @@
+package com.cop.fusion.feed;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.fusion.graph.LinkGraph;
+import com.cop.fusion.graph.NodeKind;
+import com.cop.fusion.shard.ReportPoint;
+import com.cop.fusion.shard.ShardNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ChangeEventHandlerTest {
+	private final LinkGraph linkGraph = new LinkGraph(16);
+	private final ShardNode shardNode = mock(ShardNode.class);
+	private final ChangeEventHandler handler = new ChangeEventHandler(linkGraph, shardNode);
+
+	@Test
+	void duplicatesAreLinkedButNotRoutedToFusion() {
+		handler.handle(List.of(
+			event(1, "10", "CREATED", report(null)),
+			event(2, "11", "CREATED", report("10"))));
+		linkGraph.flush();
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<ReportPoint>> routed = ArgumentCaptor.forClass(List.class);
+		verify(shardNode).route(routed.capture());
+		assertThat(routed.getValue()).extracting(ReportPoint::id).containsExactly(ChangeEvent.toUuid("REPORT", "10"));
+		assertThat(linkGraph.neighborhood(ChangeEvent.toUuid("REPORT", "11"), 1, ClassificationLevel.UNCLASSIFIED, EnumSet.allOf(NodeKind.class), 10))
+			.hasSize(1);
+	}
+
+	@Test
+	void deletedReportsLeaveTheGraph() {
+		handler.handle(List.of(
+			event(1, "10", "CREATED", report(null)),
+			event(2, "11", "CREATED", report("10")),
+			event(3, "10", "DELETED", JsonNodeFactory.instance.objectNode())));
+		linkGraph.flush();
+
+		assertThat(linkGraph.neighborhood(ChangeEvent.toUuid("REPORT", "11"), 1, ClassificationLevel.TOP_SECRET, EnumSet.allOf(NodeKind.class), 10))
+			.isEmpty();
+		verify(shardNode, never()).routeUpdates(any());
+	}
+
+	private static ObjectNode report(String duplicateOf) {
+		ObjectNode payload = JsonNodeFactory.instance.objectNode();
+		payload.put("classification", "UNCLASSIFIED");
+		payload.put("lat", 50.45);
+		payload.put("lon", 30.52);
+		payload.put("eventTime", "2026-01-01T00:00:00Z");
+		if (duplicateOf != null) {
+			payload.put("duplicateOf", duplicateOf);
+		}
+		return payload;
+	}
+
+	private static ChangeEvent event(long id, String reportId, String type, ObjectNode payload) {
+		return new ChangeEvent(id, "REPORT", reportId, type, "2026-01-01T00:00:00Z", payload);
+	}
+}
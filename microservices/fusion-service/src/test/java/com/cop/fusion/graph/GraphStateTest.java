@@ -0,0 +1,39 @@
+package com.cop.fusion.graph;
+
+import com.cop.common.security.ClassificationLevel;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GraphStateTest {
+
+	@Test
+	void publishedViewKeepsClassificationsAsOfPublish() {
+		GraphState state = new GraphState(16);
+		UUID id = UUID.randomUUID();
+		int n = state.upsertNode(id, NodeKind.REPORT, ClassificationLevel.UNCLASSIFIED);
+		state.publish();
+		GraphState.View before = state.view();
+
+		state.upsertNode(id, NodeKind.REPORT, ClassificationLevel.TOP_SECRET);
+
+		assertThat(before.node(n, 0).classification()).isEqualTo(ClassificationLevel.UNCLASSIFIED);
+		state.publish();
+		assertThat(state.view().node(n, 0).classification()).isEqualTo(ClassificationLevel.TOP_SECRET);
+		assertThat(before.node(n, 0).classification()).isEqualTo(ClassificationLevel.UNCLASSIFIED);
+	}
+
+	@Test
+	void nodesAddedAfterPublishAreNotInTheView() {
+		GraphState state = new GraphState(16);
+		state.upsertNode(UUID.randomUUID(), NodeKind.REPORT, ClassificationLevel.UNCLASSIFIED);
+		state.publish();
+		GraphState.View before = state.view();
+
+		state.upsertNode(UUID.randomUUID(), NodeKind.EVENT, ClassificationLevel.SECRET);
+
+		assertThat(before.nodeCount()).isEqualTo(1);
+	}
+}
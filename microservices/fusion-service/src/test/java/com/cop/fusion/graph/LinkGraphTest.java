@@ -0,0 +1,84 @@
+package com.cop.fusion.graph;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.fusion.feed.ChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LinkGraphTest {
+	private final LinkGraph graph = new LinkGraph(16);
+
+	@Test
+	void changesDuringAReloadSurviveTheSwap() {
+		UUID event = UUID.randomUUID();
+		UUID report = ChangeEvent.toUuid("REPORT", "42");
+		GraphState loaded = graph.beginReload();
+		loaded.upsertNode(event, NodeKind.EVENT, ClassificationLevel.UNCLASSIFIED);
+
+		// Arrives while the load is still reading
+		graph.upsertNode(report, NodeKind.REPORT, ClassificationLevel.UNCLASSIFIED);
+		graph.addEdge(event, report);
+		graph.finishReload(loaded);
+		graph.flush();
+
+		assertThat(ids(graph.neighborhood(event, 1, ClassificationLevel.UNCLASSIFIED, EnumSet.allOf(NodeKind.class), 10)))
+			.containsExactly(report);
+	}
+
+	@Test
+	void abortedReloadKeepsTheCurrentGraph() {
+		UUID report = UUID.randomUUID();
+		graph.upsertNode(report, NodeKind.REPORT, ClassificationLevel.UNCLASSIFIED);
+		graph.beginReload();
+		graph.abortReload();
+		graph.flush();
+
+		assertThat(graph.nodeCount()).isEqualTo(1);
+	}
+
+	@Test
+	void removedNodeIsNeitherFoundNorTraversed() {
+		UUID a = UUID.randomUUID();
+		UUID removed = UUID.randomUUID();
+		UUID c = UUID.randomUUID();
+		for (UUID id : List.of(a, removed, c)) {
+			graph.upsertNode(id, NodeKind.REPORT, ClassificationLevel.UNCLASSIFIED);
+		}
+		graph.addEdge(a, removed);
+		graph.addEdge(removed, c);
+		graph.flush();
+		assertThat(graph.shortestPath(a, c, 3, ClassificationLevel.TOP_SECRET)).hasSize(3);
+
+		graph.removeNode(removed);
+		graph.flush();
+
+		assertThat(graph.neighborhood(removed, 2, ClassificationLevel.TOP_SECRET, EnumSet.allOf(NodeKind.class), 10)).isEmpty();
+		assertThat(graph.neighborhood(a, 2, ClassificationLevel.TOP_SECRET, EnumSet.allOf(NodeKind.class), 10)).isEmpty();
+		assertThat(graph.shortestPath(a, c, 3, ClassificationLevel.TOP_SECRET)).isEmpty();
+	}
+
+	@Test
+	void removalDuringAReloadIsReplayed() {
+		UUID report = ChangeEvent.toUuid("REPORT", "7");
+		graph.upsertNode(report, NodeKind.REPORT, ClassificationLevel.UNCLASSIFIED);
+		GraphState loaded = graph.beginReload();
+		// The load read the row before the delete committed
+		loaded.upsertNode(ChangeEvent.toUuid("REPORT", "7"), NodeKind.REPORT, ClassificationLevel.UNCLASSIFIED);
+
+		graph.removeNode(report);
+		graph.finishReload(loaded);
+		graph.flush();
+
+		assertThat(graph.neighborhood(report, 1, ClassificationLevel.TOP_SECRET, EnumSet.allOf(NodeKind.class), 10)).isEmpty();
+		assertThat(graph.shortestPath(report, report, 0, ClassificationLevel.TOP_SECRET)).isEmpty();
+	}
+
+	private static List<UUID> ids(List<GraphNode> nodes) {
+		return nodes.stream().map(GraphNode::id).toList();
+	}
+}
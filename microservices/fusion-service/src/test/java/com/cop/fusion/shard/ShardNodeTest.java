@@ -0,0 +1,210 @@
+package com.cop.fusion.shard;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Three nodes in one JVM over {@link StaticMembership} and {@link InProcessTransport}.
+ */
+class ShardNodeTest {
+	private static final ShardNode.Settings SETTINGS = new ShardNode.Settings(1.0, 1000, 3_600_000, 64);
+	private static final long NOW = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+	// About 100 m apart, well inside the 1 km link radius
+	private static final double NEAR = 0.001;
+
+	private final AtomicLong millis = new AtomicLong(NOW);
+	private final Clock clock = new Clock() {
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis.get());
+		}
+	};
+	private final Map<String, String> members = new ConcurrentHashMap<>();
+	private final InProcessTransport transport = new InProcessTransport();
+	private final List<FusionLinkSink.Link> links = Collections.synchronizedList(new ArrayList<>());
+	private final List<ReportPoint> history = Collections.synchronizedList(new ArrayList<>());
+	private final Map<String, ShardNode> nodes = new LinkedHashMap<>();
+
+	@BeforeEach
+	void startNodes() {
+		for (String name : List.of("n1", "n2", "n3")) {
+			members.put(name, "");
+		}
+		for (String name : List.of("n1", "n2", "n3")) {
+			node(name);
+		}
+		nodes.values().forEach(ShardNode::refresh);
+	}
+
+	@Test
+	void eachReportIsHeldOnlyByItsCellOwner() {
+		List<ReportPoint> points = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			// Cell centres, so no halo reaches a neighbour
+			points.add(point(10.5 + i, 20.5 + i));
+		}
+		route(nodes.get("n1"), points);
+
+		ShardRing ring = new ShardRing(members.keySet(), SETTINGS.virtualNodes());
+		GridCell grid = new GridCell(SETTINGS.cellDegrees());
+		Map<String, Integer> expected = new LinkedHashMap<>();
+		points.forEach(p -> expected.merge(ring.owner(grid.cellOf(p.lat(), p.lon())), 1, Integer::sum));
+		nodes.forEach((name, node) -> assertThat(node.status().get("reports")).isEqualTo(expected.getOrDefault(name, 0)));
+		assertThat(links).isEmpty();
+	}
+
+	@Test
+	void nearbyReportsAreLinkedOnceWhicheverNodeRoutesThem() {
+		// Either side of a cell border, so both cells' owners hold a copy of each
+		ReportPoint a = point(10.9996, 20.5);
+		ReportPoint b = point(11.0004, 20.5);
+		route(nodes.get("n1"), List.of(a));
+		route(nodes.get("n2"), List.of(b));
+		route(nodes.get("n3"), List.of(point(40.5, 40.5)));
+
+		assertThat(links).hasSize(1);
+		assertThat(List.of(links.get(0).a(), links.get(0).b())).containsExactlyInAnyOrder(a.id(), b.id());
+	}
+
+	@Test
+	void unreachablePeerFailsTheRoute() {
+		ReportPoint point = pointOwnedBy("n3");
+		transport.unregister("n3");
+
+		assertThatThrownBy(() -> nodes.get("n1").route(List.of(point))).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void survivorsTakeOverALeavingNodesCells() {
+		ReportPoint first = pointOwnedBy("n3");
+		route(nodes.get("n1"), List.of(first));
+		assertThat(nodes.get("n3").status().get("reports")).isEqualTo(1);
+
+		members.remove("n3");
+		transport.unregister("n3");
+		nodes.remove("n3");
+		nodes.values().forEach(ShardNode::refresh);
+		assertThat(nodes.values().stream().mapToInt(n -> (Integer) n.status().get("reports")).sum()).isEqualTo(1);
+
+		ReportPoint second = point(first.lat() + NEAR, first.lon());
+		route(nodes.get("n1"), List.of(second));
+
+		assertThat(links).extracting(FusionLinkSink.Link::a, FusionLinkSink.Link::b)
+			.singleElement()
+			.satisfies(t -> assertThat(t.toList()).containsExactlyInAnyOrder(first.id(), second.id()));
+	}
+
+	@Test
+	void joiningNodeIsWarmedWithItsCellsReports() {
+		members.remove("n3");
+		transport.unregister("n3");
+		nodes.remove("n3");
+		nodes.values().forEach(ShardNode::refresh);
+		ReportPoint first = pointOwnedBy("n3");
+		route(nodes.get("n1"), List.of(first));
+
+		members.put("n3", "");
+		ShardNode n3 = node("n3");
+		nodes.values().forEach(ShardNode::refresh);
+		assertThat(n3.status().get("reports")).isEqualTo(1);
+		assertThat(nodes.get("n1").status().get("reports")).isEqualTo(0);
+		assertThat(nodes.get("n2").status().get("reports")).isEqualTo(0);
+
+		route(nodes.get("n2"), List.of(point(first.lat() + NEAR, first.lon())));
+		assertThat(links).hasSize(1);
+	}
+
+	@Test
+	void movedReportLeavesItsOldCell() {
+		ReportPoint original = pointOwnedBy("n3");
+		route(nodes.get("n1"), List.of(original));
+
+		ReportPoint moved = new ReportPoint(original.id(), -original.lat(), -original.lon(), NOW);
+		history.add(moved);
+		nodes.get("n2").routeUpdates(List.of(moved));
+		route(nodes.get("n1"), List.of(point(original.lat() + NEAR, original.lon())));
+
+		assertThat(links).isEmpty();
+		assertThat(nodes.values().stream().mapToInt(n -> (Integer) n.status().get("reports")).sum()).isEqualTo(2);
+	}
+
+	@Test
+	void reportMovedWithinTheNodeLeavesItsOldCell() {
+		ReportPoint original = pointOwnedBy("n1");
+		nodes.get("n1").accept(List.of(original));
+		ReportPoint moved = new ReportPoint(original.id(), original.lat(), original.lon() + 0.4, NOW);
+		nodes.get("n1").accept(List.of(moved));
+		nodes.get("n1").accept(List.of(point(original.lat() + NEAR, original.lon())));
+
+		assertThat(links).isEmpty();
+	}
+
+	@Test
+	void evictionDropsReportsOutsideTheWindow() {
+		ShardNode node = nodes.get("n1");
+		ReportPoint original = pointOwnedBy("n1");
+		node.accept(List.of(original));
+		assertThat(node.status().get("reports")).isEqualTo(1);
+
+		millis.addAndGet(SETTINGS.windowMillis() + 1);
+		node.evict();
+		assertThat(node.status().get("reports")).isEqualTo(0);
+		assertThat(node.status().get("cells")).isEqualTo(0);
+	}
+
+	private ShardNode node(String name) {
+		ShardNode node = new ShardNode(new StaticMembership(name, members), transport, links::addAll,
+			since -> history.stream().filter(p -> p.time() >= since).toList(), SETTINGS, clock);
+		transport.register(node);
+		nodes.put(name, node);
+		return node;
+	}
+
+	private void route(ShardNode via, List<ReportPoint> points) {
+		history.addAll(points);
+		via.route(points);
+	}
+
+	private ReportPoint pointOwnedBy(String name) {
+		ShardRing ring = new ShardRing(List.of("n1", "n2", "n3"), SETTINGS.virtualNodes());
+		GridCell grid = new GridCell(SETTINGS.cellDegrees());
+		for (int i = 0; i < 1000; i++) {
+			double lat = 0.5 + i % 60;
+			double lon = 0.5 + i / 60;
+			if (name.equals(ring.owner(grid.cellOf(lat, lon)))) {
+				return point(lat, lon);
+			}
+		}
+		throw new IllegalStateException("No cell owned by " + name);
+	}
+
+	private static ReportPoint point(double lat, double lon) {
+		return new ReportPoint(UUID.randomUUID(), lat, lon, NOW);
+	}
+}
@@ -0,0 +1,69 @@
+package com.cop.fusion.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardRingTest {
+	private static final int CELLS = 20_000;
+
+	@Test
+	void emptyRingHasNoOwner() {
+		ShardRing ring = new ShardRing(List.of(), 64);
+		assertThat(ring.owner(42)).isNull();
+		assertThat(ring.nodes()).isEmpty();
+	}
+
+	@Test
+	void ownershipDependsOnlyOnTheSetOfNodes() {
+		ShardRing a = new ShardRing(List.of("n1", "n2", "n3"), 64);
+		ShardRing b = new ShardRing(List.of("n3", "n1", "n2", "n1"), 64);
+		assertThat(b.nodes()).isEqualTo(Set.of("n1", "n2", "n3"));
+		for (long cell = 0; cell < 1000; cell++) {
+			assertThat(b.owner(cell)).isEqualTo(a.owner(cell));
+		}
+	}
+
+	@Test
+	void cellsSpreadRoughlyEvenly() {
+		ShardRing ring = new ShardRing(List.of("n1", "n2", "n3", "n4"), 128);
+		Map<String, Integer> counts = new HashMap<>();
+		for (long cell = 0; cell < CELLS; cell++) {
+			counts.merge(ring.owner(cell), 1, Integer::sum);
+		}
+		assertThat(counts).hasSize(4);
+		counts.values().forEach(n -> assertThat(n).isBetween(CELLS / 4 / 2, CELLS / 4 * 2));
+	}
+
+	@Test
+	void joiningNodeOnlyTakesCellsOverFromOthers() {
+		ShardRing before = new ShardRing(List.of("n1", "n2", "n3"), 128);
+		ShardRing after = new ShardRing(List.of("n1", "n2", "n3", "n4"), 128);
+		int moved = 0;
+		for (long cell = 0; cell < CELLS; cell++) {
+			String owner = after.owner(cell);
+			if (!owner.equals(before.owner(cell))) {
+				assertThat(owner).isEqualTo("n4");
+				moved++;
+			}
+		}
+		// About a quarter of the cells, never a reshuffle of the others
+		assertThat(moved).isBetween(CELLS / 8, CELLS / 2);
+	}
+
+	@Test
+	void leavingNodeOnlyGivesUpItsOwnCells() {
+		ShardRing before = new ShardRing(List.of("n1", "n2", "n3"), 128);
+		ShardRing after = new ShardRing(List.of("n1", "n3"), 128);
+		for (long cell = 0; cell < CELLS; cell++) {
+			if (!"n2".equals(before.owner(cell))) {
+				assertThat(after.owner(cell)).isEqualTo(before.owner(cell));
+			}
+		}
+	}
+}
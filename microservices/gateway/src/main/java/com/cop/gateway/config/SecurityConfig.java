@@ -0,0 +1,26 @@
+package com.cop.gateway.config;
+
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+@Configuration
+public class SecurityConfig {
+	@Bean
+	SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+		// Same as Boot's default resource server chain, except that scrapes and probes need no token
+		http
+			.authorizeExchange(exchanges -> exchanges
+				.matchers(EndpointRequest.to(HealthEndpoint.class, InfoEndpoint.class, PrometheusScrapeEndpoint.class)).permitAll()
+				.anyExchange().authenticated()
+			)
+			.oauth2ResourceServer(oauth -> oauth.jwt(Customizer.withDefaults()));
+		return http.build();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.cop.map.api;
+
+import com.cop.common.internal.InternalToken;
+import com.cop.map.feed.ChangeEvent;
+import com.cop.map.feed.ChangeEventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/internal/changes")
+public class ChangeController {
+	private static final Logger log = LoggerFactory.getLogger(ChangeController.class);
+
+	private final ChangeEventHandler handler;
+	private final InternalToken token;
+
+	public ChangeController(ChangeEventHandler handler, @Value("${outbox.token:}") String token) {
+		this.handler = handler;
+		this.token = new InternalToken(token);
+		if (!this.token.isConfigured()) {
+			log.warn("outbox.token is not set; /internal/changes will refuse every delivery");
+		}
+	}
+
+	@PostMapping
+	public ResponseEntity<Void> receive(@RequestHeader(value = InternalToken.HEADER, required = false) String presented,
+	                                    @RequestBody List<ChangeEvent> events) {
+		if (!token.matches(presented)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+		}
+		handler.handle(events);
+		return ResponseEntity.noContent().build();
+	}
+}
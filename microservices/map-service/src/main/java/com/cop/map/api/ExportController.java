@@ -0,0 +1,131 @@
+package com.cop.map.api;
+
+import com.cop.common.export.ExportColumn;
+import com.cop.common.export.ExportFormat;
+import com.cop.common.export.ExportQuery;
+import com.cop.common.export.JdbcStreamingExporter;
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.model.PointLayer;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk export of map points straight from the database rather than the in-memory point store,
+ * which only holds what fits on screen. Same layers and filters as {@code /api/map/points}, no
+ * result limit.
+ */
+@RestController
+@RequestMapping("/api/map")
+public class ExportController {
+	private static final List<ExportColumn> COLUMNS = List.of(
+		ExportColumn.string("id"),
+		ExportColumn.string("layer"),
+		ExportColumn.string("title"),
+		ExportColumn.float64("lat"),
+		ExportColumn.float64("lon"),
+		ExportColumn.timestamp("time"),
+		ExportColumn.string("classification"),
+		ExportColumn.string("status"));
+	private static final String REPORTS_SQL = "SELECT id, type AS layer, title, ST_Y(location) AS lat, ST_X(location) AS lon, " +
+		"COALESCE(collection_time, submitted_at) AS time, classification, status FROM reports " +
+		"WHERE location IS NOT NULL AND COALESCE(classification, 'UNCLASSIFIED') = ANY(?) AND type = ANY(?)";
+	private static final String EVENTS_SQL = "SELECT id, 'EVENT' AS layer, title, ST_Y(location) AS lat, ST_X(location) AS lon, " +
+		"COALESCE(start_time, created_at) AS time, sensitivity AS classification, status FROM events " +
+		"WHERE location IS NOT NULL AND COALESCE(sensitivity, 'UNCLASSIFIED') = ANY(?)";
+	private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+	private final JdbcStreamingExporter exporter;
+
+	public ExportController(JdbcStreamingExporter exporter) {
+		this.exporter = exporter;
+	}
+
+	@GetMapping("/export")
+	@PreAuthorize("isAuthenticated()")
+	public void export(@AuthenticationPrincipal Jwt jwt,
+	                   @RequestParam(value = "format", defaultValue = "geojson") String format,
+	                   @RequestParam(value = "minLat", defaultValue = "-90") double minLat,
+	                   @RequestParam(value = "minLon", defaultValue = "-180") double minLon,
+	                   @RequestParam(value = "maxLat", defaultValue = "90") double maxLat,
+	                   @RequestParam(value = "maxLon", defaultValue = "180") double maxLon,
+	                   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+	                   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+	                   @RequestParam(value = "types", required = false) List<PointLayer> types,
+	                   HttpServletResponse response) throws IOException {
+		ExportFormat exportFormat;
+		try {
+			exportFormat = ExportFormat.of(format);
+		} catch (IllegalArgumentException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+			return;
+		}
+		if (!exportFormat.available()) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Export format not available: " + format);
+			return;
+		}
+		if (minLat > maxLat || minLon > maxLon) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Bounding box minimums must not exceed maximums");
+			return;
+		}
+
+		ClassificationLevel clearance = ClassificationLevel.ofClearance(jwt != null ? jwt.getClaimAsString("clearance_level") : null);
+		Set<PointLayer> layers = types == null || types.isEmpty() ? EnumSet.allOf(PointLayer.class) : EnumSet.copyOf(types);
+		String[] reportTypes = layers.stream().filter(l -> l != PointLayer.EVENT).map(Enum::name).toArray(String[]::new);
+
+		List<String> parts = new ArrayList<>();
+		List<Object> args = new ArrayList<>();
+		if (reportTypes.length > 0) {
+			parts.add(filtered(REPORTS_SQL, "COALESCE(collection_time, submitted_at)", from, to, args,
+				clearance.readableLabels(), reportTypes, minLon, minLat, maxLon, maxLat));
+		}
+		if (layers.contains(PointLayer.EVENT)) {
+			parts.add(filtered(EVENTS_SQL, "COALESCE(start_time, created_at)", from, to, args,
+				clearance.readableLabels(), null, minLon, minLat, maxLon, maxLat));
+		}
+		String sql = String.join(" UNION ALL ", parts);
+
+		String filename = "map-" + FILE_STAMP.format(OffsetDateTime.now(ZoneOffset.UTC)) + "." + exportFormat.extension();
+		response.setContentType(exportFormat.contentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString());
+		exporter.export(new ExportQuery(sql, args, COLUMNS), exportFormat, response.getOutputStream());
+	}
+
+	private static String filtered(String base, String timeColumn, OffsetDateTime from, OffsetDateTime to, List<Object> args,
+	                               String[] labels, String[] reportTypes, double minLon, double minLat, double maxLon, double maxLat) {
+		StringBuilder sql = new StringBuilder(base);
+		args.add(labels);
+		if (reportTypes != null) {
+			args.add(reportTypes);
+		}
+		sql.append(" AND location && ST_MakeEnvelope(?, ?, ?, ?, 4326)");
+		args.add(minLon);
+		args.add(minLat);
+		args.add(maxLon);
+		args.add(maxLat);
+		if (from != null) {
+			sql.append(" AND ").append(timeColumn).append(" >= ?");
+			args.add(from);
+		}
+		if (to != null) {
+			sql.append(" AND ").append(timeColumn).append(" < ?");
+			args.add(to);
+		}
+		return sql.toString();
+	}
+}
@@ -1,18 +1,140 @@
 package com.cop.map.api;
 
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.density.DensityCell;
+import com.cop.map.density.DensityPyramid;
+import com.cop.map.model.MapPoint;
+import com.cop.map.model.PointLayer;
+import com.cop.map.store.PointQuery;
+import com.cop.map.store.PointStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/map")
 public class MapController {
+	private final DensityPyramid densityPyramid;
+	private final PointStore pointStore;
+	private final int maxResults;
+
+	public MapController(DensityPyramid densityPyramid, PointStore pointStore,
+	                     @Value("${map.store.max-results:10000}") int maxResults) {
+		this.densityPyramid = densityPyramid;
+		this.pointStore = pointStore;
+		this.maxResults = maxResults;
+	}
+
 	@GetMapping("/events")
 	@PreAuthorize("isAuthenticated()")
-	public ResponseEntity<List<Map<String, Object>>> events() {
-		return ResponseEntity.ok(List.of());
+	public ResponseEntity<List<Map<String, Object>>> events(@AuthenticationPrincipal Jwt jwt,
+	                                                        @RequestParam(value = "minLat", defaultValue = "-90") double minLat,
+	                                                        @RequestParam(value = "minLon", defaultValue = "-180") double minLon,
+	                                                        @RequestParam(value = "maxLat", defaultValue = "90") double maxLat,
+	                                                        @RequestParam(value = "maxLon", defaultValue = "180") double maxLon,
+	                                                        @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+	                                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+		PointStore.Result result = queryPoints(jwt, minLat, minLon, maxLat, maxLon, from, to, EnumSet.of(PointLayer.EVENT), maxResults);
+		return ResponseEntity.ok(toMaps(result.points()));
+	}
+
+	@GetMapping("/points")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<?> points(@AuthenticationPrincipal Jwt jwt,
+	                                @RequestParam("minLat") double minLat,
+	                                @RequestParam("minLon") double minLon,
+	                                @RequestParam("maxLat") double maxLat,
+	                                @RequestParam("maxLon") double maxLon,
+	                                @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+	                                @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+	                                @RequestParam(value = "types", required = false) List<PointLayer> types,
+	                                @RequestParam(value = "limit", required = false) Integer limit) {
+		if (minLat > maxLat || minLon > maxLon) {
+			return ResponseEntity.badRequest().body(Map.of("error", "Bounding box minimums must not exceed maximums"));
+		}
+		Set<PointLayer> layers = types == null || types.isEmpty() ? EnumSet.allOf(PointLayer.class) : EnumSet.copyOf(types);
+		int max = limit != null ? Math.max(1, Math.min(limit, maxResults)) : maxResults;
+		PointStore.Result result = queryPoints(jwt, minLat, minLon, maxLat, maxLon, from, to, layers, max);
+
+		Map<String, Object> resp = new HashMap<>();
+		resp.put("count", result.count());
+		resp.put("truncated", result.truncated());
+		resp.put("points", toMaps(result.points()));
+		return ResponseEntity.ok(resp);
+	}
+
+	@GetMapping("/density")
+	@PreAuthorize("isAuthenticated()")
+	public ResponseEntity<?> density(@AuthenticationPrincipal Jwt jwt,
+	                                 @RequestParam("minLat") double minLat,
+	                                 @RequestParam("minLon") double minLon,
+	                                 @RequestParam("maxLat") double maxLat,
+	                                 @RequestParam("maxLon") double maxLon,
+	                                 @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+	                                 @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+	                                 @RequestParam(value = "types", required = false) List<PointLayer> types,
+	                                 @RequestParam(value = "precision", required = false) Integer precision) {
+		if (minLat > maxLat || minLon > maxLon) {
+			return ResponseEntity.badRequest().body(Map.of("error", "Bounding box minimums must not exceed maximums"));
+		}
+		OffsetDateTime windowEnd = to != null ? to : OffsetDateTime.now();
+		OffsetDateTime windowStart = from != null ? from : windowEnd.minusDays(7);
+		Set<PointLayer> layers = types == null || types.isEmpty() ? EnumSet.allOf(PointLayer.class) : EnumSet.copyOf(types);
+		int level = precision != null ? precision : densityPyramid.choosePrecision(minLat, minLon, maxLat, maxLon);
+
+		List<DensityCell> cells;
+		try {
+			cells = densityPyramid.query(minLat, minLon, maxLat, maxLon,
+				windowStart.toEpochSecond(), windowEnd.toEpochSecond(), layers, clearance(jwt), level);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+		}
+
+		Map<String, Object> resp = new HashMap<>();
+		resp.put("precision", level);
+		resp.put("from", windowStart.toString());
+		resp.put("to", windowEnd.toString());
+		resp.put("cells", cells);
+		return ResponseEntity.ok(resp);
+	}
+
+	private PointStore.Result queryPoints(Jwt jwt, double minLat, double minLon, double maxLat, double maxLon,
+	                                      OffsetDateTime from, OffsetDateTime to, Set<PointLayer> layers, int limit) {
+		long fromEpoch = from != null ? from.toEpochSecond() : Long.MIN_VALUE / 2;
+		long toEpoch = to != null ? to.toEpochSecond() : Long.MAX_VALUE / 2;
+		return pointStore.query(new PointQuery(minLat, minLon, maxLat, maxLon, fromEpoch, toEpoch, clearance(jwt), layers), limit);
+	}
+
+	private static ClassificationLevel clearance(Jwt jwt) {
+		return ClassificationLevel.ofClearance(jwt != null ? jwt.getClaimAsString("clearance_level") : null);
+	}
+
+	private static List<Map<String, Object>> toMaps(List<MapPoint> points) {
+		List<Map<String, Object>> out = new ArrayList<>(points.size());
+		for (MapPoint point : points) {
+			Map<String, Object> m = new HashMap<>();
+			m.put("id", point.id().toString());
+			m.put("type", point.layer().name());
+			m.put("lat", point.lat());
+			m.put("lon", point.lon());
+			m.put("time", OffsetDateTime.ofInstant(Instant.ofEpochSecond(point.epochSecond()), ZoneOffset.UTC).toString());
+			m.put("classification", point.classification().name());
+			out.add(m);
+		}
+		return out;
 	}
 }
\ No newline at end of file
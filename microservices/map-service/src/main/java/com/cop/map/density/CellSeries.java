@@ -0,0 +1,56 @@
+package com.cop.map.density;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.model.PointLayer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-cell counts kept at hour and day granularity, so a window sum touches at most two partial
+ * days of hour buckets plus one day bucket per whole day. Each bucket counts by layer and
+ * classification, so a sum can leave out what the reader is not cleared for.
+ */
+final class CellSeries {
+	private static final int LAYERS = PointLayer.values().length;
+	private static final int LEVELS = ClassificationLevel.values().length;
+
+	private final ConcurrentSkipListMap<Long, AtomicLongArray> hours = new ConcurrentSkipListMap<>();
+	private final ConcurrentSkipListMap<Long, AtomicLongArray> days = new ConcurrentSkipListMap<>();
+
+	/** Adds {@code delta}, which is negative when a point is withdrawn, to the count for the hour. */
+	void add(long hour, PointLayer layer, ClassificationLevel classification, long delta) {
+		int slot = layer.ordinal() * LEVELS + classification.getLevel();
+		hours.computeIfAbsent(hour, h -> new AtomicLongArray(LAYERS * LEVELS)).addAndGet(slot, delta);
+		days.computeIfAbsent(Math.floorDiv(hour, 24), d -> new AtomicLongArray(LAYERS * LEVELS)).addAndGet(slot, delta);
+	}
+
+	/** Adds the per-layer counts of points classified at most {@code clearance} to {@code into}. */
+	void sum(long fromHour, long toHourExclusive, ClassificationLevel clearance, long[] into) {
+		int readable = clearance.getLevel() + 1;
+		long firstDay = Math.floorDiv(fromHour + 23, 24);
+		long lastDayExclusive = Math.floorDiv(toHourExclusive, 24);
+		if (firstDay < lastDayExclusive) {
+			add(days, firstDay, lastDayExclusive, readable, into);
+			add(hours, fromHour, firstDay * 24, readable, into);
+			add(hours, lastDayExclusive * 24, toHourExclusive, readable, into);
+		} else {
+			add(hours, fromHour, toHourExclusive, readable, into);
+		}
+	}
+
+	private static void add(ConcurrentSkipListMap<Long, AtomicLongArray> buckets, long from, long toExclusive, int readable, long[] into) {
+		if (from >= toExclusive) {
+			return;
+		}
+		for (Map.Entry<Long, AtomicLongArray> bucket : buckets.subMap(from, toExclusive).entrySet()) {
+			AtomicLongArray counts = bucket.getValue();
+			for (int layer = 0; layer < LAYERS; layer++) {
+				for (int level = 0; level < readable; level++) {
+					into[layer] += counts.get(layer * LEVELS + level);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,8 @@
+package com.cop.map.density;
+
+import com.cop.map.model.PointLayer;
+
+import java.util.Map;
+
+public record DensityCell(String geohash, double lat, double lon, long total, Map<PointLayer, Long> counts) {
+}
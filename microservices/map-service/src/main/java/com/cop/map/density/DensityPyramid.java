@@ -0,0 +1,119 @@
+package com.cop.map.density;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.feed.MapPointSink;
+import com.cop.map.model.MapPoint;
+import com.cop.map.model.PointLayer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Geohash-binned point counts at every precision from 1 to {@code maxPrecision}, updated on each
+ * insert and withdrawal. A query picks the finest level whose viewport fits in {@code maxCells}, so its cost is
+ * bounded by the cell budget rather than by the number of points underneath.
+ * <p>
+ * Counts are kept per classification and a query only adds up the levels the reader is cleared
+ * for, so a cell's density never gives away where classified reports are.
+ */
+@Component
+public class DensityPyramid implements MapPointSink {
+	private final int maxPrecision;
+	private final int maxCells;
+	private final List<Map<Long, CellSeries>> levels = new ArrayList<>();
+
+	public DensityPyramid(@Value("${map.density.max-precision:7}") int maxPrecision,
+	                      @Value("${map.density.max-cells:4096}") int maxCells) {
+		if (maxPrecision < 1 || maxPrecision > GeoHash.MAX_PRECISION) {
+			throw new IllegalArgumentException("map.density.max-precision must be between 1 and " + GeoHash.MAX_PRECISION);
+		}
+		this.maxPrecision = maxPrecision;
+		this.maxCells = maxCells;
+		for (int precision = 0; precision <= maxPrecision; precision++) {
+			levels.add(new ConcurrentHashMap<>());
+		}
+	}
+
+	@Override
+	public void accept(MapPoint point, long revision) {
+		add(point, 1);
+	}
+
+	@Override
+	public void remove(MapPoint point, long revision) {
+		add(point, -1);
+	}
+
+	private void add(MapPoint point, long delta) {
+		long hour = Math.floorDiv(point.epochSecond(), 3600);
+		for (int precision = 1; precision <= maxPrecision; precision++) {
+			long cell = GeoHash.encode(point.lat(), point.lon(), precision);
+			levels.get(precision).computeIfAbsent(cell, c -> new CellSeries()).add(hour, point.layer(), point.classification(), delta);
+		}
+	}
+
+	public int choosePrecision(double minLat, double minLon, double maxLat, double maxLon) {
+		for (int precision = maxPrecision; precision > 1; precision--) {
+			long lonCells = GeoHash.lonIndex(maxLon, precision) - GeoHash.lonIndex(minLon, precision) + 1;
+			long latCells = GeoHash.latIndex(maxLat, precision) - GeoHash.latIndex(minLat, precision) + 1;
+			if (lonCells * latCells <= maxCells) {
+				return precision;
+			}
+		}
+		return 1;
+	}
+
+	public List<DensityCell> query(double minLat, double minLon, double maxLat, double maxLon,
+	                               long fromEpochSecond, long toEpochSecond, Set<PointLayer> layers,
+	                               ClassificationLevel clearance, int precision) {
+		if (precision < 1 || precision > maxPrecision) {
+			throw new IllegalArgumentException("precision must be between 1 and " + maxPrecision);
+		}
+		long lonFrom = GeoHash.lonIndex(minLon, precision);
+		long lonTo = GeoHash.lonIndex(maxLon, precision);
+		long latFrom = GeoHash.latIndex(minLat, precision);
+		long latTo = GeoHash.latIndex(maxLat, precision);
+		if ((lonTo - lonFrom + 1) * (latTo - latFrom + 1) > maxCells) {
+			throw new IllegalArgumentException("Viewport spans more than " + maxCells + " cells at precision " + precision);
+		}
+
+		long fromHour = Math.floorDiv(fromEpochSecond, 3600);
+		long toHourExclusive = Math.floorDiv(toEpochSecond, 3600) + 1;
+		Map<Long, CellSeries> level = levels.get(precision);
+		PointLayer[] allLayers = PointLayer.values();
+		long[] counts = new long[allLayers.length];
+		List<DensityCell> cells = new ArrayList<>();
+
+		for (long lonIdx = lonFrom; lonIdx <= lonTo; lonIdx++) {
+			for (long latIdx = latFrom; latIdx <= latTo; latIdx++) {
+				long hash = GeoHash.interleave(lonIdx, latIdx, precision);
+				CellSeries series = level.get(hash);
+				if (series == null) {
+					continue;
+				}
+				Arrays.fill(counts, 0);
+				series.sum(fromHour, toHourExclusive, clearance, counts);
+				long total = 0;
+				Map<PointLayer, Long> byLayer = new EnumMap<>(PointLayer.class);
+				for (PointLayer layer : allLayers) {
+					if (layers.contains(layer) && counts[layer.ordinal()] > 0) {
+						byLayer.put(layer, counts[layer.ordinal()]);
+						total += counts[layer.ordinal()];
+					}
+				}
+				if (total > 0) {
+					cells.add(new DensityCell(GeoHash.toBase32(hash, precision),
+						GeoHash.cellCenterLat(latIdx, precision), GeoHash.cellCenterLon(lonIdx, precision), total, byLayer));
+				}
+			}
+		}
+		return cells;
+	}
+}
@@ -0,0 +1,67 @@
+package com.cop.map.density;
+
+/**
+ * Geohash cells addressed as interleaved longitude/latitude index pairs, so the pyramid can key
+ * cells by a primitive long and enumerate a viewport without string work.
+ */
+public final class GeoHash {
+	public static final int MAX_PRECISION = 12;
+	private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+	private GeoHash() {
+	}
+
+	public static int lonBits(int precision) {
+		return (5 * precision + 1) / 2;
+	}
+
+	public static int latBits(int precision) {
+		return 5 * precision / 2;
+	}
+
+	public static long lonIndex(double lon, int precision) {
+		return index((lon + 180.0) / 360.0, lonBits(precision));
+	}
+
+	public static long latIndex(double lat, int precision) {
+		return index((lat + 90.0) / 180.0, latBits(precision));
+	}
+
+	private static long index(double fraction, int bits) {
+		long cells = 1L << bits;
+		long idx = (long) Math.floor(fraction * cells);
+		return Math.max(0, Math.min(cells - 1, idx));
+	}
+
+	public static long encode(double lat, double lon, int precision) {
+		return interleave(lonIndex(lon, precision), latIndex(lat, precision), precision);
+	}
+
+	public static long interleave(long lonIdx, long latIdx, int precision) {
+		int lonShift = lonBits(precision);
+		int latShift = latBits(precision);
+		long hash = 0;
+		for (int bit = 0; bit < 5 * precision; bit++) {
+			long value = (bit & 1) == 0 ? (lonIdx >>> --lonShift) : (latIdx >>> --latShift);
+			hash = (hash << 1) | (value & 1);
+		}
+		return hash;
+	}
+
+	public static double cellCenterLon(long lonIdx, int precision) {
+		return (lonIdx + 0.5) * 360.0 / (1L << lonBits(precision)) - 180.0;
+	}
+
+	public static double cellCenterLat(long latIdx, int precision) {
+		return (latIdx + 0.5) * 180.0 / (1L << latBits(precision)) - 90.0;
+	}
+
+	public static String toBase32(long hash, int precision) {
+		char[] chars = new char[precision];
+		for (int i = precision - 1; i >= 0; i--) {
+			chars[i] = BASE32[(int) (hash & 31)];
+			hash >>>= 5;
+		}
+		return new String(chars);
+	}
+}
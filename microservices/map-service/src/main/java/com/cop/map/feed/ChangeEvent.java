@@ -0,0 +1,25 @@
+package com.cop.map.feed;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+public record ChangeEvent(long id, String aggregateType, String aggregateId, String eventType, String createdAt, JsonNode payload) {
+
+	/**
+	 * Aggregate ids are UUIDs in the SQL schema but numeric in the backend's JPA model; numeric
+	 * ids are mapped to a name-based UUID so both land in the same id space.
+	 */
+	public UUID aggregateUuid() {
+		return toUuid(aggregateType, aggregateId);
+	}
+
+	public static UUID toUuid(String aggregateType, String aggregateId) {
+		try {
+			return UUID.fromString(aggregateId);
+		} catch (IllegalArgumentException e) {
+			return UUID.nameUUIDFromBytes((aggregateType + ":" + aggregateId).getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.cop.map.feed;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.model.MapPoint;
+import com.cop.map.model.PointLayer;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies relayed report changes to the map. Every event but a deletion or archival carries the
+ * report's full state, so each one replaces the point; a report without a location, deleted or
+ * archived is withdrawn.
+ */
+@Component
+public class ChangeEventHandler {
+	private static final Logger log = LoggerFactory.getLogger(ChangeEventHandler.class);
+	private static final int SEEN_CAPACITY = 100_000;
+	private static final Set<String> WITHDRAWALS = Set.of("DELETED", "ARCHIVED");
+
+	private final MapPointRegistry registry;
+	// The outbox relay delivers at least once; remember recent event ids so retries are not applied twice
+	private final Set<Long> seen = Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, false) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+			return size() > SEEN_CAPACITY;
+		}
+	});
+
+	public ChangeEventHandler(MapPointRegistry registry) {
+		this.registry = registry;
+	}
+
+	public synchronized void handle(List<ChangeEvent> events) {
+		for (ChangeEvent event : events) {
+			if (!seen.add(event.id())) {
+				continue;
+			}
+			if (!"REPORT".equals(event.aggregateType())) {
+				continue;
+			}
+			// One malformed event must not fail the batch, or every redelivery would fail with it
+			try {
+				apply(event);
+			} catch (RuntimeException e) {
+				log.warn("Skipping change event {} for {} {}: {}", event.id(), event.aggregateType(), event.aggregateId(), e.getMessage());
+			}
+		}
+	}
+
+	private void apply(ChangeEvent event) {
+		JsonNode payload = event.payload();
+		if (WITHDRAWALS.contains(event.eventType()) || payload == null || !payload.hasNonNull("lat") || !payload.hasNonNull("lon")) {
+			registry.delete(event.aggregateUuid());
+			return;
+		}
+		long epochSecond = payload.hasNonNull("eventTime")
+			? LocalDateTime.parse(payload.get("eventTime").asText()).toEpochSecond(ZoneOffset.UTC)
+			: System.currentTimeMillis() / 1000;
+		registry.upsert(new MapPoint(
+			event.aggregateUuid(),
+			payload.get("lat").asDouble(),
+			payload.get("lon").asDouble(),
+			epochSecond,
+			PointLayer.fromReportType(payload.path("type").asText()),
+			ClassificationLevel.ofLabel(payload.path("classification").asText(null))));
+	}
+}
@@ -0,0 +1,156 @@
+package com.cop.map.feed;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.model.MapPoint;
+import com.cop.map.model.PointLayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Loads the located rows of {@code reports} and {@code events} onto the map.
+ * <p>
+ * Between full loads it polls for rows created since the newest one it has seen, less
+ * {@code map.feed.lag}: a row is stamped when its transaction writes it but only visible once that
+ * commits, so a slow transaction can commit a row older than one already seen. Re-reading the lag
+ * window picks those up; rows that are already mapped are unchanged and cost nothing.
+ * <p>
+ * Neither table records when a row was last changed, so updates and deletes are picked up by a
+ * full reload every {@code map.feed.reconcile-interval-ms}, which replaces changed points and
+ * withdraws those whose row is gone or no longer located.
+ */
+@Component
+public class MapPointFeed {
+	private static final Logger log = LoggerFactory.getLogger(MapPointFeed.class);
+
+	private static final String REPORTS_SQL = "SELECT id, type, ST_Y(location) AS lat, ST_X(location) AS lon, " +
+		"COALESCE(collection_time, submitted_at) AS observed_at, submitted_at AS changed_at, classification " +
+		"FROM reports WHERE location IS NOT NULL AND submitted_at > ? ORDER BY submitted_at";
+	private static final String EVENTS_SQL = "SELECT id, ST_Y(location) AS lat, ST_X(location) AS lon, " +
+		"COALESCE(start_time, created_at) AS observed_at, created_at AS changed_at, sensitivity AS classification " +
+		"FROM events WHERE location IS NOT NULL AND created_at > ? ORDER BY created_at";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate readOnlyTx;
+	private final MapPointRegistry registry;
+	private final Duration lag;
+	private final Source reports;
+	private final Source events;
+	private volatile boolean bootstrapped;
+
+	/** One polled table: how far it has been read and which of the registry's points came from it. */
+	private static final class Source {
+		final String sql;
+		final boolean events;
+		final MapPointRegistry.Membership mapped;
+		Timestamp watermark = new Timestamp(0);
+
+		Source(String sql, boolean events, MapPointRegistry.Membership mapped) {
+			this.sql = sql;
+			this.events = events;
+			this.mapped = mapped;
+		}
+	}
+
+	public MapPointFeed(DataSource dataSource, PlatformTransactionManager transactionManager, MapPointRegistry registry,
+	                    @Value("${map.feed.lag:PT1M}") Duration lag) {
+		// Postgres only streams with a server-side cursor inside a transaction and with a fetch size set
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(5000);
+		this.readOnlyTx = new TransactionTemplate(transactionManager);
+		this.readOnlyTx.setReadOnly(true);
+		this.registry = registry;
+		this.lag = lag;
+		this.reports = new Source(REPORTS_SQL, false, registry.newMembership());
+		this.events = new Source(EVENTS_SQL, true, registry.newMembership());
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void bootstrap() {
+		long start = System.currentTimeMillis();
+		long loaded = reconcile();
+		bootstrapped = true;
+		log.info("Loaded {} map points in {} ms", loaded, System.currentTimeMillis() - start);
+	}
+
+	@Scheduled(fixedDelayString = "${map.feed.refresh-interval-ms:5000}")
+	public void catchUp() {
+		if (bootstrapped) {
+			pull();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${map.feed.reconcile-interval-ms:600000}", initialDelayString = "${map.feed.reconcile-interval-ms:600000}")
+	public void scheduledReconcile() {
+		if (bootstrapped) {
+			long start = System.currentTimeMillis();
+			long loaded = reconcile();
+			log.debug("Reconciled {} map points in {} ms", loaded, System.currentTimeMillis() - start);
+		}
+	}
+
+	/** Reads the rows created since each table's watermark, less the lag. */
+	private synchronized void pull() {
+		readOnlyTx.executeWithoutResult(status -> {
+			read(reports, new Timestamp(reports.watermark.getTime() - lag.toMillis()));
+			read(events, new Timestamp(events.watermark.getTime() - lag.toMillis()));
+		});
+	}
+
+	/**
+	 * Reads every located row and withdraws the points of this feed whose row was not among them.
+	 * Returns the number of rows read.
+	 */
+	private synchronized long reconcile() {
+		Long count = readOnlyTx.execute(status -> {
+			long loaded = 0;
+			for (Source source : List.of(reports, events)) {
+				registry.beginSweep(source.mapped);
+				loaded += read(source, new Timestamp(0));
+				registry.endSweep(source.mapped);
+			}
+			return loaded;
+		});
+		return count == null ? 0 : count;
+	}
+
+	private long read(Source source, Timestamp since) {
+		long[] loaded = new long[1];
+		jdbcTemplate.query(source.sql, rs -> {
+			publish(rs, source.events ? PointLayer.EVENT : PointLayer.fromReportType(rs.getString("type")), source.mapped);
+			Timestamp changedAt = rs.getTimestamp("changed_at");
+			if (changedAt != null && changedAt.after(source.watermark)) {
+				source.watermark = changedAt;
+			}
+			loaded[0]++;
+		}, since);
+		return loaded[0];
+	}
+
+	private void publish(ResultSet rs, PointLayer layer, MapPointRegistry.Membership mapped) throws SQLException {
+		Timestamp observedAt = rs.getTimestamp("observed_at");
+		registry.upsert(new MapPoint(
+			rs.getObject("id", UUID.class),
+			rs.getDouble("lat"),
+			rs.getDouble("lon"),
+			observedAt != null ? observedAt.toInstant().getEpochSecond() : Instant.now().getEpochSecond(),
+			layer,
+			ClassificationLevel.ofLabel(rs.getString("classification"))), mapped);
+	}
+}
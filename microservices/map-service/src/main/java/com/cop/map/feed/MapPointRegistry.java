@@ -0,0 +1,265 @@
+package com.cop.map.feed;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.model.MapPoint;
+import com.cop.map.model.PointLayer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The current version of every mapped report and event, by id. Both feeds write through here, so
+ * a point that moves, changes layer or classification, or goes away is withdrawn from every sink
+ * before its replacement arrives, and re-sending an unchanged point costs nothing.
+ * <p>
+ * Points are held in primitive columns by slot, with an open-addressing index from id to slot:
+ * about 48 bytes a point, against the boxed map entry, UUID, record and point it replaces. A
+ * slot keeps its number until the point is deleted, so feeds track which points they mapped as
+ * {@link Membership} bitsets over slots. Coordinates are kept as floats, the precision of the point
+ * store, and the points handed to sinks are rounded the same way so a sink sees identical values
+ * on accept and on remove.
+ */
+@Component
+public class MapPointRegistry {
+	private static final int EMPTY = -1;
+
+	private final List<MapPointSink> sinks;
+	private final List<Membership> memberships = new ArrayList<>();
+	private long lastRevision;
+
+	// Columns by slot
+	private long[] idMsb = new long[0];
+	private long[] idLsb = new long[0];
+	private float[] lat = new float[0];
+	private float[] lon = new float[0];
+	private long[] epochSecond = new long[0];
+	private byte[] layer = new byte[0];
+	private byte[] classification = new byte[0];
+	private long[] revision = new long[0];
+	private int slotCount;
+	private int[] freeSlots = new int[0];
+	private int freeCount;
+
+	// Linear-probing index from id to slot, EMPTY where unused; kept at most two thirds full
+	private int[] index = emptyIndex(16);
+	private int size;
+
+	/**
+	 * The slots one feed has mapped. Deleting a point clears its slot from every membership, so a
+	 * slot that is reused for another id never counts as mapped by a feed that did not map it.
+	 */
+	public static final class Membership {
+		private BitSet mapped = new BitSet();
+		private BitSet seen;
+	}
+
+	public MapPointRegistry(List<MapPointSink> sinks) {
+		this.sinks = sinks;
+	}
+
+	public synchronized Membership newMembership() {
+		Membership membership = new Membership();
+		memberships.add(membership);
+		return membership;
+	}
+
+	/** Adds the point or replaces the version with the same id; returns whether anything changed. */
+	public synchronized boolean upsert(MapPoint point) {
+		return upsert(point, null);
+	}
+
+	/**
+	 * As {@link #upsert(MapPoint)}, and records the point as mapped by {@code membership}, and as
+	 * seen if a {@link #beginSweep sweep} of it is open.
+	 */
+	public synchronized boolean upsert(MapPoint point, Membership membership) {
+		UUID id = point.id();
+		int position = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+		int slot = index[position];
+		MapPoint stored = rounded(point);
+		boolean changed;
+		if (slot == EMPTY) {
+			slot = allocate(id);
+			index[position] = slot;
+			size++;
+			store(slot, stored);
+			for (MapPointSink sink : sinks) {
+				sink.accept(stored, revision[slot]);
+			}
+			changed = true;
+			if (size * 3L > index.length * 2L) {
+				rehash(index.length * 2);
+			}
+		} else if (!stored.equals(point(slot))) {
+			MapPoint previous = point(slot);
+			long previousRevision = revision[slot];
+			store(slot, stored);
+			for (MapPointSink sink : sinks) {
+				sink.remove(previous, previousRevision);
+				sink.accept(stored, revision[slot]);
+			}
+			changed = true;
+		} else {
+			changed = false;
+		}
+		if (membership != null) {
+			membership.mapped.set(slot);
+			if (membership.seen != null) {
+				membership.seen.set(slot);
+			}
+		}
+		return changed;
+	}
+
+	/** Withdraws the point with this id, if there is one; returns whether there was. */
+	public synchronized boolean delete(UUID id) {
+		int position = find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+		if (index[position] == EMPTY) {
+			return false;
+		}
+		int slot = index[position];
+		removeFromIndex(position);
+		release(slot);
+		return true;
+	}
+
+	/** Starts recording which of {@code membership}'s points are upserted again. */
+	public synchronized void beginSweep(Membership membership) {
+		membership.seen = new BitSet();
+	}
+
+	/**
+	 * Withdraws the points {@code membership} mapped that were not upserted through it since
+	 * {@link #beginSweep}; returns how many.
+	 */
+	public synchronized int endSweep(Membership membership) {
+		BitSet stale = (BitSet) membership.mapped.clone();
+		stale.andNot(membership.seen);
+		membership.seen = null;
+		int withdrawn = 0;
+		for (int slot = stale.nextSetBit(0); slot >= 0; slot = stale.nextSetBit(slot + 1)) {
+			removeFromIndex(find(idMsb[slot], idLsb[slot]));
+			release(slot);
+			withdrawn++;
+		}
+		return withdrawn;
+	}
+
+	public synchronized int size() {
+		return size;
+	}
+
+	private MapPoint point(int slot) {
+		return new MapPoint(new UUID(idMsb[slot], idLsb[slot]), lat[slot], lon[slot], epochSecond[slot],
+			PointLayer.values()[layer[slot]], ClassificationLevel.values()[classification[slot]]);
+	}
+
+	private static MapPoint rounded(MapPoint point) {
+		return new MapPoint(point.id(), (float) point.lat(), (float) point.lon(), point.epochSecond(), point.layer(), point.classification());
+	}
+
+	private void store(int slot, MapPoint point) {
+		lat[slot] = (float) point.lat();
+		lon[slot] = (float) point.lon();
+		epochSecond[slot] = point.epochSecond();
+		layer[slot] = (byte) point.layer().ordinal();
+		classification[slot] = (byte) point.classification().getLevel();
+		revision[slot] = ++lastRevision;
+	}
+
+	/** Withdraws the point in {@code slot}, which is already out of the index, and frees the slot. */
+	private void release(int slot) {
+		MapPoint previous = point(slot);
+		for (MapPointSink sink : sinks) {
+			sink.remove(previous, revision[slot]);
+		}
+		for (Membership membership : memberships) {
+			membership.mapped.clear(slot);
+			if (membership.seen != null) {
+				membership.seen.clear(slot);
+			}
+		}
+		size--;
+		if (freeCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+		}
+		freeSlots[freeCount++] = slot;
+	}
+
+	private int allocate(UUID id) {
+		int slot;
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else {
+			if (slotCount == idMsb.length) {
+				grow(Math.max(16, slotCount + (slotCount >> 1)));
+			}
+			slot = slotCount++;
+		}
+		idMsb[slot] = id.getMostSignificantBits();
+		idLsb[slot] = id.getLeastSignificantBits();
+		return slot;
+	}
+
+	private void grow(int capacity) {
+		idMsb = Arrays.copyOf(idMsb, capacity);
+		idLsb = Arrays.copyOf(idLsb, capacity);
+		lat = Arrays.copyOf(lat, capacity);
+		lon = Arrays.copyOf(lon, capacity);
+		epochSecond = Arrays.copyOf(epochSecond, capacity);
+		layer = Arrays.copyOf(layer, capacity);
+		classification = Arrays.copyOf(classification, capacity);
+		revision = Arrays.copyOf(revision, capacity);
+	}
+
+	/** The index position holding this id, or the empty position where it would go. */
+	private int find(long msb, long lsb) {
+		int mask = index.length - 1;
+		for (int position = hash(msb, lsb) & mask; ; position = (position + 1) & mask) {
+			int slot = index[position];
+			if (slot == EMPTY || (idMsb[slot] == msb && idLsb[slot] == lsb)) {
+				return position;
+			}
+		}
+	}
+
+	/** Empties {@code position} and shifts later entries of the probe run back into the gap. */
+	private void removeFromIndex(int position) {
+		int mask = index.length - 1;
+		int gap = position;
+		for (int next = (gap + 1) & mask; index[next] != EMPTY; next = (next + 1) & mask) {
+			int home = hash(idMsb[index[next]], idLsb[index[next]]) & mask;
+			// Move the entry if its home is not cyclically within (gap, next]
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				index[gap] = index[next];
+				gap = next;
+			}
+		}
+		index[gap] = EMPTY;
+	}
+
+	private void rehash(int capacity) {
+		int[] old = index;
+		index = emptyIndex(capacity);
+		for (int slot : old) {
+			if (slot != EMPTY) {
+				index[find(idMsb[slot], idLsb[slot])] = slot;
+			}
+		}
+	}
+
+	private static int[] emptyIndex(int capacity) {
+		int[] index = new int[capacity];
+		Arrays.fill(index, EMPTY);
+		return index;
+	}
+
+	private static int hash(long msb, long lsb) {
+		long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,14 @@
+package com.cop.map.feed;
+
+import com.cop.map.model.MapPoint;
+
+/**
+ * A consumer of the map's points, fed by {@link MapPointRegistry}. Each accepted point carries a
+ * revision that is unique across all points; a later {@link #remove} names the same point and
+ * revision, so a sink that keeps copies can find the one to drop.
+ */
+public interface MapPointSink {
+	void accept(MapPoint point, long revision);
+
+	void remove(MapPoint point, long revision);
+}
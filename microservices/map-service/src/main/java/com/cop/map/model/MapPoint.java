@@ -0,0 +1,8 @@
+package com.cop.map.model;
+
+import com.cop.common.security.ClassificationLevel;
+
+import java.util.UUID;
+
+public record MapPoint(UUID id, double lat, double lon, long epochSecond, PointLayer layer, ClassificationLevel classification) {
+}
@@ -0,0 +1,19 @@
+package com.cop.map.model;
+
+public enum PointLayer {
+	SOCMINT,
+	SIGINT,
+	HUMINT,
+	EVENT,
+	OTHER;
+
+	/** The layer for a report type; types the map has no layer for go to {@link #OTHER}. */
+	public static PointLayer fromReportType(String type) {
+		for (PointLayer layer : values()) {
+			if (layer != EVENT && layer.name().equalsIgnoreCase(type)) {
+				return layer;
+			}
+		}
+		return OTHER;
+	}
+}
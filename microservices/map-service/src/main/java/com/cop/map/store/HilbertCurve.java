@@ -0,0 +1,34 @@
+package com.cop.map.store;
+
+final class HilbertCurve {
+	static final int ORDER = 16;
+	private static final long SIDE = 1L << ORDER;
+
+	private HilbertCurve() {
+	}
+
+	static long index(double lat, double lon) {
+		long x = Math.min(SIDE - 1, (long) ((lon + 180.0) / 360.0 * SIDE));
+		long y = Math.min(SIDE - 1, (long) ((lat + 90.0) / 180.0 * SIDE));
+		return xy2d(Math.max(0, x), Math.max(0, y));
+	}
+
+	private static long xy2d(long x, long y) {
+		long d = 0;
+		for (long s = SIDE / 2; s > 0; s /= 2) {
+			long rx = (x & s) > 0 ? 1 : 0;
+			long ry = (y & s) > 0 ? 1 : 0;
+			d += s * s * ((3 * rx) ^ ry);
+			if (ry == 0) {
+				if (rx == 1) {
+					x = SIDE - 1 - x;
+					y = SIDE - 1 - y;
+				}
+				long t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+}
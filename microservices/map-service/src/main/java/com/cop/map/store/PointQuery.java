@@ -0,0 +1,33 @@
+package com.cop.map.store;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.model.PointLayer;
+
+import java.util.Set;
+
+public final class PointQuery {
+	final float minLat;
+	final float maxLat;
+	final float minLon;
+	final float maxLon;
+	final int fromTime;
+	final int toTime;
+	final int clearance;
+	final int layerMask;
+
+	public PointQuery(double minLat, double minLon, double maxLat, double maxLon,
+	                  long fromEpochSecond, long toEpochSecond, ClassificationLevel clearance, Set<PointLayer> layers) {
+		this.minLat = (float) minLat;
+		this.maxLat = (float) maxLat;
+		this.minLon = (float) minLon;
+		this.maxLon = (float) maxLon;
+		this.fromTime = PointSegment.toStoreTime(fromEpochSecond);
+		this.toTime = PointSegment.toStoreTime(toEpochSecond);
+		this.clearance = clearance.getLevel();
+		int mask = 0;
+		for (PointLayer layer : layers) {
+			mask |= 1 << layer.ordinal();
+		}
+		this.layerMask = mask;
+	}
+}
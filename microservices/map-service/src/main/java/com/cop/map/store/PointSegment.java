@@ -0,0 +1,256 @@
+package com.cop.map.store;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.model.MapPoint;
+import com.cop.map.model.PointLayer;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Immutable column set of points sorted along a Hilbert curve, with per-block min/max zone maps
+ * so a viewport scan skips whole blocks and runs tight primitive loops over the rest. Each row
+ * keeps the revision it was accepted with, which is how a withdrawn row is recognised.
+ */
+final class PointSegment {
+	static final int BLOCK_SIZE = 1024;
+	static final long TIME_BASE = 1_577_836_800L; // 2020-01-01T00:00:00Z, keeps seconds in an int
+	static final PointSegment EMPTY = new Builder(0).build();
+	static final long[] NO_REVISIONS = new long[0];
+
+	final int size;
+	final float[] lat;
+	final float[] lon;
+	final int[] time;
+	final byte[] classification;
+	final byte[] layer;
+	final long[] idMsb;
+	final long[] idLsb;
+	final long[] revision;
+
+	private final float[] blockMinLat;
+	private final float[] blockMaxLat;
+	private final float[] blockMinLon;
+	private final float[] blockMaxLon;
+	private final int[] blockMinTime;
+	private final int[] blockMaxTime;
+	private final byte[] blockMinClassification;
+
+	private PointSegment(int size, float[] lat, float[] lon, int[] time, byte[] classification, byte[] layer,
+	                     long[] idMsb, long[] idLsb, long[] revision) {
+		this.size = size;
+		this.lat = lat;
+		this.lon = lon;
+		this.time = time;
+		this.classification = classification;
+		this.layer = layer;
+		this.idMsb = idMsb;
+		this.idLsb = idLsb;
+		this.revision = revision;
+
+		int blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		blockMinLat = new float[blocks];
+		blockMaxLat = new float[blocks];
+		blockMinLon = new float[blocks];
+		blockMaxLon = new float[blocks];
+		blockMinTime = new int[blocks];
+		blockMaxTime = new int[blocks];
+		blockMinClassification = new byte[blocks];
+		for (int b = 0; b < blocks; b++) {
+			int from = b * BLOCK_SIZE;
+			int to = Math.min(size, from + BLOCK_SIZE);
+			float minLat = Float.MAX_VALUE, maxLat = -Float.MAX_VALUE, minLon = Float.MAX_VALUE, maxLon = -Float.MAX_VALUE;
+			int minTime = Integer.MAX_VALUE, maxTime = Integer.MIN_VALUE;
+			byte minClassification = Byte.MAX_VALUE;
+			for (int i = from; i < to; i++) {
+				minLat = Math.min(minLat, lat[i]);
+				maxLat = Math.max(maxLat, lat[i]);
+				minLon = Math.min(minLon, lon[i]);
+				maxLon = Math.max(maxLon, lon[i]);
+				minTime = Math.min(minTime, time[i]);
+				maxTime = Math.max(maxTime, time[i]);
+				minClassification = (byte) Math.min(minClassification, classification[i]);
+			}
+			blockMinLat[b] = minLat;
+			blockMaxLat[b] = maxLat;
+			blockMinLon[b] = minLon;
+			blockMaxLon[b] = maxLon;
+			blockMinTime[b] = minTime;
+			blockMaxTime[b] = maxTime;
+			blockMinClassification[b] = minClassification;
+		}
+	}
+
+	static int toStoreTime(long epochSecond) {
+		long offset = epochSecond - TIME_BASE;
+		return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, offset));
+	}
+
+	/**
+	 * Writes the indexes of matching points into {@code hits} starting at {@code hitCount} and
+	 * returns the new hit count; stops once {@code hits} is full. Rows whose revision is in
+	 * {@code dead} (sorted) have been withdrawn and never match.
+	 */
+	int scan(PointQuery q, long[] dead, int[] hits, int hitCount) {
+		int blocks = blockMinLat.length;
+		for (int b = 0; b < blocks && hitCount < hits.length; b++) {
+			if (blockMaxLat[b] < q.minLat || blockMinLat[b] > q.maxLat
+				|| blockMaxLon[b] < q.minLon || blockMinLon[b] > q.maxLon
+				|| blockMaxTime[b] < q.fromTime || blockMinTime[b] > q.toTime
+				|| blockMinClassification[b] > q.clearance) {
+				continue;
+			}
+			int to = Math.min(size, (b + 1) * BLOCK_SIZE);
+			for (int i = b * BLOCK_SIZE; i < to; i++) {
+				// Non-short-circuit '&' keeps the loop body branch-free for the JIT's vectoriser
+				boolean match = (lat[i] >= q.minLat) & (lat[i] <= q.maxLat)
+					& (lon[i] >= q.minLon) & (lon[i] <= q.maxLon)
+					& (time[i] >= q.fromTime) & (time[i] <= q.toTime)
+					& (classification[i] <= q.clearance)
+					& (((q.layerMask >>> layer[i]) & 1) != 0);
+				if (match && (dead.length == 0 || Arrays.binarySearch(dead, revision[i]) < 0)) {
+					hits[hitCount++] = i;
+					if (hitCount == hits.length) {
+						break;
+					}
+				}
+			}
+		}
+		return hitCount;
+	}
+
+	MapPoint point(int i) {
+		return new MapPoint(new UUID(idMsb[i], idLsb[i]), lat[i], lon[i], TIME_BASE + time[i],
+			PointLayer.values()[layer[i]], ClassificationLevel.values()[classification[i]]);
+	}
+
+	static final class Builder {
+		private int size;
+		private float[] lat;
+		private float[] lon;
+		private int[] time;
+		private byte[] classification;
+		private byte[] layer;
+		private long[] idMsb;
+		private long[] idLsb;
+		private long[] revision;
+
+		Builder(int capacity) {
+			lat = new float[capacity];
+			lon = new float[capacity];
+			time = new int[capacity];
+			classification = new byte[capacity];
+			layer = new byte[capacity];
+			idMsb = new long[capacity];
+			idLsb = new long[capacity];
+			revision = new long[capacity];
+		}
+
+		int size() {
+			return size;
+		}
+
+		void add(MapPoint point, long pointRevision) {
+			ensureCapacity(size + 1);
+			lat[size] = (float) point.lat();
+			lon[size] = (float) point.lon();
+			time[size] = toStoreTime(point.epochSecond());
+			classification[size] = (byte) point.classification().getLevel();
+			layer[size] = (byte) point.layer().ordinal();
+			idMsb[size] = point.id().getMostSignificantBits();
+			idLsb[size] = point.id().getLeastSignificantBits();
+			revision[size] = pointRevision;
+			size++;
+		}
+
+		void addAll(PointSegment segment) {
+			ensureCapacity(size + segment.size);
+			System.arraycopy(segment.lat, 0, lat, size, segment.size);
+			System.arraycopy(segment.lon, 0, lon, size, segment.size);
+			System.arraycopy(segment.time, 0, time, size, segment.size);
+			System.arraycopy(segment.classification, 0, classification, size, segment.size);
+			System.arraycopy(segment.layer, 0, layer, size, segment.size);
+			System.arraycopy(segment.idMsb, 0, idMsb, size, segment.size);
+			System.arraycopy(segment.idLsb, 0, idLsb, size, segment.size);
+			System.arraycopy(segment.revision, 0, revision, size, segment.size);
+			size += segment.size;
+		}
+
+		/**
+		 * Drops the rows whose revision is in {@code dead} (sorted) and returns the revisions that
+		 * were dropped, sorted.
+		 */
+		long[] removeRevisions(long[] dead) {
+			if (dead.length == 0) {
+				return NO_REVISIONS;
+			}
+			long[] dropped = new long[Math.min(size, dead.length)];
+			int droppedCount = 0;
+			int kept = 0;
+			for (int i = 0; i < size; i++) {
+				if (Arrays.binarySearch(dead, revision[i]) >= 0) {
+					dropped[droppedCount++] = revision[i];
+					continue;
+				}
+				lat[kept] = lat[i];
+				lon[kept] = lon[i];
+				time[kept] = time[i];
+				classification[kept] = classification[i];
+				layer[kept] = layer[i];
+				idMsb[kept] = idMsb[i];
+				idLsb[kept] = idLsb[i];
+				revision[kept] = revision[i];
+				kept++;
+			}
+			size = kept;
+			dropped = Arrays.copyOf(dropped, droppedCount);
+			Arrays.sort(dropped);
+			return dropped;
+		}
+
+		private void ensureCapacity(int required) {
+			if (required <= lat.length) {
+				return;
+			}
+			int capacity = Math.max(required, Math.max(16, lat.length + (lat.length >> 1)));
+			lat = Arrays.copyOf(lat, capacity);
+			lon = Arrays.copyOf(lon, capacity);
+			time = Arrays.copyOf(time, capacity);
+			classification = Arrays.copyOf(classification, capacity);
+			layer = Arrays.copyOf(layer, capacity);
+			idMsb = Arrays.copyOf(idMsb, capacity);
+			idLsb = Arrays.copyOf(idLsb, capacity);
+			revision = Arrays.copyOf(revision, capacity);
+		}
+
+		PointSegment build() {
+			// Sort by (hilbert index << 31 | row) so one primitive sort yields the permutation
+			long[] order = new long[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = (HilbertCurve.index(lat[i], lon[i]) << 31) | i;
+			}
+			Arrays.sort(order);
+
+			float[] sLat = new float[size];
+			float[] sLon = new float[size];
+			int[] sTime = new int[size];
+			byte[] sClassification = new byte[size];
+			byte[] sLayer = new byte[size];
+			long[] sIdMsb = new long[size];
+			long[] sIdLsb = new long[size];
+			long[] sRevision = new long[size];
+			for (int i = 0; i < size; i++) {
+				int row = (int) (order[i] & Integer.MAX_VALUE);
+				sLat[i] = lat[row];
+				sLon[i] = lon[row];
+				sTime[i] = time[row];
+				sClassification[i] = classification[row];
+				sLayer[i] = layer[row];
+				sIdMsb[i] = idMsb[row];
+				sIdLsb[i] = idLsb[row];
+				sRevision[i] = revision[row];
+			}
+			return new PointSegment(size, sLat, sLon, sTime, sClassification, sLayer, sIdMsb, sIdLsb, sRevision);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.cop.map.store;
+
+import com.cop.map.feed.MapPointSink;
+import com.cop.map.model.MapPoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * In-memory columnar copy of every mapped report and event. Readers scan an immutable
+ * (main, delta) pair of Hilbert-ordered segments; writers buffer points and publish a new pair on
+ * flush, folding the delta into main once it outgrows {@code map.store.merge-ratio} of it.
+ * <p>
+ * Segments are never edited in place: a replaced or deleted point stays in its segment with its
+ * revision listed as dead in the snapshot, which scans skip, until the next rebuild of that
+ * segment drops the row. The replacement and the tombstone are published in the same snapshot.
+ */
+@Component
+public class PointStore implements MapPointSink {
+	private static final int MIN_MERGE_SIZE = 65_536;
+
+	private final int mergeRatio;
+	private final Object writeLock = new Object();
+	private PointSegment.Builder pending = new PointSegment.Builder(1024);
+	private List<Long> pendingRemovals = new ArrayList<>();
+	private volatile Snapshot snapshot = new Snapshot(PointSegment.EMPTY, PointSegment.EMPTY, PointSegment.NO_REVISIONS);
+
+	/** {@code dead} holds the sorted revisions of rows in main that have been withdrawn. */
+	private record Snapshot(PointSegment main, PointSegment delta, long[] dead) {
+	}
+
+	public record Result(int count, boolean truncated, List<MapPoint> points) {
+	}
+
+	public PointStore(@Value("${map.store.merge-ratio:16}") int mergeRatio) {
+		this.mergeRatio = mergeRatio;
+	}
+
+	@Override
+	public void accept(MapPoint point, long revision) {
+		synchronized (writeLock) {
+			pending.add(point, revision);
+		}
+	}
+
+	@Override
+	public void remove(MapPoint point, long revision) {
+		synchronized (writeLock) {
+			pendingRemovals.add(revision);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${map.store.flush-interval-ms:1000}")
+	public void flush() {
+		PointSegment.Builder batch;
+		List<Long> removals;
+		synchronized (writeLock) {
+			if (pending.size() == 0 && pendingRemovals.isEmpty()) {
+				return;
+			}
+			batch = pending;
+			removals = pendingRemovals;
+			pending = new PointSegment.Builder(1024);
+			pendingRemovals = new ArrayList<>();
+		}
+		Snapshot current = snapshot;
+		long[] dead = LongStream.concat(Arrays.stream(current.dead()), removals.stream().mapToLong(Long::longValue))
+			.sorted().distinct().toArray();
+		// Withdrawn rows that were still in the batch or the delta go now; the rest are in main
+		batch.addAll(current.delta());
+		long[] dropped = batch.removeRevisions(dead);
+		dead = LongStream.of(dead).filter(revision -> Arrays.binarySearch(dropped, revision) < 0).toArray();
+		PointSegment delta = batch.build();
+		int mergeAt = Math.max(MIN_MERGE_SIZE, current.main().size / mergeRatio);
+		if (delta.size >= mergeAt || dead.length >= mergeAt) {
+			PointSegment.Builder merged = new PointSegment.Builder(current.main().size + delta.size);
+			merged.addAll(current.main());
+			merged.addAll(delta);
+			merged.removeRevisions(dead);
+			snapshot = new Snapshot(merged.build(), PointSegment.EMPTY, PointSegment.NO_REVISIONS);
+		} else {
+			snapshot = new Snapshot(current.main(), delta, dead);
+		}
+	}
+
+	public int size() {
+		Snapshot current = snapshot;
+		return current.main().size - current.dead().length + current.delta().size;
+	}
+
+	public Result query(PointQuery query, int limit) {
+		Snapshot current = snapshot;
+		// One slot past the limit tells us whether the result was truncated
+		int[] hits = new int[limit + 1];
+		int mainHits = current.main().scan(query, current.dead(), hits, 0);
+		int totalHits = current.delta().scan(query, PointSegment.NO_REVISIONS, hits, mainHits);
+
+		int returned = Math.min(totalHits, limit);
+		List<MapPoint> points = new ArrayList<>(returned);
+		for (int i = 0; i < returned; i++) {
+			points.add(i < mainHits ? current.main().point(hits[i]) : current.delta().point(hits[i]));
+		}
+		return new Result(returned, totalHits > limit, points);
+	}
+}
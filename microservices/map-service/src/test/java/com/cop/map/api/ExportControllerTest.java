@@ -0,0 +1,80 @@
+package com.cop.map.api;
+
+import com.cop.common.export.ExportFormat;
+import com.cop.common.export.ExportQuery;
+import com.cop.common.export.JdbcStreamingExporter;
+import com.cop.map.model.PointLayer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+
+class ExportControllerTest {
+	private final JdbcStreamingExporter exporter = mock(JdbcStreamingExporter.class);
+	private final ExportController controller = new ExportController(exporter);
+
+	@Test
+	void everyLayerIsFilteredToTheCallersClearance() throws Exception {
+		ExportQuery query = export(jwt("CONFIDENTIAL"), null);
+
+		assertThat(query.sql()).contains("FROM reports").contains("FROM events");
+		List<String[]> labelArgs = labelArgs(query);
+		assertThat(labelArgs).hasSize(2);
+		for (String[] labels : labelArgs) {
+			assertThat(labels).contains("UNCLASSIFIED", "CONFIDENTIAL").doesNotContain("SECRET", "TOP_SECRET");
+		}
+	}
+
+	@Test
+	void missingOrUnknownClearanceReadsOnlyUnclassified() throws Exception {
+		for (Jwt jwt : new Jwt[]{null, jwt(null), jwt("COSMIC")}) {
+			for (String[] labels : labelArgs(export(jwt, List.of(PointLayer.EVENT)))) {
+				assertThat(labels).contains("UNCLASSIFIED").doesNotContain("CONFIDENTIAL", "SECRET", "TOP_SECRET");
+			}
+		}
+	}
+
+	@Test
+	void unknownFormatIsRejectedBeforeQuerying() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.export(jwt("SECRET"), "xlsx", -90, -180, 90, 180, null, null, null, response);
+
+		assertThat(response.getStatus()).isEqualTo(400);
+		verify(exporter, never()).export(any(), any(), any());
+	}
+
+	private ExportQuery export(Jwt jwt, List<PointLayer> types) throws Exception {
+		controller.export(jwt, "csv", -90, -180, 90, 180, null, null, types, new MockHttpServletResponse());
+		ArgumentCaptor<ExportQuery> query = ArgumentCaptor.forClass(ExportQuery.class);
+		verify(exporter).export(query.capture(), eq(ExportFormat.CSV), any());
+		reset(exporter);
+		return query.getValue();
+	}
+
+	/** The label arrays are the clearance filters; the layer filter is the other array argument. */
+	private static List<String[]> labelArgs(ExportQuery query) {
+		return query.args().stream()
+			.filter(String[].class::isInstance)
+			.map(String[].class::cast)
+			.filter(values -> List.of(values).contains("UNCLASSIFIED"))
+			.toList();
+	}
+
+	private static Jwt jwt(String clearance) {
+		Jwt.Builder jwt = Jwt.withTokenValue("token").header("alg", "none").subject("analyst");
+		if (clearance != null) {
+			jwt.claim("clearance_level", clearance);
+		}
+		return jwt.build();
+	}
+}
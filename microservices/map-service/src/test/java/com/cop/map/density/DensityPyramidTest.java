@@ -0,0 +1,68 @@
+package com.cop.map.density;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.model.MapPoint;
+import com.cop.map.model.PointLayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DensityPyramidTest {
+	private static final long TIME = 1_700_000_000L;
+
+	private final DensityPyramid pyramid = new DensityPyramid(5, 4096);
+
+	@Test
+	void countsOnlyWhatTheReaderIsClearedFor() {
+		pyramid.accept(point(ClassificationLevel.UNCLASSIFIED, PointLayer.HUMINT), 1);
+		pyramid.accept(point(ClassificationLevel.SECRET, PointLayer.HUMINT), 2);
+		pyramid.accept(point(ClassificationLevel.TOP_SECRET, PointLayer.SIGINT), 3);
+
+		assertThat(total(ClassificationLevel.UNCLASSIFIED)).isEqualTo(1);
+		assertThat(total(ClassificationLevel.SECRET)).isEqualTo(2);
+		assertThat(total(ClassificationLevel.TOP_SECRET)).isEqualTo(3);
+	}
+
+	@Test
+	void cellWithOnlyUnreadablePointsIsNotReturned() {
+		pyramid.accept(point(ClassificationLevel.TOP_SECRET, PointLayer.HUMINT), 1);
+
+		assertThat(query(ClassificationLevel.CONFIDENTIAL)).isEmpty();
+	}
+
+	@Test
+	void withdrawnPointIsNoLongerCounted() {
+		MapPoint point = point(ClassificationLevel.UNCLASSIFIED, PointLayer.HUMINT);
+		pyramid.accept(point, 1);
+		pyramid.remove(point, 1);
+
+		assertThat(query(ClassificationLevel.TOP_SECRET)).isEmpty();
+	}
+
+	@Test
+	void windowSpanningDaysAddsHourAndDayBuckets() {
+		for (int hour = 0; hour < 72; hour++) {
+			pyramid.accept(new MapPoint(UUID.randomUUID(), 10, 10, TIME + hour * 3600L, PointLayer.HUMINT, ClassificationLevel.UNCLASSIFIED), hour);
+		}
+		List<DensityCell> cells = pyramid.query(9, 9, 11, 11, TIME, TIME + 71 * 3600L,
+			EnumSet.allOf(PointLayer.class), ClassificationLevel.UNCLASSIFIED, 3);
+
+		assertThat(cells).singleElement().extracting(DensityCell::total).isEqualTo(72L);
+	}
+
+	private long total(ClassificationLevel clearance) {
+		return query(clearance).stream().mapToLong(DensityCell::total).sum();
+	}
+
+	private List<DensityCell> query(ClassificationLevel clearance) {
+		return pyramid.query(9, 9, 11, 11, TIME - 3600, TIME + 3600, EnumSet.allOf(PointLayer.class), clearance, 3);
+	}
+
+	private static MapPoint point(ClassificationLevel classification, PointLayer layer) {
+		return new MapPoint(UUID.randomUUID(), 10, 10, TIME, layer, classification);
+	}
+}
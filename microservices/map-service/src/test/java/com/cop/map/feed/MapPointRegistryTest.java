@@ -0,0 +1,130 @@
+package com.cop.map.feed;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.model.MapPoint;
+import com.cop.map.model.PointLayer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MapPointRegistryTest {
+	private static final long TIME = 1_700_000_000L;
+
+	private final RecordingSink sink = new RecordingSink();
+	private final MapPointRegistry registry = new MapPointRegistry(List.of(sink));
+
+	@Test
+	void matchesAMapThroughGrowthDeletesAndSlotReuse() {
+		Random random = new Random(11);
+		List<UUID> ids = new ArrayList<>();
+		for (int i = 0; i < 5_000; i++) {
+			ids.add(new UUID(random.nextLong(), random.nextLong()));
+		}
+		Map<UUID, MapPoint> expected = new HashMap<>();
+		for (int step = 0; step < 100_000; step++) {
+			UUID id = ids.get(random.nextInt(ids.size()));
+			if (random.nextInt(3) == 0) {
+				assertThat(registry.delete(id)).isEqualTo(expected.remove(id) != null);
+			} else {
+				MapPoint point = point(id, random.nextInt(4), ClassificationLevel.values()[random.nextInt(4)]);
+				MapPoint previous = expected.put(id, point);
+				assertThat(registry.upsert(point)).isEqualTo(!point.equals(previous));
+			}
+		}
+
+		assertThat(registry.size()).isEqualTo(expected.size());
+		assertThat(sink.live).isEqualTo(expected);
+	}
+
+	@Test
+	void sinksSeeTheSamePointOnAcceptAndRemove() {
+		UUID id = UUID.randomUUID();
+		registry.upsert(new MapPoint(id, 10.123456789, 20.987654321, TIME, PointLayer.HUMINT, ClassificationLevel.SECRET));
+		registry.delete(id);
+
+		assertThat(sink.accepted).hasSize(1);
+		assertThat(sink.removed).containsExactlyElementsOf(sink.accepted);
+		assertThat(sink.accepted.get(0).lat()).isEqualTo((float) 10.123456789);
+	}
+
+	@Test
+	void revisionsAreNeverReused() {
+		UUID id = UUID.randomUUID();
+		registry.upsert(point(id, 0, ClassificationLevel.UNCLASSIFIED));
+		registry.upsert(point(id, 1, ClassificationLevel.UNCLASSIFIED));
+		registry.delete(id);
+		registry.upsert(point(UUID.randomUUID(), 0, ClassificationLevel.UNCLASSIFIED));
+
+		assertThat(sink.revisions).doesNotHaveDuplicates().hasSize(3);
+	}
+
+	@Test
+	void sweepWithdrawsOnlyWhatTheFeedMappedAndDidNotSeeAgain() {
+		MapPointRegistry.Membership feed = registry.newMembership();
+		UUID kept = UUID.randomUUID();
+		UUID gone = UUID.randomUUID();
+		UUID fromEvents = UUID.randomUUID();
+		registry.upsert(point(kept, 0, ClassificationLevel.UNCLASSIFIED), feed);
+		registry.upsert(point(gone, 0, ClassificationLevel.UNCLASSIFIED), feed);
+		registry.upsert(point(fromEvents, 0, ClassificationLevel.UNCLASSIFIED));
+
+		registry.beginSweep(feed);
+		registry.upsert(point(kept, 0, ClassificationLevel.UNCLASSIFIED), feed);
+
+		assertThat(registry.endSweep(feed)).isEqualTo(1);
+		assertThat(sink.live.keySet()).containsExactlyInAnyOrder(kept, fromEvents);
+	}
+
+	@Test
+	void reusedSlotDoesNotInheritMembership() {
+		MapPointRegistry.Membership feed = registry.newMembership();
+		UUID deleted = UUID.randomUUID();
+		registry.upsert(point(deleted, 0, ClassificationLevel.UNCLASSIFIED), feed);
+		registry.beginSweep(feed);
+		registry.upsert(point(deleted, 0, ClassificationLevel.UNCLASSIFIED), feed);
+		// Deleted by a change event mid-sweep; its slot goes to a point the feed never read
+		registry.delete(deleted);
+		UUID other = UUID.randomUUID();
+		registry.upsert(point(other, 0, ClassificationLevel.UNCLASSIFIED));
+
+		assertThat(registry.endSweep(feed)).isZero();
+		registry.beginSweep(feed);
+		assertThat(registry.endSweep(feed)).isZero();
+		assertThat(sink.live.keySet()).containsExactly(other);
+	}
+
+	private static MapPoint point(UUID id, int variant, ClassificationLevel classification) {
+		return new MapPoint(id, 10 + variant, 20, TIME + variant, PointLayer.values()[variant % PointLayer.values().length], classification);
+	}
+
+	private static final class RecordingSink implements MapPointSink {
+		final Map<UUID, MapPoint> live = new HashMap<>();
+		final Map<UUID, Long> liveRevision = new HashMap<>();
+		final List<MapPoint> accepted = new ArrayList<>();
+		final List<MapPoint> removed = new ArrayList<>();
+		final List<Long> revisions = new ArrayList<>();
+
+		@Override
+		public void accept(MapPoint point, long revision) {
+			assertThat(live).doesNotContainKey(point.id());
+			live.put(point.id(), point);
+			liveRevision.put(point.id(), revision);
+			accepted.add(point);
+			revisions.add(revision);
+		}
+
+		@Override
+		public void remove(MapPoint point, long revision) {
+			assertThat(live.remove(point.id())).isEqualTo(point);
+			assertThat(liveRevision.remove(point.id())).isEqualTo(revision);
+			removed.add(point);
+		}
+	}
+}
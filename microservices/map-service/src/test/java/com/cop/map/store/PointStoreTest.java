@@ -0,0 +1,130 @@
+package com.cop.map.store;
+
+import com.cop.common.security.ClassificationLevel;
+import com.cop.map.density.DensityPyramid;
+import com.cop.map.feed.MapPointRegistry;
+import com.cop.map.model.MapPoint;
+import com.cop.map.model.PointLayer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PointStoreTest {
+	private static final long TIME = 1_700_000_000L;
+
+	private PointStore store;
+	private DensityPyramid pyramid;
+	private MapPointRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		store = new PointStore(16);
+		pyramid = new DensityPyramid(5, 4096);
+		registry = new MapPointRegistry(List.of(store, pyramid));
+	}
+
+	@Test
+	void movedPointIsOnlyFoundAtItsNewLocation() {
+		UUID id = UUID.randomUUID();
+		registry.upsert(point(id, 10, 10, ClassificationLevel.UNCLASSIFIED));
+		store.flush();
+		registry.upsert(point(id, 20, 20, ClassificationLevel.UNCLASSIFIED));
+		store.flush();
+
+		assertThat(query(9, 9, 11, 11, ClassificationLevel.TOP_SECRET).points()).isEmpty();
+		assertThat(query(19, 19, 21, 21, ClassificationLevel.TOP_SECRET).points())
+			.extracting(MapPoint::id).containsExactly(id);
+		assertThat(store.size()).isEqualTo(1);
+	}
+
+	@Test
+	void deletedPointDisappearsFromMainAndDelta() {
+		UUID inMain = UUID.randomUUID();
+		UUID inDelta = UUID.randomUUID();
+		UUID pending = UUID.randomUUID();
+		registry.upsert(point(inMain, 10, 10, ClassificationLevel.UNCLASSIFIED));
+		fillToMerge();
+		store.flush();
+		registry.upsert(point(inDelta, 10, 10, ClassificationLevel.UNCLASSIFIED));
+		store.flush();
+		registry.upsert(point(pending, 10, 10, ClassificationLevel.UNCLASSIFIED));
+
+		registry.delete(inMain);
+		registry.delete(inDelta);
+		registry.delete(pending);
+		store.flush();
+
+		assertThat(query(9, 9, 11, 11, ClassificationLevel.TOP_SECRET).points()).isEmpty();
+	}
+
+	@Test
+	void withdrawnRowsAreDroppedOnMerge() {
+		UUID id = UUID.randomUUID();
+		registry.upsert(point(id, 10, 10, ClassificationLevel.UNCLASSIFIED));
+		fillToMerge();
+		store.flush();
+		assertThat(store.size()).isEqualTo(65_537);
+
+		registry.delete(id);
+		store.flush();
+		assertThat(store.size()).isEqualTo(65_536);
+
+		fillToMerge();
+		store.flush();
+		assertThat(store.size()).isEqualTo(2 * 65_536);
+		assertThat(query(9, 9, 11, 11, ClassificationLevel.TOP_SECRET).points()).isEmpty();
+	}
+
+	@Test
+	void unchangedUpsertIsIgnored() {
+		MapPoint point = point(UUID.randomUUID(), 10, 10, ClassificationLevel.SECRET);
+		assertThat(registry.upsert(point)).isTrue();
+		assertThat(registry.upsert(point)).isFalse();
+		store.flush();
+		assertThat(store.size()).isEqualTo(1);
+	}
+
+	@Test
+	void queryRespectsClearance() {
+		registry.upsert(point(UUID.randomUUID(), 10, 10, ClassificationLevel.UNCLASSIFIED));
+		registry.upsert(point(UUID.randomUUID(), 10, 10, ClassificationLevel.SECRET));
+		store.flush();
+
+		assertThat(query(9, 9, 11, 11, ClassificationLevel.CONFIDENTIAL).points())
+			.extracting(MapPoint::classification).containsExactly(ClassificationLevel.UNCLASSIFIED);
+		assertThat(query(9, 9, 11, 11, ClassificationLevel.SECRET).points()).hasSize(2);
+	}
+
+	@Test
+	void truncationIsReportedOnlyPastTheLimit() {
+		for (int i = 0; i < 3; i++) {
+			registry.upsert(point(UUID.randomUUID(), 10, 10, ClassificationLevel.UNCLASSIFIED));
+		}
+		store.flush();
+		PointQuery query = new PointQuery(9, 9, 11, 11, TIME - 10, TIME + 10, ClassificationLevel.TOP_SECRET,
+			EnumSet.allOf(PointLayer.class));
+
+		assertThat(store.query(query, 3).truncated()).isFalse();
+		assertThat(store.query(query, 2).truncated()).isTrue();
+	}
+
+	private void fillToMerge() {
+		for (int i = 0; i < 65_536; i++) {
+			registry.upsert(point(UUID.randomUUID(), -40 + (i % 1000) * 0.01, -40, ClassificationLevel.UNCLASSIFIED));
+		}
+	}
+
+	private PointStore.Result query(double minLat, double minLon, double maxLat, double maxLon, ClassificationLevel clearance) {
+		return store.query(new PointQuery(minLat, minLon, maxLat, maxLon, TIME - 10, TIME + 10, clearance,
+			EnumSet.allOf(PointLayer.class)), 100);
+	}
+
+	private static MapPoint point(UUID id, double lat, double lon, ClassificationLevel classification) {
+		return new MapPoint(id, lat, lon, TIME, PointLayer.HUMINT, classification);
+	}
+}
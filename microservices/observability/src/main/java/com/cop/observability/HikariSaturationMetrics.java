@@ -0,0 +1,60 @@
+package com.cop.observability;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Pool saturation as a single ratio per Hikari pool: active connections over the maximum pool
+ * size. Boot already publishes the raw {@code hikaricp.connections.*} gauges; this one is what
+ * the dashboard alerts on, because a pool pinned at 1.0 with pending threads means requests are
+ * queueing for a connection rather than for PostGIS.
+ */
+class HikariSaturationMetrics implements MeterBinder {
+	static final String METRIC = "cop.db.pool.saturation";
+
+	private final Map<String, DataSource> dataSources;
+
+	HikariSaturationMetrics(Map<String, DataSource> dataSources) {
+		this.dataSources = dataSources;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		dataSources.forEach((beanName, dataSource) -> {
+			HikariDataSource hikari = unwrap(dataSource);
+			if (hikari == null) {
+				return;
+			}
+			String pool = hikari.getPoolName() != null ? hikari.getPoolName() : beanName;
+			Gauge.builder(METRIC, hikari, HikariSaturationMetrics::saturation)
+				.description("Active connections as a fraction of the maximum pool size")
+				.tag("pool", pool)
+				.register(registry);
+		});
+	}
+
+	private static double saturation(HikariDataSource hikari) {
+		// The MXBean only exists once the pool has started
+		HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+		int max = hikari.getMaximumPoolSize();
+		return pool == null || max <= 0 ? Double.NaN : (double) pool.getActiveConnections() / max;
+	}
+
+	private static HikariDataSource unwrap(DataSource dataSource) {
+		if (dataSource instanceof HikariDataSource hikari) {
+			return hikari;
+		}
+		try {
+			return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+		} catch (SQLException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.cop.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.metrics.data.RepositoryMetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Platform instrumentation on top of what Boot already records. Each piece only switches on when
+ * the service has the library it instruments.
+ */
+@AutoConfiguration(before = RepositoryMetricsAutoConfiguration.class, after = DataSourceAutoConfiguration.class)
+@ConditionalOnProperty(prefix = "cop.observability", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ObservabilityAutoConfiguration {
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(name = "org.springframework.data.repository.Repository")
+	static class RepositoryConfiguration {
+		@Bean
+		@ConditionalOnMissingBean(RepositoryTagsProvider.class)
+		QueryTypeRepositoryTagsProvider queryTypeRepositoryTagsProvider() {
+			return new QueryTypeRepositoryTagsProvider();
+		}
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(name = "com.zaxxer.hikari.HikariDataSource")
+	@ConditionalOnBean(DataSource.class)
+	static class HikariConfiguration {
+		@Bean
+		HikariSaturationMetrics hikariSaturationMetrics(Map<String, DataSource> dataSources) {
+			return new HikariSaturationMetrics(dataSources);
+		}
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(name = "org.springframework.security.oauth2.jwt.JwtDecoder")
+	static class JwtConfiguration {
+		@Bean
+		static TimedJwtDecoderPostProcessor timedJwtDecoderPostProcessor(ObjectProvider<MeterRegistry> registry) {
+			return new TimedJwtDecoderPostProcessor(registry);
+		}
+	}
+
+	/**
+	 * Lets Prometheus and health probes through without a token. This is a customizer rather than
+	 * a filter chain so services relying on Boot's default resource server chain keep it.
+	 */
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	@ConditionalOnClass(name = "org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer")
+	static class ServletSecurityConfiguration {
+		@Bean
+		WebSecurityCustomizer observabilityEndpointsWebSecurityCustomizer() {
+			return web -> web.ignoring().requestMatchers(
+				EndpointRequest.to(HealthEndpoint.class, InfoEndpoint.class, PrometheusScrapeEndpoint.class));
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.cop.observability;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adds the platform's management defaults with the lowest precedence, so every service exposes
+ * the same endpoints, histograms and trace propagation while its own configuration still wins.
+ */
+public class ObservabilityEnvironmentPostProcessor implements EnvironmentPostProcessor {
+	static final String PROPERTY_SOURCE = "copObservabilityDefaults";
+
+	// Timers whose latency distribution the dashboards query
+	private static final String[] HISTOGRAMS = {
+		"http.server.requests",
+		"http.client.requests",
+		"spring.cloud.gateway.requests",
+		"spring.data.repository.invocations",
+		"hikaricp.connections.acquire",
+		MinioMetrics.METRIC,
+		TimedJwtDecoderPostProcessor.METRIC
+	};
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		Map<String, Object> defaults = new LinkedHashMap<>();
+		defaults.put("management.endpoints.web.exposure.include", "health,info,prometheus");
+		defaults.put("management.endpoint.health.probes.enabled", true);
+		defaults.put("management.metrics.tags.application", "${spring.application.name:unknown}");
+		for (String histogram : HISTOGRAMS) {
+			defaults.put("management.metrics.distribution.percentiles-histogram." + histogram, true);
+		}
+		defaults.put("management.tracing.propagation.type", "w3c");
+		defaults.put("management.tracing.sampling.probability", "${TRACING_SAMPLING_PROBABILITY:0.1}");
+		environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE, defaults));
+	}
+}
@@ -0,0 +1,86 @@
+package com.cop.observability;
+
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Coarse shape of a repository method, recorded as the {@code query.type} tag so spatial scans,
+ * keyset pages and counts can be told apart on the dashboard without a tag per method.
+ */
+enum QueryType {
+	SPATIAL, KEYSET, COUNT, STREAM, PAGE, WRITE, LOOKUP;
+
+	private static final Pattern SPATIAL_NAME = Pattern.compile("Within|Radius|Distance|Intersect|BoundingBox|Near");
+	private static final Pattern SPATIAL_SQL = Pattern.compile("\\bST_[A-Za-z]+\\s*\\(", Pattern.CASE_INSENSITIVE);
+	private static final Pattern KEYSET_NAME = Pattern.compile("Keyset|After(Id|Cursor)|Before(Id|Cursor)");
+
+	final String tag = name().toLowerCase(Locale.ROOT);
+
+	static QueryType of(Method method) {
+		String name = method.getName();
+		String query = queryText(method);
+		if (SPATIAL_NAME.matcher(name).find() || (query != null && SPATIAL_SQL.matcher(query).find())) {
+			return SPATIAL;
+		}
+		if (hasParameter(method, "org.springframework.data.domain.ScrollPosition")
+				|| method.getReturnType().getName().equals("org.springframework.data.domain.Window")
+				|| KEYSET_NAME.matcher(name).find()) {
+			return KEYSET;
+		}
+		if (name.startsWith("count") || name.startsWith("exists")) {
+			return COUNT;
+		}
+		if (Stream.class.isAssignableFrom(method.getReturnType()) || name.startsWith("stream")) {
+			return STREAM;
+		}
+		if (hasParameter(method, "org.springframework.data.domain.Pageable")) {
+			return PAGE;
+		}
+		if (hasAnnotation(method, "Modifying") || name.startsWith("save") || name.startsWith("delete")
+				|| name.startsWith("update") || name.startsWith("insert")) {
+			return WRITE;
+		}
+		return LOOKUP;
+	}
+
+	// Matched by name so the module does not need a compile dependency on a particular store
+	private static String queryText(Method method) {
+		for (Annotation annotation : method.getAnnotations()) {
+			if (annotation.annotationType().getSimpleName().equals("Query")) {
+				Object value = AnnotationUtils.getValue(annotation);
+				return value instanceof String text ? text : null;
+			}
+		}
+		return null;
+	}
+
+	private static boolean hasAnnotation(Method method, String simpleName) {
+		for (Annotation annotation : method.getAnnotations()) {
+			if (annotation.annotationType().getSimpleName().equals(simpleName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasParameter(Method method, String typeName) {
+		for (Class<?> type : method.getParameterTypes()) {
+			for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+				if (c.getName().equals(typeName)) {
+					return true;
+				}
+				for (Class<?> i : c.getInterfaces()) {
+					if (i.getName().equals(typeName)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+}
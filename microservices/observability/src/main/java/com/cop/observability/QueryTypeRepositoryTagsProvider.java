@@ -0,0 +1,24 @@
+package com.cop.observability;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The default repository invocation tags plus {@code query.type}. Classification is reflective,
+ * so it is done once per method.
+ */
+class QueryTypeRepositoryTagsProvider extends DefaultRepositoryTagsProvider {
+	private final ConcurrentMap<Method, Tag> queryTypes = new ConcurrentHashMap<>();
+
+	@Override
+	public Iterable<Tag> repositoryTags(RepositoryMethodInvocation invocation) {
+		Tag queryType = queryTypes.computeIfAbsent(invocation.getMethod(), m -> Tag.of("query.type", QueryType.of(m).tag));
+		return Tags.of(super.repositoryTags(invocation)).and(queryType);
+	}
+}
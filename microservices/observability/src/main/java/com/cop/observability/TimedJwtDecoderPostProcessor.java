@@ -0,0 +1,73 @@
+package com.cop.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Times bearer token decoding as {@value #METRIC}. Decoding includes the JWKS fetch from
+ * Keycloak when the key set is cold or rotated, so this is where an identity provider slowdown
+ * shows up separately from the request it delays.
+ */
+class TimedJwtDecoderPostProcessor implements BeanPostProcessor {
+	static final String METRIC = "cop.security.jwt.decode";
+
+	private static final boolean REACTIVE = ClassUtils.isPresent("reactor.core.publisher.Mono",
+		TimedJwtDecoderPostProcessor.class.getClassLoader());
+
+	private final ObjectProvider<MeterRegistry> registry;
+	private volatile Timer success;
+	private volatile Timer error;
+
+	TimedJwtDecoderPostProcessor(ObjectProvider<MeterRegistry> registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof JwtDecoder decoder) {
+			return (JwtDecoder) token -> {
+				Timer.Sample sample = Timer.start(registry.getObject());
+				boolean decoded = false;
+				try {
+					Jwt jwt = decoder.decode(token);
+					decoded = true;
+					return jwt;
+				} finally {
+					sample.stop(timer(decoded));
+				}
+			};
+		}
+		if (REACTIVE && bean instanceof ReactiveJwtDecoder decoder) {
+			return (ReactiveJwtDecoder) token -> reactor.core.publisher.Mono.defer(() -> {
+				Timer.Sample sample = Timer.start(registry.getObject());
+				return decoder.decode(token)
+					.doOnSuccess(jwt -> sample.stop(timer(true)))
+					.doOnError(e -> sample.stop(timer(false)));
+			});
+		}
+		return bean;
+	}
+
+	private Timer timer(boolean decoded) {
+		// Resolved on first use: the registry may not exist yet when the decoder bean is wrapped
+		if (decoded) {
+			Timer timer = success;
+			return timer != null ? timer : (success = register("success"));
+		}
+		Timer timer = error;
+		return timer != null ? timer : (error = register("error"));
+	}
+
+	private Timer register(String outcome) {
+		return Timer.builder(METRIC)
+			.description("Bearer token decoding and validation, including JWKS retrieval")
+			.tag("outcome", outcome)
+			.register(registry.getObject());
+	}
+}
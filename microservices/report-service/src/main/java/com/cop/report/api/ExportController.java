@@ -0,0 +1,121 @@
+package com.cop.report.api;
+
+import com.cop.common.export.ExportColumn;
+import com.cop.common.export.ExportFormat;
+import com.cop.common.export.ExportQuery;
+import com.cop.common.export.JdbcStreamingExporter;
+import com.cop.common.security.ClassificationLevel;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk report export. Rows are streamed from a database cursor into the response as they are
+ * read, so the size of the export is bounded by the client, not the heap.
+ */
+@RestController
+@RequestMapping("/api/reports")
+public class ExportController {
+	private static final List<ExportColumn> COLUMNS = List.of(
+		ExportColumn.string("id"),
+		ExportColumn.string("type"),
+		ExportColumn.string("title"),
+		ExportColumn.string("classification"),
+		ExportColumn.string("status"),
+		ExportColumn.string("reliability"),
+		ExportColumn.string("credibility"),
+		ExportColumn.string("submitted_by"),
+		ExportColumn.timestamp("submitted_at"),
+		ExportColumn.timestamp("collection_time"),
+		ExportColumn.float64("lat"),
+		ExportColumn.float64("lon"),
+		ExportColumn.json("content"));
+	private static final String SELECT = "SELECT id, type, title, classification, status, reliability, credibility, " +
+		"submitted_by, submitted_at, collection_time, ST_Y(location) AS lat, ST_X(location) AS lon, content::text " +
+		"FROM reports WHERE COALESCE(classification, 'UNCLASSIFIED') = ANY(?)";
+	private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+	private final JdbcStreamingExporter exporter;
+
+	public ExportController(JdbcStreamingExporter exporter) {
+		this.exporter = exporter;
+	}
+
+	@GetMapping("/export")
+	@PreAuthorize("hasAnyRole('HQ','ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT')")
+	public void export(@AuthenticationPrincipal Jwt jwt,
+	                   @RequestParam(value = "format", defaultValue = "csv") String format,
+	                   @RequestParam(value = "types", required = false) List<String> types,
+	                   @RequestParam(value = "status", required = false) String status,
+	                   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+	                   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+	                   @RequestParam(value = "minLat", required = false) Double minLat,
+	                   @RequestParam(value = "minLon", required = false) Double minLon,
+	                   @RequestParam(value = "maxLat", required = false) Double maxLat,
+	                   @RequestParam(value = "maxLon", required = false) Double maxLon,
+	                   HttpServletResponse response) throws IOException {
+		ExportFormat exportFormat;
+		try {
+			exportFormat = ExportFormat.of(format);
+		} catch (IllegalArgumentException e) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+			return;
+		}
+		if (!exportFormat.available()) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Export format not available: " + format);
+			return;
+		}
+		boolean bbox = minLat != null && minLon != null && maxLat != null && maxLon != null;
+		if (bbox && (minLat > maxLat || minLon > maxLon)) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Bounding box minimums must not exceed maximums");
+			return;
+		}
+
+		ClassificationLevel clearance = ClassificationLevel.ofClearance(jwt != null ? jwt.getClaimAsString("clearance_level") : null);
+		StringBuilder sql = new StringBuilder(SELECT);
+		List<Object> args = new ArrayList<>();
+		args.add(clearance.readableLabels());
+		if (types != null && !types.isEmpty()) {
+			sql.append(" AND type = ANY(?)");
+			args.add(types.stream().map(String::toUpperCase).toArray(String[]::new));
+		}
+		if (status != null) {
+			sql.append(" AND status = ?");
+			args.add(status.toUpperCase());
+		}
+		if (from != null) {
+			sql.append(" AND submitted_at >= ?");
+			args.add(from);
+		}
+		if (to != null) {
+			sql.append(" AND submitted_at < ?");
+			args.add(to);
+		}
+		if (bbox) {
+			sql.append(" AND location && ST_MakeEnvelope(?, ?, ?, ?, 4326)");
+			args.add(minLon);
+			args.add(minLat);
+			args.add(maxLon);
+			args.add(maxLat);
+		}
+		sql.append(" ORDER BY submitted_at, id");
+
+		String filename = "reports-" + FILE_STAMP.format(OffsetDateTime.now(ZoneOffset.UTC)) + "." + exportFormat.extension();
+		response.setContentType(exportFormat.contentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString());
+		exporter.export(new ExportQuery(sql.toString(), args, COLUMNS), exportFormat, response.getOutputStream());
+	}
+}
@@ -1,5 +1,6 @@
 package com.cop.report.api;
 
+import com.cop.schema.ReportSubmission;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -13,7 +14,7 @@ public class ReportController {
 
 	@PostMapping
 	@PreAuthorize("hasAnyRole('ANALYST_SOCMINT','ANALYST_SIGINT','ANALYST_HUMINT','HQ')")
-	public ResponseEntity<?> createReport(@RequestBody Map<String, Object> payload) {
+	public ResponseEntity<ReportSubmission> createReport(@RequestBody ReportSubmission payload) {
 		// TODO: persist via JPA
 		return ResponseEntity.ok(payload);
 	}
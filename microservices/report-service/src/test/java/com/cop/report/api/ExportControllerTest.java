@@ -0,0 +1,52 @@
+package com.cop.report.api;
+
+import com.cop.common.export.ExportFormat;
+import com.cop.common.export.ExportQuery;
+import com.cop.common.export.JdbcStreamingExporter;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ExportControllerTest {
+	@Test
+	void rowsAreFilteredToTheCallersClearance() throws Exception {
+		ExportQuery query = export(jwt("SECRET"), List.of("humint"));
+
+		assertThat(query.sql()).startsWith("SELECT").contains("COALESCE(classification, 'UNCLASSIFIED') = ANY(?)");
+		assertThat((String[]) query.args().get(0)).contains("UNCLASSIFIED", "CONFIDENTIAL", "SECRET").doesNotContain("TOP_SECRET");
+		assertThat((String[]) query.args().get(1)).containsExactly("HUMINT");
+	}
+
+	@Test
+	void missingOrUnknownClearanceReadsOnlyUnclassified() throws Exception {
+		for (Jwt jwt : new Jwt[]{null, jwt(null), jwt("COSMIC")}) {
+			assertThat((String[]) export(jwt, null).args().get(0))
+				.contains("UNCLASSIFIED").doesNotContain("CONFIDENTIAL", "SECRET", "TOP_SECRET");
+		}
+	}
+
+	private ExportQuery export(Jwt jwt, List<String> types) throws Exception {
+		JdbcStreamingExporter exporter = mock(JdbcStreamingExporter.class);
+		new ExportController(exporter).export(jwt, "csv", types, null, null, null, null, null, null, null, new MockHttpServletResponse());
+		ArgumentCaptor<ExportQuery> query = ArgumentCaptor.forClass(ExportQuery.class);
+		verify(exporter).export(query.capture(), eq(ExportFormat.CSV), any());
+		return query.getValue();
+	}
+
+	private static Jwt jwt(String clearance) {
+		Jwt.Builder jwt = Jwt.withTokenValue("token").header("alg", "none").subject("analyst");
+		if (clearance != null) {
+			jwt.claim("clearance_level", clearance);
+		}
+		return jwt.build();
+	}
+}
@@ -0,0 +1,98 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.ProtoReader;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.WireCodec;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How an event's confidence score was reached: the prior, the total log-odds evidence, and the
+ * evidence of each source and of each group of dependent sources.
+ */
+public record ConfidenceBreakdown(double prior, double evidence, double score,
+                                  Map<String, GroupFactor> groups, Map<String, SourceFactor> sources) {
+
+	public record GroupFactor(double sum, int count) {
+		public static final WireCodec<GroupFactor> CODEC = new WireCodec<>() {
+			@Override
+			public void write(GroupFactor value, ProtoWriter out) {
+				out.doubleValue(1, value.sum()).int32(2, value.count());
+			}
+
+			@Override
+			public GroupFactor read(ProtoReader in) {
+				double sum = 0;
+				int count = 0;
+				for (int tag = in.next(); tag != 0; tag = in.next()) {
+					switch (ProtoReader.field(tag)) {
+						case 1 -> sum = in.doubleValue();
+						case 2 -> count = in.int32();
+						default -> in.skip(tag);
+					}
+				}
+				return new GroupFactor(sum, count);
+			}
+		};
+	}
+
+	public record SourceFactor(String group, double evidence) {
+		public static final WireCodec<SourceFactor> CODEC = new WireCodec<>() {
+			@Override
+			public void write(SourceFactor value, ProtoWriter out) {
+				out.string(1, value.group()).doubleValue(2, value.evidence());
+			}
+
+			@Override
+			public SourceFactor read(ProtoReader in) {
+				String group = null;
+				double evidence = 0;
+				for (int tag = in.next(); tag != 0; tag = in.next()) {
+					switch (ProtoReader.field(tag)) {
+						case 1 -> group = in.string();
+						case 2 -> evidence = in.doubleValue();
+						default -> in.skip(tag);
+					}
+				}
+				return new SourceFactor(group, evidence);
+			}
+		};
+	}
+
+	public static final WireCodec<ConfidenceBreakdown> CODEC = new WireCodec<>() {
+		@Override
+		public void write(ConfidenceBreakdown value, ProtoWriter out) {
+			out.doubleValue(1, value.prior())
+				.doubleValue(2, value.evidence())
+				.doubleValue(3, value.score())
+				.map(4, value.groups(), (g, w) -> w.message(2, g, GroupFactor.CODEC))
+				.map(5, value.sources(), (s, w) -> w.message(2, s, SourceFactor.CODEC));
+		}
+
+		@Override
+		public ConfidenceBreakdown read(ProtoReader in) {
+			double prior = 0;
+			double evidence = 0;
+			double score = 0;
+			Map<String, GroupFactor> groups = new LinkedHashMap<>();
+			Map<String, SourceFactor> sources = new LinkedHashMap<>();
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> prior = in.doubleValue();
+					case 2 -> evidence = in.doubleValue();
+					case 3 -> score = in.doubleValue();
+					case 4 -> in.mapEntry(groups, r -> r.message(GroupFactor.CODEC), new GroupFactor(0, 0));
+					case 5 -> in.mapEntry(sources, r -> r.message(SourceFactor.CODEC), new SourceFactor(null, 0));
+					default -> in.skip(tag);
+				}
+			}
+			return new ConfidenceBreakdown(prior, evidence, score, groups, sources);
+		}
+	};
+
+	public ConfidenceBreakdown {
+		groups = groups == null ? Map.of() : groups;
+		sources = sources == null ? Map.of() : sources;
+	}
+}
@@ -0,0 +1,36 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.ProtoReader;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.WireCodec;
+
+/** A decision to record; {@code status} defaults to {@code APPROVED}. */
+public record CreateDecision(String status, String relatedEventId, String reason, String notes) {
+	public static final WireCodec<CreateDecision> CODEC = new WireCodec<>() {
+		@Override
+		public void write(CreateDecision value, ProtoWriter out) {
+			out.string(1, value.status())
+				.string(2, value.relatedEventId())
+				.string(3, value.reason())
+				.string(4, value.notes());
+		}
+
+		@Override
+		public CreateDecision read(ProtoReader in) {
+			String status = null;
+			String relatedEventId = null;
+			String reason = null;
+			String notes = null;
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> status = in.string();
+					case 2 -> relatedEventId = in.string();
+					case 3 -> reason = in.string();
+					case 4 -> notes = in.string();
+					default -> in.skip(tag);
+				}
+			}
+			return new CreateDecision(status, relatedEventId, reason, notes);
+		}
+	};
+}
@@ -0,0 +1,38 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.ProtoReader;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.Timestamps;
+import com.cop.schema.wire.WireCodec;
+
+import java.time.Instant;
+
+public record Decision(String id, String status, String relatedEventId, Instant createdAt) {
+	public static final WireCodec<Decision> CODEC = new WireCodec<>() {
+		@Override
+		public void write(Decision value, ProtoWriter out) {
+			out.string(1, value.id())
+				.string(2, value.status())
+				.string(3, value.relatedEventId())
+				.message(4, value.createdAt(), Timestamps.CODEC);
+		}
+
+		@Override
+		public Decision read(ProtoReader in) {
+			String id = null;
+			String status = null;
+			String relatedEventId = null;
+			Instant createdAt = null;
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> id = in.string();
+					case 2 -> status = in.string();
+					case 3 -> relatedEventId = in.string();
+					case 4 -> createdAt = in.message(Timestamps.CODEC);
+					default -> in.skip(tag);
+				}
+			}
+			return new Decision(id, status, relatedEventId, createdAt);
+		}
+	};
+}
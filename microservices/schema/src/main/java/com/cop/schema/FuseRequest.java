@@ -0,0 +1,34 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.ProtoReader;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.WireCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Reports to fuse into one event. */
+public record FuseRequest(List<String> reportIds) {
+	public static final WireCodec<FuseRequest> CODEC = new WireCodec<>() {
+		@Override
+		public void write(FuseRequest value, ProtoWriter out) {
+			out.strings(1, value.reportIds());
+		}
+
+		@Override
+		public FuseRequest read(ProtoReader in) {
+			List<String> reportIds = new ArrayList<>();
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> reportIds.add(in.string());
+					default -> in.skip(tag);
+				}
+			}
+			return new FuseRequest(reportIds);
+		}
+	};
+
+	public FuseRequest {
+		reportIds = reportIds == null ? List.of() : List.copyOf(reportIds);
+	}
+}
@@ -0,0 +1,52 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.ProtoReader;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.Timestamps;
+import com.cop.schema.wire.WireCodec;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/** An event fused from source reports, with the breakdown of its confidence score. */
+public record FusedEvent(String id, String title, double confidenceScore, ConfidenceBreakdown confidenceFactors,
+                         List<String> sourceReports, Instant createdAt) {
+	public static final WireCodec<FusedEvent> CODEC = new WireCodec<>() {
+		@Override
+		public void write(FusedEvent value, ProtoWriter out) {
+			out.string(1, value.id())
+				.string(2, value.title())
+				.doubleValue(3, value.confidenceScore())
+				.message(4, value.confidenceFactors(), ConfidenceBreakdown.CODEC)
+				.strings(5, value.sourceReports())
+				.message(6, value.createdAt(), Timestamps.CODEC);
+		}
+
+		@Override
+		public FusedEvent read(ProtoReader in) {
+			String id = null;
+			String title = null;
+			double confidenceScore = 0;
+			ConfidenceBreakdown confidenceFactors = null;
+			List<String> sourceReports = new ArrayList<>();
+			Instant createdAt = null;
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> id = in.string();
+					case 2 -> title = in.string();
+					case 3 -> confidenceScore = in.doubleValue();
+					case 4 -> confidenceFactors = in.message(ConfidenceBreakdown.CODEC);
+					case 5 -> sourceReports.add(in.string());
+					case 6 -> createdAt = in.message(Timestamps.CODEC);
+					default -> in.skip(tag);
+				}
+			}
+			return new FusedEvent(id, title, confidenceScore, confidenceFactors, sourceReports, createdAt);
+		}
+	};
+
+	public FusedEvent {
+		sourceReports = sourceReports == null ? List.of() : List.copyOf(sourceReports);
+	}
+}
@@ -0,0 +1,62 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.ProtoReader;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.WireCodec;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A WGS84 position. In JSON it keeps the GeoJSON shape browsers already send,
+ * {@code {"type": "Point", "coordinates": [lon, lat]}}; on the wire it is two doubles.
+ */
+public record GeoPoint(@JsonIgnore double lon, @JsonIgnore double lat) {
+	public static final WireCodec<GeoPoint> CODEC = new WireCodec<>() {
+		@Override
+		public void write(GeoPoint value, ProtoWriter out) {
+			out.doubleValue(1, value.lon()).doubleValue(2, value.lat());
+		}
+
+		@Override
+		public GeoPoint read(ProtoReader in) {
+			double lon = 0;
+			double lat = 0;
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> lon = in.doubleValue();
+					case 2 -> lat = in.doubleValue();
+					default -> in.skip(tag);
+				}
+			}
+			return new GeoPoint(lon, lat);
+		}
+	};
+
+	public GeoPoint {
+		if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+			throw new IllegalArgumentException("Coordinates out of range: " + lon + ", " + lat);
+		}
+	}
+
+	@JsonCreator
+	static GeoPoint fromGeoJson(@JsonProperty("type") String type, @JsonProperty("coordinates") double[] coordinates) {
+		if (type != null && !"Point".equals(type)) {
+			throw new IllegalArgumentException("Expected a Point, got " + type);
+		}
+		if (coordinates == null || coordinates.length < 2) {
+			throw new IllegalArgumentException("Point needs [lon, lat] coordinates");
+		}
+		return new GeoPoint(coordinates[0], coordinates[1]);
+	}
+
+	@JsonProperty("type")
+	public String type() {
+		return "Point";
+	}
+
+	@JsonProperty("coordinates")
+	public double[] coordinates() {
+		return new double[] {lon, lat};
+	}
+}
@@ -0,0 +1,62 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.ProtoReader;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.Timestamps;
+import com.cop.schema.wire.WireCodec;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An intelligence report as submitted by an analyst. {@code content} holds the free-text sections
+ * (summary, details, source, ...) by name; {@code reliability} and {@code credibility} are the
+ * admiralty grades A-F and 1-6.
+ */
+public record ReportSubmission(String type, String title, Map<String, String> content, GeoPoint location,
+                               Instant collectionTime, String classification, String reliability, String credibility) {
+	public static final WireCodec<ReportSubmission> CODEC = new WireCodec<>() {
+		@Override
+		public void write(ReportSubmission value, ProtoWriter out) {
+			out.string(1, value.type())
+				.string(2, value.title())
+				.map(3, value.content(), (text, w) -> w.string(2, text))
+				.message(4, value.location(), GeoPoint.CODEC)
+				.message(5, value.collectionTime(), Timestamps.CODEC)
+				.string(6, value.classification())
+				.string(7, value.reliability())
+				.string(8, value.credibility());
+		}
+
+		@Override
+		public ReportSubmission read(ProtoReader in) {
+			String type = null;
+			String title = null;
+			Map<String, String> content = new LinkedHashMap<>();
+			GeoPoint location = null;
+			Instant collectionTime = null;
+			String classification = null;
+			String reliability = null;
+			String credibility = null;
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> type = in.string();
+					case 2 -> title = in.string();
+					case 3 -> in.mapEntry(content, ProtoReader::string, "");
+					case 4 -> location = in.message(GeoPoint.CODEC);
+					case 5 -> collectionTime = in.message(Timestamps.CODEC);
+					case 6 -> classification = in.string();
+					case 7 -> reliability = in.string();
+					case 8 -> credibility = in.string();
+					default -> in.skip(tag);
+				}
+			}
+			return new ReportSubmission(type, title, content, location, collectionTime, classification, reliability, credibility);
+		}
+	};
+
+	public ReportSubmission {
+		content = content == null ? Map.of() : content;
+	}
+}
@@ -0,0 +1,54 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.ProtoReader;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.WireCodec;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * A located report forwarded between fusion shards. The id travels as its 16 raw bytes and the
+ * event time as epoch milliseconds.
+ */
+public record ShardReport(UUID id, double lat, double lon, long eventTime) {
+	public static final WireCodec<ShardReport> CODEC = new WireCodec<>() {
+		@Override
+		public void write(ShardReport value, ProtoWriter out) {
+			out.bytes(1, ByteBuffer.allocate(16)
+					.putLong(value.id().getMostSignificantBits())
+					.putLong(value.id().getLeastSignificantBits())
+					.array())
+				.doubleValue(2, value.lat())
+				.doubleValue(3, value.lon())
+				.int64(4, value.eventTime());
+		}
+
+		@Override
+		public ShardReport read(ProtoReader in) {
+			UUID id = null;
+			double lat = 0;
+			double lon = 0;
+			long eventTime = 0;
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> {
+						ByteBuffer bytes = ByteBuffer.wrap(in.bytes());
+						if (bytes.remaining() != 16) {
+							throw new IllegalArgumentException("Report id must be 16 bytes");
+						}
+						id = new UUID(bytes.getLong(), bytes.getLong());
+					}
+					case 2 -> lat = in.doubleValue();
+					case 3 -> lon = in.doubleValue();
+					case 4 -> eventTime = in.int64();
+					default -> in.skip(tag);
+				}
+			}
+			if (id == null) {
+				throw new IllegalArgumentException("Report id is required");
+			}
+			return new ShardReport(id, lat, lon, eventTime);
+		}
+	};
+}
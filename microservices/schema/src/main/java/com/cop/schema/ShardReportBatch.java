@@ -0,0 +1,33 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.ProtoReader;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.WireCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record ShardReportBatch(List<ShardReport> reports) {
+	public static final WireCodec<ShardReportBatch> CODEC = new WireCodec<>() {
+		@Override
+		public void write(ShardReportBatch value, ProtoWriter out) {
+			out.messages(1, value.reports(), ShardReport.CODEC);
+		}
+
+		@Override
+		public ShardReportBatch read(ProtoReader in) {
+			List<ShardReport> reports = new ArrayList<>();
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> reports.add(in.message(ShardReport.CODEC));
+					default -> in.skip(tag);
+				}
+			}
+			return new ShardReportBatch(reports);
+		}
+	};
+
+	public ShardReportBatch {
+		reports = reports == null ? List.of() : List.copyOf(reports);
+	}
+}
@@ -0,0 +1,33 @@
+package com.cop.schema;
+
+import com.cop.schema.wire.WireCodec;
+
+import java.util.Map;
+
+/**
+ * The messages of {@code cop.proto} and their codecs.
+ */
+public final class WireMessages {
+	/** Protobuf bodies; the name most protobuf clients already send and accept. */
+	public static final String MEDIA_TYPE = "application/x-protobuf";
+
+	private static final Map<Class<?>, WireCodec<?>> CODECS = Map.of(
+		FuseRequest.class, FuseRequest.CODEC,
+		FusedEvent.class, FusedEvent.CODEC,
+		ConfidenceBreakdown.class, ConfidenceBreakdown.CODEC,
+		CreateDecision.class, CreateDecision.CODEC,
+		Decision.class, Decision.CODEC,
+		ReportSubmission.class, ReportSubmission.CODEC,
+		GeoPoint.class, GeoPoint.CODEC,
+		ShardReport.class, ShardReport.CODEC,
+		ShardReportBatch.class, ShardReportBatch.CODEC
+	);
+
+	private WireMessages() {
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> WireCodec<T> codecFor(Class<T> type) {
+		return (WireCodec<T>) CODECS.get(type);
+	}
+}
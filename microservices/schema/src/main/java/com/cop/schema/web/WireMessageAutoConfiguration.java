@@ -0,0 +1,30 @@
+package com.cop.schema.web;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@AutoConfiguration
+@ConditionalOnClass(WebMvcConfigurer.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WireMessageAutoConfiguration {
+
+	/**
+	 * Appended rather than declared as a converter bean: Boot puts converter beans ahead of Jackson,
+	 * which would answer {@code Accept: *}{@code /*} with protobuf.
+	 */
+	@Bean
+	WebMvcConfigurer wireMessageConverterConfigurer() {
+		return new WebMvcConfigurer() {
+			@Override
+			public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+				converters.add(new WireMessageConverter());
+			}
+		};
+	}
+}
@@ -0,0 +1,50 @@
+package com.cop.schema.web;
+
+import com.cop.schema.WireMessages;
+import com.cop.schema.wire.ProtoWriter;
+import com.cop.schema.wire.WireCodec;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes the {@link WireMessages} types as {@code application/x-protobuf}. Registered
+ * after the JSON converter, so a browser sending {@code Accept: *}{@code /*} still gets JSON and only
+ * callers that ask for protobuf get it.
+ */
+public class WireMessageConverter extends AbstractHttpMessageConverter<Object> {
+	public static final MediaType PROTOBUF = MediaType.parseMediaType(WireMessages.MEDIA_TYPE);
+
+	public WireMessageConverter() {
+		super(PROTOBUF);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return WireMessages.codecFor(clazz) != null;
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+		WireCodec<?> codec = WireMessages.codecFor(clazz);
+		try {
+			return codec.decode(inputMessage.getBody().readAllBytes());
+		} catch (IllegalArgumentException e) {
+			throw new HttpMessageNotReadableException("Invalid " + clazz.getSimpleName() + ": " + e.getMessage(), e, inputMessage);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+		WireCodec<Object> codec = (WireCodec<Object>) WireMessages.codecFor(value.getClass());
+		ProtoWriter out = new ProtoWriter();
+		codec.write(value, out);
+		outputMessage.getHeaders().setContentLength(out.size());
+		outputMessage.getBody().write(out.toByteArray());
+	}
+}
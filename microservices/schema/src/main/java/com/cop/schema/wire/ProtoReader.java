@@ -0,0 +1,199 @@
+package com.cop.schema.wire;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads the protobuf wire format from a byte array. Fields a codec does not know are skipped, so
+ * a newer sender can add fields without breaking an older receiver.
+ * <p>
+ * Typical use:
+ * <pre>{@code
+ * for (int tag = in.next(); tag != 0; tag = in.next()) {
+ *     switch (ProtoReader.field(tag)) {
+ *         case 1 -> id = in.string();
+ *         default -> in.skip(tag);
+ *     }
+ * }
+ * }</pre>
+ */
+public final class ProtoReader {
+	private final byte[] buffer;
+	private int position;
+	private final int limit;
+	private int wireType;
+
+	public ProtoReader(byte[] buffer) {
+		this(buffer, 0, buffer.length);
+	}
+
+	public ProtoReader(byte[] buffer, int offset, int length) {
+		if (offset < 0 || length < 0 || offset + length > buffer.length) {
+			throw new IllegalArgumentException("Range outside the buffer");
+		}
+		this.buffer = buffer;
+		this.position = offset;
+		this.limit = offset + length;
+	}
+
+	/**
+	 * The next field's tag, or 0 at the end of the message.
+	 */
+	public int next() {
+		if (position >= limit) {
+			return 0;
+		}
+		// An unsigned 32-bit value: the field number in the upper 29 bits, the wire type below
+		long tag = varint();
+		if (tag < 0 || tag > 0xFFFFFFFFL || tag >>> 3 == 0) {
+			throw new WireFormatException("Invalid field tag " + Long.toUnsignedString(tag));
+		}
+		wireType = (int) (tag & 7);
+		return (int) tag;
+	}
+
+	/**
+	 * The field number of a tag from {@link #next}, between 1 and {@link ProtoWriter#MAX_FIELD}.
+	 */
+	public static int field(int tag) {
+		return tag >>> 3;
+	}
+
+	public String string() {
+		int length = length();
+		String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return value;
+	}
+
+	public byte[] bytes() {
+		int length = length();
+		byte[] value = Arrays.copyOfRange(buffer, position, position + length);
+		position += length;
+		return value;
+	}
+
+	public double doubleValue() {
+		expect(ProtoWriter.FIXED64);
+		return Double.longBitsToDouble(fixed64());
+	}
+
+	/**
+	 * A {@code repeated double} field, packed or not, appended to {@code into}.
+	 */
+	public double[] doubles(double[] into) {
+		if (wireType == ProtoWriter.FIXED64) {
+			double[] grown = Arrays.copyOf(into, into.length + 1);
+			grown[into.length] = Double.longBitsToDouble(fixed64());
+			return grown;
+		}
+		int length = length();
+		if (length % 8 != 0) {
+			throw new WireFormatException("Packed doubles of " + length + " bytes");
+		}
+		double[] grown = Arrays.copyOf(into, into.length + length / 8);
+		for (int i = into.length; i < grown.length; i++) {
+			grown[i] = Double.longBitsToDouble(fixed64());
+		}
+		return grown;
+	}
+
+	public long int64() {
+		expect(ProtoWriter.VARINT);
+		return varint();
+	}
+
+	public int int32() {
+		return (int) int64();
+	}
+
+	public boolean bool() {
+		return int64() != 0;
+	}
+
+	public <T> T message(WireCodec<T> codec) {
+		int length = length();
+		ProtoReader nested = new ProtoReader(buffer, position, length);
+		position += length;
+		return codec.read(nested);
+	}
+
+	/**
+	 * One entry of a {@code map<string, V>} field, added to {@code into}.
+	 */
+	public <V> void mapEntry(Map<String, V> into, Function<ProtoReader, V> valueReader, V defaultValue) {
+		int length = length();
+		ProtoReader entry = new ProtoReader(buffer, position, length);
+		position += length;
+		String key = "";
+		V value = defaultValue;
+		for (int tag = entry.next(); tag != 0; tag = entry.next()) {
+			switch (field(tag)) {
+				case 1 -> key = entry.string();
+				case 2 -> value = valueReader.apply(entry);
+				default -> entry.skip(tag);
+			}
+		}
+		into.put(key, value);
+	}
+
+	public void skip(int tag) {
+		switch (tag & 7) {
+			case ProtoWriter.VARINT -> varint();
+			case ProtoWriter.FIXED64 -> advance(8);
+			case ProtoWriter.LENGTH_DELIMITED -> advance(length());
+			case ProtoWriter.FIXED32 -> advance(4);
+			default -> throw new WireFormatException("Unsupported wire type " + (tag & 7));
+		}
+	}
+
+	private int length() {
+		expect(ProtoWriter.LENGTH_DELIMITED);
+		long length = varint();
+		if (length < 0 || length > limit - position) {
+			throw new WireFormatException("Field length " + length + " runs past the message");
+		}
+		return (int) length;
+	}
+
+	private void expect(int type) {
+		if (wireType != type) {
+			throw new WireFormatException("Expected wire type " + type + ", found " + wireType);
+		}
+	}
+
+	private long varint() {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			if (position >= limit) {
+				throw new WireFormatException("Truncated varint");
+			}
+			byte b = buffer[position++];
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new WireFormatException("Malformed varint");
+	}
+
+	private long fixed64() {
+		if (limit - position < 8) {
+			throw new WireFormatException("Truncated fixed64");
+		}
+		long value = 0;
+		for (int i = 0; i < 8; i++) {
+			value |= (buffer[position++] & 0xFFL) << (8 * i);
+		}
+		return value;
+	}
+
+	private void advance(int count) {
+		if (count > limit - position) {
+			throw new WireFormatException("Field runs past the message");
+		}
+		position += count;
+	}
+}
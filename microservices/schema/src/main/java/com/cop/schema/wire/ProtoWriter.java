@@ -0,0 +1,252 @@
+package com.cop.schema.wire;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes the protobuf wire format into a growable buffer. Fields holding their default (null,
+ * empty, zero) are left out, as proto3 does, so they cost nothing on the wire.
+ * <p>
+ * A nested message is written in place behind a one-byte length placeholder that is widened
+ * afterwards if the message turned out longer, which saves encoding it twice.
+ */
+public final class ProtoWriter {
+	static final int VARINT = 0;
+	static final int FIXED64 = 1;
+	static final int LENGTH_DELIMITED = 2;
+	static final int FIXED32 = 5;
+
+	/** The largest field number protobuf allows, {@code 2^29 - 1}. */
+	public static final int MAX_FIELD = (1 << 29) - 1;
+
+	private byte[] buffer;
+	private int position;
+
+	public ProtoWriter() {
+		this(256);
+	}
+
+	public ProtoWriter(int initialCapacity) {
+		buffer = new byte[Math.max(initialCapacity, 16)];
+	}
+
+	public ProtoWriter string(int field, String value) {
+		if (value == null || value.isEmpty()) {
+			return this;
+		}
+		tag(field, LENGTH_DELIMITED);
+		// Worst case three bytes per UTF-16 unit; encode straight into the buffer when ASCII
+		int length = value.length();
+		ensure(5 + length * 3);
+		int start = position + 1;
+		int ascii = 0;
+		while (ascii < length && value.charAt(ascii) < 0x80) {
+			ascii++;
+		}
+		if (ascii == length && length < 128) {
+			buffer[position++] = (byte) length;
+			for (int i = 0; i < length; i++) {
+				buffer[start + i] = (byte) value.charAt(i);
+			}
+			position += length;
+			return this;
+		}
+		return bytes(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public ProtoWriter strings(int field, Collection<String> values) {
+		if (values != null) {
+			for (String value : values) {
+				// Unlike a single field, an element keeps its slot even when empty
+				tag(field, LENGTH_DELIMITED);
+				bytes(value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8));
+			}
+		}
+		return this;
+	}
+
+	public ProtoWriter bytes(int field, byte[] value) {
+		if (value == null || value.length == 0) {
+			return this;
+		}
+		tag(field, LENGTH_DELIMITED);
+		return bytes(value);
+	}
+
+	public ProtoWriter doubleValue(int field, double value) {
+		if (Double.doubleToRawLongBits(value) == 0) {
+			return this;
+		}
+		tag(field, FIXED64);
+		fixed64(Double.doubleToRawLongBits(value));
+		return this;
+	}
+
+	/**
+	 * A {@code repeated double}, packed into one length-delimited field.
+	 */
+	public ProtoWriter packedDoubles(int field, double[] values) {
+		if (values == null || values.length == 0) {
+			return this;
+		}
+		tag(field, LENGTH_DELIMITED);
+		varint(values.length * 8L);
+		for (double value : values) {
+			fixed64(Double.doubleToRawLongBits(value));
+		}
+		return this;
+	}
+
+	public ProtoWriter int64(int field, long value) {
+		if (value == 0) {
+			return this;
+		}
+		tag(field, VARINT);
+		varint(value);
+		return this;
+	}
+
+	public ProtoWriter int32(int field, int value) {
+		if (value == 0) {
+			return this;
+		}
+		tag(field, VARINT);
+		// Negative int32 is sign-extended to ten bytes on the wire, as protobuf does
+		varint(value);
+		return this;
+	}
+
+	public ProtoWriter bool(int field, boolean value) {
+		if (value) {
+			tag(field, VARINT);
+			ensure(1);
+			buffer[position++] = 1;
+		}
+		return this;
+	}
+
+	public <T> ProtoWriter message(int field, T value, WireCodec<T> codec) {
+		if (value == null) {
+			return this;
+		}
+		tag(field, LENGTH_DELIMITED);
+		int mark = beginLength();
+		codec.write(value, this);
+		endLength(mark);
+		return this;
+	}
+
+	public <T> ProtoWriter messages(int field, Collection<T> values, WireCodec<T> codec) {
+		if (values != null) {
+			for (T value : values) {
+				tag(field, LENGTH_DELIMITED);
+				int mark = beginLength();
+				codec.write(value, this);
+				endLength(mark);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * A protobuf {@code map<string, V>}: one entry message per key with the key in field 1 and the
+	 * value in field 2.
+	 */
+	public <V> ProtoWriter map(int field, Map<String, V> values, BiConsumer<V, ProtoWriter> valueWriter) {
+		if (values != null) {
+			for (Map.Entry<String, V> entry : values.entrySet()) {
+				tag(field, LENGTH_DELIMITED);
+				int mark = beginLength();
+				string(1, entry.getKey());
+				if (entry.getValue() != null) {
+					valueWriter.accept(entry.getValue(), this);
+				}
+				endLength(mark);
+			}
+		}
+		return this;
+	}
+
+	public int size() {
+		return position;
+	}
+
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, position);
+	}
+
+	public void reset() {
+		position = 0;
+	}
+
+	private ProtoWriter bytes(byte[] value) {
+		varint(value.length);
+		ensure(value.length);
+		System.arraycopy(value, 0, buffer, position, value.length);
+		position += value.length;
+		return this;
+	}
+
+	private void tag(int field, int wireType) {
+		if (field < 1 || field > MAX_FIELD) {
+			throw new IllegalArgumentException("Field number " + field + " out of range");
+		}
+		varint(((long) field << 3) | wireType);
+	}
+
+	private void varint(long value) {
+		ensure(10);
+		while ((value & ~0x7FL) != 0) {
+			buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+	}
+
+	private void fixed64(long value) {
+		ensure(8);
+		for (int i = 0; i < 8; i++) {
+			buffer[position++] = (byte) (value >>> (8 * i));
+		}
+	}
+
+	private int beginLength() {
+		ensure(1);
+		return position++;
+	}
+
+	private void endLength(int mark) {
+		int length = position - mark - 1;
+		int width = varintWidth(length);
+		if (width > 1) {
+			ensure(width - 1);
+			System.arraycopy(buffer, mark + 1, buffer, mark + width, length);
+			position += width - 1;
+		}
+		int p = mark;
+		long value = length;
+		while ((value & ~0x7FL) != 0) {
+			buffer[p++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[p] = (byte) value;
+	}
+
+	private static int varintWidth(int value) {
+		int width = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			width++;
+		}
+		return width;
+	}
+
+	private void ensure(int extra) {
+		if (position + extra > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.cop.schema.wire;
+
+import java.time.Instant;
+
+/**
+ * {@link Instant} as a message with the layout of {@code google.protobuf.Timestamp}: seconds in
+ * field 1, nanoseconds in field 2.
+ */
+public final class Timestamps {
+	public static final WireCodec<Instant> CODEC = new WireCodec<>() {
+		@Override
+		public void write(Instant value, ProtoWriter out) {
+			out.int64(1, value.getEpochSecond()).int32(2, value.getNano());
+		}
+
+		@Override
+		public Instant read(ProtoReader in) {
+			long seconds = 0;
+			int nanos = 0;
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> seconds = in.int64();
+					case 2 -> nanos = in.int32();
+					default -> in.skip(tag);
+				}
+			}
+			return Instant.ofEpochSecond(seconds, nanos);
+		}
+	};
+
+	private Timestamps() {
+	}
+}
@@ -0,0 +1,21 @@
+package com.cop.schema.wire;
+
+/**
+ * Hand-written protobuf codec for one message type. Field numbers follow {@code cop.proto}, so any
+ * protobuf implementation can talk to a service using these codecs.
+ */
+public interface WireCodec<T> {
+	void write(T value, ProtoWriter out);
+
+	T read(ProtoReader in);
+
+	default byte[] encode(T value) {
+		ProtoWriter out = new ProtoWriter();
+		write(value, out);
+		return out.toByteArray();
+	}
+
+	default T decode(byte[] bytes) {
+		return read(new ProtoReader(bytes));
+	}
+}
@@ -0,0 +1,8 @@
+package com.cop.schema.wire;
+
+/** Thrown when a message is not valid protobuf wire format or does not fit its schema. */
+public class WireFormatException extends IllegalArgumentException {
+	public WireFormatException(String message) {
+		super(message);
+	}
+}
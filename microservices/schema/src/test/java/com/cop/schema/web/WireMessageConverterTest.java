@@ -0,0 +1,65 @@
+package com.cop.schema.web;
+
+import com.cop.schema.FuseRequest;
+import com.cop.schema.FusedEvent;
+import com.cop.schema.GeoPoint;
+import com.cop.schema.wire.ProtoWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WireMessageConverterTest {
+	private final WireMessageConverter converter = new WireMessageConverter();
+
+	@Test
+	void handlesOnlyWireMessagesAsProtobuf() {
+		assertThat(converter.canRead(FuseRequest.class, WireMessageConverter.PROTOBUF)).isTrue();
+		assertThat(converter.canWrite(FusedEvent.class, WireMessageConverter.PROTOBUF)).isTrue();
+		assertThat(converter.canRead(FuseRequest.class, MediaType.APPLICATION_JSON)).isFalse();
+		assertThat(converter.canRead(String.class, WireMessageConverter.PROTOBUF)).isFalse();
+	}
+
+	@Test
+	void writtenBodyReadsBack() throws IOException {
+		FusedEvent event = new FusedEvent("e1", "Title", 0.5, null, List.of("r1"), Instant.ofEpochSecond(10, 5));
+		MockHttpOutputMessage output = new MockHttpOutputMessage();
+		converter.write(event, WireMessageConverter.PROTOBUF, output);
+
+		assertThat(output.getHeaders().getContentType()).isEqualTo(WireMessageConverter.PROTOBUF);
+		assertThat(output.getHeaders().getContentLength()).isEqualTo(output.getBodyAsBytes().length);
+		MockHttpInputMessage input = new MockHttpInputMessage(output.getBodyAsBytes());
+		input.getHeaders().setContentType(WireMessageConverter.PROTOBUF);
+		assertThat(converter.read(FusedEvent.class, input)).isEqualTo(event);
+	}
+
+	@Test
+	void emptyBodyIsTheDefaultMessage() throws IOException {
+		assertThat(converter.read(FuseRequest.class, new MockHttpInputMessage(new byte[0])))
+			.isEqualTo(new FuseRequest(List.of()));
+	}
+
+	@Test
+	void malformedBodyIsNotReadable() {
+		// Field 1 claims five bytes but only one follows
+		assertThatThrownBy(() -> converter.read(FuseRequest.class, new MockHttpInputMessage(new byte[] {0x0A, 0x05, 'a'})))
+			.isInstanceOf(HttpMessageNotReadableException.class)
+			.hasMessageContaining("FuseRequest");
+	}
+
+	@Test
+	void invalidValuesAreNotReadable() {
+		// lat 100 is outside the range GeoPoint accepts
+		byte[] body = new ProtoWriter().doubleValue(2, 100).toByteArray();
+		assertThatThrownBy(() -> converter.read(GeoPoint.class, new MockHttpInputMessage(body)))
+			.isInstanceOf(HttpMessageNotReadableException.class);
+	}
+}
@@ -0,0 +1,254 @@
+package com.cop.schema.wire;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProtoWireTest {
+
+	@Test
+	void scalarsRoundTrip() {
+		String longAscii = "x".repeat(300);
+		String unicode = "Ωmega – 北";
+		byte[] bytes = {0, 1, (byte) 0xFF};
+		byte[] encoded = new ProtoWriter(16)
+			.string(1, "short")
+			.string(2, longAscii)
+			.string(3, unicode)
+			.bytes(4, bytes)
+			.doubleValue(5, -12.5)
+			.int64(6, Long.MIN_VALUE)
+			.int32(7, -1)
+			.bool(8, true)
+			.doubleValue(9, -0.0)
+			.int64(ProtoWriter.MAX_FIELD, 42)
+			.toByteArray();
+
+		ProtoReader in = new ProtoReader(encoded);
+		Map<Integer, Object> fields = new LinkedHashMap<>();
+		for (int tag = in.next(); tag != 0; tag = in.next()) {
+			int field = ProtoReader.field(tag);
+			fields.put(field, switch (field) {
+				case 1, 2, 3 -> in.string();
+				case 4 -> in.bytes();
+				case 5, 9 -> in.doubleValue();
+				case 6, ProtoWriter.MAX_FIELD -> in.int64();
+				case 7 -> in.int32();
+				case 8 -> in.bool();
+				default -> throw new AssertionError("Unexpected field " + field);
+			});
+		}
+
+		assertThat(fields).containsExactly(
+			Map.entry(1, "short"),
+			Map.entry(2, longAscii),
+			Map.entry(3, unicode),
+			Map.entry(4, bytes),
+			Map.entry(5, -12.5),
+			Map.entry(6, Long.MIN_VALUE),
+			Map.entry(7, -1),
+			Map.entry(8, true),
+			Map.entry(9, -0.0),
+			Map.entry(ProtoWriter.MAX_FIELD, 42L));
+	}
+
+	@Test
+	void defaultsAreLeftOut() {
+		ProtoWriter out = new ProtoWriter()
+			.string(1, null)
+			.string(2, "")
+			.bytes(3, new byte[0])
+			.doubleValue(4, 0.0)
+			.int64(5, 0)
+			.int32(6, 0)
+			.bool(7, false)
+			.packedDoubles(8, new double[0])
+			.message(9, null, NUMBERS)
+			.strings(10, null);
+		assertThat(out.size()).isZero();
+	}
+
+	@Test
+	void nestedMessagesOfEveryLengthRoundTrip() {
+		// Lengths either side of the one-byte placeholder and of a two-byte length
+		for (int count : new int[] {0, 1, 15, 16, 17, 2047, 2048, 2049}) {
+			List<Long> numbers = new ArrayList<>();
+			for (int i = 0; i < count; i++) {
+				numbers.add(i + 1L);
+			}
+			byte[] encoded = new ProtoWriter(16).message(1, numbers, NUMBERS).int64(2, 7).toByteArray();
+
+			ProtoReader in = new ProtoReader(encoded);
+			List<Long> read = null;
+			long after = 0;
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				switch (ProtoReader.field(tag)) {
+					case 1 -> read = in.message(NUMBERS);
+					case 2 -> after = in.int64();
+					default -> in.skip(tag);
+				}
+			}
+			assertThat(read).as("%d numbers", count).isEqualTo(numbers);
+			assertThat(after).isEqualTo(7);
+		}
+	}
+
+	@Test
+	void repeatedFieldsAndMapsRoundTrip() {
+		Map<String, String> map = new LinkedHashMap<>();
+		map.put("a", "1");
+		map.put("b", "");
+		byte[] encoded = new ProtoWriter()
+			.strings(1, List.of("x", "", "z"))
+			.packedDoubles(2, new double[] {1.5, -2.5})
+			.map(3, map, (value, w) -> w.string(2, value))
+			.messages(4, List.of(List.of(1L), List.of(2L, 3L)), NUMBERS)
+			.toByteArray();
+
+		ProtoReader in = new ProtoReader(encoded);
+		List<String> strings = new ArrayList<>();
+		double[] doubles = new double[0];
+		Map<String, String> readMap = new LinkedHashMap<>();
+		List<List<Long>> messages = new ArrayList<>();
+		for (int tag = in.next(); tag != 0; tag = in.next()) {
+			switch (ProtoReader.field(tag)) {
+				case 1 -> strings.add(in.string());
+				case 2 -> doubles = in.doubles(doubles);
+				case 3 -> in.mapEntry(readMap, ProtoReader::string, "");
+				case 4 -> messages.add(in.message(NUMBERS));
+				default -> in.skip(tag);
+			}
+		}
+
+		assertThat(strings).containsExactly("x", "", "z");
+		assertThat(doubles).containsExactly(1.5, -2.5);
+		assertThat(readMap).containsExactly(Map.entry("a", "1"), Map.entry("b", ""));
+		assertThat(messages).containsExactly(List.of(1L), List.of(2L, 3L));
+	}
+
+	@Test
+	void unpackedDoublesAreAccepted() {
+		byte[] encoded = new ProtoWriter().doubleValue(1, 1.0).doubleValue(1, 2.0).toByteArray();
+		ProtoReader in = new ProtoReader(encoded);
+		double[] values = new double[0];
+		for (int tag = in.next(); tag != 0; tag = in.next()) {
+			values = in.doubles(values);
+		}
+		assertThat(values).containsExactly(1.0, 2.0);
+	}
+
+	@Test
+	void unknownFieldsOfEveryWireTypeAreSkipped() {
+		byte[] encoded = concat(
+			new ProtoWriter().int64(9, 300).doubleValue(10, 1.0).string(11, "skip me").toByteArray(),
+			// fixed32 field 12
+			new byte[] {(byte) 0x65, 1, 2, 3, 4},
+			new ProtoWriter().string(1, "kept").toByteArray());
+
+		ProtoReader in = new ProtoReader(encoded);
+		String kept = null;
+		for (int tag = in.next(); tag != 0; tag = in.next()) {
+			if (ProtoReader.field(tag) == 1) {
+				kept = in.string();
+			} else {
+				in.skip(tag);
+			}
+		}
+		assertThat(kept).isEqualTo("kept");
+	}
+
+	@Test
+	void fieldNumberZeroIsRejected() {
+		assertThatThrownBy(() -> new ProtoReader(new byte[] {0x02, 0x00}).next())
+			.isInstanceOf(WireFormatException.class);
+	}
+
+	@Test
+	void tenByteTagIsRejectedRatherThanTruncated() {
+		// Field 1, length-delimited, once the value is cut to 32 bits
+		byte[] tag = {(byte) 0x8A, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80,
+			(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+		assertThatThrownBy(() -> new ProtoReader(tag).next())
+			.isInstanceOf(WireFormatException.class)
+			.hasMessageContaining("Invalid field tag");
+	}
+
+	@Test
+	void tagAbove32BitsIsRejected() {
+		// 2^32 + 10: field 1 with a bit set above the tag's 32 bits
+		byte[] tag = {(byte) 0x8A, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10};
+		assertThatThrownBy(() -> new ProtoReader(tag).next()).isInstanceOf(WireFormatException.class);
+	}
+
+	@Test
+	void writerRefusesFieldNumbersOutOfRange() {
+		assertThatThrownBy(() -> new ProtoWriter().int64(0, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new ProtoWriter().int64(ProtoWriter.MAX_FIELD + 1, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void malformedInputIsRejected() {
+		// Truncated varint
+		assertThatThrownBy(() -> new ProtoReader(new byte[] {(byte) 0x80}).next()).isInstanceOf(WireFormatException.class);
+		// Length running past the end
+		ProtoReader pastEnd = new ProtoReader(new byte[] {0x0A, 0x05, 'a'});
+		pastEnd.next();
+		assertThatThrownBy(pastEnd::string).isInstanceOf(WireFormatException.class);
+		// Wrong wire type for the field
+		ProtoReader wrongType = new ProtoReader(new ProtoWriter().int64(1, 5).toByteArray());
+		wrongType.next();
+		assertThatThrownBy(wrongType::string).isInstanceOf(WireFormatException.class);
+		// Start group, which proto3 does not have
+		ProtoReader group = new ProtoReader(new byte[] {0x0B});
+		int tag = group.next();
+		assertThatThrownBy(() -> group.skip(tag)).isInstanceOf(WireFormatException.class);
+	}
+
+	@Test
+	void readerStaysInsideItsRange() {
+		byte[] encoded = new ProtoWriter().int64(1, 5).int64(2, 6).toByteArray();
+		ProtoReader in = new ProtoReader(encoded, 0, 2);
+		assertThat(ProtoReader.field(in.next())).isEqualTo(1);
+		assertThat(in.int64()).isEqualTo(5);
+		assertThat(in.next()).isZero();
+		assertThatThrownBy(() -> new ProtoReader(encoded, 2, 10)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// A message holding numbers as repeated int64 field 1
+	private static final WireCodec<List<Long>> NUMBERS = new WireCodec<>() {
+		@Override
+		public void write(List<Long> value, ProtoWriter out) {
+			value.forEach(n -> out.int64(1, n));
+		}
+
+		@Override
+		public List<Long> read(ProtoReader in) {
+			List<Long> numbers = new ArrayList<>();
+			for (int tag = in.next(); tag != 0; tag = in.next()) {
+				if (ProtoReader.field(tag) == 1) {
+					numbers.add(in.int64());
+				} else {
+					in.skip(tag);
+				}
+			}
+			return numbers;
+		}
+	};
+
+	private static byte[] concat(byte[]... parts) {
+		byte[] all = new byte[0];
+		for (byte[] part : parts) {
+			int at = all.length;
+			all = Arrays.copyOf(all, at + part.length);
+			System.arraycopy(part, 0, all, at, part.length);
+		}
+		return all;
+	}
+}
@@ -210,6 +210,8 @@ setup_frontend() {
 # Build backend
 setup_backend() {
     print_status "Building backend..."
+    mvn -f microservices/common/pom.xml clean install -DskipTests
+    mvn -f microservices/observability/pom.xml clean install -DskipTests
     cd backend
     mvn clean install -DskipTests
     cd ..